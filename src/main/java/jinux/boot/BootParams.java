@@ -0,0 +1,293 @@
+package jinux.boot;
+
+import jinux.include.MemoryConstants;
+import jinux.kernel.PlatformThreadExecutor;
+import jinux.kernel.TaskExecutor;
+import jinux.kernel.VirtualThreadExecutor;
+import jinux.mm.BuddyPhysicalMemory;
+import jinux.mm.HugePagePolicy;
+import jinux.mm.IPhysicalMemory;
+import jinux.mm.OffHeapPhysicalMemory;
+import jinux.mm.PerCpuPhysicalMemory;
+import jinux.mm.PhysicalMemory;
+import jinux.mm.TwoLevelPageTable;
+
+/**
+ * 内核启动参数
+ * 对应 Linux 中的内核命令行（如 {@code mem=64M}）
+ *
+ * 从 {@link Bootstrap#main(String[])} 的参数中解析，形如 {@code key=value}：
+ * <ul>
+ *   <li>{@code mm=flat|percpu|offheap|buddy} - 物理内存实现（默认 flat，即 {@link PhysicalMemory}）</li>
+ *   <li>{@code mem=<size>[K|M|G]} - 物理内存大小，仅 offheap 支持非默认值，最大 4G（页表项的物理页号为 20 位）</li>
+ *   <li>{@code paging=eager|demand} - brk/栈页面立即分配还是首次访问时分配（默认 eager）</li>
+ *   <li>{@code hugepages=never|always|madvise} - 匿名区域的大页策略（默认 never，需配合 mm=buddy）</li>
+ *   <li>{@code swap=<size>[K|M|G]} - 交换区大小（默认 0，即不启用交换）</li>
+ *   <li>{@code compaction=on|off} - 内存规整及 kcompactd（默认 on，仅 mm=buddy 支持，其他实现下不启用）</li>
+ *   <li>{@code exec=platform|virtual} - 进程执行后端（默认 platform；virtual 需要 JDK 21 及以上，否则退回 platform）</li>
+ *   <li>{@code nr_cpus=<n>} - 模拟的 CPU 数（默认 1，大于 1 时启用 SMP 调度，最多 {@link #MAX_CPUS}）</li>
+ * </ul>
+ *
+ * @author Jinux Project
+ */
+public class BootParams {
+
+    /** 物理内存实现：单数组 + 全局锁 */
+    public static final String MM_FLAT = "flat";
+
+    /** 物理内存实现：per-CPU 页面缓存 */
+    public static final String MM_PERCPU = "percpu";
+
+    /** 物理内存实现：堆外内存 */
+    public static final String MM_OFFHEAP = "offheap";
+
+    /** 物理内存实现：伙伴系统（支持连续多页分配） */
+    public static final String MM_BUDDY = "buddy";
+
+    /** 分页模式：立即分配 */
+    public static final String PAGING_EAGER = "eager";
+
+    /** 分页模式：请求调页 */
+    public static final String PAGING_DEMAND = "demand";
+
+    /** 内存规整：启用 */
+    public static final String COMPACTION_ON = "on";
+
+    /** 内存规整：关闭 */
+    public static final String COMPACTION_OFF = "off";
+
+    /** 执行后端：每个进程一个平台线程 */
+    public static final String EXEC_PLATFORM = "platform";
+
+    /** 执行后端：每个进程一个虚拟线程 */
+    public static final String EXEC_VIRTUAL = "virtual";
+
+    /** 最大 CPU 数（对应 NR_CPUS） */
+    public static final int MAX_CPUS = 64;
+
+    /** 物理内存实现 */
+    private String physicalMemoryType = MM_FLAT;
+
+    /** 物理内存大小（字节） */
+    private long memorySize = MemoryConstants.MEMORY_SIZE;
+
+    /** 是否启用请求调页 */
+    private boolean demandPaging;
+
+    /** 大页使用策略 */
+    private HugePagePolicy hugePagePolicy = HugePagePolicy.NEVER;
+
+    /** 交换区大小（字节），0 表示不启用交换 */
+    private long swapSize;
+
+    /** 是否启用内存规整 */
+    private boolean compaction = true;
+
+    /** 模拟的 CPU 数 */
+    private int nrCpus = 1;
+
+    /** 进程执行后端 */
+    private String executor = EXEC_PLATFORM;
+
+    /**
+     * 解析启动参数，无法识别的参数打印警告后忽略
+     *
+     * @param args 命令行参数
+     * @return 启动参数
+     */
+    public static BootParams parse(String[] args) {
+        BootParams params = new BootParams();
+        if (args == null) {
+            return params;
+        }
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("[BOOT] WARNING: Ignoring boot parameter: " + arg);
+                continue;
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+
+            switch (key) {
+                case "mm":
+                    if (MM_FLAT.equals(value) || MM_PERCPU.equals(value) || MM_OFFHEAP.equals(value)
+                        || MM_BUDDY.equals(value)) {
+                        params.physicalMemoryType = value;
+                    } else {
+                        System.err.println("[BOOT] WARNING: Unknown mm=" + value + ", using " + MM_FLAT);
+                    }
+                    break;
+                case "mem":
+                    long size = parseSize(value);
+                    if (size > TwoLevelPageTable.MAX_PHYSICAL_MEMORY) {
+                        // 页表项只能容纳 20 位物理页号
+                        System.err.println("[BOOT] WARNING: mem=" + value + " exceeds the "
+                            + (TwoLevelPageTable.MAX_PHYSICAL_MEMORY >> 30) + "G page table limit, ignored");
+                    } else if (size > MemoryConstants.KERNEL_MEMORY) {
+                        params.memorySize = size;
+                    } else {
+                        System.err.println("[BOOT] WARNING: Invalid mem=" + value);
+                    }
+                    break;
+                case "paging":
+                    if (PAGING_EAGER.equals(value) || PAGING_DEMAND.equals(value)) {
+                        params.demandPaging = PAGING_DEMAND.equals(value);
+                    } else {
+                        System.err.println("[BOOT] WARNING: Unknown paging=" + value + ", using " + PAGING_EAGER);
+                    }
+                    break;
+                case "hugepages":
+                    try {
+                        params.hugePagePolicy = HugePagePolicy.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("[BOOT] WARNING: Unknown hugepages=" + value + ", using never");
+                    }
+                    break;
+                case "swap":
+                    long swap = parseSize(value);
+                    if (swap >= 0) {
+                        params.swapSize = swap;
+                    } else {
+                        System.err.println("[BOOT] WARNING: Invalid swap=" + value);
+                    }
+                    break;
+                case "compaction":
+                    if (COMPACTION_ON.equals(value) || COMPACTION_OFF.equals(value)) {
+                        params.compaction = COMPACTION_ON.equals(value);
+                    } else {
+                        System.err.println("[BOOT] WARNING: Unknown compaction=" + value + ", using " + COMPACTION_ON);
+                    }
+                    break;
+                case "exec":
+                    if (EXEC_PLATFORM.equals(value) || EXEC_VIRTUAL.equals(value)) {
+                        params.executor = value;
+                    } else {
+                        System.err.println("[BOOT] WARNING: Unknown exec=" + value + ", using " + EXEC_PLATFORM);
+                    }
+                    break;
+                case "nr_cpus":
+                    int cpus = parseCpuCount(value);
+                    if (cpus > 0) {
+                        params.nrCpus = cpus;
+                    } else {
+                        System.err.println("[BOOT] WARNING: Invalid nr_cpus=" + value + ", using 1");
+                    }
+                    break;
+                default:
+                    System.err.println("[BOOT] WARNING: Ignoring boot parameter: " + arg);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 按启动参数创建物理内存管理器
+     *
+     * @return 物理内存管理器
+     */
+    public IPhysicalMemory createPhysicalMemory() {
+        if (MM_OFFHEAP.equals(physicalMemoryType)) {
+            return new OffHeapPhysicalMemory(memorySize);
+        }
+        if (memorySize != MemoryConstants.MEMORY_SIZE) {
+            System.err.println("[BOOT] WARNING: mem= is only supported with mm=" + MM_OFFHEAP +
+                ", using " + (MemoryConstants.MEMORY_SIZE / 1024 / 1024) + "MB");
+        }
+        if (MM_PERCPU.equals(physicalMemoryType)) {
+            return new PerCpuPhysicalMemory();
+        }
+        if (MM_BUDDY.equals(physicalMemoryType)) {
+            return new BuddyPhysicalMemory();
+        }
+        return new PhysicalMemory();
+    }
+
+    /**
+     * 按启动参数创建进程执行后端
+     *
+     * @return 执行后端
+     */
+    public TaskExecutor createTaskExecutor() {
+        if (EXEC_VIRTUAL.equals(executor)) {
+            if (!VirtualThreadExecutor.isSupported()) {
+                System.err.println("[BOOT] WARNING: exec=" + EXEC_VIRTUAL + " requires JDK 21+, using " + EXEC_PLATFORM);
+                return new PlatformThreadExecutor();
+            }
+            return new VirtualThreadExecutor();
+        }
+        return new PlatformThreadExecutor();
+    }
+
+    /**
+     * 解析带单位的大小（如 64M、2G、512K）
+     *
+     * @return 字节数，格式错误返回 -1
+     */
+    static long parseSize(String value) {
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        long multiplier = 1;
+        char unit = Character.toUpperCase(value.charAt(value.length() - 1));
+        if (unit == 'K' || unit == 'M' || unit == 'G') {
+            multiplier = unit == 'K' ? 1024L : unit == 'M' ? 1024L * 1024 : 1024L * 1024 * 1024;
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value) * multiplier;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 解析 CPU 数
+     *
+     * @return CPU 数，格式错误或超出范围返回 -1
+     */
+    private static int parseCpuCount(String value) {
+        try {
+            int cpus = Integer.parseInt(value);
+            return cpus >= 1 && cpus <= MAX_CPUS ? cpus : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public String getPhysicalMemoryType() {
+        return physicalMemoryType;
+    }
+
+    public long getMemorySize() {
+        return memorySize;
+    }
+
+    public boolean isDemandPaging() {
+        return demandPaging;
+    }
+
+    public HugePagePolicy getHugePagePolicy() {
+        return hugePagePolicy;
+    }
+
+    public long getSwapSize() {
+        return swapSize;
+    }
+
+    /**
+     * 是否启用内存规整：需要参数开启，且物理内存实现支持分配指定页面（mm=buddy）
+     */
+    public boolean isCompactionEnabled() {
+        return compaction && MM_BUDDY.equals(physicalMemoryType);
+    }
+
+    public String getExecutor() {
+        return executor;
+    }
+
+    public int getNrCpus() {
+        return nrCpus;
+    }
+}
@@ -15,14 +15,14 @@ public class Bootstrap {
     /**
      * 主入口
      * 
-     * @param args 命令行参数
+     * @param args 命令行参数（内核启动参数，见 {@link BootParams}）
      */
     public static void main(String[] args) {
         // 打印启动信息
         printBanner();
         
         // 创建并初始化内核
-        Kernel kernel = new Kernel();
+        Kernel kernel = new Kernel(BootParams.parse(args));
         kernel.init();
         
         // 创建 init 进程
@@ -58,9 +58,7 @@ public class ProcessExample {
                 if (executable != null) {
                     console.println("   ✓ Starting program execution...\n");
                     
-                    Thread thread = new Thread(executable, "demo-process-" + childPid);
-                    childTask.setExecutionThread(thread);
-                    thread.start();
+                    Thread thread = kernel.getScheduler().getTaskExecutor().start(childTask, "demo-process-" + childPid);
                     
                     // 等待程序执行完成
                     try {
@@ -10,7 +10,8 @@ import java.util.TimerTask;
  * 时钟设备
  * 对应 Linux 0.01 中的时钟中断 (kernel/sched.c 的 timer_interrupt)
  * 
- * 使用 Java Timer 模拟定时器中断
+ * 使用 Java Timer 模拟定时器中断，多 CPU 时每个 CPU 一个定时器线程（对应各 CPU 的本地 APIC 定时器），
+ * 各 CPU 的时钟滴答并行处理
  * 
  * @author Jinux Project
  */
@@ -19,8 +20,8 @@ public class ClockDevice extends Device {
     /** 调度器引用 */
     private final Scheduler scheduler;
     
-    /** Java 定时器 */
-    private Timer timer;
+    /** Java 定时器（每个 CPU 一个） */
+    private Timer[] timers;
     
     /** 是否运行中 */
     private volatile boolean running;
@@ -51,15 +52,20 @@ public class ClockDevice extends Device {
         }
         
         running = true;
-        timer = new Timer("ClockInterrupt", true);
-        
-        // 定时触发时钟中断
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                timerInterrupt();
-            }
-        }, ProcessConstants.TICK_MS, ProcessConstants.TICK_MS);
+        int nrCpus = scheduler.getNrCpus();
+        timers = new Timer[nrCpus];
+        for (int i = 0; i < nrCpus; i++) {
+            int cpu = i;
+            timers[cpu] = new Timer(nrCpus > 1 ? "ClockInterrupt-" + cpu : "ClockInterrupt", true);
+            
+            // 定时触发时钟中断
+            timers[cpu].scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    timerInterrupt(cpu);
+                }
+            }, ProcessConstants.TICK_MS, ProcessConstants.TICK_MS);
+        }
         
         System.out.println("[CLOCK] Timer started");
     }
@@ -73,9 +79,11 @@ public class ClockDevice extends Device {
         }
         
         running = false;
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
+        if (timers != null) {
+            for (Timer timer : timers) {
+                timer.cancel();
+            }
+            timers = null;
         }
         
         System.out.println("[CLOCK] Timer stopped");
@@ -83,10 +91,12 @@ public class ClockDevice extends Device {
     
     /**
      * 时钟中断处理
+     * 
+     * @param cpu 产生中断的 CPU
      */
-    private void timerInterrupt() {
+    private void timerInterrupt(int cpu) {
         // 调用调度器的时钟中断处理
-        scheduler.timerInterrupt();
+        scheduler.timerInterrupt(cpu);
     }
     
     /**
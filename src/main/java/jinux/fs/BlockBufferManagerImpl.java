@@ -1,19 +1,39 @@
 package jinux.fs;
 
 import jinux.drivers.VirtualDiskDevice;
+import jinux.include.FileSystemConstants;
+import jinux.mm.ObjectCache;
 
 import java.util.Map;
 
 /**
  * 块缓冲区管理器实现类
  * 负责块设备缓冲区的获取、释放和同步
+ * 
+ * 缓冲区数达到上限时淘汰最久未访问的空闲干净缓冲区（对应 Linux 0.01 getblk 的 LRU），
+ * 淘汰的缓冲区头经 buffer_head 对象缓存复用，避免每次未命中都分配新的块数据数组。
  */
 public class BlockBufferManagerImpl implements BlockBufferManager {
+    
+    /** 缓冲区头缓存（对应 Linux 中的 bh_cachep） */
+    private static final ObjectCache<BufferCache> BUFFER_HEAD_CACHE =
+        new ObjectCache<>("buffer_head", () -> new BufferCache(0, 0), BufferCache::clear);
+    
     private final Map<String, BufferCache> bufferCache;
+    private final int maxBuffers;
     private VirtualDiskDevice disk;
     
     public BlockBufferManagerImpl(Map<String, BufferCache> bufferCache) {
+        this(bufferCache, FileSystemConstants.NR_BUFFERS);
+    }
+    
+    /**
+     * @param bufferCache 缓冲区表
+     * @param maxBuffers 缓冲区数上限（仍被引用或脏且无法写回的缓冲区不会被淘汰，可暂时超出）
+     */
+    public BlockBufferManagerImpl(Map<String, BufferCache> bufferCache, int maxBuffers) {
         this.bufferCache = bufferCache;
+        this.maxBuffers = maxBuffers;
     }
     
     public void setDisk(VirtualDiskDevice disk) {
@@ -21,13 +41,18 @@ public class BlockBufferManagerImpl implements BlockBufferManager {
     }
     
     @Override
-    public BufferCache getBuffer(int dev, int blockNo) {
+    public synchronized BufferCache getBuffer(int dev, int blockNo) {
         String key = dev + ":" + blockNo;
         BufferCache buffer = bufferCache.get(key);
         
         if (buffer == null) {
-            // 创建新缓冲区
-            buffer = new BufferCache(dev, blockNo);
+            if (bufferCache.size() >= maxBuffers) {
+                evictBuffer();
+            }
+            
+            // 从对象缓存取缓冲区头
+            buffer = BUFFER_HEAD_CACHE.alloc();
+            buffer.reinit(dev, blockNo);
             bufferCache.put(key, buffer);
             
             // 从磁盘读取
@@ -39,7 +64,7 @@ public class BlockBufferManagerImpl implements BlockBufferManager {
     }
     
     @Override
-    public void releaseBuffer(BufferCache buffer) {
+    public synchronized void releaseBuffer(BufferCache buffer) {
         if (buffer != null) {
             buffer.decrementRef();
             
@@ -51,7 +76,7 @@ public class BlockBufferManagerImpl implements BlockBufferManager {
     }
     
     @Override
-    public void sync() {
+    public synchronized void sync() {
         System.out.println("[VFS] Syncing all buffers...");
         
         int synced = 0;
@@ -66,6 +91,31 @@ public class BlockBufferManagerImpl implements BlockBufferManager {
         System.out.println("[VFS] Synced " + synced + " dirty buffers");
     }
     
+    /**
+     * 淘汰一个缓冲区：选择最久未访问的、未被引用的干净缓冲区，放回对象缓存
+     * 
+     * 脏缓冲区在引用计数归零时已经写回；没有磁盘设备时写回失败、数据只在缓冲区中，
+     * 此时不淘汰，避免丢失数据。
+     */
+    private void evictBuffer() {
+        String victimKey = null;
+        BufferCache victim = null;
+        for (Map.Entry<String, BufferCache> entry : bufferCache.entrySet()) {
+            BufferCache buffer = entry.getValue();
+            if (buffer.getRefCount() > 0 || buffer.isDirty()) {
+                continue;
+            }
+            if (victim == null || buffer.getLastAccess() < victim.getLastAccess()) {
+                victimKey = entry.getKey();
+                victim = buffer;
+            }
+        }
+        if (victim != null) {
+            bufferCache.remove(victimKey);
+            BUFFER_HEAD_CACHE.free(victim);
+        }
+    }
+    
     /**
      * 从磁盘读取缓冲区
      * 
@@ -46,6 +46,15 @@ public class BufferCache {
         this.lastAccess = System.currentTimeMillis();
     }
     
+    /**
+     * 重新绑定到另一个块（从对象缓存复用时调用，调用前已经过 {@link #clear()}）
+     */
+    void reinit(int dev, int blockNo) {
+        this.dev = dev;
+        this.blockNo = blockNo;
+        this.lastAccess = System.currentTimeMillis();
+    }
+    
     /**
      * 增加引用计数
      */
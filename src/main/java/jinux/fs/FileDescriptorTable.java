@@ -1,15 +1,23 @@
 package jinux.fs;
 
 import jinux.include.FileSystemConstants;
+import jinux.mm.ObjectCache;
 
 /**
  * 文件描述符表
  * 对应 Linux 0.01 中每个进程的文件描述符数组
  * 
+ * 通过 {@link #create()} 从 files_cache 对象缓存分配，进程被回收时经 {@link #release()} 归还，
+ * fork 时复制描述符表不必每次分配新数组。
+ * 
  * @author Jinux Project
  */
 public class FileDescriptorTable {
     
+    /** 描述符表缓存（对应 Linux 中的 files_cachep），缓存中的表都已关闭所有描述符 */
+    private static final ObjectCache<FileDescriptorTable> CACHE =
+        new ObjectCache<>("files_cache", FileDescriptorTable::new, null);
+    
     /** 文件描述符数组 */
     private final File[] files;
     
@@ -20,6 +28,22 @@ public class FileDescriptorTable {
         this.files = new File[FileSystemConstants.NR_OPEN];
     }
     
+    /**
+     * 从对象缓存分配一个空的文件描述符表
+     */
+    public static FileDescriptorTable create() {
+        return CACHE.alloc();
+    }
+    
+    /**
+     * 关闭所有描述符并把描述符表归还对象缓存，调用后不得再使用
+     */
+    public void release() {
+        // 先关闭再归还：缓存已满时表被直接丢弃，也不能漏掉文件引用
+        closeAll();
+        CACHE.free(this);
+    }
+    
     /**
      * 分配文件描述符
      * 
@@ -105,7 +129,7 @@ public class FileDescriptorTable {
      * @return 新的文件描述符表
      */
     public synchronized FileDescriptorTable copy() {
-        FileDescriptorTable newTable = new FileDescriptorTable();
+        FileDescriptorTable newTable = create();
         for (int i = 0; i < files.length; i++) {
             if (files[i] != null) {
                 files[i].incrementRef();
@@ -3,6 +3,7 @@ package jinux.fs;
 import jinux.include.FileSystemConstants;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Inode（索引节点）
@@ -63,6 +64,12 @@ public class Inode {
     /** 是否已加载 */
     private volatile boolean loaded;
     
+    /** 全局递增的数据版本序列，保证不同 inode 的版本互不相同 */
+    private static final AtomicLong DATA_VERSION_SEQ = new AtomicLong();
+    
+    /** 文件数据版本，内容或大小改变时更新（页缓存据此判断缓存页是否过期） */
+    private volatile long dataVersion = DATA_VERSION_SEQ.incrementAndGet();
+    
     /** 文件类型和权限常量统一定义在 {@link FileSystemConstants} 中，以下为便捷引用 */
     public static final int S_IFREG = FileSystemConstants.S_IFREG;
     public static final int S_IFDIR = FileSystemConstants.S_IFDIR;
@@ -219,9 +226,21 @@ public class Inode {
     
     public void setSize(long size) {
         this.size = size;
+        bumpDataVersion();
         markDirty();
     }
     
+    public long getDataVersion() {
+        return dataVersion;
+    }
+    
+    /**
+     * 文件数据被修改后更新数据版本
+     */
+    public void bumpDataVersion() {
+        this.dataVersion = DATA_VERSION_SEQ.incrementAndGet();
+    }
+    
     public long getAtime() {
         return atime;
     }
@@ -688,8 +688,9 @@ public class VirtualFileSystem implements PathResolver, DirectoryOperations, Fil
             inode.setSize(newSize);
         }
         
-        // 更新修改时间
+        // 更新修改时间和数据版本（使已缓存的文件页失效）
         inode.setMtime(System.currentTimeMillis() / 1000);
+        inode.bumpDataVersion();
         inode.markDirty();
         
         return bytesWritten;
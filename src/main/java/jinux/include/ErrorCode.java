@@ -68,6 +68,14 @@ public class ErrorCode {
      */
     public static final int EBADF = 9;
 
+    /**
+     * 资源暂时不可用 (Try again)
+     * <p>
+     * 资源（如 PID）暂时耗尽时返回，稍后重试可能成功。
+     * </p>
+     */
+    public static final int EAGAIN = 11;
+
     /**
      * 内存不足 (Out of memory)
      * <p>
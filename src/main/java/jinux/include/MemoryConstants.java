@@ -27,6 +27,29 @@ public class MemoryConstants {
      */
     public static final int PAGE_SHIFT = 12;
 
+    /**
+     * 大页阶（一个大页包含 2^10 个普通页）
+     * <p>
+     * 对应 i386 开启 PSE 后页目录项直接映射的 4MB 页，与伙伴系统的最高阶一致。
+     * </p>
+     */
+    public static final int HUGE_PAGE_ORDER = 10;
+
+    /**
+     * 大页位移量（log2(HUGE_PAGE_SIZE) = 22）
+     */
+    public static final int HUGE_PAGE_SHIFT = PAGE_SHIFT + HUGE_PAGE_ORDER;
+
+    /**
+     * 大页大小（4MB）
+     */
+    public static final int HUGE_PAGE_SIZE = 1 << HUGE_PAGE_SHIFT;
+
+    /**
+     * 每个大页包含的普通页数
+     */
+    public static final int HUGE_PAGE_PAGES = 1 << HUGE_PAGE_ORDER;
+
     /**
      * 物理内存总大小（16MB，Linux 0.01 最大支持）
      * <p>
@@ -72,13 +95,68 @@ public class MemoryConstants {
      */
     public static final int USER_BUF_SIZE = 1024 * 1024;
 
+    /**
+     * 用户栈区域大小（128KB）
+     * <p>
+     * 请求调页模式下，栈顶以下这段区域登记为栈 VMA，页面在首次访问时分配。
+     * </p>
+     */
+    public static final int USER_STACK_SIZE = 128 * 1024;
+
     /**
      * 默认页面标志：存在 + 可读写 + 用户态可访问
      */
     public static final int DEFAULT_PAGE_FLAGS = 7;
 
+    /**
+     * mmap 保护标志：可读
+     */
+    public static final int PROT_READ = 0x1;
+
+    /**
+     * mmap 保护标志：可写
+     */
+    public static final int PROT_WRITE = 0x2;
+
+    /**
+     * mmap 保护标志：可执行（仅记录，不做检查）
+     */
+    public static final int PROT_EXEC = 0x4;
+
+    /**
+     * mmap 映射标志：共享映射（文件映射只支持只读共享）
+     */
+    public static final int MAP_SHARED = 0x01;
+
+    /**
+     * mmap 映射标志：私有映射（写入时复制，不写回文件）
+     */
+    public static final int MAP_PRIVATE = 0x02;
+
+    /**
+     * mmap 映射标志：匿名映射（不关联文件）
+     */
+    public static final int MAP_ANONYMOUS = 0x20;
+
     // ==================== 辅助方法 ====================
 
+    /**
+     * 打包 mmap 的第三个系统调用参数
+     * <p>
+     * 系统调用只有三个参数，prot、flags、fd 和文件页偏移打包在一个 long 中：
+     * bit 0-7 为 prot，bit 8-15 为 flags，bit 16-31 为 fd，bit 32-63 为文件内页号。
+     * </p>
+     *
+     * @param prot PROT_* 组合
+     * @param flags MAP_* 组合
+     * @param fd 文件描述符（匿名映射忽略）
+     * @param pageOffset 文件内页号（文件偏移 / PAGE_SIZE）
+     * @return 打包后的参数
+     */
+    public static long mmapArg(int prot, int flags, int fd, long pageOffset) {
+        return (prot & 0xFF) | ((long) (flags & 0xFF) << 8) | ((long) (fd & 0xFFFF) << 16) | (pageOffset << 32);
+    }
+
     /**
      * 虚拟地址转页号
      *
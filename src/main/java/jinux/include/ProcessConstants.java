@@ -15,13 +15,39 @@ public class ProcessConstants {
     // ==================== 进程限制 ====================
 
     /**
-     * 最大进程数量
+     * 进程表初始大小
      * <p>
-     * Linux 0.01 内核支持的最大进程数为 64。
+     * Linux 0.01 内核支持的最大进程数为 64。Jinux 的进程表从这个大小开始，
+     * 满了以后按需倍增，进程数的上限由 {@link #PID_MAX} 决定。
      * </p>
      */
     public static final int NR_TASKS = 64;
 
+    /**
+     * PID 上限（不含）
+     * <p>
+     * 对应 Linux 64 位系统的 PID_MAX_LIMIT（4M），PID 位图按需增长。
+     * </p>
+     */
+    public static final int PID_MAX = 4 * 1024 * 1024;
+
+    /**
+     * PID 回绕后的起始值
+     * <p>
+     * 对应 Linux 的 RESERVED_PIDS：PID 分配到上限后从这里重新开始，
+     * 低编号留给启动早期创建的系统进程。
+     * </p>
+     */
+    public static final int RESERVED_PIDS = 300;
+
+    /**
+     * init 进程的 PID
+     * <p>
+     * init 是第一个分配 PID 的进程；父进程退出后，其子进程托付给 init（对应 child_reaper）。
+     * </p>
+     */
+    public static final int INIT_PID = 0;
+
     // ==================== 段选择符 ====================
 
     /**
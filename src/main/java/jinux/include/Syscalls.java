@@ -88,6 +88,12 @@ public class Syscalls {
     /** brk - 设置数据段结束位置 */
     public static final int SYS_BRK = 45;
     
+    /** mmap - 建立内存映射（匿名或文件） */
+    public static final int SYS_MMAP = 90;
+    
+    /** munmap - 解除内存映射 */
+    public static final int SYS_MUNMAP = 91;
+    
     
     // ==================== 时间相关系统调用 ====================
     
@@ -139,6 +145,8 @@ public class Syscalls {
             case SYS_RMDIR: return "rmdir";
             case SYS_TIMES: return "times";
             case SYS_BRK: return "brk";
+            case SYS_MMAP: return "mmap";
+            case SYS_MUNMAP: return "munmap";
             case SYS_SIGNAL: return "signal";
             case SYS_IOCTL: return "ioctl";
             case SYS_GETPPID: return "getppid";
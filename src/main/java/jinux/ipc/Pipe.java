@@ -1,6 +1,8 @@
 package jinux.ipc;
 
 import jinux.include.ErrorCode;
+import jinux.mm.KernelAllocator;
+import jinux.mm.ObjectCache;
 
 /**
  * 管道（Pipe）
@@ -8,6 +10,14 @@ import jinux.include.ErrorCode;
  * 
  * 用于进程间通信的单向数据流
  * 
+ * 缓冲区有两种来源：
+ * <ul>
+ *   <li>{@link #create(KernelAllocator)}：用 kmalloc 从模拟物理内存分配（sys_pipe 使用），
+ *       管道缓冲区计入内核内存占用</li>
+ *   <li>{@link #Pipe()}：取自 Java 堆上的 pipe_buffer 对象缓存（独立使用管道的演示与测试）</li>
+ * </ul>
+ * 两端都关闭后缓冲区归还来源，频繁创建、销毁管道（如 shell 管道命令）时不必每次分配新缓冲区。
+ * 
  * @author Jinux Project
  */
 public class Pipe {
@@ -15,8 +25,21 @@ public class Pipe {
     /** 管道缓冲区大小 */
     public static final int PIPE_BUF = 4096;
     
-    /** 管道缓冲区 */
-    private final byte[] buffer;
+    /**
+     * 管道缓冲区缓存
+     * 归还时不必清零：读写都以 dataSize 为界，新管道读不到旧数据
+     */
+    private static final ObjectCache<byte[]> BUFFER_CACHE =
+        new ObjectCache<>("pipe_buffer", () -> new byte[PIPE_BUF], null);
+    
+    /** 管道缓冲区（两端都关闭后归还缓存，置为 null；缓冲区在物理内存中时为 null） */
+    private byte[] buffer;
+    
+    /** 分配物理内存缓冲区的内核分配器（缓冲区在 Java 堆上时为 null） */
+    private final KernelAllocator kmem;
+    
+    /** 物理内存缓冲区地址（-1 表示没有或已释放） */
+    private long bufferAddr;
     
     /** 读位置 */
     private int readPos;
@@ -43,10 +66,31 @@ public class Pipe {
     private int waitingWriters;
     
     /**
-     * 构造管道
+     * 构造管道（缓冲区在 Java 堆上）
      */
     public Pipe() {
-        this.buffer = new byte[PIPE_BUF];
+        this(null, -1);
+        this.buffer = BUFFER_CACHE.alloc();
+    }
+    
+    /**
+     * 构造缓冲区在模拟物理内存中的管道
+     * 
+     * @param kmem 内核分配器
+     * @return 管道，内核内存不足时返回 null
+     */
+    public static Pipe create(KernelAllocator kmem) {
+        long addr = kmem.kmalloc(PIPE_BUF);
+        return addr < 0 ? null : new Pipe(kmem, addr);
+    }
+    
+    /**
+     * @param kmem 内核分配器（缓冲区在 Java 堆上时为 null）
+     * @param bufferAddr 物理内存缓冲区地址
+     */
+    private Pipe(KernelAllocator kmem, long bufferAddr) {
+        this.kmem = kmem;
+        this.bufferAddr = bufferAddr;
         this.readPos = 0;
         this.writePos = 0;
         this.dataSize = 0;
@@ -94,7 +138,7 @@ public class Pipe {
         // 从循环缓冲区读取
         while (bytesRead < toRead) {
             int available = Math.min(toRead - bytesRead, PIPE_BUF - readPos);
-            System.arraycopy(buffer, readPos, buf, bytesRead, available);
+            copyOut(readPos, buf, bytesRead, available);
             bytesRead += available;
             readPos = (readPos + available) % PIPE_BUF;
         }
@@ -146,13 +190,18 @@ public class Pipe {
                 waitingWriters--;
             }
             
+            // 等待期间两端都已关闭，缓冲区已归还
+            if (closed) {
+                return bytesWritten > 0 ? bytesWritten : -ErrorCode.EPIPE;
+            }
+            
             // 写入数据
             int toWrite = Math.min(count - bytesWritten, PIPE_BUF - dataSize);
             int written = 0;
             
             while (written < toWrite) {
                 int available = Math.min(toWrite - written, PIPE_BUF - writePos);
-                System.arraycopy(buf, bytesWritten + written, buffer, writePos, available);
+                copyIn(writePos, buf, bytesWritten + written, available);
                 written += available;
                 writePos = (writePos + available) % PIPE_BUF;
             }
@@ -178,7 +227,7 @@ public class Pipe {
         }
         
         if (readers == 0 && writers == 0) {
-            closed = true;
+            release();
         }
         
         // 唤醒所有等待的写进程
@@ -194,13 +243,51 @@ public class Pipe {
         }
         
         if (readers == 0 && writers == 0) {
-            closed = true;
+            release();
         }
         
         // 唤醒所有等待的读进程
         notifyAll();
     }
     
+    /**
+     * 两端都关闭：标记关闭并把缓冲区归还缓存
+     */
+    private void release() {
+        closed = true;
+        dataSize = 0;
+        if (buffer != null) {
+            BUFFER_CACHE.free(buffer);
+            buffer = null;
+        }
+        if (bufferAddr >= 0) {
+            kmem.kfree(bufferAddr);
+            bufferAddr = -1;
+        }
+    }
+    
+    /**
+     * 从环形缓冲区 pos 处读出 len 字节（不跨越缓冲区末尾）
+     */
+    private void copyOut(int pos, byte[] dst, int offset, int len) {
+        if (buffer != null) {
+            System.arraycopy(buffer, pos, dst, offset, len);
+        } else {
+            kmem.getPhysicalMemory().readBytes(bufferAddr + pos, dst, offset, len);
+        }
+    }
+    
+    /**
+     * 向环形缓冲区 pos 处写入 len 字节（不跨越缓冲区末尾）
+     */
+    private void copyIn(int pos, byte[] src, int offset, int len) {
+        if (buffer != null) {
+            System.arraycopy(src, offset, buffer, pos, len);
+        } else {
+            kmem.getPhysicalMemory().writeBytes(bufferAddr + pos, src, offset, len);
+        }
+    }
+    
     /**
      * 增加读端引用
      */
@@ -0,0 +1,515 @@
+package jinux.kernel;
+
+import jinux.include.ProcessConstants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * 完全公平调度算法
+ * 对应 Linux 中的 CFS（kernel/sched/fair.c）
+ *
+ * counter/priority 方案只能按整轮时间片实现粗粒度的公平，也没有延迟目标。
+ * CFS 为每个进程记录虚拟运行时间 vruntime（实际运行时间按权重折算），总是运行 vruntime 最小的进程：
+ * <ul>
+ *   <li>可运行进程按 vruntime 排序放在红黑树（{@link TreeSet}）中，选择最左节点；
+ *       正在运行的进程不在树中，被换下时放回</li>
+ *   <li>权重由 priority 映射到 nice 值（priority 15 对应 nice 0，每高 1 则 nice 低 1，范围 -20 ~ 19），
+ *       再查 Linux 的 sched_prio_to_weight 表，相邻 nice 的 CPU 份额相差约 1.25 倍</li>
+ *   <li>调度周期为目标延迟，可运行进程过多时按 进程数 × 最小粒度 延长；
+ *       每个进程在一个周期内的时间片与权重成正比，时钟中断时运行超过时间片、
+ *       或领先最左进程的 vruntime 超过时间片则重新调度</li>
+ *   <li>睡眠后唤醒的进程 vruntime 至多补偿到 min_vruntime 之前半个目标延迟，
+ *       比当前进程落后超过唤醒粒度时在下一次时钟中断抢占，交互进程因此能及时得到响应</li>
+ * </ul>
+ * 每个进程的等待时间（在运行队列中等待被选中的时间）记录在 {@link SchedEntity} 中，对应 /proc/&lt;pid&gt;/sched。
+ * SMP 负载均衡迁移进程时保留调度实体，vruntime 按两个运行队列 min_vruntime 的差平移。
+ *
+ * 非线程安全：每个 CPU 的运行队列有自己的算法实例，所有方法都由 {@link Scheduler} 在该运行队列的锁
+ * （{@code RunQueue.lock}）内调用，不一定持有调度器锁：状态变化和时钟中断回调只持有进程所在运行队列的锁，
+ * 负载均衡的 {@code taskMigrated} 同时持有源和目标两个运行队列的锁。
+ * 算法实例之间共享的状态不受任何一把锁保护，需自行同步。
+ *
+ * @author Jinux Project
+ */
+public class CfsSchedulingAlgorithm implements SchedulingAlgorithm {
+
+    /** 默认目标延迟（纳秒，对应 sched_latency_ns） */
+    public static final long DEFAULT_TARGET_LATENCY_NS = 20_000_000L;
+
+    /** 默认最小粒度（纳秒，对应 sched_min_granularity_ns） */
+    public static final long DEFAULT_MIN_GRANULARITY_NS = 4_000_000L;
+
+    /** 唤醒抢占粒度（纳秒，对应 sched_wakeup_granularity_ns） */
+    public static final long WAKEUP_GRANULARITY_NS = 1_000_000L;
+
+    /** nice 0 的权重 */
+    public static final int NICE_0_WEIGHT = 1024;
+
+    /** nice -20 ~ 19 对应的权重（sched_prio_to_weight） */
+    private static final int[] PRIO_TO_WEIGHT = {
+        88761, 71755, 56483, 46273, 36291,
+        29154, 23254, 18705, 14949, 11916,
+         9548,  7620,  6100,  4904,  3906,
+         3121,  2501,  1991,  1586,  1277,
+         1024,   820,   655,   526,   423,
+          335,   272,   215,   172,   137,
+          110,    87,    70,    56,    45,
+           36,    29,    23,    18,    15,
+    };
+
+    /** 红黑树排序：vruntime 相同时按入队顺序 */
+    private static final Comparator<SchedEntity> TIMELINE_ORDER =
+        Comparator.comparingLong((SchedEntity se) -> se.vruntime).thenComparingLong(se -> se.seq);
+
+    /** 目标延迟（纳秒） */
+    private final long targetLatency;
+
+    /** 最小粒度（纳秒） */
+    private final long minGranularity;
+
+    /** 时钟（纳秒） */
+    private final LongSupplier clock;
+
+    /** 等待运行的进程，按 vruntime 排序（不含当前进程） */
+    private final TreeSet<SchedEntity> timeline = new TreeSet<>(TIMELINE_ORDER);
+
+    /** 进程 -> 调度实体 */
+    private final Map<Task, SchedEntity> entities = new IdentityHashMap<>();
+
+    /** 当前运行的实体 */
+    private SchedEntity curr;
+
+    /** 运行队列的最小 vruntime（单调递增） */
+    private long minVruntime;
+
+    /** 可运行进程数（含当前进程） */
+    private int nrRunning;
+
+    /** 可运行进程的总权重（含当前进程） */
+    private long totalWeight;
+
+    /** 入队序号 */
+    private long seq;
+
+    /** 唤醒抢占标志：下一次时钟中断时重新调度 */
+    private boolean needResched;
+
+    /**
+     * 使用默认目标延迟与最小粒度构造，以 {@link System#nanoTime()} 计时
+     */
+    public CfsSchedulingAlgorithm() {
+        this(DEFAULT_TARGET_LATENCY_NS, DEFAULT_MIN_GRANULARITY_NS, System::nanoTime);
+    }
+
+    /**
+     * 构造 CFS 调度算法
+     *
+     * @param targetLatency 目标延迟（纳秒）
+     * @param minGranularity 最小粒度（纳秒）
+     * @param clock 时钟（纳秒）
+     */
+    public CfsSchedulingAlgorithm(long targetLatency, long minGranularity, LongSupplier clock) {
+        if (targetLatency <= 0 || minGranularity <= 0 || minGranularity > targetLatency) {
+            throw new IllegalArgumentException("Invalid CFS tunables: latency=" + targetLatency +
+                ", min_granularity=" + minGranularity);
+        }
+        this.targetLatency = targetLatency;
+        this.minGranularity = minGranularity;
+        this.clock = clock;
+    }
+
+    @Override
+    public Task selectNextTask(Task[] taskTable, Task currentTask) {
+        long now = clock.getAsLong();
+        updateCurr(now);
+        if (curr != null) {
+            // 换下当前进程，放回红黑树
+            enqueueTimeline(curr, now);
+            curr = null;
+        }
+        SchedEntity next = timeline.pollFirst();
+        if (next == null) {
+            return null;
+        }
+        endWait(next, now);
+        next.execStart = now;
+        next.sliceStart = next.sumExecRuntime;
+        curr = next;
+        needResched = false;
+        return next.task;
+    }
+
+    /**
+     * CFS 没有按轮次分配的时间片，不需要重新分配
+     */
+    @Override
+    public void redistributeCounters(Task[] taskTable) {
+    }
+
+    @Override
+    public boolean taskTick(Task currentTask) {
+        updateCurr(clock.getAsLong());
+        if (curr == null || curr.task != currentTask || needResched) {
+            return true;
+        }
+        long slice = schedSlice(curr);
+        long ran = curr.sumExecRuntime - curr.sliceStart;
+        if (ran > slice) {
+            return true;
+        }
+        if (ran < minGranularity || timeline.isEmpty()) {
+            return false;
+        }
+        return curr.vruntime - timeline.first().vruntime > slice;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        SchedEntity se = new SchedEntity(task);
+        entities.put(task, se);
+        if (task.getState() == ProcessConstants.TASK_RUNNING) {
+            activate(se, true);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        SchedEntity se = entities.remove(task);
+        if (se != null && se.onRq) {
+            deactivate(se);
+        }
+    }
+
+    /**
+     * 从另一个 CFS 运行队列迁入时保留调度实体及其统计（对应 migrate_task_rq_fair）：
+     * vruntime 按两个队列的 min_vruntime 之差平移，保持相对位置，而不是像新进程一样从 min_vruntime 开始
+     */
+    @Override
+    public void taskMigrated(Task task, SchedulingAlgorithm source) {
+        if (!(source instanceof CfsSchedulingAlgorithm)) {
+            SchedulingAlgorithm.super.taskMigrated(task, source);
+            return;
+        }
+        CfsSchedulingAlgorithm src = (CfsSchedulingAlgorithm) source;
+        long srcMinVruntime = src.minVruntime;
+        SchedEntity se = src.detach(task);
+        if (se == null) {
+            taskAdded(task);
+            return;
+        }
+        updateCurr(clock.getAsLong());
+        se.vruntime += minVruntime - srcMinVruntime;
+        entities.put(task, se);
+        if (se.onRq) {
+            se.weight = weightOf(task.getPriority());
+            nrRunning++;
+            totalWeight += se.weight;
+            // 保留 waitStart：迁移前后的等待计为同一次
+            se.seq = seq++;
+            timeline.add(se);
+            if (curr != null && curr.vruntime - se.vruntime > scaleByWeight(WAKEUP_GRANULARITY_NS, se.weight)) {
+                needResched = true;
+            }
+        }
+    }
+
+    /**
+     * 迁出进程：移出运行队列但不结束等待统计，onRq 保持原值供目标队列入队
+     *
+     * @return 调度实体，不在本队列中返回 null
+     */
+    private SchedEntity detach(Task task) {
+        SchedEntity se = entities.remove(task);
+        if (se == null || !se.onRq) {
+            return se;
+        }
+        long now = clock.getAsLong();
+        updateCurr(now);
+        if (se == curr) {
+            curr = null;
+            se.waitStart = now;
+        } else {
+            timeline.remove(se);
+        }
+        nrRunning--;
+        totalWeight -= se.weight;
+        updateMinVruntime();
+        return se;
+    }
+
+    @Override
+    public void taskStateChanged(Task task, int oldState) {
+        SchedEntity se = entities.get(task);
+        if (se == null) {
+            return;
+        }
+        boolean runnable = task.getState() == ProcessConstants.TASK_RUNNING;
+        if (runnable && !se.onRq) {
+            activate(se, false);
+        } else if (!runnable && se.onRq) {
+            deactivate(se);
+        }
+    }
+
+    /**
+     * 进程变为可运行：确定 vruntime 后加入红黑树（对应 enqueue_entity 与 place_entity）
+     *
+     * @param initial 是否是新进程
+     */
+    private void activate(SchedEntity se, boolean initial) {
+        long now = clock.getAsLong();
+        updateCurr(now);
+        se.weight = weightOf(se.task.getPriority());
+        if (initial) {
+            se.vruntime = minVruntime;
+        } else {
+            // 睡眠补偿：最多领先半个目标延迟，避免长时间睡眠后独占 CPU
+            se.vruntime = Math.max(se.vruntime, minVruntime - targetLatency / 2);
+        }
+        se.onRq = true;
+        nrRunning++;
+        totalWeight += se.weight;
+        enqueueTimeline(se, now);
+
+        if (curr != null && curr.vruntime - se.vruntime > scaleByWeight(WAKEUP_GRANULARITY_NS, se.weight)) {
+            needResched = true;
+        }
+    }
+
+    /**
+     * 进程不再可运行：移出运行队列，保留 vruntime（对应 dequeue_entity）
+     */
+    private void deactivate(SchedEntity se) {
+        long now = clock.getAsLong();
+        updateCurr(now);
+        if (se == curr) {
+            curr = null;
+        } else {
+            timeline.remove(se);
+            endWait(se, now);
+        }
+        se.onRq = false;
+        nrRunning--;
+        totalWeight -= se.weight;
+        updateMinVruntime();
+    }
+
+    /**
+     * 把当前进程自上次记账以来的运行时间计入 vruntime（对应 update_curr）
+     */
+    private void updateCurr(long now) {
+        if (curr == null) {
+            return;
+        }
+        long delta = now - curr.execStart;
+        if (delta <= 0) {
+            return;
+        }
+        curr.execStart = now;
+        curr.sumExecRuntime += delta;
+        curr.vruntime += scaleByWeight(delta, curr.weight);
+        updateMinVruntime();
+    }
+
+    /**
+     * min_vruntime 只增不减，取当前进程与最左进程中较小的 vruntime
+     */
+    private void updateMinVruntime() {
+        long v;
+        if (curr != null && !timeline.isEmpty()) {
+            v = Math.min(curr.vruntime, timeline.first().vruntime);
+        } else if (curr != null) {
+            v = curr.vruntime;
+        } else if (!timeline.isEmpty()) {
+            v = timeline.first().vruntime;
+        } else {
+            return;
+        }
+        minVruntime = Math.max(minVruntime, v);
+    }
+
+    /**
+     * 当前调度周期内该进程的时间片（对应 sched_slice）
+     */
+    private long schedSlice(SchedEntity se) {
+        long period = nrRunning > targetLatency / minGranularity ? nrRunning * minGranularity : targetLatency;
+        return totalWeight == 0 ? period : period * se.weight / totalWeight;
+    }
+
+    private void enqueueTimeline(SchedEntity se, long now) {
+        se.seq = seq++;
+        se.waitStart = now;
+        timeline.add(se);
+    }
+
+    /**
+     * 结束一次等待并计入统计
+     */
+    private static void endWait(SchedEntity se, long now) {
+        long wait = Math.max(0, now - se.waitStart);
+        se.waitSum += wait;
+        se.waitMax = Math.max(se.waitMax, wait);
+        se.waitCount++;
+    }
+
+    /**
+     * 实际时间按权重折算为虚拟时间
+     */
+    private static long scaleByWeight(long delta, int weight) {
+        return weight == NICE_0_WEIGHT ? delta : delta * NICE_0_WEIGHT / weight;
+    }
+
+    /**
+     * priority 对应的 nice 值
+     */
+    public static int niceOf(int priority) {
+        return Math.max(-20, Math.min(19, ProcessConstants.DEF_PRIORITY - priority));
+    }
+
+    /**
+     * priority 对应的权重
+     */
+    public static int weightOf(int priority) {
+        return PRIO_TO_WEIGHT[niceOf(priority) + 20];
+    }
+
+    /**
+     * 获取进程的调度实体（进程不在进程表中返回 null）
+     */
+    public SchedEntity getEntity(Task task) {
+        return entities.get(task);
+    }
+
+    public long getMinVruntime() {
+        return minVruntime;
+    }
+
+    public int getNrRunning() {
+        return nrRunning;
+    }
+
+    public long getTargetLatency() {
+        return targetLatency;
+    }
+
+    public long getMinGranularity() {
+        return minGranularity;
+    }
+
+    /**
+     * 打印各进程的调度统计（对应 /proc/sched_debug）
+     *
+     * @param prefix 每行前缀
+     */
+    public void printStats(String prefix) {
+        System.out.println(prefix + this);
+        List<SchedEntity> list = new ArrayList<>(entities.values());
+        list.sort(Comparator.comparingInt(se -> se.task.getPid()));
+        for (SchedEntity se : list) {
+            System.out.println(prefix + "  " + se);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CFS[nr_running=%d, load=%d, min_vruntime=%.3fms, latency=%.1fms, min_granularity=%.1fms]",
+            nrRunning, totalWeight, minVruntime / 1e6, targetLatency / 1e6, minGranularity / 1e6);
+    }
+
+    /**
+     * 调度实体（对应 struct sched_entity 与 sched_statistics）
+     */
+    public static final class SchedEntity {
+
+        private final Task task;
+
+        /** 权重（入队时按 priority 计算） */
+        private int weight;
+
+        /** 虚拟运行时间（纳秒） */
+        private long vruntime;
+
+        /** 累计运行时间（纳秒） */
+        private long sumExecRuntime;
+
+        /** 本次被选中时的累计运行时间 */
+        private long sliceStart;
+
+        /** 本次开始运行（或上次记账）的时刻 */
+        private long execStart;
+
+        /** 本次开始等待的时刻 */
+        private long waitStart;
+
+        /** 累计等待时间（纳秒） */
+        private long waitSum;
+
+        /** 最长一次等待（纳秒） */
+        private long waitMax;
+
+        /** 等待次数 */
+        private long waitCount;
+
+        /** 是否在运行队列中（含正在运行） */
+        private boolean onRq;
+
+        /** 红黑树中的入队序号 */
+        private long seq;
+
+        SchedEntity(Task task) {
+            this.task = task;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public long getVruntime() {
+            return vruntime;
+        }
+
+        public long getSumExecRuntime() {
+            return sumExecRuntime;
+        }
+
+        public long getWaitSum() {
+            return waitSum;
+        }
+
+        public long getWaitMax() {
+            return waitMax;
+        }
+
+        public long getWaitCount() {
+            return waitCount;
+        }
+
+        /**
+         * 平均每次等待时间（纳秒），没有等待过返回 0
+         */
+        public long getWaitAvg() {
+            return waitCount == 0 ? 0 : waitSum / waitCount;
+        }
+
+        public boolean isOnRunQueue() {
+            return onRq;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pid=%d nice=%d weight=%d vruntime=%.3fms exec=%.3fms wait_sum=%.3fms wait_max=%.3fms wait_count=%d",
+                task.getPid(), niceOf(task.getPriority()), weight, vruntime / 1e6, sumExecRuntime / 1e6,
+                waitSum / 1e6, waitMax / 1e6, waitCount);
+        }
+    }
+}
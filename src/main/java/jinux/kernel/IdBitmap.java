@@ -0,0 +1,143 @@
+package jinux.kernel;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的编号位图
+ * 对应 Linux 中的 pidmap（kernel/pid.c）与 find_next_zero_bit
+ *
+ * 每个编号占一位，置位表示已分配，调度器用它分配进程表槽位和 PID。
+ * 记录最低的未满字下标，分配最小空闲编号时从该字开始查找，连续分配、释放的均摊开销为 O(1)。
+ *
+ * 非线程安全：由调用者加锁。
+ *
+ * @author Jinux Project
+ */
+final class IdBitmap {
+
+    /** 位图 */
+    private long[] words;
+
+    /** 可用编号数（0 ~ capacity-1） */
+    private int capacity;
+
+    /** 已分配的编号数 */
+    private int used;
+
+    /** 最低的可能未满的字下标，更低的字都已满 */
+    private int firstFreeWord;
+
+    /**
+     * 构造位图
+     *
+     * @param capacity 初始容量
+     */
+    IdBitmap(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid bitmap capacity: " + capacity);
+        }
+        this.words = new long[(capacity + 63) >>> 6];
+        this.capacity = capacity;
+    }
+
+    /**
+     * 分配最小的空闲编号
+     *
+     * @return 编号，已满返回 -1
+     */
+    int allocLowest() {
+        for (int w = firstFreeWord; w < words.length; w++) {
+            if (words[w] != -1L) {
+                firstFreeWord = w;
+                int id = (w << 6) + Long.numberOfTrailingZeros(~words[w]);
+                if (id >= capacity) {
+                    return -1;
+                }
+                words[w] |= 1L << id;
+                used++;
+                return id;
+            }
+        }
+        firstFreeWord = words.length;
+        return -1;
+    }
+
+    /**
+     * 分配不小于 start 的最小空闲编号（不回绕）
+     *
+     * @param start 起始编号
+     * @return 编号，start 之后没有空闲编号返回 -1
+     */
+    int allocFrom(int start) {
+        if (start < 0 || start >= capacity) {
+            return -1;
+        }
+        int w = start >>> 6;
+        long free = ~words[w] & (-1L << start);
+        while (free == 0) {
+            if (++w >= words.length) {
+                return -1;
+            }
+            free = ~words[w];
+        }
+        int id = (w << 6) + Long.numberOfTrailingZeros(free);
+        if (id >= capacity) {
+            return -1;
+        }
+        words[w] |= 1L << id;
+        used++;
+        return id;
+    }
+
+    /**
+     * 释放编号
+     *
+     * @param id 编号
+     * @return 编号原来是否已分配
+     */
+    boolean clear(int id) {
+        if (!isSet(id)) {
+            return false;
+        }
+        int w = id >>> 6;
+        words[w] &= ~(1L << id);
+        used--;
+        if (w < firstFreeWord) {
+            firstFreeWord = w;
+        }
+        return true;
+    }
+
+    /**
+     * 编号是否已分配
+     */
+    boolean isSet(int id) {
+        return id >= 0 && id < capacity && (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * 扩大容量，新编号均为空闲
+     *
+     * @param newCapacity 新容量（不小于当前容量）
+     */
+    void grow(int newCapacity) {
+        if (newCapacity <= capacity) {
+            return;
+        }
+        int oldWords = words.length;
+        words = Arrays.copyOf(words, (newCapacity + 63) >>> 6);
+        capacity = newCapacity;
+        if (firstFreeWord >= oldWords) {
+            // 原位图已满时最后一个字可能有新增的空闲位
+            firstFreeWord = oldWords - 1;
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int getUsed() {
+        return used;
+    }
+}
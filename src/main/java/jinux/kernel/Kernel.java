@@ -1,13 +1,21 @@
 package jinux.kernel;
 
+import jinux.boot.BootParams;
 import jinux.mm.MemoryManager;
 import jinux.mm.IMemoryManager;
 import jinux.mm.IAddressSpace;
+import jinux.mm.PageReclaimer;
+import jinux.mm.MemoryCompactor;
+import jinux.mm.SwapDevice;
 import jinux.drivers.*;
 import jinux.fs.VirtualFileSystem;
 import jinux.include.MemoryConstants;
 import jinux.include.ProcessConstants;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * Jinux 内核主类
  * 对应 Linux 0.01 中的 kernel/main.c (main 函数)
@@ -43,19 +51,40 @@ public class Kernel {
     private volatile boolean running;
     
     /**
-     * 构造内核
+     * 使用默认启动参数构造内核
      */
     public Kernel() {
+        this(new BootParams());
+    }
+    
+    /**
+     * 构造内核
+     * 
+     * @param bootParams 启动参数
+     */
+    public Kernel(BootParams bootParams) {
         System.out.println("\n========================================");
         System.out.println("        Jinux Operating System");
         System.out.println("    (Java Implementation of Linux 0.01)");
         System.out.println("========================================\n");
         
         // 初始化内存管理
-        this.memoryManager = new MemoryManager();
+        MemoryManager mm = new MemoryManager(bootParams.createPhysicalMemory());
+        mm.setDemandPaging(bootParams.isDemandPaging());
+        mm.setHugePagePolicy(bootParams.getHugePagePolicy());
+        if (bootParams.getSwapSize() > 0) {
+            enableSwap(mm, bootParams.getSwapSize());
+        }
+        if (bootParams.isCompactionEnabled()) {
+            // 在创建任何地址空间之前启用，地址空间创建时登记到规整器
+            mm.enableCompaction().start();
+        }
+        this.memoryManager = mm;
         
         // 初始化调度器
-        this.scheduler = new Scheduler();
+        this.scheduler = new Scheduler(bootParams.getNrCpus(), LinuxSchedulingAlgorithm::new);
+        this.scheduler.setTaskExecutor(bootParams.createTaskExecutor());
+        System.out.println("[KERNEL] Task executor: " + scheduler.getTaskExecutor().getName());
         
         // 初始化系统调用
         this.syscallDispatcher = new SystemCallDispatcher(scheduler, memoryManager);
@@ -72,6 +101,23 @@ public class Kernel {
         this.running = false;
     }
     
+    /**
+     * 在临时文件上启用交换并启动 kswapd，失败时打印警告后继续（不启用交换）
+     * 
+     * @param mm 内存管理器
+     * @param swapSize 交换区大小（字节）
+     */
+    private static void enableSwap(MemoryManager mm, long swapSize) {
+        try {
+            Path swapFile = Files.createTempFile("jinux-swap", ".img");
+            swapFile.toFile().deleteOnExit();
+            int slots = (int) Math.min(Integer.MAX_VALUE, swapSize / MemoryConstants.PAGE_SIZE);
+            mm.enableSwap(new SwapDevice(swapFile, slots)).start();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("[KERNEL] WARNING: Failed to enable swap: " + e.getMessage());
+        }
+    }
+    
     /**
      * 内核初始化
      * 对应 Linux 0.01 的 main() 函数
@@ -146,9 +192,7 @@ public class Kernel {
         // 运行 init 进程
         Task initTask = scheduler.getCurrentTask();
         if (initTask != null && initTask.getExecutable() != null) {
-            Thread initThread = new Thread(initTask.getExecutable(), "init-process");
-            initTask.setExecutionThread(initThread);
-            initThread.start();
+            Thread initThread = scheduler.getTaskExecutor().start(initTask, "init-process");
             
             // 等待 init 进程结束
             try {
@@ -174,12 +218,31 @@ public class Kernel {
         // 关闭磁盘
         disk.close();
         
+        // 停止 kswapd（交换文件在打印统计信息之后关闭）
+        PageReclaimer reclaimer = memoryManager.getPageReclaimer();
+        if (reclaimer != null) {
+            reclaimer.stop();
+        }
+        
+        // 停止 kcompactd
+        MemoryCompactor compactor = memoryManager.getMemoryCompactor();
+        if (compactor != null) {
+            compactor.stop();
+        }
+        
         // 打印最终统计信息
         System.out.println("\n========== Final Statistics ==========");
         memoryManager.printStats();
         scheduler.printProcessList();
+        if (scheduler.getNrCpus() > 1) {
+            scheduler.printCpuStats();
+        }
         System.out.println("======================================\n");
         
+        if (reclaimer != null) {
+            reclaimer.getSwapDevice().close();
+        }
+        
         System.out.println("[KERNEL] Jinux halted.");
     }
     
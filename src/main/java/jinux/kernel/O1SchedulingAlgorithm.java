@@ -0,0 +1,261 @@
+package jinux.kernel;
+
+import jinux.include.ProcessConstants;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * O(1) 调度算法实现
+ * 对应 Linux 2.6 早期的 O(1) 调度器（kernel/sched.c 中的 prio_array）
+ *
+ * {@link LinuxSchedulingAlgorithm} 每次调度都要扫描整个进程表，时间片耗尽时还要再遍历一次重新分配，
+ * 开销随进程数线性增长。本算法自行维护运行队列，不再扫描进程表：
+ * <ul>
+ *   <li>活动数组与过期数组：各有 {@link #NR_PRIO} 个按优先级划分的 FIFO 队列，
+ *       以及一个位图记录哪些队列非空，选择时取最高置位对应队列的队首</li>
+ *   <li>时间片耗尽的进程立即按 counter = counter / 2 + priority 重新分配时间片并移入过期数组，
+ *       活动数组为空时交换两个数组，不需要统一遍历重新分配</li>
+ *   <li>运行队列在进程加入、睡眠、唤醒、停止、退出时通过 {@link SchedulingAlgorithm} 的回调增量维护</li>
+ * </ul>
+ * priority 越大优先级越高，超出 [0, NR_PRIO) 的值按边界处理；
+ * 修改已入队进程的 priority 在其下次入队时生效。
+ *
+ * 非线程安全：每个 CPU 的运行队列有自己的算法实例，所有方法都由 {@link Scheduler} 在该运行队列的锁
+ * （{@code RunQueue.lock}）内调用，不一定持有调度器锁：状态变化和时钟中断回调只持有进程所在运行队列的锁，
+ * 负载均衡的 {@code taskMigrated} 同时持有源和目标两个运行队列的锁。
+ * 算法实例之间共享的状态不受任何一把锁保护，需自行同步。
+ *
+ * @author Jinux Project
+ */
+public class O1SchedulingAlgorithm implements SchedulingAlgorithm {
+
+    /** 优先级队列数（位图宽度） */
+    public static final int NR_PRIO = Long.SIZE;
+
+    /** 时间片衰减因子：重新分配时 counter 除以此值 */
+    private static final int COUNTER_DECAY_DIVISOR = 2;
+
+    /** 活动数组 */
+    private PrioArray active = new PrioArray();
+
+    /** 过期数组 */
+    private PrioArray expired = new PrioArray();
+
+    /** 已入队进程 -> 队列节点 */
+    private final Map<Task, Node> queued = new IdentityHashMap<>();
+
+    /** 数组交换次数 */
+    private long arraySwitches;
+
+    @Override
+    public Task selectNextTask(Task[] taskTable, Task currentTask) {
+        while (true) {
+            if (active.count == 0) {
+                if (expired.count == 0) {
+                    return null;
+                }
+                PrioArray t = active;
+                active = expired;
+                expired = t;
+                arraySwitches++;
+            }
+            Node head = active.first();
+            if (head.task.getCounter() > 0) {
+                return head.task;
+            }
+            // 时间片耗尽：重新分配并移入过期数组
+            active.remove(head);
+            refill(head.task);
+            expired.add(head, prioIndex(head.task));
+        }
+    }
+
+    /**
+     * 立即结束当前轮次：过期数组中的进程并回活动数组
+     * （时间片已在移入过期数组时重新分配，这里不再遍历进程表）
+     */
+    @Override
+    public void redistributeCounters(Task[] taskTable) {
+        while (expired.count > 0) {
+            Node node = expired.first();
+            expired.remove(node);
+            active.add(node, node.prio);
+        }
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        if (task.getState() == ProcessConstants.TASK_RUNNING) {
+            enqueue(task);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        dequeue(task);
+    }
+
+    @Override
+    public void taskStateChanged(Task task, int oldState) {
+        if (task.getState() == ProcessConstants.TASK_RUNNING) {
+            enqueue(task);
+        } else {
+            dequeue(task);
+        }
+    }
+
+    /**
+     * 进程入队：有剩余时间片进入活动数组，否则重新分配后进入过期数组
+     */
+    private void enqueue(Task task) {
+        if (queued.containsKey(task)) {
+            return;
+        }
+        Node node = new Node(task);
+        queued.put(task, node);
+        if (task.getCounter() > 0) {
+            active.add(node, prioIndex(task));
+        } else {
+            refill(task);
+            expired.add(node, prioIndex(task));
+        }
+    }
+
+    /**
+     * 进程出队
+     */
+    private void dequeue(Task task) {
+        Node node = queued.remove(task);
+        if (node != null) {
+            node.array.remove(node);
+        }
+    }
+
+    /**
+     * 重新分配时间片（至少 1，保证非正 priority 的进程也能被选中）
+     */
+    private static void refill(Task task) {
+        task.setCounter(Math.max(1, task.getCounter() / COUNTER_DECAY_DIVISOR + task.getPriority()));
+    }
+
+    /**
+     * priority 对应的队列下标
+     */
+    private static int prioIndex(Task task) {
+        return Math.min(NR_PRIO - 1, Math.max(0, task.getPriority()));
+    }
+
+    /**
+     * 获取运行队列中的进程数
+     */
+    public int getRunnableCount() {
+        return active.count + expired.count;
+    }
+
+    /**
+     * 获取活动数组中的进程数
+     */
+    public int getActiveCount() {
+        return active.count;
+    }
+
+    /**
+     * 获取过期数组中的进程数
+     */
+    public int getExpiredCount() {
+        return expired.count;
+    }
+
+    public long getArraySwitches() {
+        return arraySwitches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("O(1)[active=%d, expired=%d, switches=%d]",
+            active.count, expired.count, arraySwitches);
+    }
+
+    /**
+     * 优先级数组（对应 struct prio_array）
+     */
+    private static final class PrioArray {
+
+        /** 非空队列位图：第 i 位对应优先级 i */
+        long bitmap;
+
+        /** 各优先级队列的队首 */
+        final Node[] heads = new Node[NR_PRIO];
+
+        /** 各优先级队列的队尾 */
+        final Node[] tails = new Node[NR_PRIO];
+
+        /** 进程数 */
+        int count;
+
+        /**
+         * 最高优先级队列的队首（数组非空时调用）
+         */
+        Node first() {
+            return heads[NR_PRIO - 1 - Long.numberOfLeadingZeros(bitmap)];
+        }
+
+        /**
+         * 加入优先级队列队尾
+         */
+        void add(Node node, int prio) {
+            node.array = this;
+            node.prio = prio;
+            node.next = null;
+            node.prev = tails[prio];
+            if (tails[prio] == null) {
+                heads[prio] = node;
+                bitmap |= 1L << prio;
+            } else {
+                tails[prio].next = node;
+            }
+            tails[prio] = node;
+            count++;
+        }
+
+        /**
+         * 从所在队列中摘除
+         */
+        void remove(Node node) {
+            int prio = node.prio;
+            if (node.prev == null) {
+                heads[prio] = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tails[prio] = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            if (heads[prio] == null) {
+                bitmap &= ~(1L << prio);
+            }
+            node.prev = null;
+            node.next = null;
+            node.array = null;
+            count--;
+        }
+    }
+
+    /**
+     * 运行队列节点（对应 task_struct 中的 run_list）
+     */
+    private static final class Node {
+        final Task task;
+        PrioArray array;
+        int prio;
+        Node prev;
+        Node next;
+
+        Node(Task task) {
+            this.task = task;
+        }
+    }
+}
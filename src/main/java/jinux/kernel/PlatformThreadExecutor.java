@@ -0,0 +1,24 @@
+package jinux.kernel;
+
+/**
+ * 平台线程执行后端
+ *
+ * 每个进程一个操作系统线程，与原有实现相同；进程数多时线程创建和上下文切换开销较大。
+ *
+ * @author Jinux Project
+ */
+public class PlatformThreadExecutor implements TaskExecutor {
+
+    @Override
+    public Thread start(Task task, String name) {
+        Thread thread = new Thread(task.createThreadBody(), name);
+        task.setExecutionThread(thread);
+        thread.start();
+        return thread;
+    }
+
+    @Override
+    public String getName() {
+        return "platform";
+    }
+}
@@ -2,10 +2,12 @@ package jinux.kernel;
 
 import jinux.include.ProcessConstants;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * 进程调度器
@@ -15,69 +17,156 @@ import java.util.concurrent.locks.ReentrantLock;
  * 统一使用 ReentrantLock 作为锁策略，增加 PID→Task 的 HashMap 索引
  * 调度算法通过 {@link SchedulingAlgorithm} 策略接口解耦，支持替换。
  * 
+ * 支持多个模拟 CPU（SMP）：每个 CPU 有自己的运行队列（独立的调度算法实例、当前进程、锁和时钟滴答），
+ * 进程创建时放到最空闲的 CPU 上，之后通过负载均衡在 CPU 之间迁移：
+ * <ul>
+ *   <li>周期性均衡：每个 CPU 每 {@link #BALANCE_INTERVAL_TICKS} 个滴答从最忙的 CPU 拉取进程</li>
+ *   <li>空闲均衡：CPU 没有可运行进程时在调度前立即从最忙的 CPU 拉取（work stealing）</li>
+ * </ul>
+ * 只迁移可运行但没有在运行的进程，每次拉取两队列长度差的一半。
+ * 锁顺序：进程表锁 → 运行队列锁，同时持有两个运行队列锁时按 CPU 编号从小到大获取。
+ * 不带 CPU 参数的方法作用于 0 号 CPU（引导 CPU），单 CPU 时与原有行为一致。
+ * 
+ * 进程表从 {@link ProcessConstants#NR_TASKS} 个槽位开始，满了以后倍增（最多 pidMax 个）。
+ * 空闲槽位和 PID 各由一个位图管理：槽位取最小的空闲编号，PID 从上次分配的值向后循环分配（对应 pidmap），
+ * 进程被回收（{@link #removeTask}）时槽位和 PID 一起释放；按 PID 移除通过 PID 索引定位槽位，不扫描进程表。
+ * 
  * @author Jinux Project
  */
 public class Scheduler {
     
-    /** 进程表（task_struct 数组） */
-    private final Task[] taskTable;
+    /** 周期性负载均衡的间隔（滴答） */
+    public static final int BALANCE_INTERVAL_TICKS = 10;
+    
+    /** 进程表（task_struct 数组，按需倍增） */
+    private volatile Task[] taskTable;
+    
+    /** 进程表槽位位图 */
+    private final IdBitmap slotMap;
     
     /** PID 到 Task 的快速索引（O(1) 查找） */
     private final Map<Integer, Task> pidIndex;
     
-    /** 当前运行进程 */
-    private Task currentTask;
+    /** 每个 PID 的子进程数（按 ppid 计数），父进程离开进程表时据此判断是否需要托孤 */
+    private final Map<Integer, Integer> childCounts;
     
-    /** 下一个可用的 PID */
-    private int nextPid;
+    /** PID 位图（对应 pidmap） */
+    private final IdBitmap pidMap;
     
-    /** 统一的调度器锁 */
+    /** PID 上限（不含，对应 pid_max） */
+    private final int pidMax;
+    
+    /** 上次分配的 PID */
+    private int lastPid;
+    
+    /** 进程表锁（对应 tasklist_lock） */
     private final ReentrantLock schedulerLock;
     
     /** 系统时钟滴答计数（使用 AtomicLong 减少锁竞争） */
     private final AtomicLong jiffies;
     
-    /** 调度算法策略 */
-    private final SchedulingAlgorithm schedulingAlgorithm;
+    /** 各 CPU 的运行队列 */
+    private final RunQueue[] runQueues;
+    
+    /** 负载均衡迁移的进程数 */
+    private final AtomicLong migrations;
+    
+    /** 进程执行后端 */
+    private volatile TaskExecutor taskExecutor = new PlatformThreadExecutor();
     
     /**
-     * 使用默认调度算法（Linux 0.01 原始算法）构造调度器
+     * 使用默认调度算法（Linux 0.01 原始算法）构造单 CPU 调度器
      */
     public Scheduler() {
         this(new LinuxSchedulingAlgorithm());
     }
     
     /**
-     * 使用指定调度算法构造调度器
-     *
+     * 使用指定调度算法构造单 CPU 调度器
+     * 
      * @param schedulingAlgorithm 调度算法策略
      */
     public Scheduler(SchedulingAlgorithm schedulingAlgorithm) {
-        this.taskTable = new Task[ProcessConstants.NR_TASKS];
+        this(1, () -> schedulingAlgorithm);
+    }
+    
+    /**
+     * 构造多 CPU 调度器
+     * 
+     * @param nrCpus CPU 数
+     * @param algorithmFactory 调度算法工厂，每个 CPU 调用一次
+     */
+    public Scheduler(int nrCpus, Supplier<? extends SchedulingAlgorithm> algorithmFactory) {
+        this(nrCpus, algorithmFactory, ProcessConstants.PID_MAX);
+    }
+    
+    /**
+     * 构造多 CPU 调度器，指定 PID 上限
+     * 
+     * @param nrCpus CPU 数
+     * @param algorithmFactory 调度算法工厂，每个 CPU 调用一次
+     * @param pidMax PID 上限（不含，大于 {@link ProcessConstants#RESERVED_PIDS}），同时是进程数上限
+     */
+    public Scheduler(int nrCpus, Supplier<? extends SchedulingAlgorithm> algorithmFactory, int pidMax) {
+        if (nrCpus < 1) {
+            throw new IllegalArgumentException("Invalid CPU count: " + nrCpus);
+        }
+        if (pidMax <= ProcessConstants.RESERVED_PIDS) {
+            throw new IllegalArgumentException("Invalid pid_max: " + pidMax);
+        }
+        int slots = Math.min(ProcessConstants.NR_TASKS, pidMax);
+        this.taskTable = new Task[slots];
+        this.slotMap = new IdBitmap(slots);
         this.pidIndex = new HashMap<>();
-        this.currentTask = null;
-        this.nextPid = 0;
+        this.childCounts = new HashMap<>();
+        this.pidMap = new IdBitmap(Math.min(pidMax, 4096));
+        this.pidMax = pidMax;
+        this.lastPid = -1;
         this.schedulerLock = new ReentrantLock();
         this.jiffies = new AtomicLong(0);
-        this.schedulingAlgorithm = schedulingAlgorithm;
+        this.migrations = new AtomicLong(0);
+        this.runQueues = new RunQueue[nrCpus];
+        for (int cpu = 0; cpu < nrCpus; cpu++) {
+            runQueues[cpu] = new RunQueue(cpu, algorithmFactory.get(), slots);
+        }
     }
     
     /**
-     * 分配进程槽位
+     * 分配进程槽位（调用者持有进程表锁），进程表已满时倍增
      * 
-     * @return 进程槽位索引，失败返回 -1
+     * @return 进程槽位索引，达到上限返回 -1
      */
     private int allocateTaskSlot() {
-        for (int i = 0; i < taskTable.length; i++) {
-            if (taskTable[i] == null) {
-                return i;
+        int slot = slotMap.allocLowest();
+        if (slot < 0 && taskTable.length < pidMax) {
+            growTaskTable(Math.min(pidMax, taskTable.length * 2));
+            slot = slotMap.allocLowest();
+        }
+        return slot;
+    }
+    
+    /**
+     * 扩大进程表和各 CPU 的进程数组（持有所有运行队列锁，保证各 CPU 看到一致的槽位）
+     */
+    private void growTaskTable(int newLength) {
+        for (RunQueue rq : runQueues) {
+            rq.lock.lock();
+        }
+        try {
+            for (RunQueue rq : runQueues) {
+                rq.tasks = Arrays.copyOf(rq.tasks, newLength);
+            }
+            taskTable = Arrays.copyOf(taskTable, newLength);
+            slotMap.grow(newLength);
+        } finally {
+            for (int cpu = runQueues.length - 1; cpu >= 0; cpu--) {
+                runQueues[cpu].lock.unlock();
             }
         }
-        return -1;
     }
     
     /**
-     * 添加进程到进程表
+     * 添加进程到进程表，放到可运行进程最少的 CPU 上
      * 
      * @param task 进程
      * @return 是否成功
@@ -92,7 +181,24 @@ public class Scheduler {
             }
             
             taskTable[slot] = task;
+            task.setSlot(slot);
             pidIndex.put(task.getPid(), task);
+            childCounts.merge(task.getPpid(), 1, Integer::sum);
+            
+            RunQueue rq = idlestRunQueue();
+            rq.lock.lock();
+            try {
+                task.setCpu(rq.cpu);
+                rq.tasks[slot] = task;
+                if (task.getState() == ProcessConstants.TASK_RUNNING) {
+                    task.setOnRunQueue(true);
+                    rq.nrRunning++;
+                }
+                task.setStateListener(this::taskStateChanged);
+                rq.algorithm.taskAdded(task);
+            } finally {
+                rq.lock.unlock();
+            }
             System.out.println("[SCHED] Task added: " + task);
             return true;
         } finally {
@@ -101,14 +207,52 @@ public class Scheduler {
     }
     
     /**
-     * 分配新的 PID
+     * 分配新的 PID（对应 alloc_pidmap）
+     * 从上次分配的 PID 向后查找空闲 PID，到达上限后从 {@link ProcessConstants#RESERVED_PIDS} 回绕
      * 
-     * @return PID
+     * @return PID，PID 耗尽返回 -1
      */
     public int allocatePid() {
         schedulerLock.lock();
         try {
-            return nextPid++;
+            int start = lastPid + 1 < pidMax ? lastPid + 1 : ProcessConstants.RESERVED_PIDS;
+            int pid = allocatePidFrom(start);
+            if (pid < 0 && start > ProcessConstants.RESERVED_PIDS) {
+                pid = allocatePidFrom(ProcessConstants.RESERVED_PIDS);
+            }
+            if (pid >= 0) {
+                lastPid = pid;
+            }
+            return pid;
+        } finally {
+            schedulerLock.unlock();
+        }
+    }
+    
+    /**
+     * 分配不小于 start 的空闲 PID，位图不够时增长（不超过 pidMax）
+     */
+    private int allocatePidFrom(int start) {
+        while (true) {
+            int pid = pidMap.allocFrom(start);
+            if (pid >= 0 || pidMap.capacity() >= pidMax) {
+                return pid;
+            }
+            pidMap.grow((int) Math.min(pidMax, Math.max((long) pidMap.capacity() * 2, start + 1L)));
+        }
+    }
+    
+    /**
+     * 释放未使用的 PID（进程创建失败时调用，已加入进程表的进程由 {@link #removeTask} 释放）
+     * 
+     * @param pid 进程 ID
+     */
+    public void freePid(int pid) {
+        schedulerLock.lock();
+        try {
+            if (!pidIndex.containsKey(pid)) {
+                pidMap.clear(pid);
+            }
         } finally {
             schedulerLock.unlock();
         }
@@ -130,73 +274,267 @@ public class Scheduler {
     }
     
     /**
-     * 移除进程
+     * 移除进程，释放其槽位和 PID（对应 release_task）
      * 
      * @param pid 进程 ID
      */
     public void removeTask(int pid) {
         schedulerLock.lock();
         try {
-            for (int i = 0; i < taskTable.length; i++) {
-                if (taskTable[i] != null && taskTable[i].getPid() == pid) {
-                    System.out.println("[SCHED] Task removed: " + taskTable[i]);
-                    taskTable[i] = null;
-                    break;
+            Task task = pidIndex.remove(pid);
+            if (task == null) {
+                return;
+            }
+            System.out.println("[SCHED] Task removed: " + task);
+            reparentChildren(task);
+            childCounts.computeIfPresent(task.getPpid(), (ppid, count) -> count > 1 ? count - 1 : null);
+            int slot = task.getSlot();
+            RunQueue rq = lockTaskRunQueue(task);
+            try {
+                task.setStateListener(null);
+                if (task.isOnRunQueue()) {
+                    task.setOnRunQueue(false);
+                    rq.nrRunning--;
+                }
+                rq.tasks[slot] = null;
+                rq.algorithm.taskRemoved(task);
+            } finally {
+                rq.lock.unlock();
+            }
+            taskTable[slot] = null;
+            task.setSlot(-1);
+            slotMap.clear(slot);
+            pidMap.clear(pid);
+        } finally {
+            schedulerLock.unlock();
+        }
+    }
+    
+    /**
+     * 把进程的子进程托付给 init（对应 forget_original_parent）
+     * 进程退出或离开进程表时调用：PID 回收后，新进程不会继承旧进程的子进程。
+     * 托付的子进程中有僵尸进程时唤醒 init 回收
+     * 
+     * @param parent 父进程
+     */
+    public void reparentChildren(Task parent) {
+        schedulerLock.lock();
+        try {
+            int pid = parent.getPid();
+            if (pid == ProcessConstants.INIT_PID || childCounts.getOrDefault(pid, 0) == 0) {
+                return;
+            }
+            int moved = 0;
+            boolean zombie = false;
+            for (Task task : taskTable) {
+                if (task != null && task != parent && task.getPpid() == pid) {
+                    task.setPpid(ProcessConstants.INIT_PID);
+                    moved++;
+                    zombie |= task.getState() == ProcessConstants.TASK_ZOMBIE;
                 }
             }
-            pidIndex.remove(pid);
+            childCounts.remove(pid);
+            if (moved > 0) {
+                childCounts.merge(ProcessConstants.INIT_PID, moved, Integer::sum);
+            }
+            Task init = pidIndex.get(ProcessConstants.INIT_PID);
+            if (zombie && init != null && init.getWaitingForPid() != -1) {
+                init.wakeUp();
+            }
         } finally {
             schedulerLock.unlock();
         }
     }
     
     /**
-     * 调度算法：选择下一个要运行的进程
+     * 锁定进程所在 CPU 的运行队列（对应 task_rq_lock）
+     * 获取锁后重新检查，防止进程在此期间被迁移
+     */
+    private RunQueue lockTaskRunQueue(Task task) {
+        while (true) {
+            RunQueue rq = runQueues[task.getCpu()];
+            rq.lock.lock();
+            if (task.getCpu() == rq.cpu) {
+                return rq;
+            }
+            rq.lock.unlock();
+        }
+    }
+    
+    /**
+     * 进程状态变化时通知所在 CPU 的调度算法（进程可能在任意线程中改变状态）
+     */
+    private void taskStateChanged(Task task, int oldState) {
+        RunQueue rq = lockTaskRunQueue(task);
+        try {
+            boolean runnable = task.getState() == ProcessConstants.TASK_RUNNING;
+            if (runnable != task.isOnRunQueue()) {
+                task.setOnRunQueue(runnable);
+                rq.nrRunning += runnable ? 1 : -1;
+            }
+            rq.algorithm.taskStateChanged(task, oldState);
+        } finally {
+            rq.lock.unlock();
+        }
+    }
+    
+    /**
+     * 调度算法：在 0 号 CPU 上选择下一个要运行的进程
      * 对应 Linux 0.01 的 schedule() 函数
      * 
      * 委托给 {@link SchedulingAlgorithm} 策略实现，实现算法与调度器的解耦。
      */
     public void schedule() {
-        schedulerLock.lock();
+        schedule(0);
+    }
+    
+    /**
+     * 在指定 CPU 上选择下一个要运行的进程
+     * 本 CPU 没有可运行进程时先做空闲均衡
+     * 
+     * @param cpu CPU 编号
+     */
+    public void schedule(int cpu) {
+        RunQueue rq = runQueues[cpu];
+        if (runQueues.length > 1 && !rq.lock.isHeldByCurrentThread() && rq.nrRunning == 0) {
+            loadBalance(cpu);
+        }
+        
+        rq.lock.lock();
         try {
-            Task next = schedulingAlgorithm.selectNextTask(taskTable, currentTask);
+            Task next = rq.algorithm.selectNextTask(rq.tasks, rq.current);
             
-            if (next != null && next != currentTask) {
-                Task prev = currentTask;
-                currentTask = next;
+            if (next != null && next != rq.current) {
+                Task prev = rq.current;
+                rq.current = next;
+                rq.switches++;
                 
+                String on = runQueues.length > 1 ? " on CPU " + cpu : "";
                 if (prev != null) {
-                    System.out.println("[SCHED] Context switch: " + prev.getPid() + " -> " + next.getPid());
+                    System.out.println("[SCHED] Context switch: " + prev.getPid() + " -> " + next.getPid() + on);
                 } else {
-                    System.out.println("[SCHED] Starting task: " + next.getPid());
+                    System.out.println("[SCHED] Starting task: " + next.getPid() + on);
                 }
             }
         } finally {
-            schedulerLock.unlock();
+            rq.lock.unlock();
         }
     }
     
     /**
-     * 时钟中断处理
+     * 时钟中断处理：所有 CPU 各产生一次时钟滴答
      * 对应 Linux 0.01 的 do_timer()
      * jiffies 使用 AtomicLong 无锁递增，减少高频锁竞争
      */
     public void timerInterrupt() {
-        jiffies.incrementAndGet();
+        for (int cpu = 0; cpu < runQueues.length; cpu++) {
+            timerInterrupt(cpu);
+        }
+    }
+    
+    /**
+     * 指定 CPU 的时钟中断（对应 scheduler_tick），0 号 CPU 同时推进 jiffies
+     * 
+     * @param cpu CPU 编号
+     */
+    public void timerInterrupt(int cpu) {
+        if (cpu == 0) {
+            jiffies.incrementAndGet();
+        }
         
-        schedulerLock.lock();
+        RunQueue rq = runQueues[cpu];
+        boolean resched;
+        long ticks;
+        rq.lock.lock();
         try {
-            if (currentTask != null) {
-                currentTask.addUtime(1);
-                currentTask.decrementCounter();
-                
-                if (currentTask.getCounter() <= 0) {
-                    schedule();
+            ticks = ++rq.ticks;
+            Task current = rq.current;
+            if (current != null) {
+                current.addUtime(1);
+                current.decrementCounter();
+                resched = rq.algorithm.taskTick(current);
+            } else {
+                // 空闲 CPU：有可运行进程（如刚迁移过来的）时开始运行
+                resched = rq.nrRunning > 0;
+            }
+        } finally {
+            rq.lock.unlock();
+        }
+        
+        if (resched) {
+            schedule(cpu);
+        }
+        if (runQueues.length > 1 && ticks % BALANCE_INTERVAL_TICKS == 0) {
+            loadBalance(cpu);
+        }
+    }
+    
+    /**
+     * 负载均衡：从可运行进程最多的 CPU 向指定 CPU 拉取进程（对应 load_balance）
+     * 
+     * @param cpu 目标 CPU
+     * @return 迁移的进程数
+     */
+    public int loadBalance(int cpu) {
+        RunQueue dst = runQueues[cpu];
+        RunQueue src = null;
+        int srcLoad = 0;
+        for (RunQueue rq : runQueues) {
+            int load = rq.nrRunning;
+            if (rq != dst && load > srcLoad) {
+                src = rq;
+                srcLoad = load;
+            }
+        }
+        if (src == null) {
+            return 0;
+        }
+        
+        RunQueue first = src.cpu < dst.cpu ? src : dst;
+        RunQueue second = first == src ? dst : src;
+        first.lock.lock();
+        second.lock.lock();
+        int moved = 0;
+        try {
+            // 持锁后重新计算，期间队列可能已经变化
+            int imbalance = (src.nrRunning - dst.nrRunning) / 2;
+            for (int i = 0; i < src.tasks.length && moved < imbalance; i++) {
+                Task task = src.tasks[i];
+                if (task == null || task == src.current || !task.isOnRunQueue()) {
+                    continue;
                 }
+                src.tasks[i] = null;
+                src.nrRunning--;
+                task.setCpu(dst.cpu);
+                dst.tasks[i] = task;
+                dst.nrRunning++;
+                dst.algorithm.taskMigrated(task, src.algorithm);
+                moved++;
             }
         } finally {
-            schedulerLock.unlock();
+            second.lock.unlock();
+            first.lock.unlock();
         }
+        if (moved > 0) {
+            migrations.addAndGet(moved);
+        }
+        return moved;
+    }
+    
+    /**
+     * 可运行进程最少的 CPU（编号小的优先）
+     */
+    private RunQueue idlestRunQueue() {
+        RunQueue idlest = runQueues[0];
+        int minLoad = Integer.MAX_VALUE;
+        for (RunQueue rq : runQueues) {
+            int load = rq.nrRunning;
+            if (load < minLoad) {
+                idlest = rq;
+                minLoad = load;
+            }
+        }
+        return idlest;
     }
     
     /**
@@ -208,8 +546,8 @@ public class Scheduler {
         schedulerLock.lock();
         try {
             for (Task task : taskTable) {
-                if (task != null && 
-                    (task.getState() == ProcessConstants.TASK_INTERRUPTIBLE || 
+                if (task != null &&
+                    (task.getState() == ProcessConstants.TASK_INTERRUPTIBLE ||
                      task.getState() == ProcessConstants.TASK_UNINTERRUPTIBLE)) {
                     task.wakeUp();
                 }
@@ -220,20 +558,52 @@ public class Scheduler {
     }
     
     /**
-     * 当前进程睡眠
+     * 发起调用的进程睡眠（见 {@link #getCallingTask()}）
      * 
      * @param interruptible 是否可中断
      */
     public void sleep(boolean interruptible) {
+        Task current = getCallingTask();
+        if (current != null) {
+            sleep(current, interruptible);
+        }
+    }
+    
+    /**
+     * 进程睡眠：设置睡眠状态后让出 CPU，在进程自己的执行线程上调用时停放直到被唤醒
+     * 
+     * @param task 睡眠的进程
+     * @param interruptible 是否可中断
+     * @return 是否停放过（见 {@link Task#parkWhileSleeping()}）
+     */
+    public boolean sleep(Task task, boolean interruptible) {
+        task.sleep(interruptible);
+        return block(task);
+    }
+    
+    /**
+     * 已设置睡眠状态的进程让出 CPU 并停放执行线程
+     * 对应 Linux 中 set_current_state() 之后的 schedule()：调用者可以在设置状态后、
+     * 阻塞前再检查一次等待条件，避免丢失唤醒
+     * 
+     * 停放在释放调度器锁之后进行，虚拟线程停放时让出载体线程。
+     * 可中断睡眠时已有未阻塞的待处理信号则不睡眠（对应 signal_pending_state()），
+     * 否则设置状态之前到达的信号会丢失唤醒。
+     * 
+     * @param task 已处于睡眠状态的进程
+     * @return 是否停放过（见 {@link Task#parkWhileSleeping()}）
+     */
+    public boolean block(Task task) {
+        if (task.getState() == ProcessConstants.TASK_INTERRUPTIBLE && task.hasPendingSignals()) {
+            task.wakeUp();
+        }
         schedulerLock.lock();
         try {
-            if (currentTask != null) {
-                currentTask.sleep(interruptible);
-                schedule();
-            }
+            schedule(task.getCpu());
         } finally {
             schedulerLock.unlock();
         }
+        return task.parkWhileSleeping();
     }
     
     /**
@@ -243,13 +613,14 @@ public class Scheduler {
         schedulerLock.lock();
         try {
             System.out.println("\n========== Process List ==========");
-            System.out.println("PID\tPPID\tSTATE\t\tCOUNTER\tPRIORITY");
+            System.out.println("PID\tPPID\tCPU\tSTATE\t\tCOUNTER\tPRIORITY");
             
             for (Task task : taskTable) {
                 if (task != null) {
-                    System.out.printf("%d\t%d\t%s\t%d\t%d\n",
+                    System.out.printf("%d\t%d\t%d\t%s\t%d\t%d\n",
                         task.getPid(),
                         task.getPpid(),
+                        task.getCpu(),
                         task.getStateName(),
                         task.getCounter(),
                         task.getPriority());
@@ -262,17 +633,145 @@ public class Scheduler {
         }
     }
     
+    /**
+     * 打印各 CPU 运行队列的统计
+     */
+    public void printCpuStats() {
+        for (RunQueue rq : runQueues) {
+            System.out.println("  " + rq);
+        }
+        System.out.println("  Migrations: " + migrations.get());
+    }
+    
     // ==================== Getters ====================
     
+    /**
+     * 获取 0 号 CPU 的当前进程
+     */
     public Task getCurrentTask() {
-        return currentTask;
+        return runQueues[0].current;
+    }
+    
+    /**
+     * 获取发起调用的进程
+     * 在进程的执行线程上返回该进程（不论它被放在哪个 CPU 上）；
+     * 其他线程（shell、演示程序）没有所属进程，退回 0 号 CPU 的当前进程
+     */
+    public Task getCallingTask() {
+        Task task = Task.current();
+        return task != null ? task : getCurrentTask();
+    }
+    
+    /**
+     * 获取指定 CPU 的当前进程
+     */
+    public Task getCurrentTask(int cpu) {
+        return runQueues[cpu].current;
+    }
+    
+    /**
+     * 获取指定 CPU 上的可运行进程数（含当前进程）
+     */
+    public int getNrRunning(int cpu) {
+        RunQueue rq = runQueues[cpu];
+        rq.lock.lock();
+        try {
+            return rq.nrRunning;
+        } finally {
+            rq.lock.unlock();
+        }
+    }
+    
+    /**
+     * 获取指定 CPU 的调度算法实例
+     */
+    public SchedulingAlgorithm getSchedulingAlgorithm(int cpu) {
+        return runQueues[cpu].algorithm;
+    }
+    
+    public int getNrCpus() {
+        return runQueues.length;
+    }
+    
+    public long getMigrations() {
+        return migrations.get();
+    }
+    
+    public TaskExecutor getTaskExecutor() {
+        return taskExecutor;
+    }
+    
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
     }
     
     public long getJiffies() {
         return jiffies.get();
     }
     
+    /**
+     * 获取进程表（扩容后返回新数组，空槽位为 null）
+     */
     public Task[] getTaskTable() {
         return taskTable;
     }
+    
+    /**
+     * 获取进程表中的进程数
+     */
+    public int getTaskCount() {
+        schedulerLock.lock();
+        try {
+            return pidIndex.size();
+        } finally {
+            schedulerLock.unlock();
+        }
+    }
+    
+    public int getPidMax() {
+        return pidMax;
+    }
+    
+    /**
+     * 每个 CPU 的运行队列（对应 struct rq）
+     */
+    private static final class RunQueue {
+        
+        /** CPU 编号 */
+        final int cpu;
+        
+        /** 本 CPU 的调度算法实例 */
+        final SchedulingAlgorithm algorithm;
+        
+        /** 运行队列锁 */
+        final ReentrantLock lock = new ReentrantLock();
+        
+        /** 本 CPU 上的进程，下标与进程表槽位相同（不在本 CPU 的槽位为 null） */
+        Task[] tasks;
+        
+        /** 可运行进程数（含当前进程，对应 nr_running） */
+        int nrRunning;
+        
+        /** 当前运行的进程 */
+        Task current;
+        
+        /** 本 CPU 的时钟滴答数 */
+        long ticks;
+        
+        /** 上下文切换次数 */
+        long switches;
+        
+        RunQueue(int cpu, SchedulingAlgorithm algorithm, int slots) {
+            this.cpu = cpu;
+            this.algorithm = algorithm;
+            this.tasks = new Task[slots];
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("CPU%d: running=%d, current=%s, ticks=%d, switches=%d",
+                cpu, nrRunning, current != null ? String.valueOf(current.getPid()) : "idle",
+                ticks, switches);
+        }
+    }
 }
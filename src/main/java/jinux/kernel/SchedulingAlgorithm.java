@@ -25,4 +25,53 @@ public interface SchedulingAlgorithm {
      * @param taskTable 进程表
      */
     void redistributeCounters(Task[] taskTable);
+
+    /**
+     * 时钟中断（当前进程的 counter 已递减，调度器持锁调用）
+     * 默认在时间片耗尽时重新调度
+     *
+     * @param currentTask 当前运行的进程
+     * @return 是否需要重新调度
+     */
+    default boolean taskTick(Task currentTask) {
+        return currentTask.getCounter() <= 0;
+    }
+
+    /**
+     * 进程加入进程表（调度器持锁调用）
+     * 维护自有运行队列的算法在此入队，默认不做处理
+     *
+     * @param task 进程
+     */
+    default void taskAdded(Task task) {
+    }
+
+    /**
+     * 进程移出进程表（调度器持锁调用）
+     *
+     * @param task 进程
+     */
+    default void taskRemoved(Task task) {
+    }
+
+    /**
+     * 负载均衡把进程从另一个 CPU 迁移到本 CPU（两个 CPU 的运行队列锁均已持有）
+     * 默认从源算法移出后作为新进程加入；维护每进程状态的算法可覆盖以保留状态
+     *
+     * @param task 进程（所在 CPU 已改为本 CPU）
+     * @param source 源 CPU 的调度算法
+     */
+    default void taskMigrated(Task task, SchedulingAlgorithm source) {
+        source.taskRemoved(task);
+        taskAdded(task);
+    }
+
+    /**
+     * 进程状态变化：睡眠、唤醒、停止、继续、退出（调度器持锁调用）
+     *
+     * @param task 进程（已是新状态）
+     * @param oldState 原状态
+     */
+    default void taskStateChanged(Task task, int oldState) {
+    }
 }
@@ -18,7 +18,7 @@ import java.util.Map;
  * - FileSyscalls: 文件操作（read, write, open, close 等）
  * - SignalSyscalls: 信号管理（signal, kill）
  * - IpcSyscalls: 进程间通信（pipe）
- * - MiscSyscalls: 杂项（brk, time, times）
+ * - MiscSyscalls: 杂项（brk, mmap, munmap, time, times）
  * 
  * @author Jinux Project
  */
@@ -56,8 +56,8 @@ public class SystemCallDispatcher {
         this.processSyscalls = new ProcessSyscalls(scheduler, memoryManager);
         this.fileSyscalls = new FileSyscalls();
         this.signalSyscalls = new SignalSyscalls(scheduler);
-        this.ipcSyscalls = new IpcSyscalls();
-        this.miscSyscalls = new MiscSyscalls();
+        this.ipcSyscalls = new IpcSyscalls(memoryManager);
+        this.miscSyscalls = new MiscSyscalls(memoryManager);
         
         registerSystemCalls();
     }
@@ -68,6 +68,7 @@ public class SystemCallDispatcher {
     public void setVfs(VirtualFileSystem vfs) {
         processSyscalls.setVfs(vfs);
         fileSyscalls.setVfs(vfs);
+        miscSyscalls.setVfs(vfs);
     }
     
     /**
@@ -91,7 +92,8 @@ public class SystemCallDispatcher {
      * @return 返回值
      */
     public long dispatch(int nr, long arg1, long arg2, long arg3) {
-        Task currentTask = scheduler.getCurrentTask();
+        // SMP 下按执行线程确定调用者，而不是 0 号 CPU 的当前进程
+        Task currentTask = scheduler.getCallingTask();
         
         if (currentTask == null) {
             System.err.println("[SYSCALL] ERROR: No current task!");
@@ -3,8 +3,12 @@ package jinux.kernel;
 import jinux.include.ProcessConstants;
 import jinux.mm.AddressSpace;
 import jinux.mm.IAddressSpace;
+import jinux.mm.MemoryUsage;
+import jinux.mm.ObjectCache;
 import jinux.fs.FileDescriptorTable;
 
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * 进程控制块（PCB）
  * 对应 Linux 0.01 中的 task_struct
@@ -15,14 +19,21 @@ import jinux.fs.FileDescriptorTable;
  */
 public class Task {
     
+    /** 信号处理器数组缓存（对应 Linux 中的 sighand_cachep），归还时重置为默认处理 */
+    private static final ObjectCache<SignalHandlerEntry[]> SIGHAND_CACHE =
+        new ObjectCache<>("sighand_cache", Task::newSignalHandlers, Task::resetSignalHandlers);
+    
+    /** 当前线程正在执行的进程（对应 Linux 中的 current，由执行线程在运行可执行代码时设置） */
+    private static final ThreadLocal<Task> CURRENT = new ThreadLocal<>();
+    
     /** 进程 ID */
     private final int pid;
     
     /** 父进程 ID */
     private int ppid;
     
-    /** 进程状态 */
-    private int state;
+    /** 进程状态（执行线程在睡眠时读取，需要 volatile） */
+    private volatile int state;
     
     /** 时间片计数器 */
     private int counter;
@@ -54,8 +65,8 @@ public class Task {
     /** 进程可执行代码（简化：用 Runnable 表示） */
     private Runnable executable;
     
-    /** 进程执行线程（Java 层面） */
-    private Thread executionThread;
+    /** 进程执行线程（Java 层面，由 {@link TaskExecutor} 创建） */
+    private volatile Thread executionThread;
     
     /** 等待的子进程 PID（用于 wait） */
     private int waitingForPid;
@@ -66,8 +77,20 @@ public class Task {
     /** 信号屏蔽位图 */
     private long signalBlocked;
     
-    /** 信号处理器数组 */
-    private final SignalHandlerEntry[] signalHandlers;
+    /** 信号处理器数组（进程被回收后归还缓存，置为 null） */
+    private SignalHandlerEntry[] signalHandlers;
+    
+    /** 所在 CPU（对应 task_cpu，由调度器在入队和迁移时设置） */
+    private volatile int cpu;
+    
+    /** 进程表槽位（由调度器维护，-1 表示不在进程表中） */
+    private int slot = -1;
+    
+    /** 是否计入所在 CPU 的可运行进程数（对应 on_rq，由调度器在运行队列锁内维护） */
+    private boolean onRunQueue;
+    
+    /** 状态变化监听器（由调度器在进程加入进程表时设置，可为 null） */
+    private volatile StateListener stateListener;
     
     /**
      * 构造进程控制块
@@ -83,7 +106,7 @@ public class Task {
         this.priority = ProcessConstants.DEF_PRIORITY;
         this.counter = ProcessConstants.DEF_COUNTER;
         this.addressSpace = addressSpace;
-        this.fdTable = new FileDescriptorTable();
+        this.fdTable = FileDescriptorTable.create();
         this.currentWorkingDir = jinux.include.FileSystemConstants.ROOT_INODE;
         this.exitCode = 0;
         this.utime = 0;
@@ -92,11 +115,28 @@ public class Task {
         this.waitingForPid = -1;
         this.signalPending = 0;
         this.signalBlocked = 0;
-        this.signalHandlers = new SignalHandlerEntry[Signal.NSIG];
-        
-        // 初始化所有信号处理器为默认
+        // 所有信号处理器均为默认
+        this.signalHandlers = SIGHAND_CACHE.alloc();
+    }
+    
+    /**
+     * 创建信号处理器数组，所有信号为默认处理
+     */
+    private static SignalHandlerEntry[] newSignalHandlers() {
+        SignalHandlerEntry[] handlers = new SignalHandlerEntry[Signal.NSIG];
         for (int i = 0; i < Signal.NSIG; i++) {
-            signalHandlers[i] = new SignalHandlerEntry(Signal.SIG_DFL, null);
+            handlers[i] = new SignalHandlerEntry(Signal.SIG_DFL, null);
+        }
+        return handlers;
+    }
+    
+    /**
+     * 就地把所有信号处理器重置为默认
+     */
+    private static void resetSignalHandlers(SignalHandlerEntry[] handlers) {
+        for (SignalHandlerEntry entry : handlers) {
+            entry.setHandler(Signal.SIG_DFL);
+            entry.setCustomHandler(null);
         }
     }
     
@@ -104,7 +144,7 @@ public class Task {
      * 切换到运行状态
      */
     public void switchToRunning() {
-        this.state = ProcessConstants.TASK_RUNNING;
+        changeState(ProcessConstants.TASK_RUNNING);
     }
     
     /**
@@ -113,7 +153,7 @@ public class Task {
      * @param interruptible 是否可中断
      */
     public void sleep(boolean interruptible) {
-        this.state = interruptible ? ProcessConstants.TASK_INTERRUPTIBLE : ProcessConstants.TASK_UNINTERRUPTIBLE;
+        changeState(interruptible ? ProcessConstants.TASK_INTERRUPTIBLE : ProcessConstants.TASK_UNINTERRUPTIBLE);
     }
     
     /**
@@ -121,10 +161,65 @@ public class Task {
      */
     public void wakeUp() {
         if (state == ProcessConstants.TASK_INTERRUPTIBLE || state == ProcessConstants.TASK_UNINTERRUPTIBLE) {
-            state = ProcessConstants.TASK_RUNNING;
+            changeState(ProcessConstants.TASK_RUNNING);
+        }
+    }
+    
+    /**
+     * 修改进程状态并通知监听器
+     * 所有状态变化都经过这里，调度器据此增量维护运行队列
+     * 
+     * @param newState 新状态
+     */
+    private void changeState(int newState) {
+        int oldState = state;
+        state = newState;
+        StateListener listener = stateListener;
+        if (listener != null && oldState != newState) {
+            listener.stateChanged(this, oldState);
+        }
+        if (newState == ProcessConstants.TASK_RUNNING || newState == ProcessConstants.TASK_ZOMBIE) {
+            // 唤醒在 parkWhileSleeping 中等待的执行线程
+            Thread thread = executionThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
         }
     }
     
+    /**
+     * 在进程自己的执行线程上阻塞，直到进程不再处于睡眠或停止状态
+     * 用 {@link LockSupport#park} 实现：虚拟线程停放时让出载体线程，不占用操作系统线程
+     * 
+     * 可中断睡眠在执行线程被中断时提前返回（对应信号打断睡眠）。
+     * 不可中断睡眠和停止状态下的中断先清除（中断标志置位时 park 立即返回，会空转），
+     * 返回前再恢复，留给调用者处理。
+     * 
+     * @return 是否阻塞过；不是在本进程的执行线程上调用时不阻塞，返回 false
+     */
+    public boolean parkWhileSleeping() {
+        if (Thread.currentThread() != executionThread) {
+            return false;
+        }
+        boolean interrupted = false;
+        while (state == ProcessConstants.TASK_INTERRUPTIBLE || state == ProcessConstants.TASK_UNINTERRUPTIBLE
+                || state == ProcessConstants.TASK_STOPPED) {
+            LockSupport.park(this);
+            if (Thread.currentThread().isInterrupted()) {
+                if (state == ProcessConstants.TASK_INTERRUPTIBLE) {
+                    wakeUp();
+                    break;
+                }
+                Thread.interrupted();
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+    
     /**
      * 进程退出
      * 
@@ -132,7 +227,7 @@ public class Task {
      */
     public void exit(int code) {
         this.exitCode = code;
-        this.state = ProcessConstants.TASK_ZOMBIE;
+        changeState(ProcessConstants.TASK_ZOMBIE);
         
         // 关闭所有打开的文件
         if (fdTable != null) {
@@ -146,15 +241,28 @@ public class Task {
         }
     }
     
+    /**
+     * 释放进程占用的内核对象（父进程 wait 回收僵尸进程时调用）
+     * 文件描述符表和信号处理器数组归还对象缓存，之后不得再使用本进程
+     */
+    public void release() {
+        if (fdTable != null) {
+            fdTable.release();
+            fdTable = null;
+        }
+        if (signalHandlers != null) {
+            SIGHAND_CACHE.free(signalHandlers);
+            signalHandlers = null;
+        }
+    }
+    
     /**
      * 为 exec 系统调用重置进程状态
      * 清理旧程序的状态，准备加载新程序
      */
     public void resetForExec() {
         // 重置信号处理器为默认
-        for (int i = 0; i < Signal.NSIG; i++) {
-            signalHandlers[i] = new SignalHandlerEntry(Signal.SIG_DFL, null);
-        }
+        resetSignalHandlers(signalHandlers);
         
         // 清除待处理信号
         signalPending = 0;
@@ -235,7 +343,35 @@ public class Task {
     }
     
     public void setState(int state) {
-        this.state = state;
+        changeState(state);
+    }
+    
+    public int getCpu() {
+        return cpu;
+    }
+    
+    public void setCpu(int cpu) {
+        this.cpu = cpu;
+    }
+    
+    int getSlot() {
+        return slot;
+    }
+    
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+    
+    boolean isOnRunQueue() {
+        return onRunQueue;
+    }
+    
+    void setOnRunQueue(boolean onRunQueue) {
+        this.onRunQueue = onRunQueue;
+    }
+    
+    public void setStateListener(StateListener stateListener) {
+        this.stateListener = stateListener;
     }
     
     public int getCounter() {
@@ -262,11 +398,27 @@ public class Task {
         this.addressSpace = addressSpace;
     }
     
+    /**
+     * 获取进程的内存使用快照（RSS、共享页、换出页、缺页次数）
+     * 
+     * @return 内存使用快照，没有地址空间时返回 {@link MemoryUsage#EMPTY}
+     */
+    public MemoryUsage getMemoryUsage() {
+        IAddressSpace space = addressSpace;
+        return space != null ? space.getMemoryUsage() : MemoryUsage.EMPTY;
+    }
+    
     public FileDescriptorTable getFdTable() {
         return fdTable;
     }
     
+    /**
+     * 替换文件描述符表（fork 时换成父进程的副本），旧表归还缓存
+     */
     public void setFdTable(FileDescriptorTable fdTable) {
+        if (this.fdTable != null && this.fdTable != fdTable) {
+            this.fdTable.release();
+        }
         this.fdTable = fdTable;
     }
     
@@ -310,6 +462,33 @@ public class Task {
         this.executable = executable;
     }
     
+    /**
+     * 创建执行线程的线程体：运行可执行代码，期间 {@link #current()} 返回本进程
+     * 由 {@link TaskExecutor} 在创建执行线程时使用
+     * 
+     * @return 线程体
+     */
+    public Runnable createThreadBody() {
+        Runnable body = executable;
+        return () -> {
+            CURRENT.set(this);
+            try {
+                body.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+    
+    /**
+     * 获取调用线程正在执行的进程
+     * 
+     * @return 进程，调用线程不是进程的执行线程（如 shell、演示程序的主线程）时返回 null
+     */
+    public static Task current() {
+        return CURRENT.get();
+    }
+    
     public Thread getExecutionThread() {
         return executionThread;
     }
@@ -362,11 +541,14 @@ public class Task {
         // 如果是 SIGKILL 或 SIGSTOP，立即生效（不可阻塞）
         if (signum == Signal.SIGKILL || signum == Signal.SIGSTOP) {
             wakeUp(); // 唤醒进程以处理信号
+        } else if (state == ProcessConstants.TASK_INTERRUPTIBLE && (signalBlocked & (1L << signum)) == 0) {
+            // 未阻塞的信号打断可中断睡眠（对应 signal_wake_up()），pause()/wait() 因此返回
+            wakeUp();
         }
         
         // SIGCONT 唤醒停止的进程
         if (signum == Signal.SIGCONT && state == ProcessConstants.TASK_STOPPED) {
-            state = ProcessConstants.TASK_RUNNING;
+            changeState(ProcessConstants.TASK_RUNNING);
         }
     }
     
@@ -436,4 +618,19 @@ public class Task {
             this.customHandler = customHandler;
         }
     }
+    
+    /**
+     * 进程状态变化监听器
+     */
+    @FunctionalInterface
+    public interface StateListener {
+        
+        /**
+         * 进程状态已改变
+         * 
+         * @param task 进程
+         * @param oldState 原状态
+         */
+        void stateChanged(Task task, int oldState);
+    }
 }
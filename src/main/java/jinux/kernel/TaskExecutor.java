@@ -0,0 +1,28 @@
+package jinux.kernel;
+
+/**
+ * 进程执行后端策略接口
+ *
+ * 决定进程的可执行代码（{@link Task#getExecutable()}）运行在什么样的 Java 线程上。
+ * 进程睡眠时通过 {@link Task#parkWhileSleeping()} 停放执行线程，唤醒时解除停放，
+ * 因此后端只需提供线程，睡眠与唤醒对所有后端一致。
+ *
+ * @author Jinux Project
+ */
+public interface TaskExecutor {
+
+    /**
+     * 为进程创建执行线程并启动，记录到 {@link Task#setExecutionThread}
+     * 线程运行 {@link Task#createThreadBody()}，使系统调用能通过 {@link Task#current()} 找到调用者
+     *
+     * @param task 进程（可执行代码不能为 null）
+     * @param name 线程名
+     * @return 已启动的执行线程
+     */
+    Thread start(Task task, String name);
+
+    /**
+     * 后端名称（用于启动参数与日志）
+     */
+    String getName();
+}
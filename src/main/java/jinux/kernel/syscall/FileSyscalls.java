@@ -2,6 +2,7 @@ package jinux.kernel.syscall;
 
 import jinux.include.FileSystemConstants;
 import jinux.include.ErrorCode;
+import jinux.include.MemoryConstants;
 import jinux.include.Syscalls;
 import jinux.include.Types;
 import jinux.kernel.Task;
@@ -9,6 +10,7 @@ import jinux.kernel.SystemCallDispatcher;
 import jinux.fs.VirtualFileSystem;
 import jinux.fs.File;
 import jinux.fs.Inode;
+import jinux.mm.ObjectCache;
 
 import java.util.Map;
 
@@ -20,6 +22,13 @@ import java.util.Map;
  */
 public class FileSyscalls {
 
+    /**
+     * read / write 的内核中转缓冲区缓存
+     * 数据按页大小分块在用户空间与文件之间中转，大读写不必分配与 count 等长的堆数组
+     */
+    private static final ObjectCache<byte[]> COPY_BUFFERS =
+        new ObjectCache<>("kcopy_buffer", () -> new byte[MemoryConstants.PAGE_SIZE], null);
+
     private VirtualFileSystem vfs;
 
 
@@ -99,29 +108,42 @@ public class FileSyscalls {
             return 0;
         }
 
-        byte[] kernelBuf = new byte[(int) count];
+        boolean regular = vfs != null && file.getInode() != null;
+        byte[] kernelBuf = COPY_BUFFERS.alloc();
+        long bytesRead = 0;
+        try {
+            while (bytesRead < count) {
+                int chunk = (int) Math.min(count - bytesRead, kernelBuf.length);
+                int n;
+                if (regular) {
+                    n = vfs.readFileData(file.getInode(), file.getPosition(), kernelBuf, 0, chunk);
+                    if (n < 0) {
+                        return bytesRead > 0 ? bytesRead : -ErrorCode.EIO;
+                    }
+                    file.setPosition(file.getPosition() + n);
+                } else {
+                    n = file.read(kernelBuf, chunk);
+                    if (n < 0) {
+                        return bytesRead > 0 ? bytesRead : n;
+                    }
+                }
 
-        int bytesRead = 0;
-        if (vfs != null && file.getInode() != null) {
-            bytesRead = vfs.readFileData(file.getInode(), file.getPosition(),
-                    kernelBuf, 0, (int) count);
-            if (bytesRead < 0) {
-                return -ErrorCode.EIO;
-            }
-            file.setPosition(file.getPosition() + bytesRead);
-        } else {
-            bytesRead = file.read(kernelBuf, (int) count);
-            if (bytesRead < 0) {
-                return bytesRead;
-            }
-        }
+                if (n > 0 && bufPtr != 0) {
+                    int copied = copyToUser(task, bufPtr + bytesRead, kernelBuf, 0, n);
+                    if (copied < 0) {
+                        System.err.println("[SYSCALL] read: failed to copy to user space");
+                        return -ErrorCode.EFAULT;
+                    }
+                }
+                bytesRead += n;
 
-        if (bytesRead > 0 && bufPtr != 0) {
-            int copied = copyToUser(task, bufPtr, kernelBuf, 0, bytesRead);
-            if (copied < 0) {
-                System.err.println("[SYSCALL] read: failed to copy to user space");
-                return -ErrorCode.EFAULT;
+                // 读到文件末尾；管道、设备只读一次当前可用的数据，不为凑满 count 而阻塞
+                if (n < chunk || !regular) {
+                    break;
+                }
             }
+        } finally {
+            COPY_BUFFERS.free(kernelBuf);
         }
 
         System.out.println("[SYSCALL] read(fd=" + fd + ", count=" + count +
@@ -132,15 +154,24 @@ public class FileSyscalls {
     private long sysWrite(Task task, long fd, long bufPtr, long count) {
         if (fd == 1 || fd == 2) {
             if (bufPtr != 0 && count > 0) {
-                byte[] buf = new byte[(int) count];
-                int copied = copyFromUser(task, bufPtr, buf, 0, (int) count);
-                if (copied > 0) {
-                    String text = new String(buf, 0, copied);
-                    if (fd == 1) {
-                        System.out.print(text);
-                    } else {
-                        System.err.print(text);
+                byte[] buf = COPY_BUFFERS.alloc();
+                try {
+                    for (long done = 0; done < count; ) {
+                        int chunk = (int) Math.min(count - done, buf.length);
+                        int copied = copyFromUser(task, bufPtr + done, buf, 0, chunk);
+                        if (copied <= 0) {
+                            break;
+                        }
+                        String text = new String(buf, 0, copied);
+                        if (fd == 1) {
+                            System.out.print(text);
+                        } else {
+                            System.err.print(text);
+                        }
+                        done += copied;
                     }
+                } finally {
+                    COPY_BUFFERS.free(buf);
                 }
             }
             return count;
@@ -156,26 +187,39 @@ public class FileSyscalls {
             return 0;
         }
 
-        byte[] kernelBuf = new byte[(int) count];
-        int copied = copyFromUser(task, bufPtr, kernelBuf, 0, (int) count);
-        if (copied < 0) {
-            System.err.println("[SYSCALL] write: failed to copy from user space");
-            return -ErrorCode.EFAULT;
-        }
+        byte[] kernelBuf = COPY_BUFFERS.alloc();
+        long bytesWritten = 0;
+        try {
+            while (bytesWritten < count) {
+                int chunk = (int) Math.min(count - bytesWritten, kernelBuf.length);
+                int copied = copyFromUser(task, bufPtr + bytesWritten, kernelBuf, 0, chunk);
+                if (copied < 0) {
+                    System.err.println("[SYSCALL] write: failed to copy from user space");
+                    return bytesWritten > 0 ? bytesWritten : -ErrorCode.EFAULT;
+                }
 
-        int bytesWritten = 0;
-        if (vfs != null && file.getInode() != null) {
-            bytesWritten = vfs.writeFileData(file.getInode(), file.getPosition(),
-                    kernelBuf, 0, copied);
-            if (bytesWritten < 0) {
-                return -ErrorCode.EIO;
-            }
-            file.setPosition(file.getPosition() + bytesWritten);
-        } else {
-            bytesWritten = file.write(kernelBuf, copied);
-            if (bytesWritten < 0) {
-                return bytesWritten;
+                int n;
+                if (vfs != null && file.getInode() != null) {
+                    n = vfs.writeFileData(file.getInode(), file.getPosition(), kernelBuf, 0, copied);
+                    if (n < 0) {
+                        return bytesWritten > 0 ? bytesWritten : -ErrorCode.EIO;
+                    }
+                    file.setPosition(file.getPosition() + n);
+                } else {
+                    n = file.write(kernelBuf, copied);
+                    if (n < 0) {
+                        return bytesWritten > 0 ? bytesWritten : n;
+                    }
+                }
+                bytesWritten += n;
+
+                // 设备已满或磁盘空间不足
+                if (n < copied) {
+                    break;
+                }
             }
+        } finally {
+            COPY_BUFFERS.free(kernelBuf);
         }
 
         System.out.println("[SYSCALL] write(fd=" + fd + ", count=" + count +
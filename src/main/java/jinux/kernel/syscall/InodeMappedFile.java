@@ -0,0 +1,82 @@
+package jinux.kernel.syscall;
+
+import jinux.fs.BufferCache;
+import jinux.fs.Inode;
+import jinux.fs.VirtualFileSystem;
+import jinux.include.FileSystemConstants;
+import jinux.include.MemoryConstants;
+import jinux.mm.IPhysicalMemory;
+import jinux.mm.MappedFile;
+import jinux.mm.PageCache;
+
+/**
+ * 以 inode 为后端的可映射文件
+ *
+ * 文件页由 {@link PageCache} 提供：首次访问时把该页覆盖的磁盘块从缓冲区缓存
+ * 直接写入物理页（不经过内核 byte[] 和 copyToUser），之后所有映射共享这个物理页。
+ *
+ * @author Jinux Project
+ */
+class InodeMappedFile implements MappedFile {
+
+    /** 每页包含的磁盘块数 */
+    private static final int BLOCKS_PER_PAGE = MemoryConstants.PAGE_SIZE / FileSystemConstants.BLOCK_SIZE;
+
+    private final VirtualFileSystem vfs;
+    private final PageCache pageCache;
+    private final IPhysicalMemory physicalMemory;
+    private final Inode inode;
+    private final String name;
+
+    InodeMappedFile(VirtualFileSystem vfs, PageCache pageCache, IPhysicalMemory physicalMemory,
+                    Inode inode, String name) {
+        this.vfs = vfs;
+        this.pageCache = pageCache;
+        this.physicalMemory = physicalMemory;
+        this.inode = inode;
+        this.name = name;
+    }
+
+    @Override
+    public int getPage(int pageIndex) {
+        if ((long) pageIndex * MemoryConstants.PAGE_SIZE >= inode.getSize()) {
+            return -1; // 超出文件末尾
+        }
+        long fileId = ((long) inode.getDev() << 32) | (inode.getIno() & 0xFFFFFFFFL);
+        return pageCache.getPage(fileId, inode.getDataVersion(), pageIndex, paddr -> fill(pageIndex, paddr));
+    }
+
+    /**
+     * 把文件第 pageIndex 页覆盖的数据块写入物理页，空洞和文件末尾之后保持为零
+     */
+    private boolean fill(int pageIndex, long paddr) {
+        int[] directBlocks = inode.getDirectBlocks();
+        long size = inode.getSize();
+
+        for (int i = 0; i < BLOCKS_PER_PAGE; i++) {
+            int fileBlock = pageIndex * BLOCKS_PER_PAGE + i;
+            long blockPos = (long) fileBlock * FileSystemConstants.BLOCK_SIZE;
+            if (fileBlock >= directBlocks.length || blockPos >= size) {
+                break; // 简化：只支持直接块
+            }
+            int blockNo = directBlocks[fileBlock];
+            if (blockNo == 0) {
+                continue; // 文件空洞
+            }
+
+            BufferCache buffer = vfs.getBuffer(inode.getDev(), blockNo);
+            if (buffer == null) {
+                return false;
+            }
+            int len = (int) Math.min(FileSystemConstants.BLOCK_SIZE, size - blockPos);
+            physicalMemory.writeBytes(paddr + (long) i * FileSystemConstants.BLOCK_SIZE, buffer.getData(), 0, len);
+            vfs.releaseBuffer(buffer);
+        }
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -7,6 +7,7 @@ import jinux.kernel.SystemCallDispatcher;
 import jinux.fs.File;
 import jinux.ipc.Pipe;
 import jinux.ipc.PipeFile;
+import jinux.mm.IMemoryManager;
 
 import java.util.Map;
 
@@ -18,7 +19,10 @@ import java.util.Map;
  */
 public class IpcSyscalls {
 
-    public IpcSyscalls() {
+    private final IMemoryManager memoryManager;
+
+    public IpcSyscalls(IMemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
     }
 
     /**
@@ -36,7 +40,12 @@ public class IpcSyscalls {
     private long sysPipe(Task task, long fdArray, long arg2, long arg3) {
         System.out.println("[SYSCALL] pipe() called by pid=" + task.getPid());
 
-        Pipe pipe = new Pipe();
+        // 管道缓冲区用 kmalloc 从物理内存分配
+        Pipe pipe = Pipe.create(memoryManager.getKernelAllocator());
+        if (pipe == null) {
+            System.err.println("[SYSCALL] pipe: out of kernel memory");
+            return -ErrorCode.ENOMEM;
+        }
 
         PipeFile readEnd = new PipeFile(pipe, true);
         PipeFile writeEnd = new PipeFile(pipe, false);
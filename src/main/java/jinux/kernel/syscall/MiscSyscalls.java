@@ -1,10 +1,16 @@
 package jinux.kernel.syscall;
 
 import jinux.include.ErrorCode;
+import jinux.include.MemoryConstants;
 import jinux.include.Syscalls;
 import jinux.include.Types;
 import jinux.kernel.Task;
 import jinux.kernel.SystemCallDispatcher;
+import jinux.fs.File;
+import jinux.fs.VirtualFileSystem;
+import jinux.mm.IMemoryManager;
+import jinux.mm.MappedFile;
+import jinux.mm.PageTable;
 
 import java.util.Map;
 
@@ -16,7 +22,16 @@ import java.util.Map;
  */
 public class MiscSyscalls {
 
-    public MiscSyscalls() {
+    private final IMemoryManager memoryManager;
+
+    private VirtualFileSystem vfs;
+
+    public MiscSyscalls(IMemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+    }
+
+    public void setVfs(VirtualFileSystem vfs) {
+        this.vfs = vfs;
     }
 
     /**
@@ -24,6 +39,8 @@ public class MiscSyscalls {
      */
     public void registerHandlers(Map<Integer, SystemCallDispatcher.SystemCallHandler> handlers) {
         handlers.put(Syscalls.SYS_BRK, this::sysBrk);
+        handlers.put(Syscalls.SYS_MMAP, this::sysMmap);
+        handlers.put(Syscalls.SYS_MUNMAP, this::sysMunmap);
         handlers.put(Syscalls.SYS_TIME, this::sysTime);
         handlers.put(Syscalls.SYS_TIMES, this::sysTimes);
     }
@@ -40,6 +57,84 @@ public class MiscSyscalls {
         return result;
     }
 
+    /**
+     * sys_mmap - 建立内存映射，页面不预先分配，首次访问时经缺页处理调入
+     * 第三个参数按 {@link MemoryConstants#mmapArg} 打包了 prot、flags、fd 和文件页偏移；
+     * 只传 prot（flags 为 0）时视为匿名私有映射。addr 仅作为建议地址
+     *
+     * @param addr 建议地址（页对齐），0 表示由内核选择
+     * @param length 映射长度
+     * @param packedArg 打包的 prot / flags / fd / 文件页偏移
+     * @return 映射起始地址，失败返回负的错误码
+     */
+    private long sysMmap(Task task, long addr, long length, long packedArg) {
+        int prot = (int) (packedArg & 0xFF);
+        int flags = (int) ((packedArg >>> 8) & 0xFF);
+        int fd = (int) ((packedArg >>> 16) & 0xFFFF);
+        long pageOffset = packedArg >>> 32;
+
+        if (length <= 0 || length > MemoryConstants.TASK_SIZE
+                || (addr & (MemoryConstants.PAGE_SIZE - 1)) != 0) {
+            return -ErrorCode.EINVAL;
+        }
+
+        int pageFlags = PageTable.PAGE_PRESENT | PageTable.PAGE_USER;
+        if ((prot & MemoryConstants.PROT_WRITE) != 0) {
+            pageFlags |= PageTable.PAGE_RW;
+        }
+
+        long result;
+        if (flags == 0 || (flags & MemoryConstants.MAP_ANONYMOUS) != 0) {
+            result = task.getAddressSpace().mmapAnonymous(addr, length, pageFlags);
+        } else {
+            MappedFile mappedFile = openMappedFile(task, fd);
+            if (mappedFile == null) {
+                return -ErrorCode.EBADF;
+            }
+            if ((flags & MemoryConstants.MAP_SHARED) != 0 && (pageFlags & PageTable.PAGE_RW) != 0) {
+                return -ErrorCode.EACCES; // 不支持可写共享映射（没有写回）
+            }
+            result = task.getAddressSpace().mmapFile(addr, length, pageFlags, mappedFile, pageOffset);
+        }
+
+        if (result < 0) {
+            return -ErrorCode.ENOMEM;
+        }
+        System.out.println("[SYSCALL] mmap(0x" + Long.toHexString(addr) + ", " + length +
+            ") returned 0x" + Long.toHexString(result) + " for pid=" + task.getPid());
+        return result;
+    }
+
+    /**
+     * 为可读的普通文件描述符创建映射后端
+     *
+     * @return 映射后端，文件描述符无效或不可读返回 null
+     */
+    private MappedFile openMappedFile(Task task, int fd) {
+        if (vfs == null) {
+            return null;
+        }
+        File file = task.getFdTable().get(fd);
+        if (file == null || file.getInode() == null || !file.getInode().isRegularFile()
+                || (file.getMode() & 3) == File.O_WRONLY) {
+            return null;
+        }
+        return new InodeMappedFile(vfs, memoryManager.getPageCache(), memoryManager.getPhysicalMemory(),
+            file.getInode(), "[file:" + file.getInode().getIno() + "]");
+    }
+
+    /**
+     * sys_munmap - 解除映射并立即释放已调入的物理页
+     */
+    private long sysMunmap(Task task, long addr, long length, long arg3) {
+        if (!task.getAddressSpace().munmap(addr, length)) {
+            return -ErrorCode.EINVAL;
+        }
+        System.out.println("[SYSCALL] munmap(0x" + Long.toHexString(addr) + ", " + length +
+            ") called by pid=" + task.getPid());
+        return 0;
+    }
+
     /**
      * sys_time - 获取系统时间
      */
@@ -25,6 +25,9 @@ import java.util.Map;
  */
 public class ProcessSyscalls {
 
+    /** waitingForPid 取此值表示在 wait() 中等待任意子进程 */
+    private static final int WAIT_ANY = -2;
+
     private final Scheduler scheduler;
     private final IMemoryManager memoryManager;
     private VirtualFileSystem vfs;
@@ -62,6 +65,9 @@ public class ProcessSyscalls {
         System.out.println("[SYSCALL] fork() called by pid=" + parent.getPid());
 
         int childPid = scheduler.allocatePid();
+        if (childPid < 0) {
+            return -ErrorCode.EAGAIN;
+        }
 
         var childAddrSpace = parent.getAddressSpace().copy();
 
@@ -74,6 +80,8 @@ public class ProcessSyscalls {
 
         if (!scheduler.addTask(child)) {
             childAddrSpace.free();
+            child.release();
+            scheduler.freePid(childPid);
             return -ErrorCode.ENOMEM;
         }
 
@@ -88,9 +96,10 @@ public class ProcessSyscalls {
         System.out.println("[SYSCALL] exit(" + exitCode + ") called by pid=" + task.getPid());
 
         task.exit((int) exitCode);
+        scheduler.reparentChildren(task);
 
         Task parent = scheduler.findTask(task.getPpid());
-        if (parent != null && parent.getWaitingForPid() == task.getPid()) {
+        if (parent != null && (parent.getWaitingForPid() == task.getPid() || parent.getWaitingForPid() == WAIT_ANY)) {
             parent.wakeUp();
         }
 
@@ -100,23 +109,63 @@ public class ProcessSyscalls {
 
     /**
      * sys_wait - 等待子进程
+     * 在进程自己的执行线程上调用时停放执行线程，直到有子进程退出；否则睡眠后立即返回 EINTR
      */
     private long sysWait(Task task, long statusPtr, long arg2, long arg3) {
         System.out.println("[SYSCALL] wait() called by pid=" + task.getPid());
 
-        for (Task candidate : scheduler.getTaskTable()) {
-            if (candidate != null && candidate.getPpid() == task.getPid()
-                    && candidate.getState() == ProcessConstants.TASK_ZOMBIE) {
-                int childPid = candidate.getPid();
+        while (true) {
+            Task zombie = findZombieChild(task);
+            if (zombie != null) {
+                task.setWaitingForPid(-1);
+                int childPid = zombie.getPid();
                 scheduler.removeTask(childPid);
+                zombie.release();
                 System.out.println("[SYSCALL] wait() collected zombie child pid=" + childPid);
                 return childPid;
             }
+
+            task.setWaitingForPid(WAIT_ANY);
+            task.sleep(true);
+            if (findZombieChild(task) != null) {
+                // 子进程在检查之后、睡眠之前退出，避免丢失唤醒
+                task.wakeUp();
+                continue;
+            }
+            // 没有子进程时不停放，否则永远不会被唤醒
+            if (!hasChild(task)) {
+                scheduler.schedule(task.getCpu());
+                return -ErrorCode.EINTR;
+            }
+            if (!scheduler.block(task) || task.hasPendingSignals()) {
+                return -ErrorCode.EINTR;
+            }
         }
+    }
 
-        task.sleep(true);
-        scheduler.schedule();
-        return -ErrorCode.EINTR;
+    /**
+     * 是否有子进程
+     */
+    private boolean hasChild(Task task) {
+        for (Task candidate : scheduler.getTaskTable()) {
+            if (candidate != null && candidate.getPpid() == task.getPid() && candidate != task) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找已退出的子进程
+     */
+    private Task findZombieChild(Task task) {
+        for (Task candidate : scheduler.getTaskTable()) {
+            if (candidate != null && candidate.getPpid() == task.getPid()
+                    && candidate.getState() == ProcessConstants.TASK_ZOMBIE) {
+                return candidate;
+            }
+        }
+        return null;
     }
 
     /**
@@ -180,8 +229,8 @@ public class ProcessSyscalls {
      */
     private long sysPause(Task task, long arg1, long arg2, long arg3) {
         System.out.println("[SYSCALL] pause() called by pid=" + task.getPid());
-        task.sleep(true);
-        scheduler.schedule();
+        // 在自己的执行线程上停放，直到被信号唤醒
+        scheduler.sleep(task, true);
         return -ErrorCode.EINTR;
     }
 
@@ -261,9 +310,7 @@ public class ProcessSyscalls {
             if (oldThread != null && oldThread.isAlive()) {
                 oldThread.interrupt();
             }
-            Thread newThread = new Thread(executable, "task-" + task.getPid());
-            task.setExecutionThread(newThread);
-            newThread.start();
+            scheduler.getTaskExecutor().start(task, "task-" + task.getPid());
             System.out.println("[SYSCALL] execve() started new program");
         }
     }
@@ -83,7 +83,7 @@ public class FileLib {
         
         // 分配用户空间缓冲区用于接收数据
         long bufPtr = USER_BUF_BASE + bufferManager.getUserBufOffset();
-        Task currentTask = scheduler != null ? scheduler.getCurrentTask() : null;
+        Task currentTask = scheduler != null ? scheduler.getCallingTask() : null;
         if (currentTask != null && readCount > 0) {
             currentTask.getAddressSpace().allocateAndMap(bufPtr, 7);
             for (int page = 4096; page < readCount; page += 4096) {
@@ -115,7 +115,7 @@ public class FileLib {
         
         // 将数据写入用户空间缓冲区
         long bufPtr = USER_BUF_BASE + bufferManager.getUserBufOffset();
-        Task currentTask = scheduler != null ? scheduler.getCurrentTask() : null;
+        Task currentTask = scheduler != null ? scheduler.getCallingTask() : null;
         if (currentTask != null && writeCount > 0 && buf != null) {
             currentTask.getAddressSpace().allocateAndMap(bufPtr, 7);
             for (int page = 4096; page < writeCount; page += 4096) {
@@ -42,7 +42,7 @@ public class IpcLib {
         
         // 分配用户空间缓冲区存放 2 个 int（8 字节）
         long fdArrayPtr = USER_BUF_BASE + bufferManager.getUserBufOffset();
-        Task currentTask = scheduler != null ? scheduler.getCurrentTask() : null;
+        Task currentTask = scheduler != null ? scheduler.getCallingTask() : null;
         if (currentTask != null) {
             currentTask.getAddressSpace().allocateAndMap(fdArrayPtr, 7);
         }
@@ -289,7 +289,45 @@ public class LibC {
     }
     
     /**
-     * 简化的 malloc 实现（基于 brk）
+     * 建立匿名内存映射
+     * 
+     * @param addr 建议地址，0 表示由内核选择
+     * @param length 映射长度
+     * @param prot PROT_READ / PROT_WRITE 组合
+     * @return 映射起始地址，失败返回负的错误码
+     */
+    public long mmap(long addr, long length, int prot) {
+        return memoryLib.mmap(addr, length, prot);
+    }
+    
+    /**
+     * 建立文件映射
+     * 
+     * @param addr 建议地址，0 表示由内核选择
+     * @param length 映射长度
+     * @param prot PROT_READ / PROT_WRITE 组合
+     * @param flags MAP_SHARED（只读共享）或 MAP_PRIVATE（写时复制）
+     * @param fd 文件描述符
+     * @param offset 文件偏移（必须页对齐）
+     * @return 映射起始地址，失败返回负的错误码
+     */
+    public long mmap(long addr, long length, int prot, int flags, int fd, long offset) {
+        return memoryLib.mmap(addr, length, prot, flags, fd, offset);
+    }
+    
+    /**
+     * 解除内存映射
+     * 
+     * @param addr 起始地址
+     * @param length 长度
+     * @return 成功返回 0，失败返回负的错误码
+     */
+    public int munmap(long addr, long length) {
+        return memoryLib.munmap(addr, length);
+    }
+    
+    /**
+     * 简化的 malloc 实现（小块基于 brk，大块基于 mmap）
      * 注意：这是一个简化版本，真实的 malloc 更复杂
      * 
      * @param size 分配大小
@@ -1,6 +1,8 @@
 package jinux.lib;
 
 import jinux.kernel.SystemCallDispatcher;
+import jinux.include.ErrorCode;
+import jinux.include.MemoryConstants;
 import jinux.include.Syscalls;
 
 /**
@@ -9,6 +11,9 @@ import jinux.include.Syscalls;
  */
 public class MemoryLib {
     
+    /** 超过此大小的 malloc 直接使用 mmap，不占用 brk 堆（同 glibc 的 M_MMAP_THRESHOLD） */
+    public static final long MMAP_THRESHOLD = 128 * 1024;
+    
     private final SystemCallDispatcher syscallDispatcher;
     
     /**
@@ -31,13 +36,60 @@ public class MemoryLib {
     }
     
     /**
-     * 简化的 malloc 实现（基于 brk）
+     * 建立匿名内存映射（页面按需分配）
+     * 
+     * @param addr 建议地址，0 表示由内核选择
+     * @param length 映射长度
+     * @param prot PROT_READ / PROT_WRITE 组合
+     * @return 映射起始地址，失败返回负的错误码
+     */
+    public long mmap(long addr, long length, int prot) {
+        return syscallDispatcher.dispatch(Syscalls.SYS_MMAP, addr, length, prot);
+    }
+    
+    /**
+     * 建立文件映射：文件页直接映射到地址空间，读取不再经过 read() 拷贝
+     * 
+     * @param addr 建议地址，0 表示由内核选择
+     * @param length 映射长度
+     * @param prot PROT_READ / PROT_WRITE 组合
+     * @param flags MAP_SHARED（只读共享）或 MAP_PRIVATE（写时复制）
+     * @param fd 文件描述符
+     * @param offset 文件偏移（必须页对齐）
+     * @return 映射起始地址，失败返回负的错误码
+     */
+    public long mmap(long addr, long length, int prot, int flags, int fd, long offset) {
+        if (offset < 0 || (offset & (MemoryConstants.PAGE_SIZE - 1)) != 0) {
+            return -ErrorCode.EINVAL;
+        }
+        long packed = MemoryConstants.mmapArg(prot, flags, fd, offset >> MemoryConstants.PAGE_SHIFT);
+        return syscallDispatcher.dispatch(Syscalls.SYS_MMAP, addr, length, packed);
+    }
+    
+    /**
+     * 解除内存映射，归还物理页
+     * 
+     * @param addr 起始地址
+     * @param length 长度
+     * @return 成功返回 0，失败返回负的错误码
+     */
+    public int munmap(long addr, long length) {
+        return (int) syscallDispatcher.dispatch(Syscalls.SYS_MUNMAP, addr, length, 0);
+    }
+    
+    /**
+     * 简化的 malloc 实现（小块基于 brk，大块基于 mmap）
      * 注意：这是一个简化版本，真实的 malloc 更复杂
      * 
      * @param size 分配大小
      * @return 分配的地址（简化返回 long）
      */
     public long malloc(long size) {
+        if (size >= MMAP_THRESHOLD) {
+            long addr = mmap(0, size, MemoryConstants.PROT_READ | MemoryConstants.PROT_WRITE);
+            return addr > 0 ? addr : 0;
+        }
+        
         // 简化：直接扩展 brk
         long currentBrk = brk(0); // 获取当前 brk
         long newBrk = brk(currentBrk + size);
@@ -66,7 +66,7 @@ public class UserSpaceBufferManager {
             return 0;
         }
         
-        Task currentTask = scheduler.getCurrentTask();
+        Task currentTask = scheduler.getCallingTask();
         if (currentTask == null) {
             return 0;
         }
@@ -117,7 +117,7 @@ public class UserSpaceBufferManager {
             return 0;
         }
         
-        Task currentTask = scheduler.getCurrentTask();
+        Task currentTask = scheduler.getCallingTask();
         if (currentTask == null) {
             return 0;
         }
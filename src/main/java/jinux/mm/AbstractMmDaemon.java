@@ -0,0 +1,137 @@
+package jinux.mm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 内存管理后台线程的公共基类
+ * 对应 Linux 中 kswapd、kcompactd、ksmd 共用的 kthread 生命周期
+ *
+ * 维护已登记地址空间的弱引用集合，以及后台线程的启动、停止和按间隔轮询：
+ * 线程每轮调用一次 {@link #runOnce()}，然后在本对象上等待一个间隔或被 {@link #wakeUp()} 唤醒。
+ *
+ * 锁约定：本对象的锁只保护登记集合和线程状态，子类不得在持有本对象锁时获取地址空间锁
+ * （地址空间在持有自身锁时会调用 {@link #register}/{@link #unregister}），
+ * 需要遍历地址空间时先用 {@link #snapshotAddressSpaces()} 取得快照。
+ *
+ * @author Jinux Project
+ */
+public abstract class AbstractMmDaemon implements Runnable {
+
+    /** 内存管理器 */
+    protected final IMemoryManager memoryManager;
+
+    /** 后台线程名 */
+    private final String threadName;
+
+    /** 轮询间隔（毫秒） */
+    private final long intervalMs;
+
+    /** 已登记的地址空间（弱引用，未显式释放的地址空间可被 GC 回收） */
+    private final Set<AddressSpace> addressSpaces = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /** 后台线程 */
+    private Thread thread;
+
+    /** 后台线程是否运行 */
+    private volatile boolean running;
+
+    /**
+     * 构造后台线程
+     *
+     * @param memoryManager 内存管理器
+     * @param threadName 后台线程名
+     * @param intervalMs 轮询间隔（毫秒）
+     */
+    protected AbstractMmDaemon(IMemoryManager memoryManager, String threadName, long intervalMs) {
+        this.memoryManager = memoryManager;
+        this.threadName = threadName;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * 后台线程每轮执行的工作
+     */
+    protected abstract void runOnce();
+
+    /**
+     * 登记地址空间（地址空间创建时调用）
+     */
+    public synchronized void register(AddressSpace addressSpace) {
+        addressSpaces.add(addressSpace);
+    }
+
+    /**
+     * 注销地址空间（地址空间释放时调用）
+     */
+    public synchronized void unregister(AddressSpace addressSpace) {
+        addressSpaces.remove(addressSpace);
+    }
+
+    /**
+     * 已登记地址空间的快照
+     */
+    protected synchronized List<AddressSpace> snapshotAddressSpaces() {
+        return new ArrayList<>(addressSpaces);
+    }
+
+    /**
+     * 唤醒后台线程及在本对象上等待的线程
+     */
+    protected synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * 启动后台线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止后台线程
+     */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+            thread = null;
+            notifyAll();
+        }
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    @Override
+    public final void run() {
+        while (running) {
+            runOnce();
+            synchronized (this) {
+                if (!running) {
+                    break;
+                }
+                try {
+                    wait(intervalMs);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
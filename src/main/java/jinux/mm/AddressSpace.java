@@ -2,18 +2,33 @@ package jinux.mm;
 
 import jinux.include.MemoryConstants;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 地址空间
  * 对应 Linux 0.01 中每个进程的虚拟地址空间
  * 
  * 包含代码段、数据段、堆、栈等区域的管理
  * 
+ * 各区域以 {@link VmArea} 登记在 {@link VmAreaTree} 中，缺页时 O(log n) 查找。
+ * 默认 brk 立即分配所有新页面；启用请求调页（{@link #setDemandPaging}）后，
+ * 堆和栈只登记为区域，页面在首次访问时由 {@link #handlePageFault} 分配。
+ * 匿名映射（{@link #mmapAnonymous}）和文件映射（{@link #mmapFile}）总是按需分配，
+ * 文件映射直接映射页缓存中的共享页：只读映射共享同一物理页，可写私有映射以 COW 方式共享。
+ * 按 {@link HugePagePolicy} 标记的匿名区域在缺页时整块映射 4MB 大页（需要伙伴系统提供连续物理页）。
+ * 启用交换时，{@link PageReclaimer} 通过 {@link #reclaimPages} 换出冷页，换出页记录在交换表中，
+ * 再次访问时由缺页处理换入。
+ * 缺页（包括写 COW 页）都经过 {@link PageFaultPipeline}，各类缺页的次数和延迟记录在 {@link FaultStatistics} 中。
+ * 
  * @author Jinux Project
  */
 public class AddressSpace implements IAddressSpace {
     
     /** 页表 */
-    private final PageTable pageTable;
+    private final IPageTable pageTable;
     
     /** 内存管理器引用 */
     private final IMemoryManager memoryManager;
@@ -24,6 +39,12 @@ public class AddressSpace implements IAddressSpace {
     /** 内存访问器 */
     private final MemoryAccessor memoryAccessor;
     
+    /** 缺页处理流水线 */
+    private final PageFaultPipeline faultPipeline;
+    
+    /** 软件 TLB（null 表示不使用） */
+    private final SoftwareTlb tlb;
+    
     /** 代码段起始地址 */
     private long codeStart;
     
@@ -42,22 +63,78 @@ public class AddressSpace implements IAddressSpace {
     /** 栈顶地址 */
     private long stackTop;
     
+    /** 按需分配页面的虚拟内存区域 */
+    private final VmAreaTree vmas = new VmAreaTree();
+    
+    /** 堆区域（请求调页模式下由 brk 维护，null 表示尚未建立） */
+    private VmArea heapVma;
+    
+    /** 栈区域（仅请求调页模式） */
+    private VmArea stackVma;
+    
+    /** 是否启用请求调页 */
+    private boolean demandPaging;
+    
+    /** 大页使用策略 */
+    private HugePagePolicy hugePagePolicy = HugePagePolicy.NEVER;
+    
+    /** 已换出的页：虚拟页号 -> 交换槽位及换出时的页面标志（对应换出后的非 present PTE） */
+    private final Map<Integer, SwapEntry> swapEntries = new HashMap<>();
+    
+    /** 回收扫描的时钟指针（虚拟页号） */
+    private int reclaimHand;
+    
     /** 用户空间栈顶地址常量 */
     private static final long USER_STACK_TOP = MemoryConstants.TASK_SIZE - MemoryConstants.PAGE_SIZE;
     
     /** 默认页面标志：存在、可读写、用户态可访问 */
     private static final int DEFAULT_PAGE_FLAGS = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
     
+    /** 匿名映射区域上界：自此向下分配，位于 LibC 用户缓冲区之下 */
+    private static final long MMAP_TOP = MemoryConstants.USER_BUF_BASE;
+    
     /**
-     * 构造地址空间
+     * 使用默认页表实现（{@link TwoLevelPageTable}）构造地址空间
      * 
      * @param memoryManager 内存管理器
      */
     public AddressSpace(IMemoryManager memoryManager) {
-        this.pageTable = new PageTable();
+        this(memoryManager, new TwoLevelPageTable());
+    }
+    
+    /**
+     * 使用指定页表和默认大小的 TLB 构造地址空间
+     * 
+     * @param memoryManager 内存管理器
+     * @param pageTable 页表
+     */
+    public AddressSpace(IMemoryManager memoryManager, IPageTable pageTable) {
+        this(memoryManager, pageTable, SoftwareTlb.DEFAULT_ENTRIES);
+    }
+    
+    /**
+     * 使用指定页表和 TLB 大小构造地址空间
+     * 
+     * @param memoryManager 内存管理器
+     * @param pageTable 页表
+     * @param tlbEntries TLB 表项数，0 表示不使用 TLB
+     */
+    public AddressSpace(IMemoryManager memoryManager, IPageTable pageTable, int tlbEntries) {
+        this.tlb = tlbEntries > 0 ? new SoftwareTlb(tlbEntries) : null;
+        // 所有页表修改都经过 TlbPageTable，保证 TLB 失效
+        this.pageTable = tlb != null ? new TlbPageTable(pageTable, tlb) : pageTable;
         this.memoryManager = memoryManager;
-        this.cowHandler = new CopyOnWriteHandler(memoryManager, pageTable);
-        this.memoryAccessor = new MemoryAccessor(pageTable, memoryManager.getPhysicalMemory());
+        this.cowHandler = new CopyOnWriteHandler(memoryManager, this.pageTable);
+        this.faultPipeline = new PageFaultPipeline(new FaultStatistics(memoryManager.getFaultStatistics()))
+            .addStage(this::faultMapped)
+            .addStage(this::faultSwapIn)
+            .addStage(this::faultLookupVma)
+            .addStage(this::faultFile)
+            .addStage(this::faultHugePage)
+            .addStage(this::faultZeroPage)
+            .addStage(this::faultZeroFill);
+        this.memoryAccessor = new MemoryAccessor(pageTable, memoryManager.getPhysicalMemory(), tlb,
+            this::handlePageFault);
         
         // 初始化为典型的用户空间布局
         // 代码段从 0x00000000 开始
@@ -71,6 +148,19 @@ public class AddressSpace implements IAddressSpace {
         
         // 栈从高地址向下增长（64MB - 4KB）
         this.stackTop = USER_STACK_TOP;
+        
+        PageReclaimer reclaimer = memoryManager.getPageReclaimer();
+        if (reclaimer != null) {
+            reclaimer.register(this);
+        }
+        MemoryCompactor compactor = memoryManager.getMemoryCompactor();
+        if (compactor != null) {
+            compactor.register(this);
+        }
+        SamePageMerger merger = memoryManager.getSamePageMerger();
+        if (merger != null) {
+            merger.register(this);
+        }
     }
     
     /**
@@ -80,7 +170,7 @@ public class AddressSpace implements IAddressSpace {
      * @param flags 页面标志
      * @return 是否成功
      */
-    public boolean allocateAndMap(long vaddr, int flags) {
+    public synchronized boolean allocateAndMap(long vaddr, int flags) {
         int vpage = (int) (vaddr >> MemoryConstants.PAGE_SHIFT);
         
         // 检查是否已映射
@@ -88,6 +178,11 @@ public class AddressSpace implements IAddressSpace {
             return true;
         }
         
+        // 已换出的页换入原内容（按主缺页计）
+        if (swapEntries.containsKey(vpage)) {
+            return handlePageFault(vaddr, false);
+        }
+        
         // 分配物理页
         int ppage = memoryManager.allocatePage();
         if (ppage < 0) {
@@ -99,23 +194,608 @@ public class AddressSpace implements IAddressSpace {
         return true;
     }
     
+    /**
+     * 启用或关闭请求调页，应在地址空间投入使用前设置
+     * 
+     * 启用后栈顶以下 {@link MemoryConstants#USER_STACK_SIZE} 登记为栈区域，
+     * brk 只扩展堆区域而不分配页面，两者的页面都在首次访问时分配并清零。
+     * 
+     * @param demandPaging 是否启用
+     */
+    public synchronized void setDemandPaging(boolean demandPaging) {
+        if (this.demandPaging == demandPaging) {
+            return;
+        }
+        this.demandPaging = demandPaging;
+        if (demandPaging) {
+            long stackEnd = stackTop + MemoryConstants.PAGE_SIZE;
+            stackVma = new VmArea(stackEnd - MemoryConstants.USER_STACK_SIZE, stackEnd, DEFAULT_PAGE_FLAGS, "[stack]");
+            vmas.insert(stackVma);
+        } else {
+            removeVma(stackVma);
+            removeVma(heapVma);
+            stackVma = null;
+            heapVma = null;
+        }
+    }
+    
+    private void removeVma(VmArea vma) {
+        if (vma != null) {
+            vmas.remove(vma);
+        }
+    }
+    
+    public boolean isDemandPaging() {
+        return demandPaging;
+    }
+    
+    /**
+     * 设置大页使用策略，影响之后建立的匿名区域（ALWAYS 时也影响立即分配的 brk）
+     * 
+     * @param policy 策略
+     */
+    public synchronized void setHugePagePolicy(HugePagePolicy policy) {
+        this.hugePagePolicy = policy;
+    }
+    
+    public synchronized HugePagePolicy getHugePagePolicy() {
+        return hugePagePolicy;
+    }
+    
+    /**
+     * 标记包含指定地址的匿名区域是否使用大页（对应 madvise(MADV_HUGEPAGE / MADV_NOHUGEPAGE)）
+     * 策略为 NEVER 时标记不生效
+     * 
+     * @param addr 区域内的地址
+     * @param enable 是否使用大页
+     * @return 是否找到匿名区域
+     */
+    public synchronized boolean adviseHugePages(long addr, boolean enable) {
+        VmArea vma = vmas.find(addr);
+        if (vma == null || vma.getFile() != null) {
+            return false;
+        }
+        vma.setHugePages(enable && hugePagePolicy != HugePagePolicy.NEVER);
+        return true;
+    }
+    
+    /**
+     * 获取当前映射的大页数量
+     */
+    public int getHugePageCount() {
+        return pageTable.getHugeMappingCount();
+    }
+    
+    /**
+     * 查找包含指定地址的虚拟内存区域
+     * 
+     * @param vaddr 虚拟地址
+     * @return 区域，不存在返回 null
+     */
+    public synchronized VmArea findVma(long vaddr) {
+        return vmas.find(vaddr);
+    }
+    
+    /**
+     * 获取虚拟内存区域数量
+     */
+    public synchronized int getVmaCount() {
+        return vmas.size();
+    }
+    
+    /**
+     * 建立匿名映射，页面在首次访问时分配并清零
+     * 
+     * @param addr 建议地址（页对齐），0 或与已有区域冲突时由内核自顶向下选择
+     * @param length 长度，向上对齐到页
+     * @param pageFlags 页面标志
+     * @return 映射起始地址，失败返回 -1
+     */
+    public synchronized long mmapAnonymous(long addr, long length, int pageFlags) {
+        return mapRegion(addr, length, pageFlags, null, 0);
+    }
+    
+    /**
+     * 建立文件映射，页面在首次访问时从文件页缓存映射
+     * 
+     * 不含 PAGE_RW 的映射直接共享页缓存页（只读）；含 PAGE_RW 的映射为私有映射，
+     * 页面以 COW 方式映射，首次写入时复制，修改不会写回文件。
+     * 
+     * @param addr 建议地址（页对齐），0 表示由内核选择
+     * @param length 长度，向上对齐到页
+     * @param pageFlags 页面标志
+     * @param file 映射的文件
+     * @param filePageOffset 映射起始处对应的文件内页号
+     * @return 映射起始地址，失败返回 -1
+     */
+    public synchronized long mmapFile(long addr, long length, int pageFlags, MappedFile file, long filePageOffset) {
+        if (file == null || filePageOffset < 0) {
+            return -1;
+        }
+        return mapRegion(addr, length, pageFlags, file, filePageOffset);
+    }
+    
+    /**
+     * 选择映射地址并登记区域
+     */
+    private long mapRegion(long addr, long length, int pageFlags, MappedFile file, long filePageOffset) {
+        if (length <= 0 || (addr & (MemoryConstants.PAGE_SIZE - 1)) != 0) {
+            return -1;
+        }
+        long alignedLength = (length + MemoryConstants.PAGE_SIZE - 1) & ~(MemoryConstants.PAGE_SIZE - 1);
+        long low = (brk + MemoryConstants.PAGE_SIZE - 1) & ~(MemoryConstants.PAGE_SIZE - 1);
+        
+        long start = addr;
+        if (start == 0 || start < low || start + alignedLength > MMAP_TOP
+                || vmas.overlaps(start, start + alignedLength, null)) {
+            start = vmas.findFreeArea(alignedLength, low, MMAP_TOP);
+            if (start < 0) {
+                return -1;
+            }
+        }
+        String name = file != null ? file.getName() : "[anon]";
+        VmArea vma = new VmArea(start, start + alignedLength, pageFlags | PageTable.PAGE_PRESENT, name,
+            file, filePageOffset);
+        vma.setHugePages(file == null && hugePagePolicy == HugePagePolicy.ALWAYS);
+        vmas.insert(vma);
+        return start;
+    }
+    
+    /**
+     * 解除映射：移除 [addr, addr+length) 内的区域（部分覆盖的区域被拆分）并释放已调入的页面
+     * 堆和栈由 brk 和内核管理，不能解除映射
+     * 
+     * @param addr 起始地址（页对齐）
+     * @param length 长度，向上对齐到页
+     * @return 是否成功
+     */
+    public synchronized boolean munmap(long addr, long length) {
+        if (length <= 0 || addr < 0 || (addr & (MemoryConstants.PAGE_SIZE - 1)) != 0) {
+            return false;
+        }
+        long end = (addr + length + MemoryConstants.PAGE_SIZE - 1) & ~(MemoryConstants.PAGE_SIZE - 1);
+        if (overlapsVma(heapVma, addr, end) || overlapsVma(stackVma, addr, end)) {
+            return false;
+        }
+        
+        List<VmArea> removed = vmas.removeRange(addr, end);
+        for (VmArea vma : removed) {
+            unmapRange(vma.getStart(), vma.getEnd());
+        }
+        return true;
+    }
+    
+    private static boolean overlapsVma(VmArea vma, long start, long end) {
+        return vma != null && vma.getStart() < end && start < vma.getEnd();
+    }
+    
+    /**
+     * 处理缺页（包括写保护缺页）：交给缺页处理流水线，同一地址空间的缺页串行处理
+     * 
+     * 流水线依次为：已映射页的写时复制 / 写保护检查、换入、查找区域、文件页、大页、
+     * 零页（匿名区域读缺页）、清零的私有页（匿名区域写缺页）。共享页在可写区域中标记为 COW
+     * 
+     * @param vaddr 发生缺页的虚拟地址
+     * @param write 是否为写访问
+     * @return 是否已建立映射（写访问时还须可写）
+     */
+    @Override
+    public synchronized boolean handlePageFault(long vaddr, boolean write) {
+        return faultPipeline.handlePageFault(vaddr, write);
+    }
+    
+    // ==================== 缺页处理阶段 ====================
+    
+    /**
+     * 已映射的页：写入 COW 页时复制，写入只读页失败，其余为并发缺页已调入（无需处理）
+     */
+    private PageFaultPipeline.Outcome faultMapped(PageFault fault) {
+        int vpage = fault.getVirtualPage();
+        Integer flags = pageTable.getFlags(vpage);
+        if (flags == null) {
+            return PageFaultPipeline.Outcome.CONTINUE;
+        }
+        if (!fault.isWrite() || (flags & PageTable.PAGE_RW) != 0) {
+            return PageFaultPipeline.Outcome.HANDLED;
+        }
+        if ((flags & PageTable.PAGE_COW) == 0 || cowHandler.handleCopyOnWrite(vpage) < 0) {
+            return PageFaultPipeline.Outcome.FAILED; // 只读页或复制时内存不足
+        }
+        fault.resolve(FaultType.COPY_ON_WRITE);
+        return PageFaultPipeline.Outcome.HANDLED;
+    }
+    
+    /**
+     * 已换出的页：从交换设备换入
+     */
+    private PageFaultPipeline.Outcome faultSwapIn(PageFault fault) {
+        int vpage = fault.getVirtualPage();
+        SwapEntry swapEntry = swapEntries.get(vpage);
+        if (swapEntry == null) {
+            return PageFaultPipeline.Outcome.CONTINUE;
+        }
+        if (!swapIn(vpage, swapEntry)) {
+            return PageFaultPipeline.Outcome.FAILED;
+        }
+        fault.resolve(FaultType.SWAP_IN);
+        return PageFaultPipeline.Outcome.HANDLED;
+    }
+    
+    /**
+     * 查找所在区域，不在任何区域内为非法访问
+     */
+    private PageFaultPipeline.Outcome faultLookupVma(PageFault fault) {
+        VmArea vma = findVma(fault.getAddress());
+        if (vma == null) {
+            return PageFaultPipeline.Outcome.FAILED;
+        }
+        fault.setVma(vma);
+        return PageFaultPipeline.Outcome.CONTINUE;
+    }
+    
+    /**
+     * 文件区域：映射页缓存中的页
+     */
+    private PageFaultPipeline.Outcome faultFile(PageFault fault) {
+        VmArea vma = fault.getVma();
+        if (vma.getFile() == null) {
+            return PageFaultPipeline.Outcome.CONTINUE;
+        }
+        long pageIndex = vma.filePageIndex(fault.getAddress());
+        int ppage = pageIndex <= Integer.MAX_VALUE ? vma.getFile().getPage((int) pageIndex) : -1;
+        if (ppage < 0) {
+            return PageFaultPipeline.Outcome.FAILED; // 超出文件末尾（SIGBUS）或内存不足
+        }
+        pageTable.map(fault.getVirtualPage(), ppage, sharedPageFlags(vma));
+        fault.resolve(FaultType.FILE);
+        return PageFaultPipeline.Outcome.HANDLED;
+    }
+    
+    /**
+     * 大页区域：尝试整块映射大页，不满足条件时交给普通页处理
+     */
+    private PageFaultPipeline.Outcome faultHugePage(PageFault fault) {
+        VmArea vma = fault.getVma();
+        if (!vma.isHugePages() || !mapHugePage(vma, fault.getAddress())) {
+            return PageFaultPipeline.Outcome.CONTINUE;
+        }
+        fault.resolve(FaultType.HUGE_PAGE);
+        return PageFaultPipeline.Outcome.HANDLED;
+    }
+    
+    /**
+     * 匿名区域的读缺页：映射共享零页
+     */
+    private PageFaultPipeline.Outcome faultZeroPage(PageFault fault) {
+        if (fault.isWrite()) {
+            return PageFaultPipeline.Outcome.CONTINUE;
+        }
+        int zeroPage = memoryManager.getZeroPage();
+        if (zeroPage < 0) {
+            return PageFaultPipeline.Outcome.CONTINUE;
+        }
+        memoryManager.getPhysicalMemory().incrementPageRef(zeroPage);
+        pageTable.map(fault.getVirtualPage(), zeroPage, sharedPageFlags(fault.getVma()));
+        fault.resolve(FaultType.ZERO_PAGE);
+        return PageFaultPipeline.Outcome.HANDLED;
+    }
+    
+    /**
+     * 匿名区域：分配一个清零的私有页
+     */
+    private PageFaultPipeline.Outcome faultZeroFill(PageFault fault) {
+        int ppage = memoryManager.allocatePage();
+        if (ppage < 0) {
+            return PageFaultPipeline.Outcome.FAILED; // 内存不足
+        }
+        pageTable.map(fault.getVirtualPage(), ppage, fault.getVma().getPageFlags());
+        fault.resolve(FaultType.ZERO_FILL);
+        return PageFaultPipeline.Outcome.HANDLED;
+    }
+    
+    /**
+     * 换入一个已换出的页：分配物理页、读回内容、恢复换出时的标志，并释放本地址空间对槽位的引用
+     */
+    private boolean swapIn(int vpage, SwapEntry entry) {
+        SwapDevice swap = entry.device;
+        int ppage = memoryManager.allocatePage();
+        if (ppage < 0) {
+            return false; // 内存不足
+        }
+        if (!swap.swapIn(entry.slot, memoryManager.getPhysicalMemory(), ppage)) {
+            memoryManager.freePage(ppage);
+            return false;
+        }
+        swapEntries.remove(vpage);
+        swap.freeSlot(entry.slot);
+        pageTable.map(vpage, ppage, entry.pageFlags);
+        return true;
+    }
+    
+    /**
+     * 按时钟（二次机会）算法换出冷页，由 {@link PageReclaimer} 调用
+     * 
+     * 从上次停下的虚拟页开始扫描一圈已映射页：只考虑引用计数为 1 的普通页
+     * （共享页、零页、页缓存页和大页跳过）；带 ACCESSED 标志的页清除标志后跳过，
+     * 其余页写入交换设备并解除映射。
+     * 
+     * @param maxPages 最多换出的页数
+     * @param swap 交换设备
+     * @return 实际换出的页数
+     */
+    public synchronized int reclaimPages(int maxPages, SwapDevice swap) {
+        if (maxPages <= 0) {
+            return 0;
+        }
+        
+        // 遍历期间不能修改页表，先收集候选页
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        List<int[]> candidates = new ArrayList<>();
+        pageTable.forEachMapping((vpage, ppage, flags) -> {
+            if ((flags & PageTable.PAGE_HUGE) == 0 && pm.getPageRefCount(ppage) == 1) {
+                candidates.add(new int[] {vpage, ppage, flags});
+            }
+        });
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        
+        int start = 0;
+        while (start < candidates.size() && candidates.get(start)[0] < reclaimHand) {
+            start++;
+        }
+        
+        int count = 0;
+        for (int i = 0; i < candidates.size() && count < maxPages; i++) {
+            int[] candidate = candidates.get((start + i) % candidates.size());
+            int vpage = candidate[0];
+            int ppage = candidate[1];
+            int flags = candidate[2];
+            reclaimHand = vpage + 1;
+            
+            if (pageTable.testAndClearFlags(vpage, PageTable.PAGE_ACCESSED) != 0) {
+                continue; // 二次机会
+            }
+            
+            int slot = swap.swapOut(pm, ppage);
+            if (slot < 0) {
+                break; // 交换区已满
+            }
+            pageTable.unmap(vpage);
+            int pageFlags = flags & ~(PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY);
+            swapEntries.put(vpage, new SwapEntry(swap, slot, pageFlags));
+            memoryManager.freePage(ppage);
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * 遍历可迁移的页（引用计数为 1 的普通页），由 {@link MemoryCompactor} 建立反向映射，
+     * {@link SamePageMerger} 也从中挑选合并候选
+     * 
+     * @param visitor 访问者
+     */
+    public synchronized void forEachMovablePage(IPageTable.MappingVisitor visitor) {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        pageTable.forEachMapping((vpage, ppage, flags) -> {
+            if ((flags & PageTable.PAGE_HUGE) == 0 && pm.getPageRefCount(ppage) == 1) {
+                visitor.visit(vpage, ppage, flags);
+            }
+        });
+    }
+    
+    /**
+     * 把虚拟页迁移到新的物理页，由 {@link MemoryCompactor} 调用
+     * 
+     * 在锁内重新检查映射：虚拟页仍映射到 oldPage 且 oldPage 未被共享时，复制页面内容并改写页表项
+     * （保留原标志，TLB 表项随之失效）。成功后 oldPage 的引用转交调用者释放。
+     * 
+     * @param vpage 虚拟页号
+     * @param oldPage 当前物理页
+     * @param newPage 调用者已分配的目标物理页
+     * @return 是否迁移成功
+     */
+    public synchronized boolean migratePage(int vpage, int oldPage, int newPage) {
+        Integer flags = exclusiveFlags(vpage, oldPage);
+        if (flags == null) {
+            return false;
+        }
+        memoryManager.getPhysicalMemory().copyPage(oldPage, newPage);
+        pageTable.map(vpage, newPage, flags);
+        return true;
+    }
+    
+    /**
+     * 把独占页写保护并增加一个引用，提升为 KSM 页，由 {@link SamePageMerger} 调用
+     * 
+     * @param vpage 虚拟页号
+     * @param ppage 当前物理页
+     * @return 是否成功（映射已变化或页面已被共享时返回 false）
+     */
+    public synchronized boolean pinKsmPage(int vpage, int ppage) {
+        Integer flags = exclusiveFlags(vpage, ppage);
+        if (flags == null) {
+            return false;
+        }
+        pageTable.setFlags(vpage, writeProtect(flags));
+        memoryManager.getPhysicalMemory().incrementPageRef(ppage);
+        return true;
+    }
+    
+    /**
+     * 把独占页合并到内容相同的 KSM 页，由 {@link SamePageMerger} 调用
+     * 
+     * 在锁内重新检查映射并逐字节比较内容，相同时把虚拟页以只读 COW 方式重映射到 KSM 页并释放原页。
+     * 
+     * @param vpage 虚拟页号
+     * @param oldPage 当前物理页
+     * @param ksmPage KSM 页
+     * @return 是否合并成功
+     */
+    public synchronized boolean mergePage(int vpage, int oldPage, int ksmPage) {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        Integer flags = exclusiveFlags(vpage, oldPage);
+        if (flags == null || !SamePageMerger.samePageContent(pm, oldPage, ksmPage)) {
+            return false;
+        }
+        pm.incrementPageRef(ksmPage);
+        pageTable.map(vpage, ksmPage, writeProtect(flags));
+        memoryManager.freePage(oldPage);
+        return true;
+    }
+    
+    /**
+     * 虚拟页仍以普通页独占映射到 ppage 时返回其标志，否则返回 null
+     */
+    private Integer exclusiveFlags(int vpage, int ppage) {
+        Integer flags = pageTable.getFlags(vpage);
+        if (flags == null || (flags & PageTable.PAGE_HUGE) != 0 || pageTable.getPhysicalPage(vpage) != ppage
+                || memoryManager.getPhysicalMemory().getPageRefCount(ppage) != 1) {
+            return null;
+        }
+        return flags;
+    }
+    
+    /**
+     * 共享页的标志：可写页改为只读 COW（写入时复制），只读页保持只读
+     */
+    private static int writeProtect(int flags) {
+        if ((flags & (PageTable.PAGE_RW | PageTable.PAGE_COW)) == 0) {
+            return flags;
+        }
+        return (flags & ~PageTable.PAGE_RW) | PageTable.PAGE_COW;
+    }
+    
+    /**
+     * 获取已换出的页数
+     */
+    public synchronized int getSwappedPageCount() {
+        return swapEntries.size();
+    }
+    
+    /**
+     * 获取缺页处理流水线（可插入新的处理阶段）
+     */
+    public PageFaultPipeline getFaultPipeline() {
+        return faultPipeline;
+    }
+    
+    /**
+     * 获取本地址空间的缺页统计（各类型的次数与延迟分布）
+     */
+    public FaultStatistics getFaultStatistics() {
+        return faultPipeline.getStatistics();
+    }
+    
+    /**
+     * 获取内存使用快照：常驻页和 COW 共享页由页表增量计数，缺页次数在缺页处理时累加，不扫描页表
+     * 
+     * @return 内存使用快照
+     */
+    @Override
+    public synchronized MemoryUsage getMemoryUsage() {
+        FaultStatistics faults = faultPipeline.getStatistics();
+        return new MemoryUsage(pageTable.getMappedPageCount(), pageTable.getCowPageCount(), swapEntries.size(),
+            faults.getMinorFaults(), faults.getMajorFaults(), faults.getCount(FaultType.COPY_ON_WRITE));
+    }
+    
+    /**
+     * 释放虚拟页的换出记录（解除映射时）
+     */
+    private void releaseSwapEntry(int vpage) {
+        SwapEntry entry = swapEntries.remove(vpage);
+        if (entry != null) {
+            entry.device.freeSlot(entry.slot);
+        }
+    }
+    
+    /**
+     * 尝试用一个大页映射 vaddr 所在的 4MB 范围：范围必须完全落在区域内且尚无任何映射
+     * 
+     * @return 是否已映射大页（false 时调用者退回普通页）
+     */
+    private boolean mapHugePage(VmArea vma, long vaddr) {
+        long hugeStart = vaddr & ~((long) MemoryConstants.HUGE_PAGE_SIZE - 1);
+        if (hugeStart < vma.getStart() || hugeStart + MemoryConstants.HUGE_PAGE_SIZE > vma.getEnd()) {
+            return false;
+        }
+        return mapHugeRange(hugeStart, vma.getPageFlags());
+    }
+    
+    /**
+     * 在按大页对齐的 hugeStart 处分配并映射一个大页
+     */
+    private boolean mapHugeRange(long hugeStart, int pageFlags) {
+        int vpage = (int) (hugeStart >> MemoryConstants.PAGE_SHIFT);
+        for (int i = 0; i < MemoryConstants.HUGE_PAGE_PAGES; i++) {
+            if (pageTable.isMapped(vpage + i)) {
+                return false;
+            }
+        }
+        int ppage = memoryManager.allocatePages(MemoryConstants.HUGE_PAGE_ORDER);
+        if (ppage < 0) {
+            return false;
+        }
+        pageTable.mapHuge(vpage, ppage, pageFlags);
+        return true;
+    }
+    
+    /**
+     * 共享页（零页、页缓存页）的映射标志：可写区域去掉 RW 并标记 COW
+     */
+    private static int sharedPageFlags(VmArea vma) {
+        int flags = vma.getPageFlags();
+        if ((flags & PageTable.PAGE_RW) != 0) {
+            flags = (flags & ~PageTable.PAGE_RW) | PageTable.PAGE_COW;
+        }
+        return flags;
+    }
+    
     /**
      * 扩展堆（brk 系统调用）
      * 
-     * @param newBrk 新的堆结束地址
+     * @param newBrk 新的堆结束地址，0 表示仅查询当前 brk
      * @return 实际的堆结束地址
      */
-    public long expandBrk(long newBrk) {
-        if (newBrk < dataEnd) {
-            return brk; // 不允许缩小到数据段以下
+    public synchronized long expandBrk(long newBrk) {
+        if (newBrk == 0 || newBrk < dataEnd) {
+            return brk; // 查询，或不允许缩小到数据段以下
         }
         
         // 对齐到页边界
         long alignedBrk = (newBrk + MemoryConstants.PAGE_SIZE - 1) & ~(MemoryConstants.PAGE_SIZE - 1);
         long oldBrk = brk;
         
-        // 分配新页面，失败时回滚已分配的页面
-        for (long addr = oldBrk; addr < alignedBrk; addr += MemoryConstants.PAGE_SIZE) {
+        if (alignedBrk < oldBrk) {
+            // 缩小堆：释放新 brk 以上已调入的页面
+            unmapRange(alignedBrk, oldBrk);
+            if (heapVma != null) {
+                heapVma.setEnd(alignedBrk);
+            }
+            brk = alignedBrk;
+            return brk;
+        }
+        
+        // 堆不能与栈或匿名映射重叠
+        if (vmas.overlaps(oldBrk, alignedBrk, heapVma)) {
+            return brk;
+        }
+        
+        if (demandPaging) {
+            return expandBrkLazy(alignedBrk);
+        }
+        
+        // 分配新页面，失败时回滚已分配的页面；ALWAYS 策略下完整对齐的 4MB 范围优先使用大页
+        long addr = oldBrk;
+        while (addr < alignedBrk) {
+            if (hugePagePolicy == HugePagePolicy.ALWAYS
+                    && (addr & (MemoryConstants.HUGE_PAGE_SIZE - 1)) == 0
+                    && addr + MemoryConstants.HUGE_PAGE_SIZE <= alignedBrk
+                    && mapHugeRange(addr, DEFAULT_PAGE_FLAGS)) {
+                addr += MemoryConstants.HUGE_PAGE_SIZE;
+                continue;
+            }
             if (!allocateAndMap(addr, DEFAULT_PAGE_FLAGS)) {
                 // 回滚：释放本次已分配的所有页面
                 for (long rollbackAddr = oldBrk; rollbackAddr < addr; rollbackAddr += MemoryConstants.PAGE_SIZE) {
@@ -128,68 +808,88 @@ public class AddressSpace implements IAddressSpace {
                 }
                 return brk; // 分配失败，返回原始 brk
             }
+            addr += MemoryConstants.PAGE_SIZE;
         }
         
         brk = alignedBrk;
         return brk;
     }
     
+    /**
+     * 请求调页模式下扩展堆：只扩展堆区域，不分配页面
+     */
+    private long expandBrkLazy(long alignedBrk) {
+        if (heapVma == null) {
+            long heapStart = dataEnd & ~(MemoryConstants.PAGE_SIZE - 1);
+            VmArea vma = new VmArea(heapStart, alignedBrk, DEFAULT_PAGE_FLAGS, "[heap]");
+            vma.setHugePages(hugePagePolicy == HugePagePolicy.ALWAYS);
+            if (!vmas.insert(vma)) {
+                return brk;
+            }
+            heapVma = vma;
+        } else {
+            heapVma.setEnd(alignedBrk);
+        }
+        brk = alignedBrk;
+        return brk;
+    }
+    
+    /**
+     * 解除 [start, end) 内已映射页面的映射并释放物理页
+     */
+    private void unmapRange(long start, long end) {
+        for (long addr = start; addr < end; addr += MemoryConstants.PAGE_SIZE) {
+            int vpage = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+            int ppage = pageTable.getPhysicalPage(vpage);
+            if (ppage >= 0) {
+                pageTable.unmap(vpage);
+                memoryManager.freePage(ppage);
+            } else if (!swapEntries.isEmpty()) {
+                releaseSwapEntry(vpage);
+            }
+        }
+    }
+    
     /**
      * 读取虚拟地址的字节
+     * 持有 this 锁：kswapd、kcompactd、ksmd 会在其他线程中取消映射并释放本地址空间的页面，
+     * 不加锁时刚完成翻译的读者可能读到已被释放、清零并重新分配的物理页
      * 
      * @param vaddr 虚拟地址
      * @return 字节值
      */
-    public byte readByte(long vaddr) {
+    public synchronized byte readByte(long vaddr) {
         return memoryAccessor.readByte(vaddr);
     }
     
     /**
      * 写入虚拟地址的字节
-     * 使用 synchronized 保护 COW 处理，防止竞态条件
+     * 缺页和写时复制由 {@link MemoryAccessor} 经缺页处理流水线完成；
+     * 持有 this 锁使"处理 COW - 写入"不会与 fork 交错（否则写入可能落在刚被共享的页上）
      * 
      * @param vaddr 虚拟地址
      * @param value 字节值
      */
     public synchronized void writeByte(long vaddr, byte value) {
-        int vpage = (int) (vaddr >> MemoryConstants.PAGE_SHIFT);
-        
-        // 检查页面权限
-        Integer flags = pageTable.getFlags(vpage);
-        if (flags == null) {
-            throw new PageFaultException("Page not present at vaddr: 0x" + Long.toHexString(vaddr));
-        }
-        
-        // 检查是否为COW页面（在同一把锁内完成检查和处理，避免竞态）
-        if ((flags & PageTable.PAGE_COW) != 0) {
-            int newPpage = cowHandler.handleCopyOnWrite(vpage);
-            if (newPpage < 0) {
-                throw new PageFaultException("Copy-on-write failed at vaddr: 0x" + Long.toHexString(vaddr));
-            }
-        } else if ((flags & PageTable.PAGE_RW) == 0) {
-            throw new PageFaultException("Page is read-only at vaddr: 0x" + Long.toHexString(vaddr));
-        }
-        
-        // 委托给 MemoryAccessor 进行实际写入
         memoryAccessor.writeByte(vaddr, value);
     }
     
     /**
      * 批量读取多个字节
-     * 按页边界分段，每段直接调用物理内存的批量拷贝，避免逐字节操作
+     * 按页边界分段，每段直接调用物理内存的批量拷贝，避免逐字节操作；与 {@link #readByte} 一样持有 this 锁
      * 
      * @param vaddr 虚拟地址
      * @param buf 目标缓冲区
      * @param offset 缓冲区偏移
      * @param len 读取长度
      */
-    public void readBytes(long vaddr, byte[] buf, int offset, int len) {
+    public synchronized void readBytes(long vaddr, byte[] buf, int offset, int len) {
         memoryAccessor.readBytes(vaddr, buf, offset, len);
     }
     
     /**
      * 批量写入多个字节
-     * 按页边界分段，处理 COW 后直接调用物理内存的批量拷贝
+     * 按页边界分段，缺页和写时复制由 {@link MemoryAccessor} 逐页处理
      * 
      * @param vaddr 虚拟地址
      * @param buf 源缓冲区
@@ -197,36 +897,7 @@ public class AddressSpace implements IAddressSpace {
      * @param len 写入长度
      */
     public synchronized void writeBytes(long vaddr, byte[] buf, int offset, int len) {
-        int remaining = len;
-        long currentVaddr = vaddr;
-        int currentOffset = offset;
-        
-        while (remaining > 0) {
-            int vpage = (int) (currentVaddr >> MemoryConstants.PAGE_SHIFT);
-            int pageOffset = (int) (currentVaddr & (MemoryConstants.PAGE_SIZE - 1));
-            int chunkSize = Math.min(remaining, MemoryConstants.PAGE_SIZE - pageOffset);
-            
-            // 检查页面权限并处理 COW
-            Integer pageFlags = pageTable.getFlags(vpage);
-            if (pageFlags == null) {
-                throw new PageFaultException("Page not present at vaddr: 0x" + Long.toHexString(currentVaddr));
-            }
-            if ((pageFlags & PageTable.PAGE_COW) != 0) {
-                int newPpage = cowHandler.handleCopyOnWrite(vpage);
-                if (newPpage < 0) {
-                    throw new PageFaultException("Copy-on-write failed at vaddr: 0x" + Long.toHexString(currentVaddr));
-                }
-            } else if ((pageFlags & PageTable.PAGE_RW) == 0) {
-                throw new PageFaultException("Page is read-only at vaddr: 0x" + Long.toHexString(currentVaddr));
-            }
-            
-            // 委托给 MemoryAccessor 进行实际写入
-            memoryAccessor.writeBytes(currentVaddr, buf, currentOffset, chunkSize);
-            
-            currentVaddr += chunkSize;
-            currentOffset += chunkSize;
-            remaining -= chunkSize;
-        }
+        memoryAccessor.writeBytes(vaddr, buf, offset, len);
     }
     
     /**
@@ -237,28 +908,15 @@ public class AddressSpace implements IAddressSpace {
      */
     @Override
     public synchronized IAddressSpace copy() {
-        AddressSpace newSpace = new AddressSpace(memoryManager);
-        
-        // 复制页表（使用写时复制优化）
         // synchronized 保护整个 copy 过程，防止 copy 期间页表被并发修改
-        PageTable oldTable = this.pageTable;
-        PageTable newTable = newSpace.pageTable;
+        // 只遍历已映射的页：先增加所有共享物理页的引用计数，再把父进程页表整体标记为 COW，
+        // 最后复制页表（子进程继承 COW 标志），代价与已映射页数成正比
         IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        pageTable.forEachMapping((vpage, ppage, flags) -> pm.incrementPageRef(ppage));
+        pageTable.updateAllFlags(PageTable.PAGE_RW, PageTable.PAGE_COW);
         
-        for (int vpage = 0; vpage < MemoryConstants.TASK_SIZE >> MemoryConstants.PAGE_SHIFT; vpage++) {
-            if (oldTable.isMapped(vpage)) {
-                int oldPpage = oldTable.getPhysicalPage(vpage);
-                Integer oldFlags = oldTable.getFlags(vpage);
-                
-                if (oldPpage >= 0 && oldFlags != null) {
-                    pm.incrementPageRef(oldPpage);
-                    
-                    int newFlags = (oldFlags & ~PageTable.PAGE_RW) | PageTable.PAGE_COW;
-                    newTable.map(vpage, oldPpage, newFlags);
-                    oldTable.setFlags(vpage, newFlags);
-                }
-            }
-        }
+        IPageTable newTable = pageTable.copy();
+        AddressSpace newSpace = new AddressSpace(memoryManager, newTable, tlb != null ? tlb.size() : 0);
         
         // 复制段信息
         newSpace.codeStart = this.codeStart;
@@ -268,22 +926,53 @@ public class AddressSpace implements IAddressSpace {
         newSpace.brk = this.brk;
         newSpace.stackTop = this.stackTop;
         
+        // 复制虚拟内存区域，子进程中尚未调入的页面同样按需分配
+        newSpace.demandPaging = this.demandPaging;
+        newSpace.hugePagePolicy = this.hugePagePolicy;
+        
+        // 子进程共享已换出的页：增加槽位引用，父子进程在访问时各自换入一份私有副本
+        swapEntries.forEach((vpage, entry) -> {
+            entry.device.incrementRef(entry.slot);
+            newSpace.swapEntries.put(vpage, entry);
+        });
+        vmas.forEach(vma -> {
+            VmArea copied = vma.copy();
+            newSpace.vmas.insert(copied);
+            if (vma == heapVma) {
+                newSpace.heapVma = copied;
+            } else if (vma == stackVma) {
+                newSpace.stackVma = copied;
+            }
+        });
+        
         return newSpace;
     }
     
     /**
      * 释放地址空间
      */
-    public void free() {
-        // 释放所有映射的物理页
-        for (int vpage = 0; vpage < MemoryConstants.TASK_SIZE >> MemoryConstants.PAGE_SHIFT; vpage++) {
-            if (pageTable.isMapped(vpage)) {
-                int ppage = pageTable.getPhysicalPage(vpage);
-                memoryManager.freePage(ppage);
-            }
-        }
-        
+    public synchronized void free() {
+        // 释放所有映射的物理页（只遍历已映射的页）
+        pageTable.forEachMapping((vpage, ppage, flags) -> memoryManager.freePage(ppage));
         pageTable.clear();
+        vmas.clear();
+        heapVma = null;
+        stackVma = null;
+        
+        swapEntries.forEach((vpage, entry) -> entry.device.freeSlot(entry.slot));
+        swapEntries.clear();
+        PageReclaimer reclaimer = memoryManager.getPageReclaimer();
+        if (reclaimer != null) {
+            reclaimer.unregister(this);
+        }
+        MemoryCompactor compactor = memoryManager.getMemoryCompactor();
+        if (compactor != null) {
+            compactor.unregister(this);
+        }
+        SamePageMerger merger = memoryManager.getSamePageMerger();
+        if (merger != null) {
+            merger.unregister(this);
+        }
     }
     
     // Getters and setters
@@ -293,6 +982,15 @@ public class AddressSpace implements IAddressSpace {
         return pageTable;
     }
     
+    /**
+     * 获取软件 TLB（用于查看命中/未命中统计）
+     * 
+     * @return TLB，未启用时返回 null
+     */
+    public SoftwareTlb getTlb() {
+        return tlb;
+    }
+    
     public long getCodeStart() {
         return codeStart;
     }
@@ -321,9 +1019,12 @@ public class AddressSpace implements IAddressSpace {
         return dataEnd;
     }
     
-    public void setDataEnd(long dataEnd) {
+    public synchronized void setDataEnd(long dataEnd) {
         this.dataEnd = dataEnd;
         this.brk = dataEnd;
+        // 堆从新的数据段末尾重新开始
+        removeVma(heapVma);
+        heapVma = null;
     }
     
     public long getBrk() {
@@ -334,6 +1035,21 @@ public class AddressSpace implements IAddressSpace {
         return stackTop;
     }
     
+    /**
+     * 换出页记录
+     */
+    private static final class SwapEntry {
+        final SwapDevice device;
+        final int slot;
+        final int pageFlags;
+        
+        SwapEntry(SwapDevice device, int slot, int pageFlags) {
+            this.device = device;
+            this.slot = slot;
+            this.pageFlags = pageFlags;
+        }
+    }
+    
     /**
      * 页面错误异常
      */
@@ -0,0 +1,372 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.Arrays;
+
+/**
+ * 伙伴系统物理内存管理器
+ * 对应 Linux 中的 mm/page_alloc.c（buddy allocator）
+ *
+ * 空闲内存按 2^order 页的块组织，每个阶维护一条空闲链表。分配时从满足要求的最小阶取块，
+ * 多余部分逐级对半拆分放回低阶链表；释放时与伙伴块（页号异或 2^order）合并，直到伙伴
+ * 不空闲或达到最高阶。因此可以分配物理连续的多页块（大缓冲区、大页等），碎片程度也可以统计。
+ *
+ * 块分配出去后每页都有独立的引用计数，可以像普通页面一样单独映射、共享和释放；
+ * 单页释放后同样参与合并。
+ *
+ * @author Jinux Project
+ */
+public class BuddyPhysicalMemory implements IPhysicalMemory {
+
+    /** 最高阶（2^10 页 = 4MB，恰好容纳一个大页） */
+    public static final int MAX_ORDER = MemoryConstants.HUGE_PAGE_ORDER;
+
+    /** 物理内存数据（模拟） */
+    private final byte[] memory;
+
+    /** 页面引用计数：0 表示空闲 */
+    private final int[] pageRefCount;
+
+    /** 空闲块的阶（仅块首页有效），-1 表示该页不是空闲块的首页 */
+    private final byte[] freeOrder;
+
+    /** 空闲链表的 next 指针（双向链表，便于合并时摘除伙伴） */
+    private final int[] freeNext;
+
+    /** 空闲链表的 prev 指针 */
+    private final int[] freePrev;
+
+    /** 各阶空闲链表头（-1 表示空） */
+    private final int[] freeHead = new int[MAX_ORDER + 1];
+
+    /** 各阶空闲块数 */
+    private final int[] freeCount = new int[MAX_ORDER + 1];
+
+    /** 总页面数 */
+    private final int totalPages;
+
+    /** 空闲页面数 */
+    private int freePages;
+
+    /**
+     * 构造伙伴系统物理内存管理器
+     */
+    public BuddyPhysicalMemory() {
+        this.memory = new byte[MemoryConstants.MEMORY_SIZE];
+        this.totalPages = MemoryConstants.NR_PAGES;
+        this.pageRefCount = new int[totalPages];
+        this.freeOrder = new byte[totalPages];
+        this.freeNext = new int[totalPages];
+        this.freePrev = new int[totalPages];
+        Arrays.fill(freeOrder, (byte) -1);
+        Arrays.fill(freeHead, -1);
+
+        // 初始化：低端 1MB（内核占用）标记为已使用
+        int kernelPages = MemoryConstants.KERNEL_MEMORY / MemoryConstants.PAGE_SIZE;
+        for (int i = 0; i < kernelPages; i++) {
+            pageRefCount[i] = 1;
+        }
+
+        // 其余页面按最大的对齐块放入空闲链表
+        int pageNo = kernelPages;
+        while (pageNo < totalPages) {
+            int order = MAX_ORDER;
+            while (order > 0 && ((pageNo & ((1 << order) - 1)) != 0 || pageNo + (1 << order) > totalPages)) {
+                order--;
+            }
+            addFree(pageNo, order);
+            pageNo += 1 << order;
+        }
+        this.freePages = totalPages - kernelPages;
+
+        System.out.println("[MM] Buddy physical memory initialized: " +
+            (MemoryConstants.MEMORY_SIZE / 1024 / 1024) + "MB, " +
+            freePages + " pages free, max order " + MAX_ORDER);
+    }
+
+    @Override
+    public int allocPage() {
+        return allocPages(0);
+    }
+
+    /**
+     * 分配 2^order 个物理连续的页面
+     *
+     * @param order 阶（0 ~ {@link #MAX_ORDER}）
+     * @return 首页页面号（按 2^order 对齐），失败返回 -1
+     */
+    @Override
+    public synchronized int allocPages(int order) {
+        if (order < 0 || order > MAX_ORDER) {
+            throw new IllegalArgumentException("Invalid order: " + order);
+        }
+
+        int current = order;
+        while (current <= MAX_ORDER && freeHead[current] < 0) {
+            current++;
+        }
+        if (current > MAX_ORDER) {
+            System.err.println("[MM] ERROR: Out of memory! No free block of order " + order);
+            return -1;
+        }
+
+        int pageNo = freeHead[current];
+        removeFree(pageNo, current);
+
+        // 拆分：高半部分放回低一阶的链表，直到块大小合适
+        while (current > order) {
+            current--;
+            addFree(pageNo + (1 << current), current);
+        }
+
+        int count = 1 << order;
+        for (int i = 0; i < count; i++) {
+            pageRefCount[pageNo + i] = 1;
+        }
+        freePages -= count;
+
+        int offset = pageNo * MemoryConstants.PAGE_SIZE;
+        Arrays.fill(memory, offset, offset + count * MemoryConstants.PAGE_SIZE, (byte) 0);
+        return pageNo;
+    }
+
+    /**
+     * 分配指定的空闲页面：找到包含它的空闲块，逐级对半拆分，不含该页的一半放回链表
+     *
+     * @param pageNo 页面号
+     * @return 是否成功，页面不空闲时返回 false
+     */
+    @Override
+    public synchronized boolean allocPageAt(int pageNo) {
+        if (pageNo < 0 || pageNo >= totalPages || pageRefCount[pageNo] != 0) {
+            return false;
+        }
+
+        int order = 0;
+        int head = pageNo;
+        while (freeOrder[head] != order) {
+            if (++order > MAX_ORDER) {
+                return false;
+            }
+            head = pageNo & ~((1 << order) - 1);
+        }
+        removeFree(head, order);
+
+        while (order > 0) {
+            order--;
+            int half = head + (1 << order);
+            if (pageNo >= half) {
+                addFree(head, order);
+                head = half;
+            } else {
+                addFree(half, order);
+            }
+        }
+
+        pageRefCount[pageNo] = 1;
+        freePages--;
+        return true;
+    }
+
+    /**
+     * 释放一个物理页面，引用计数归零时与伙伴合并
+     *
+     * @param pageNo 页面号
+     */
+    @Override
+    public synchronized void freePage(int pageNo) {
+        if (pageNo < 0 || pageNo >= totalPages) {
+            System.err.println("[MM] ERROR: Invalid page number: " + pageNo);
+            return;
+        }
+
+        if (pageRefCount[pageNo] <= 0) {
+            System.err.println("[MM] WARNING: Freeing already free page: " + pageNo);
+            return;
+        }
+
+        if (--pageRefCount[pageNo] == 0) {
+            freePages++;
+            coalesce(pageNo);
+        }
+    }
+
+    /**
+     * 把刚释放的单页与空闲伙伴逐级合并后放入对应阶的链表
+     */
+    private void coalesce(int pageNo) {
+        int order = 0;
+        while (order < MAX_ORDER) {
+            int buddy = pageNo ^ (1 << order);
+            if (buddy >= totalPages || freeOrder[buddy] != order) {
+                break;
+            }
+            removeFree(buddy, order);
+            pageNo = Math.min(pageNo, buddy);
+            order++;
+        }
+        addFree(pageNo, order);
+    }
+
+    private void addFree(int pageNo, int order) {
+        freeOrder[pageNo] = (byte) order;
+        freePrev[pageNo] = -1;
+        freeNext[pageNo] = freeHead[order];
+        if (freeHead[order] >= 0) {
+            freePrev[freeHead[order]] = pageNo;
+        }
+        freeHead[order] = pageNo;
+        freeCount[order]++;
+    }
+
+    private void removeFree(int pageNo, int order) {
+        int prev = freePrev[pageNo];
+        int next = freeNext[pageNo];
+        if (prev >= 0) {
+            freeNext[prev] = next;
+        } else {
+            freeHead[order] = next;
+        }
+        if (next >= 0) {
+            freePrev[next] = prev;
+        }
+        freeOrder[pageNo] = -1;
+        freeCount[order]--;
+    }
+
+    @Override
+    public synchronized void incrementPageRef(int pageNo) {
+        if (pageNo >= 0 && pageNo < totalPages && pageRefCount[pageNo] > 0) {
+            pageRefCount[pageNo]++;
+        }
+    }
+
+    @Override
+    public synchronized int getPageRefCount(int pageNo) {
+        if (pageNo >= 0 && pageNo < totalPages) {
+            return pageRefCount[pageNo];
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized byte readByte(long paddr) {
+        if (paddr < 0 || paddr >= memory.length) {
+            throw new IndexOutOfBoundsException("Physical address out of range: 0x" +
+                Long.toHexString(paddr));
+        }
+        return memory[(int) paddr];
+    }
+
+    @Override
+    public synchronized void writeByte(long paddr, byte value) {
+        if (paddr < 0 || paddr >= memory.length) {
+            throw new IndexOutOfBoundsException("Physical address out of range: 0x" +
+                Long.toHexString(paddr));
+        }
+        memory[(int) paddr] = value;
+    }
+
+    @Override
+    public synchronized void readBytes(long paddr, byte[] buf, int offset, int len) {
+        if (paddr < 0 || paddr + len > memory.length) {
+            throw new IndexOutOfBoundsException("Physical address range out of bounds");
+        }
+        System.arraycopy(memory, (int) paddr, buf, offset, len);
+    }
+
+    @Override
+    public synchronized void writeBytes(long paddr, byte[] buf, int offset, int len) {
+        if (paddr < 0 || paddr + len > memory.length) {
+            throw new IndexOutOfBoundsException("Physical address range out of bounds");
+        }
+        System.arraycopy(buf, offset, memory, (int) paddr, len);
+    }
+
+    @Override
+    public synchronized void copyPage(int srcPageNo, int dstPageNo) {
+        if (srcPageNo < 0 || srcPageNo >= totalPages || dstPageNo < 0 || dstPageNo >= totalPages) {
+            throw new IndexOutOfBoundsException("Invalid page number: " + srcPageNo + " -> " + dstPageNo);
+        }
+        System.arraycopy(memory, srcPageNo * MemoryConstants.PAGE_SIZE,
+            memory, dstPageNo * MemoryConstants.PAGE_SIZE, MemoryConstants.PAGE_SIZE);
+    }
+
+    @Override
+    public synchronized int getFreePages() {
+        return freePages;
+    }
+
+    @Override
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * 获取某一阶的空闲块数
+     *
+     * @param order 阶
+     * @return 空闲块数
+     */
+    public synchronized int getFreeBlocks(int order) {
+        return order >= 0 && order <= MAX_ORDER ? freeCount[order] : 0;
+    }
+
+    /**
+     * 获取当前可分配的最高阶，没有空闲页返回 -1
+     */
+    public synchronized int getLargestFreeOrder() {
+        for (int order = MAX_ORDER; order >= 0; order--) {
+            if (freeCount[order] > 0) {
+                return order;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 计算指定阶的碎片率（不可用空闲空间占比，对应 Linux 的 unusable free space index）
+     *
+     * 空闲页中位于小于 2^order 页的块内的比例：0 表示空闲内存都能满足该阶分配，
+     * 接近 1 表示虽有空闲页但几乎都是碎片。
+     *
+     * @param order 阶
+     * @return 碎片率（0.0 ~ 1.0），没有空闲页时返回 0
+     */
+    @Override
+    public synchronized double getFragmentation(int order) {
+        if (freePages == 0) {
+            return 0.0;
+        }
+        long usable = 0;
+        for (int o = Math.max(order, 0); o <= MAX_ORDER; o++) {
+            usable += (long) freeCount[o] << o;
+        }
+        return (double) (freePages - usable) / freePages;
+    }
+
+    @Override
+    public void printStats() {
+        StringBuilder blocks = new StringBuilder();
+        int usedPages;
+        int largest;
+        double fragmentation;
+        synchronized (this) {
+            usedPages = totalPages - freePages;
+            for (int order = 0; order <= MAX_ORDER; order++) {
+                blocks.append(' ').append(freeCount[order]);
+            }
+            largest = getLargestFreeOrder();
+            fragmentation = getFragmentation(4);
+        }
+        int usedMB = (usedPages * MemoryConstants.PAGE_SIZE) / 1024 / 1024;
+        int freeMB = ((totalPages - usedPages) * MemoryConstants.PAGE_SIZE) / 1024 / 1024;
+
+        System.out.println("[MM] Memory (buddy): " + usedPages + "/" + totalPages + " pages used, " +
+            usedMB + "MB/" + freeMB + "MB free");
+        System.out.println("[MM] Free blocks by order 0-" + MAX_ORDER + ":" + blocks +
+            ", largest order " + largest +
+            String.format(", fragmentation(order 4) %.1f%%", fragmentation * 100));
+    }
+}
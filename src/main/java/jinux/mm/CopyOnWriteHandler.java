@@ -1,13 +1,12 @@
 package jinux.mm;
 
-import jinux.include.MemoryConstants;
-
 /**
  * 写时复制（Copy-On-Write）处理器
  * 
  * 专门负责处理 COW 页面的复制逻辑。当进程尝试写入共享页面时，
  * 如果页面被多个进程共享（引用计数 > 1），则复制页面；
  * 如果只有当前进程使用（引用计数 = 1），则直接修改。
+ * 共享零页上的写入只需分配一个新的（已清零的）页面，无需复制。
  * 
  * @author Jinux Project
  */
@@ -67,13 +66,10 @@ public class CopyOnWriteHandler {
             return -1; // 内存不足
         }
         
-        // 复制页面内容
-        long srcAddr = ((long) oldPpage) << MemoryConstants.PAGE_SHIFT;
-        long dstAddr = ((long) newPpage) << MemoryConstants.PAGE_SHIFT;
-        
-        byte[] tempBuf = new byte[MemoryConstants.PAGE_SIZE];
-        pm.readBytes(srcAddr, tempBuf, 0, MemoryConstants.PAGE_SIZE);
-        pm.writeBytes(dstAddr, tempBuf, 0, MemoryConstants.PAGE_SIZE);
+        // 复制页面内容（新页面已清零，源页面是共享零页时无需复制）
+        if (oldPpage != memoryManager.getZeroPage()) {
+            pm.copyPage(oldPpage, newPpage);
+        }
         
         // 减少旧页面的引用计数
         memoryManager.freePage(oldPpage);
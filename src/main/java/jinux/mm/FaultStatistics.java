@@ -0,0 +1,127 @@
+package jinux.mm;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缺页统计
+ * 对应 Linux 中的 min_flt / maj_flt 计数与 /proc/vmstat 的缺页统计
+ *
+ * 按 {@link FaultType} 分别记录缺页处理延迟的直方图，另记失败（非法访问）次数。
+ * 每个地址空间的统计可以有一个上级统计（内存管理器的全局统计），记录时同时累加到上级。
+ *
+ * @author Jinux Project
+ */
+public class FaultStatistics {
+
+    /** 各类型的延迟直方图 */
+    private final Map<FaultType, LatencyHistogram> histograms = new EnumMap<>(FaultType.class);
+
+    /** 失败次数 */
+    private final LongAdder failures = new LongAdder();
+
+    /** 上级统计（null 表示没有） */
+    private final FaultStatistics parent;
+
+    /**
+     * 构造没有上级的统计
+     */
+    public FaultStatistics() {
+        this(null);
+    }
+
+    /**
+     * 构造统计
+     *
+     * @param parent 上级统计，记录时同时累加，null 表示没有
+     */
+    public FaultStatistics(FaultStatistics parent) {
+        this.parent = parent;
+        for (FaultType type : FaultType.values()) {
+            histograms.put(type, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * 记录一次已处理的缺页
+     *
+     * @param type 缺页类型
+     * @param nanos 处理耗时（纳秒）
+     */
+    public void record(FaultType type, long nanos) {
+        histograms.get(type).record(nanos);
+        if (parent != null) {
+            parent.record(type, nanos);
+        }
+    }
+
+    /**
+     * 记录一次处理失败的缺页（非法地址、权限错误或内存不足）
+     */
+    public void recordFailure() {
+        failures.increment();
+        if (parent != null) {
+            parent.recordFailure();
+        }
+    }
+
+    /**
+     * 获取某类缺页的延迟直方图
+     */
+    public LatencyHistogram getHistogram(FaultType type) {
+        return histograms.get(type);
+    }
+
+    /**
+     * 获取某类缺页的次数
+     */
+    public long getCount(FaultType type) {
+        return histograms.get(type).getCount();
+    }
+
+    /**
+     * 次缺页次数（不需要 I/O，含写时复制，与 Linux 的 min_flt 一致）
+     */
+    public long getMinorFaults() {
+        long sum = 0;
+        for (FaultType type : FaultType.values()) {
+            if (!type.isMajor()) {
+                sum += getCount(type);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 主缺页次数（需要从交换设备读回）
+     */
+    public long getMajorFaults() {
+        long sum = 0;
+        for (FaultType type : FaultType.values()) {
+            if (type.isMajor()) {
+                sum += getCount(type);
+            }
+        }
+        return sum;
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 打印各类缺页的次数与延迟分布（跳过没有发生过的类型）
+     *
+     * @param prefix 每行的前缀
+     */
+    public void printStats(String prefix) {
+        for (FaultType type : FaultType.values()) {
+            LatencyHistogram histogram = histograms.get(type);
+            if (histogram.getCount() > 0) {
+                System.out.println(prefix + String.format("%-13s ", type) + histogram);
+            }
+        }
+        System.out.println(prefix + "failures=" + getFailures());
+    }
+}
@@ -0,0 +1,35 @@
+package jinux.mm;
+
+/**
+ * 缺页类型
+ * 对应 Linux 中 handle_pte_fault 的各个分支（do_anonymous_page / do_fault / do_wp_page / do_swap_page）
+ *
+ * @author Jinux Project
+ */
+public enum FaultType {
+
+    /** 匿名区域的读缺页：映射共享零页 */
+    ZERO_PAGE,
+
+    /** 匿名区域的写缺页：分配一个清零的私有页 */
+    ZERO_FILL,
+
+    /** 写入 COW 页：复制（或独占时直接恢复写权限） */
+    COPY_ON_WRITE,
+
+    /** 已换出的页：从交换设备读回（主缺页） */
+    SWAP_IN,
+
+    /** 文件区域：映射页缓存中的页 */
+    FILE,
+
+    /** 大页区域：整块映射 4MB 大页 */
+    HUGE_PAGE;
+
+    /**
+     * 是否为需要 I/O 的主缺页
+     */
+    public boolean isMajor() {
+        return this == SWAP_IN;
+    }
+}
@@ -0,0 +1,23 @@
+package jinux.mm;
+
+/**
+ * 大页使用策略
+ * 对应 Linux 中 /sys/kernel/mm/transparent_hugepage/enabled
+ *
+ * 决定哪些匿名区域（堆、匿名映射）在缺页时尝试整块映射大页。
+ * 只有完全落在区域内、按大页对齐且尚无任何映射的 4MB 范围才会使用大页，
+ * 分配不到连续物理内存（如非伙伴系统的物理内存实现）时退回普通页。
+ *
+ * @author Jinux Project
+ */
+public enum HugePagePolicy {
+
+    /** 从不使用大页 */
+    NEVER,
+
+    /** 所有匿名区域都尝试使用大页（小区域自然不满足对齐条件） */
+    ALWAYS,
+
+    /** 只有通过 {@link AddressSpace#adviseHugePages(long, boolean)} 标记的区域使用大页 */
+    MADVISE
+}
@@ -22,11 +22,51 @@ public interface IAddressSpace {
     /**
      * 扩展堆（brk 系统调用）
      *
-     * @param newBrk 新的堆结束地址
+     * @param newBrk 新的堆结束地址，0 表示仅查询当前 brk
      * @return 实际的堆结束地址
      */
     long expandBrk(long newBrk);
 
+    /**
+     * 处理缺页（请求调页）
+     *
+     * @param virtualAddress 发生缺页的虚拟地址
+     * @param write 是否为写访问
+     * @return 是否已建立映射（false 表示非法访问）
+     */
+    boolean handlePageFault(long virtualAddress, boolean write);
+
+    /**
+     * 建立匿名映射（页面按需分配）
+     *
+     * @param address 建议地址（页对齐），0 表示由内核选择
+     * @param length 长度
+     * @param flags 页面标志
+     * @return 映射起始地址，失败返回 -1
+     */
+    long mmapAnonymous(long address, long length, int flags);
+
+    /**
+     * 建立文件映射（页面按需从页缓存映射）
+     *
+     * @param address 建议地址（页对齐），0 表示由内核选择
+     * @param length 长度
+     * @param flags 页面标志，含 PAGE_RW 时为私有 COW 映射，否则为只读共享映射
+     * @param file 映射的文件
+     * @param filePageOffset 映射起始处对应的文件内页号
+     * @return 映射起始地址，失败返回 -1
+     */
+    long mmapFile(long address, long length, int flags, MappedFile file, long filePageOffset);
+
+    /**
+     * 解除映射并释放已调入的页面
+     *
+     * @param address 起始地址（页对齐）
+     * @param length 长度
+     * @return 是否成功
+     */
+    boolean munmap(long address, long length);
+
     /**
      * 读取虚拟地址的字节
      *
@@ -82,6 +122,13 @@ public interface IAddressSpace {
      */
     IPageTable getPageTable();
 
+    /**
+     * 获取内存使用快照（常驻页、共享页、换出页、缺页次数）
+     *
+     * @return 内存使用快照
+     */
+    MemoryUsage getMemoryUsage();
+
     // 段信息访问器
 
     long getCodeStart();
@@ -24,6 +24,22 @@ public interface IMemoryManager {
      */
     void freePage(int pageNo);
 
+    /**
+     * 分配 2^order 个物理连续的页面
+     *
+     * @param order 阶
+     * @return 首页页面号，失败返回 -1
+     */
+    int allocatePages(int order);
+
+    /**
+     * 释放连续页面
+     *
+     * @param pageNo 首页页面号
+     * @param order 阶
+     */
+    void freePages(int pageNo, int order);
+
     /**
      * 创建新的地址空间
      *
@@ -38,6 +54,55 @@ public interface IMemoryManager {
      */
     IPhysicalMemory getPhysicalMemory();
 
+    /**
+     * 获取共享零页：匿名区域的读缺页映射到此页，首次写入时经 COW 换成私有页
+     *
+     * @return 零页页面号，分配失败返回 -1
+     */
+    int getZeroPage();
+
+    /**
+     * 获取文件页缓存（文件映射共享的物理页）
+     *
+     * @return 页缓存
+     */
+    PageCache getPageCache();
+
+    /**
+     * 获取页面回收器（未启用交换时返回 null）
+     *
+     * @return 页面回收器
+     */
+    PageReclaimer getPageReclaimer();
+
+    /**
+     * 获取内存规整器（未启用规整时返回 null）
+     *
+     * @return 内存规整器
+     */
+    MemoryCompactor getMemoryCompactor();
+
+    /**
+     * 获取相同页合并器（未启用 KSM 时返回 null）
+     *
+     * @return 相同页合并器
+     */
+    SamePageMerger getSamePageMerger();
+
+    /**
+     * 获取全局缺页统计（各地址空间的缺页同时计入）
+     *
+     * @return 缺页统计
+     */
+    FaultStatistics getFaultStatistics();
+
+    /**
+     * 获取内核通用内存分配器（kmalloc）
+     *
+     * @return 内核分配器
+     */
+    KernelAllocator getKernelAllocator();
+
     /**
      * 打印内存统计信息
      */
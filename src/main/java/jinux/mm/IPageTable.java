@@ -1,5 +1,7 @@
 package jinux.mm;
 
+import jinux.include.MemoryConstants;
+
 /**
  * 页表接口
  * 
@@ -19,6 +21,45 @@ public interface IPageTable {
      */
     void map(int virtualPage, int physicalPage, int pageFlags);
 
+    /**
+     * 用一个大页表项映射 {@link MemoryConstants#HUGE_PAGE_PAGES} 个连续虚拟页到连续物理页
+     *
+     * 大页内的单个虚拟页仍可通过其他方法查询；对其中某一页调用 map/unmap/setFlags
+     * 时先把大页拆分为普通页表项。默认实现逐页映射（功能相同，但没有页表和 TLB 上的收益）。
+     *
+     * @param virtualPage 虚拟页号（按大页对齐）
+     * @param physicalPage 物理页号（按大页对齐，通常来自 {@link IPhysicalMemory#allocPages(int)}）
+     * @param pageFlags 页面标志
+     */
+    default void mapHuge(int virtualPage, int physicalPage, int pageFlags) {
+        int mask = MemoryConstants.HUGE_PAGE_PAGES - 1;
+        if ((virtualPage & mask) != 0 || (physicalPage & mask) != 0) {
+            throw new IllegalArgumentException("Huge page not aligned: " + virtualPage + " -> " + physicalPage);
+        }
+        for (int i = 0; i < MemoryConstants.HUGE_PAGE_PAGES; i++) {
+            map(virtualPage + i, physicalPage + i, pageFlags & ~PageTable.PAGE_HUGE);
+        }
+    }
+
+    /**
+     * 检查虚拟页是否由大页表项映射
+     *
+     * @param virtualPage 虚拟页号
+     * @return 是否位于大页内
+     */
+    default boolean isHugeMapped(int virtualPage) {
+        return false;
+    }
+
+    /**
+     * 获取大页表项数量
+     *
+     * @return 大页数
+     */
+    default int getHugeMappingCount() {
+        return 0;
+    }
+
     /**
      * 取消映射
      *
@@ -78,6 +119,13 @@ public interface IPageTable {
      */
     int getMappedPageCount();
 
+    /**
+     * 获取带 COW 标志的已映射页数（增量维护，O(1)；大页按其包含的普通页计）
+     *
+     * @return COW 页数
+     */
+    int getCowPageCount();
+
     /**
      * 获取页面标志
      *
@@ -88,9 +136,69 @@ public interface IPageTable {
 
     /**
      * 设置页面标志
+     * 表项中已设置的 ACCESSED / DIRTY 保留（可能在调用者 getFlags 之后被访问路径置位），
+     * 清除它们使用 {@link #testAndClearFlags}
      *
      * @param virtualPage 虚拟页号
      * @param pageFlags 页面标志
      */
     void setFlags(int virtualPage, int pageFlags);
+
+    /**
+     * 遍历所有已映射的虚拟页（代价与已映射页数成正比，而非地址空间大小）
+     * 大页按其包含的每个普通页分别回调（标志含 {@link PageTable#PAGE_HUGE}）
+     * 遍历期间持有页表锁，visitor 中不应修改本页表
+     *
+     * @param visitor 访问回调
+     */
+    void forEachMapping(MappingVisitor visitor);
+
+    /**
+     * 批量修改含有 clearFlags 中任一标志的已映射页：{@code flags = (flags & ~clearFlags) | setFlags}
+     * （用于 fork 时把所有可写页标记为写时复制，只读页保持只读）
+     *
+     * @param clearFlags 要清除的标志
+     * @param setFlags 要设置的标志
+     */
+    void updateAllFlags(int clearFlags, int setFlags);
+
+    /**
+     * 记录一次访问：设置 ACCESSED，写访问同时设置 DIRTY（对应 MMU 遍历页表时置位 A/D）
+     * 在内存访问的快速路径上调用，标志已设置时应只读不写，未映射时忽略
+     *
+     * @param virtualPage 虚拟页号
+     * @param write 是否为写访问
+     */
+    void markAccessed(int virtualPage, boolean write);
+
+    /**
+     * 测试并清除单个页的标志（对应 ptep_test_and_clear_young）
+     *
+     * @param virtualPage 虚拟页号
+     * @param clearFlags 要清除的标志（通常是 ACCESSED 和/或 DIRTY）
+     * @return 清除前 clearFlags 中被设置的位，未映射返回 0
+     */
+    int testAndClearFlags(int virtualPage, int clearFlags);
+
+    /**
+     * 扫描并清除：对含有 clearFlags 中任一标志的已映射页回调（传入清除前的标志），然后清除这些标志
+     * （用于 LRU 老化、工作集估计和增量快照）。大页按其包含的每个普通页分别回调
+     *
+     * @param clearFlags 要清除的标志
+     * @param visitor 访问回调，不应修改本页表
+     */
+    void scanAndClearFlags(int clearFlags, MappingVisitor visitor);
+
+    /**
+     * 页表项访问回调
+     */
+    @FunctionalInterface
+    interface MappingVisitor {
+        /**
+         * @param virtualPage 虚拟页号
+         * @param physicalPage 物理页号
+         * @param pageFlags 页面标志
+         */
+        void visit(int virtualPage, int physicalPage, int pageFlags);
+    }
 }
@@ -24,6 +24,54 @@ public interface IPhysicalMemory {
      */
     void freePage(int pageNo);
 
+    /**
+     * 分配 2^order 个物理连续的页面
+     *
+     * 默认实现只支持 order 0，支持连续分配的实现（如 {@link BuddyPhysicalMemory}）应覆盖此方法。
+     *
+     * @param order 阶
+     * @return 首页页面号，失败或不支持返回 -1
+     */
+    default int allocPages(int order) {
+        return order == 0 ? allocPage() : -1;
+    }
+
+    /**
+     * 释放 {@link #allocPages(int)} 分配的连续页面（每页各释放一次引用）
+     *
+     * @param pageNo 首页页面号
+     * @param order 阶
+     */
+    default void freePages(int pageNo, int order) {
+        for (int i = 0; i < (1 << order); i++) {
+            freePage(pageNo + i);
+        }
+    }
+
+    /**
+     * 分配指定的空闲页面（内存规整用它隔离待腾空块中的空闲页），页面内容不清零
+     *
+     * 默认实现不支持，支持连续分配的实现（如 {@link BuddyPhysicalMemory}）应覆盖此方法。
+     *
+     * @param pageNo 页面号
+     * @return 是否成功，页面不空闲或不支持时返回 false
+     */
+    default boolean allocPageAt(int pageNo) {
+        return false;
+    }
+
+    /**
+     * 计算指定阶的外部碎片率：空闲页中无法满足 2^order 页连续分配的比例
+     *
+     * 默认实现不支持连续分配，也就没有外部碎片，返回 0。
+     *
+     * @param order 阶
+     * @return 碎片率（0.0 ~ 1.0）
+     */
+    default double getFragmentation(int order) {
+        return 0.0;
+    }
+
     /**
      * 增加页面引用计数（用于 COW）
      *
@@ -75,6 +123,14 @@ public interface IPhysicalMemory {
      */
     void writeBytes(long physicalAddress, byte[] buffer, int offset, int length);
 
+    /**
+     * 整页复制（用于写时复制），直接在物理内存内部拷贝，不经过临时缓冲区
+     *
+     * @param srcPageNo 源页面号
+     * @param dstPageNo 目标页面号
+     */
+    void copyPage(int srcPageNo, int dstPageNo);
+
     /**
      * 获取空闲页面数
      *
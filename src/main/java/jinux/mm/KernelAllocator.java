@@ -0,0 +1,354 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内核通用内存分配器
+ * 对应 Linux 中的 kmalloc / kfree（通用缓存 kmalloc-32 ~ kmalloc-2048）
+ *
+ * 内核对象直接从模拟的物理内存中切分，而不是放在 Java 堆上，
+ * 这样内核内存占用会体现在空闲页统计中，并和用户页一起参与内存压力：
+ * <ul>
+ *   <li>不超过 {@link #MAX_SLAB_OBJECT} 字节的请求向上取整到 2 的幂大小类，
+ *       每个大小类由若干个 slab 页组成，每页切成等长对象，用位图记录空闲对象</li>
+ *   <li>更大的请求直接分配 2^order 个连续页（超过一页时需要物理内存实现支持
+ *       {@link IPhysicalMemory#allocPages(int)}，如伙伴系统）</li>
+ * </ul>
+ * 分配结果是物理地址，通过 {@link IPhysicalMemory#readBytes} / {@link IPhysicalMemory#writeBytes} 访问。
+ * slab 页和大块页都经由 {@link IMemoryManager#allocatePage()} 分配，内存不足时会先触发页面回收。
+ *
+ * @author Jinux Project
+ */
+public class KernelAllocator {
+
+    /** 最小对象大小 */
+    public static final int MIN_OBJECT = 32;
+
+    /** slab 管理的最大对象大小，更大的请求按页分配 */
+    public static final int MAX_SLAB_OBJECT = MemoryConstants.PAGE_SIZE / 2;
+
+    /** 最小大小类的阶（2^5 = 32） */
+    private static final int MIN_SHIFT = 5;
+
+    /** 大小类数量（32、64 ... 2048） */
+    private static final int NR_CLASSES = Integer.numberOfTrailingZeros(MAX_SLAB_OBJECT) - MIN_SHIFT + 1;
+
+    /** 页内偏移掩码 */
+    private static final long PAGE_MASK = MemoryConstants.PAGE_SIZE - 1;
+
+    /** 内存管理器（页面来源） */
+    private final IMemoryManager memoryManager;
+
+    /** 各大小类 */
+    private final SizeClass[] classes = new SizeClass[NR_CLASSES];
+
+    /** slab 页号 -> slab */
+    private final Map<Integer, Slab> slabs = new HashMap<>();
+
+    /** 大块首页页号 -> 阶 */
+    private final Map<Integer, Integer> largeBlocks = new HashMap<>();
+
+    /** 已分配的大块页数 */
+    private int largePages;
+
+    /** 成功分配次数 */
+    private long allocs;
+
+    /** 释放次数 */
+    private long frees;
+
+    /** 分配失败次数 */
+    private long failures;
+
+    /**
+     * 构造内核分配器
+     *
+     * @param memoryManager 内存管理器
+     */
+    public KernelAllocator(IMemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+        for (int i = 0; i < NR_CLASSES; i++) {
+            classes[i] = new SizeClass(1 << (MIN_SHIFT + i));
+        }
+    }
+
+    /**
+     * 分配内核内存（内容未初始化）
+     *
+     * @param size 字节数
+     * @return 物理地址，失败返回 -1
+     */
+    public synchronized long kmalloc(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid kmalloc size: " + size);
+        }
+        long addr = size > MAX_SLAB_OBJECT ? allocLarge(size) : classes[classIndex(size)].alloc();
+        if (addr < 0) {
+            failures++;
+        } else {
+            allocs++;
+        }
+        return addr;
+    }
+
+    /**
+     * 分配内核内存并清零（对应 kzalloc）
+     *
+     * @param size 字节数
+     * @return 物理地址，失败返回 -1
+     */
+    public long kzalloc(int size) {
+        long addr = kmalloc(size);
+        if (addr >= 0) {
+            IPhysicalMemory pm = getPhysicalMemory();
+            byte[] zeros = new byte[Math.min(size, MemoryConstants.PAGE_SIZE)];
+            for (int done = 0; done < size; done += zeros.length) {
+                pm.writeBytes(addr + done, zeros, 0, Math.min(zeros.length, size - done));
+            }
+        }
+        return addr;
+    }
+
+    /**
+     * 释放 {@link #kmalloc} 分配的内存
+     *
+     * @param addr 物理地址
+     * @throws IllegalArgumentException 地址不是尚未释放的分配结果
+     */
+    public synchronized void kfree(long addr) {
+        int pageNo = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+        Slab slab = addr >= 0 ? slabs.get(pageNo) : null;
+        if (slab != null) {
+            slab.owner.free(slab, addr);
+        } else if (addr >= 0 && (addr & PAGE_MASK) == 0 && largeBlocks.containsKey(pageNo)) {
+            int order = largeBlocks.remove(pageNo);
+            largePages -= 1 << order;
+            memoryManager.freePages(pageNo, order);
+        } else {
+            throw new IllegalArgumentException("kfree: invalid address 0x" + Long.toHexString(addr));
+        }
+        frees++;
+    }
+
+    /**
+     * 获取分配的实际可用大小（对应 ksize）
+     *
+     * @param addr 物理地址
+     * @return 可用字节数，地址无效返回 0
+     */
+    public synchronized int ksize(long addr) {
+        int pageNo = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+        Slab slab = slabs.get(pageNo);
+        if (slab != null) {
+            return slab.owner.objectSize;
+        }
+        Integer order = largeBlocks.get(pageNo);
+        return order != null ? MemoryConstants.PAGE_SIZE << order : 0;
+    }
+
+    /**
+     * 获取分配结果所在的物理内存
+     */
+    public IPhysicalMemory getPhysicalMemory() {
+        return memoryManager.getPhysicalMemory();
+    }
+
+    /**
+     * 获取内核分配器占用的物理页数（slab 页与大块页）
+     */
+    public synchronized int getPageCount() {
+        return slabs.size() + largePages;
+    }
+
+    /**
+     * 获取已分配给调用者的字节数（按大小类取整后的大小）
+     */
+    public synchronized long getAllocatedBytes() {
+        long bytes = (long) largePages * MemoryConstants.PAGE_SIZE;
+        for (SizeClass sc : classes) {
+            bytes += (long) sc.inUse * sc.objectSize;
+        }
+        return bytes;
+    }
+
+    public synchronized long getAllocCount() {
+        return allocs;
+    }
+
+    public synchronized long getFreeCount() {
+        return frees;
+    }
+
+    public synchronized long getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * 打印各大小类统计（对应 /proc/slabinfo 中的 kmalloc-* 行）
+     *
+     * @param prefix 每行前缀
+     */
+    public synchronized void printStats(String prefix) {
+        System.out.println(prefix + this);
+        for (SizeClass sc : classes) {
+            if (sc.slabCount > 0) {
+                System.out.println(String.format("%s  kmalloc-%-5d objs=%d/%d, slabs=%d",
+                    prefix, sc.objectSize, sc.inUse, sc.slabCount * sc.objectsPerSlab, sc.slabCount));
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("kmalloc[pages=%d, allocated=%dKB, large=%d pages, allocs=%d, frees=%d, failures=%d]",
+            getPageCount(), getAllocatedBytes() / 1024, largePages, allocs, frees, failures);
+    }
+
+    /**
+     * 按页分配大块内存
+     */
+    private long allocLarge(int size) {
+        int pages = (size + MemoryConstants.PAGE_SIZE - 1) >> MemoryConstants.PAGE_SHIFT;
+        int order = 32 - Integer.numberOfLeadingZeros(pages - 1);
+        int pageNo = order == 0 ? memoryManager.allocatePage() : memoryManager.allocatePages(order);
+        if (pageNo < 0) {
+            return -1;
+        }
+        largeBlocks.put(pageNo, order);
+        largePages += 1 << order;
+        return (long) pageNo << MemoryConstants.PAGE_SHIFT;
+    }
+
+    /**
+     * 请求大小对应的大小类下标
+     */
+    private static int classIndex(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, MIN_OBJECT) - 1);
+        return shift - MIN_SHIFT;
+    }
+
+    /**
+     * 大小类（对应一个 kmalloc-N 缓存）
+     */
+    private final class SizeClass {
+
+        /** 对象大小 */
+        final int objectSize;
+
+        /** 每个 slab 页的对象数 */
+        final int objectsPerSlab;
+
+        /** 还有空闲对象的 slab */
+        final List<Slab> partial = new ArrayList<>();
+
+        /** slab 页数 */
+        int slabCount;
+
+        /** 已分配对象数 */
+        int inUse;
+
+        SizeClass(int objectSize) {
+            this.objectSize = objectSize;
+            this.objectsPerSlab = MemoryConstants.PAGE_SIZE / objectSize;
+        }
+
+        long alloc() {
+            Slab slab = partial.isEmpty() ? grow() : partial.get(partial.size() - 1);
+            if (slab == null) {
+                return -1;
+            }
+            int index = slab.allocObject();
+            if (slab.inUse == objectsPerSlab) {
+                partial.remove(partial.size() - 1);
+            }
+            inUse++;
+            return ((long) slab.pageNo << MemoryConstants.PAGE_SHIFT) + (long) index * objectSize;
+        }
+
+        void free(Slab slab, long addr) {
+            long offset = addr & PAGE_MASK;
+            int index = (int) (offset / objectSize);
+            if (offset % objectSize != 0 || !slab.isAllocated(index)) {
+                throw new IllegalArgumentException("kfree: invalid address 0x" + Long.toHexString(addr));
+            }
+            boolean wasFull = slab.inUse == objectsPerSlab;
+            slab.freeObject(index);
+            inUse--;
+            if (wasFull) {
+                partial.add(slab);
+            }
+            // 保留最后一个空 slab，避免在边界上反复分配、释放页面
+            if (slab.inUse == 0 && partial.size() > 1) {
+                partial.remove(slab);
+                slabs.remove(slab.pageNo);
+                slabCount--;
+                memoryManager.freePage(slab.pageNo);
+            }
+        }
+
+        /**
+         * 分配一个新的 slab 页
+         */
+        private Slab grow() {
+            int pageNo = memoryManager.allocatePage();
+            if (pageNo < 0) {
+                return null;
+            }
+            Slab slab = new Slab(this, pageNo);
+            slabs.put(pageNo, slab);
+            partial.add(slab);
+            slabCount++;
+            return slab;
+        }
+    }
+
+    /**
+     * slab：一个物理页切成的等长对象
+     */
+    private static final class Slab {
+
+        /** 所属大小类 */
+        final SizeClass owner;
+
+        /** 物理页号 */
+        final int pageNo;
+
+        /** 已分配对象位图 */
+        final long[] used;
+
+        /** 已分配对象数 */
+        int inUse;
+
+        Slab(SizeClass owner, int pageNo) {
+            this.owner = owner;
+            this.pageNo = pageNo;
+            this.used = new long[(owner.objectsPerSlab + 63) / 64];
+        }
+
+        int allocObject() {
+            for (int w = 0; w < used.length; w++) {
+                if (used[w] != -1L) {
+                    int index = w * 64 + Long.numberOfTrailingZeros(~used[w]);
+                    used[w] |= 1L << index;
+                    inUse++;
+                    return index;
+                }
+            }
+            throw new IllegalStateException("Slab is full");
+        }
+
+        boolean isAllocated(int index) {
+            return (used[index >> 6] & (1L << index)) != 0;
+        }
+
+        void freeObject(int index) {
+            used[index >> 6] &= ~(1L << index);
+            inUse--;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package jinux.mm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图
+ *
+ * 按 2 的幂划分桶：第 i 个桶记录 [2^(i-1), 2^i) 纳秒的样本（第 0 个桶记录 0 纳秒），
+ * 记录一次样本只做几次原子加法，可以在缺页等热路径上并发使用。
+ * 百分位数返回所在桶的上界，精度为 2 倍以内。
+ *
+ * @author Jinux Project
+ */
+public class LatencyHistogram {
+
+    /** 桶数（覆盖 long 的全部取值范围） */
+    private static final int BUCKETS = 64;
+
+    /** 各桶样本数 */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /** 样本数 */
+    private final LongAdder count = new LongAdder();
+
+    /** 延迟总和（纳秒） */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** 最大延迟（纳秒） */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 记录一个样本
+     *
+     * @param nanos 延迟（纳秒），负值按 0 记录
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * 平均延迟（纳秒），没有样本时返回 0
+     */
+    public long getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : getTotalNanos() / n;
+    }
+
+    /**
+     * 估算百分位延迟
+     *
+     * @param percentile 百分位（0 ~ 100）
+     * @return 该百分位样本所在桶的上界（纳秒），没有样本时返回 0
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(bucketUpperBound(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * 获取某个桶的样本数
+     *
+     * @param bucket 桶号（0 ~ 63）
+     */
+    public long getBucketCount(int bucket) {
+        return bucket >= 0 && bucket < BUCKETS ? buckets.get(bucket) : 0;
+    }
+
+    /**
+     * 桶的上界（纳秒，包含）
+     */
+    private static long bucketUpperBound(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1fus, p50<=%.1fus, p99<=%.1fus, max=%.1fus",
+            getCount(), getMeanNanos() / 1000.0, getPercentileNanos(50) / 1000.0,
+            getPercentileNanos(99) / 1000.0, getMaxNanos() / 1000.0);
+    }
+}
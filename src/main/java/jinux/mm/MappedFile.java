@@ -0,0 +1,26 @@
+package jinux.mm;
+
+/**
+ * 可映射到地址空间的文件
+ * 对应 Linux 中 vm_area_struct 的 vm_file
+ *
+ * 文件映射区域发生缺页时，由此接口提供文件页对应的物理页（通常来自 {@link PageCache}），
+ * 同一文件页在所有映射它的进程之间共享同一个物理页。
+ *
+ * @author Jinux Project
+ */
+public interface MappedFile {
+
+    /**
+     * 获取文件第 pageIndex 页对应的物理页，并为调用者增加一次引用
+     *
+     * @param pageIndex 文件内页号
+     * @return 物理页号，超出文件末尾或内存不足返回 -1
+     */
+    int getPage(int pageIndex);
+
+    /**
+     * 获取文件名称（用于调试）
+     */
+    String getName();
+}
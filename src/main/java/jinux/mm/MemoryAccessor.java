@@ -7,6 +7,10 @@ import jinux.include.MemoryConstants;
  * 
  * 提供对虚拟地址空间的读写操作。负责将虚拟地址翻译为物理地址，
  * 并通过物理内存进行实际的字节读写操作。
+ * 可选的 {@link SoftwareTlb} 缓存最近的翻译结果，避免每次访问都查页表；
+ * 可选的 {@link PageFaultHandler} 在页面不存在、或写入不可写（如 COW）的页时建立映射，
+ * 与 MMU 触发缺页异常相同：访问器只负责发现缺页，如何处理由处理器决定。
+ * 每次访问都会在页表中记录 ACCESSED（写访问同时记录 DIRTY），使用 TLB 时只在填充和首次写入时记录。
  * 
  * @author Jinux Project
  */
@@ -18,15 +22,98 @@ public class MemoryAccessor {
     /** 物理内存引用 */
     private final IPhysicalMemory physicalMemory;
     
+    /** 软件 TLB（null 表示不使用） */
+    private final SoftwareTlb tlb;
+    
+    /** 缺页处理器（null 表示缺页直接抛出异常） */
+    private final PageFaultHandler faultHandler;
+    
     /**
-     * 构造内存访问器
+     * 构造不带 TLB 的内存访问器
      * 
      * @param pageTable 页表
      * @param physicalMemory 物理内存
      */
     public MemoryAccessor(IPageTable pageTable, IPhysicalMemory physicalMemory) {
+        this(pageTable, physicalMemory, null);
+    }
+    
+    /**
+     * 构造内存访问器
+     * 
+     * @param pageTable 页表（修改页表时必须使 tlb 失效，见 {@link TlbPageTable}）
+     * @param physicalMemory 物理内存
+     * @param tlb 软件 TLB，null 表示每次都查页表
+     */
+    public MemoryAccessor(IPageTable pageTable, IPhysicalMemory physicalMemory, SoftwareTlb tlb) {
+        this(pageTable, physicalMemory, tlb, null);
+    }
+    
+    /**
+     * 构造带缺页处理的内存访问器
+     * 
+     * @param pageTable 页表（修改页表时必须使 tlb 失效，见 {@link TlbPageTable}）
+     * @param physicalMemory 物理内存
+     * @param tlb 软件 TLB，null 表示每次都查页表
+     * @param faultHandler 缺页处理器，null 表示缺页直接抛出异常
+     */
+    public MemoryAccessor(IPageTable pageTable, IPhysicalMemory physicalMemory, SoftwareTlb tlb,
+                          PageFaultHandler faultHandler) {
         this.pageTable = pageTable;
         this.physicalMemory = physicalMemory;
+        this.tlb = tlb;
+        this.faultHandler = faultHandler;
+    }
+    
+    /**
+     * 虚拟地址转物理地址并记录 A/D 标志，优先查 TLB
+     * 写访问检查写权限：TLB 命中时使用表项缓存的 RW 位，只有未命中或不使用 TLB 时查页表
+     * 
+     * @param vaddr 虚拟地址
+     * @param write 是否为写访问
+     * @return 物理地址，未映射或写访问不可写的页返回 -1
+     */
+    private long translate(long vaddr, boolean write) {
+        if (tlb != null) {
+            return tlb.translate(vaddr, pageTable, write);
+        }
+        int vpage = (int) (vaddr >> MemoryConstants.PAGE_SHIFT);
+        if (write && !pageTable.checkPermission(vpage, PageTable.PAGE_RW)) {
+            return -1;
+        }
+        long paddr = pageTable.translate(vaddr);
+        if (paddr >= 0) {
+            pageTable.markAccessed(vpage, write);
+        }
+        return paddr;
+    }
+    
+    /**
+     * 翻译虚拟地址，页面不存在（写访问时还包括不可写）时交给缺页处理器后重试一次
+     * 
+     * @param vaddr 虚拟地址
+     * @param write 是否为写访问
+     * @return 物理地址
+     * @throws AddressSpace.PageFaultException 如果页面不存在且无法调入，或写入无法解除写保护
+     */
+    private long resolve(long vaddr, boolean write) {
+        long paddr = translate(vaddr, write);
+        if (paddr < 0 && faultHandler != null && faultHandler.handlePageFault(vaddr, write)) {
+            paddr = translate(vaddr, write);
+        }
+        if (paddr < 0) {
+            throw pageFault(vaddr);
+        }
+        return paddr;
+    }
+    
+    /**
+     * 构造无法处理的缺页异常，区分页面不存在和写只读页
+     */
+    private AddressSpace.PageFaultException pageFault(long vaddr) {
+        int vpage = (int) (vaddr >> MemoryConstants.PAGE_SHIFT);
+        String reason = pageTable.isMapped(vpage) ? "Page is read-only" : "Page not present";
+        return new AddressSpace.PageFaultException(reason + " at vaddr: 0x" + Long.toHexString(vaddr));
     }
     
     /**
@@ -37,11 +124,7 @@ public class MemoryAccessor {
      * @throws AddressSpace.PageFaultException 如果页面不存在
      */
     public byte readByte(long vaddr) {
-        long paddr = pageTable.translate(vaddr);
-        if (paddr < 0) {
-            throw new AddressSpace.PageFaultException("Page not present at vaddr: 0x" + Long.toHexString(vaddr));
-        }
-        
+        long paddr = resolve(vaddr, false);
         return physicalMemory.readByte(paddr);
     }
     
@@ -53,11 +136,7 @@ public class MemoryAccessor {
      * @throws AddressSpace.PageFaultException 如果页面不存在
      */
     public void writeByte(long vaddr, byte value) {
-        long paddr = pageTable.translate(vaddr);
-        if (paddr < 0) {
-            throw new AddressSpace.PageFaultException("Page not present at vaddr: 0x" + Long.toHexString(vaddr));
-        }
-        
+        long paddr = resolve(vaddr, true);
         physicalMemory.writeByte(paddr, value);
     }
     
@@ -81,10 +160,7 @@ public class MemoryAccessor {
             int pageOffset = (int) (currentVaddr & (MemoryConstants.PAGE_SIZE - 1));
             int chunkSize = Math.min(remaining, MemoryConstants.PAGE_SIZE - pageOffset);
             
-            long paddr = pageTable.translate(currentVaddr);
-            if (paddr < 0) {
-                throw new AddressSpace.PageFaultException("Page not present at vaddr: 0x" + Long.toHexString(currentVaddr));
-            }
+            long paddr = resolve(currentVaddr, false);
             
             physicalMemory.readBytes(paddr, buf, currentOffset, chunkSize);
             
@@ -113,10 +189,7 @@ public class MemoryAccessor {
             int pageOffset = (int) (currentVaddr & (MemoryConstants.PAGE_SIZE - 1));
             int chunkSize = Math.min(remaining, MemoryConstants.PAGE_SIZE - pageOffset);
             
-            long paddr = pageTable.translate(currentVaddr);
-            if (paddr < 0) {
-                throw new AddressSpace.PageFaultException("Page not present at vaddr: 0x" + Long.toHexString(currentVaddr));
-            }
+            long paddr = resolve(currentVaddr, true);
             
             physicalMemory.writeBytes(paddr, buf, currentOffset, chunkSize);
             
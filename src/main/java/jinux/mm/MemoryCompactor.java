@@ -0,0 +1,272 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存规整器
+ * 对应 Linux 中的 kcompactd 与 mm/compaction.c
+ *
+ * 长时间运行后空闲页分散在物理内存各处，即使空闲页总数足够，连续多页分配（大页、多页缓冲区）也会失败。
+ * 规整器把可迁移的用户页搬走，腾出按 2^order 对齐的连续空闲块：
+ * <ol>
+ *   <li>扫描所有已登记地址空间的页表，建立 物理页 -> (地址空间, 虚拟页) 的反向映射，
+ *       只有引用计数为 1 的普通页可迁移（共享页、零页、页缓存页、大页和内核页不可迁移）</li>
+ *   <li>在所有对齐块中选择已用页全部可迁移、且需迁移页数最少的块</li>
+ *   <li>先隔离块内的空闲页，再为每个已用页分配块外的新页，复制内容并改写页表项
+ *       （在地址空间锁内重新检查映射和引用计数）</li>
+ *   <li>最后一起释放块内所有页，由伙伴系统合并成一个完整的空闲块</li>
+ * </ol>
+ *
+ * 后台线程在碎片率超过阈值时规整；连续分配失败时 {@link MemoryManager#allocatePages} 直接规整，
+ * 此时只迁移调用者已持有锁的地址空间（与 {@link PageReclaimer} 相同，避免锁顺序死锁）。
+ * 需要物理内存实现支持 {@link IPhysicalMemory#allocPageAt}（如 {@link BuddyPhysicalMemory}）。
+ *
+ * @author Jinux Project
+ */
+public class MemoryCompactor extends AbstractMmDaemon {
+
+    /** 默认碎片率阈值（对应 extfrag_threshold = 500） */
+    public static final double DEFAULT_THRESHOLD = 0.5;
+
+    /** 后台线程的轮询间隔（毫秒） */
+    private static final long POLL_INTERVAL_MS = 500;
+
+    /** 后台规整的目标阶 */
+    private final int targetOrder;
+
+    /** 碎片率阈值：目标阶的碎片率超过此值时后台线程开始规整 */
+    private final double threshold;
+
+    /** 规整次数 */
+    private final LongAdder attempts = new LongAdder();
+
+    /** 成功腾出连续块的次数 */
+    private final LongAdder successes = new LongAdder();
+
+    /** 迁移的页数 */
+    private final LongAdder migrated = new LongAdder();
+
+    /** 迁移失败的页数（映射在规整期间发生变化） */
+    private final LongAdder migrateFailures = new LongAdder();
+
+    /**
+     * 构造内存规整器，后台规整大页大小的块，碎片率阈值 50%
+     *
+     * @param memoryManager 内存管理器
+     */
+    public MemoryCompactor(IMemoryManager memoryManager) {
+        this(memoryManager, MemoryConstants.HUGE_PAGE_ORDER, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 构造内存规整器
+     *
+     * @param memoryManager 内存管理器
+     * @param targetOrder 后台规整的目标阶
+     * @param threshold 碎片率阈值（0.0 ~ 1.0）
+     */
+    public MemoryCompactor(IMemoryManager memoryManager, int targetOrder, double threshold) {
+        super(memoryManager, "kcompactd", POLL_INTERVAL_MS);
+        this.targetOrder = targetOrder;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 是否需要规整：空闲页足够一个 2^order 块，但碎片率超过阈值
+     *
+     * @param order 阶
+     */
+    public boolean needsCompaction(int order) {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        return pm.getFreePages() >= (1 << order) && pm.getFragmentation(order) > threshold;
+    }
+
+    /**
+     * 规整出一个 2^order 页的连续空闲块
+     *
+     * @param order 阶
+     * @return 是否腾出了连续块
+     */
+    public boolean compact(int order) {
+        return compact(order, false);
+    }
+
+    /**
+     * 为连续分配失败的调用者规整（只迁移调用者已持有锁的地址空间）
+     *
+     * @param order 阶
+     * @return 是否腾出了连续块
+     */
+    public boolean compactForAllocation(int order) {
+        boolean done = compact(order, true);
+        if (!done) {
+            wakeUp();
+        }
+        return done;
+    }
+
+    /**
+     * 规整
+     *
+     * @param order 阶
+     * @param heldOnly 是否只迁移当前线程已持有锁的地址空间
+     * @return 是否腾出了连续块
+     */
+    private boolean compact(int order, boolean heldOnly) {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        int blockPages = 1 << order;
+        if (pm.getFreePages() < blockPages) {
+            return false;
+        }
+        attempts.increment();
+
+        List<AddressSpace> spaces = snapshotAddressSpaces();
+        if (heldOnly) {
+            spaces.removeIf(space -> !Thread.holdsLock(space));
+        }
+
+        // 反向映射：可迁移的物理页 -> 地址空间与虚拟页
+        Map<Integer, Mapping> movable = new HashMap<>();
+        for (AddressSpace space : spaces) {
+            space.forEachMovablePage((vpage, ppage, flags) -> movable.put(ppage, new Mapping(space, vpage)));
+        }
+
+        int block = selectBlock(pm, blockPages, movable);
+        if (block < 0) {
+            return false;
+        }
+
+        // 隔离块内的空闲页，避免迁移目标落回块内
+        Set<Integer> isolated = new HashSet<>();
+        boolean ok = true;
+        for (int page = block; page < block + blockPages && ok; page++) {
+            if (isolated.contains(page)) {
+                continue;
+            }
+            if (pm.getPageRefCount(page) == 0 && pm.allocPageAt(page)) {
+                isolated.add(page);
+                continue;
+            }
+            Mapping mapping = movable.get(page);
+            ok = mapping != null && migrate(pm, mapping, page, block, blockPages, isolated);
+        }
+
+        // 释放块内所有页（原空闲页与已迁走的旧页），由伙伴系统合并
+        for (int page : isolated) {
+            pm.freePage(page);
+        }
+        if (ok) {
+            successes.increment();
+        }
+        return ok;
+    }
+
+    /**
+     * 选择已用页全部可迁移、需迁移页数最少的对齐块
+     *
+     * @return 块首页页号，没有可腾空的块返回 -1
+     */
+    private int selectBlock(IPhysicalMemory pm, int blockPages, Map<Integer, Mapping> movable) {
+        int best = -1;
+        int bestUsed = Integer.MAX_VALUE;
+        int totalPages = pm.getTotalPages();
+        for (int block = 0; block + blockPages <= totalPages; block += blockPages) {
+            int used = 0;
+            for (int page = block; page < block + blockPages && used < bestUsed; page++) {
+                if (pm.getPageRefCount(page) == 0) {
+                    continue;
+                }
+                if (!movable.containsKey(page)) {
+                    used = Integer.MAX_VALUE;
+                    break;
+                }
+                used++;
+            }
+            if (used < bestUsed) {
+                best = block;
+                bestUsed = used;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 把块内的一个已用页迁移到块外，成功后旧页加入隔离列表
+     */
+    private boolean migrate(IPhysicalMemory pm, Mapping mapping, int page,
+                            int block, int blockPages, Set<Integer> isolated) {
+        int target;
+        while ((target = pm.allocPage()) >= block && target < block + blockPages) {
+            // 规整期间块内又有页面被释放，同样隔离
+            isolated.add(target);
+        }
+        if (target < 0) {
+            return false;
+        }
+        if (!mapping.space.migratePage(mapping.vpage, page, target)) {
+            pm.freePage(target);
+            migrateFailures.increment();
+            return false;
+        }
+        isolated.add(page);
+        migrated.increment();
+        return true;
+    }
+
+    @Override
+    protected void runOnce() {
+        if (needsCompaction(targetOrder)) {
+            compact(targetOrder);
+        }
+    }
+
+    public int getTargetOrder() {
+        return targetOrder;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    public long getMigratedPages() {
+        return migrated.sum();
+    }
+
+    public long getMigrateFailures() {
+        return migrateFailures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Compaction[order=%d, threshold=%.0f%%, attempts=%d, succeeded=%d, migrated=%d, failed=%d]",
+            targetOrder, threshold * 100, getAttempts(), getSuccesses(), getMigratedPages(), getMigrateFailures());
+    }
+
+    /**
+     * 反向映射项
+     */
+    private static final class Mapping {
+        final AddressSpace space;
+        final int vpage;
+
+        Mapping(AddressSpace space, int vpage) {
+            this.space = space;
+            this.vpage = vpage;
+        }
+    }
+}
@@ -5,28 +5,77 @@ package jinux.mm;
  * 对应 Linux 0.01 中的 mm/memory.c
  * 
  * 协调物理内存分配、虚拟地址空间管理等
+ * 物理内存实现通过 {@link IPhysicalMemory} 注入，可在默认的 {@link PhysicalMemory}
+ * 、可扩展的 {@link PerCpuPhysicalMemory} 与支持连续分配的 {@link BuddyPhysicalMemory} 之间选择。
  * 
  * @author Jinux Project
  */
 public class MemoryManager implements IMemoryManager {
     
     /** 物理内存管理器 */
-    private final PhysicalMemory physicalMemory;
+    private final IPhysicalMemory physicalMemory;
+    
+    /** 文件页缓存 */
+    private final PageCache pageCache;
+    
+    /** 内核通用内存分配器 */
+    private final KernelAllocator kernelAllocator;
+    
+    /** 共享零页（由内存管理器永久持有一个引用），-1 表示尚未分配 */
+    private int zeroPage = -1;
+    
+    /** 新建地址空间是否启用请求调页 */
+    private volatile boolean demandPaging;
+    
+    /** 页面回收器（null 表示未启用交换） */
+    private volatile PageReclaimer pageReclaimer;
+    
+    /** 内存规整器（null 表示未启用规整） */
+    private volatile MemoryCompactor memoryCompactor;
+    
+    /** 相同页合并器（null 表示未启用 KSM） */
+    private volatile SamePageMerger samePageMerger;
+    
+    /** 全局缺页统计 */
+    private final FaultStatistics faultStatistics = new FaultStatistics();
+    
+    /** 新建地址空间的大页使用策略 */
+    private volatile HugePagePolicy hugePagePolicy = HugePagePolicy.NEVER;
     
     /**
-     * 构造内存管理器
+     * 使用默认物理内存实现构造内存管理器
      */
     public MemoryManager() {
-        this.physicalMemory = new PhysicalMemory();
+        this(new PhysicalMemory());
+    }
+    
+    /**
+     * 使用指定物理内存实现构造内存管理器
+     * 
+     * @param physicalMemory 物理内存管理器
+     */
+    public MemoryManager(IPhysicalMemory physicalMemory) {
+        this.physicalMemory = physicalMemory;
+        this.pageCache = new PageCache(this);
+        this.kernelAllocator = new KernelAllocator(this);
     }
     
     /**
-     * 分配一个物理页面
+     * 分配一个物理页面，内存不足时先回收页缓存中未被映射的页面，
+     * 启用交换时再换出冷页，然后重试
      * 
      * @return 页面号，失败返回 -1
      */
     public int allocatePage() {
-        return physicalMemory.allocPage();
+        int pageNo = physicalMemory.allocPage();
+        if (pageNo < 0 && pageCache.shrink() > 0) {
+            pageNo = physicalMemory.allocPage();
+        }
+        PageReclaimer reclaimer = pageReclaimer;
+        if (pageNo < 0 && reclaimer != null && reclaimer.reclaimForAllocation()) {
+            pageNo = physicalMemory.allocPage();
+        }
+        return pageNo;
     }
     
     /**
@@ -38,6 +87,37 @@ public class MemoryManager implements IMemoryManager {
         physicalMemory.freePage(pageNo);
     }
     
+    /**
+     * 分配 2^order 个物理连续的页面，失败时回收页缓存后重试一次，
+     * 启用规整时再直接规整出连续块后重试
+     * 
+     * @param order 阶
+     * @return 首页页面号，失败返回 -1
+     */
+    @Override
+    public int allocatePages(int order) {
+        int pageNo = physicalMemory.allocPages(order);
+        if (pageNo < 0 && pageCache.shrink() > 0) {
+            pageNo = physicalMemory.allocPages(order);
+        }
+        MemoryCompactor compactor = memoryCompactor;
+        if (pageNo < 0 && order > 0 && compactor != null && compactor.compactForAllocation(order)) {
+            pageNo = physicalMemory.allocPages(order);
+        }
+        return pageNo;
+    }
+    
+    /**
+     * 释放连续页面
+     * 
+     * @param pageNo 首页页面号
+     * @param order 阶
+     */
+    @Override
+    public void freePages(int pageNo, int order) {
+        physicalMemory.freePages(pageNo, order);
+    }
+    
     /**
      * 创建新的地址空间
      * 
@@ -45,7 +125,117 @@ public class MemoryManager implements IMemoryManager {
      */
     @Override
     public IAddressSpace createAddressSpace() {
-        return new AddressSpace(this);
+        AddressSpace addressSpace = new AddressSpace(this);
+        addressSpace.setDemandPaging(demandPaging);
+        addressSpace.setHugePagePolicy(hugePagePolicy);
+        return addressSpace;
+    }
+    
+    /**
+     * 设置之后创建的地址空间是否启用请求调页（堆和栈页面在首次访问时分配）
+     * 
+     * @param demandPaging 是否启用
+     */
+    public void setDemandPaging(boolean demandPaging) {
+        this.demandPaging = demandPaging;
+    }
+    
+    public boolean isDemandPaging() {
+        return demandPaging;
+    }
+    
+    /**
+     * 设置之后创建的地址空间的大页使用策略
+     * 
+     * @param hugePagePolicy 策略
+     */
+    public void setHugePagePolicy(HugePagePolicy hugePagePolicy) {
+        this.hugePagePolicy = hugePagePolicy;
+    }
+    
+    public HugePagePolicy getHugePagePolicy() {
+        return hugePagePolicy;
+    }
+    
+    /**
+     * 获取共享零页，首次调用时分配
+     */
+    @Override
+    public synchronized int getZeroPage() {
+        if (zeroPage < 0) {
+            zeroPage = physicalMemory.allocPage();
+        }
+        return zeroPage;
+    }
+    
+    /**
+     * 启用交换：之后创建的地址空间登记到页面回收器，内存不足时冷页被换出到交换设备
+     * 后台回收线程需另行调用 {@link PageReclaimer#start()} 启动
+     * 
+     * @param swapDevice 交换设备
+     * @return 页面回收器
+     */
+    public PageReclaimer enableSwap(SwapDevice swapDevice) {
+        PageReclaimer reclaimer = new PageReclaimer(this, swapDevice);
+        this.pageReclaimer = reclaimer;
+        return reclaimer;
+    }
+    
+    /**
+     * 启用内存规整：之后创建的地址空间登记到规整器，连续分配失败时直接规整后重试
+     * 后台规整线程需另行调用 {@link MemoryCompactor#start()} 启动
+     * 
+     * @return 内存规整器
+     */
+    public MemoryCompactor enableCompaction() {
+        MemoryCompactor compactor = new MemoryCompactor(this);
+        this.memoryCompactor = compactor;
+        return compactor;
+    }
+    
+    @Override
+    public MemoryCompactor getMemoryCompactor() {
+        return memoryCompactor;
+    }
+    
+    /**
+     * 启用相同页合并（KSM）：之后创建的地址空间登记到合并器
+     * 后台扫描线程需另行调用 {@link SamePageMerger#start()} 启动，也可以直接调用 {@link SamePageMerger#scan()}
+     * 
+     * @return 相同页合并器
+     */
+    public SamePageMerger enableKsm() {
+        SamePageMerger merger = new SamePageMerger(this);
+        this.samePageMerger = merger;
+        return merger;
+    }
+    
+    @Override
+    public SamePageMerger getSamePageMerger() {
+        return samePageMerger;
+    }
+    
+    @Override
+    public PageReclaimer getPageReclaimer() {
+        return pageReclaimer;
+    }
+    
+    @Override
+    public FaultStatistics getFaultStatistics() {
+        return faultStatistics;
+    }
+    
+    @Override
+    public KernelAllocator getKernelAllocator() {
+        return kernelAllocator;
+    }
+    
+    /**
+     * 获取文件页缓存
+     */
+    @Override
+    public PageCache getPageCache() {
+        return pageCache;
     }
     
     /**
@@ -61,5 +251,23 @@ public class MemoryManager implements IMemoryManager {
      */
     public void printStats() {
         physicalMemory.printStats();
+        System.out.println("[MM] " + pageCache);
+        PageReclaimer reclaimer = pageReclaimer;
+        if (reclaimer != null) {
+            System.out.println("[MM] " + reclaimer);
+        }
+        MemoryCompactor compactor = memoryCompactor;
+        if (compactor != null) {
+            System.out.println("[MM] " + compactor);
+        }
+        SamePageMerger merger = samePageMerger;
+        if (merger != null) {
+            System.out.println("[MM] " + merger);
+        }
+        System.out.println("[MM] Page faults:");
+        faultStatistics.printStats("[MM]   ");
+        kernelAllocator.printStats("[MM] ");
+        System.out.println("[MM] Slab caches:");
+        ObjectCache.printSlabInfo("[MM]   ");
     }
 }
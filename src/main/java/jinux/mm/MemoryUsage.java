@@ -0,0 +1,99 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+/**
+ * 地址空间的内存使用快照
+ * 对应 Linux 中的 mm_rss_stat 与 task_struct 的 min_flt / maj_flt（/proc/[pid]/statm、stat）
+ *
+ * 所有计数都由地址空间和页表在映射、取消映射、缺页时增量维护，
+ * 获取快照是 O(1) 的，不扫描页表。
+ *
+ * @author Jinux Project
+ */
+public final class MemoryUsage {
+
+    /** 空快照（没有地址空间的任务） */
+    public static final MemoryUsage EMPTY = new MemoryUsage(0, 0, 0, 0, 0, 0);
+
+    /** 常驻页数（已映射的虚拟页，RSS） */
+    private final int residentPages;
+
+    /** 以 COW 方式共享的页数（fork 后的页、可写区域中的零页和页缓存页） */
+    private final int sharedPages;
+
+    /** 已换出的页数 */
+    private final int swappedPages;
+
+    /** 次缺页次数（无需 I/O：零页、新分配页、页缓存页、大页、写时复制） */
+    private final long minorFaults;
+
+    /** 主缺页次数（需要从交换设备读回） */
+    private final long majorFaults;
+
+    /** 写时复制次数（已计入次缺页） */
+    private final long cowFaults;
+
+    public MemoryUsage(int residentPages, int sharedPages, int swappedPages,
+                       long minorFaults, long majorFaults, long cowFaults) {
+        this.residentPages = residentPages;
+        this.sharedPages = sharedPages;
+        this.swappedPages = swappedPages;
+        this.minorFaults = minorFaults;
+        this.majorFaults = majorFaults;
+        this.cowFaults = cowFaults;
+    }
+
+    public int getResidentPages() {
+        return residentPages;
+    }
+
+    public int getSharedPages() {
+        return sharedPages;
+    }
+
+    /**
+     * 私有页数（常驻页中未共享的部分）
+     */
+    public int getPrivatePages() {
+        return residentPages - sharedPages;
+    }
+
+    public int getSwappedPages() {
+        return swappedPages;
+    }
+
+    public long getMinorFaults() {
+        return minorFaults;
+    }
+
+    public long getMajorFaults() {
+        return majorFaults;
+    }
+
+    public long getCowFaults() {
+        return cowFaults;
+    }
+
+    public long getResidentKB() {
+        return toKB(residentPages);
+    }
+
+    public long getSharedKB() {
+        return toKB(sharedPages);
+    }
+
+    public long getSwappedKB() {
+        return toKB(swappedPages);
+    }
+
+    private static long toKB(int pages) {
+        return (long) pages * MemoryConstants.PAGE_SIZE / 1024;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rss=%dKB, shared=%dKB, swap=%dKB, minflt=%d, majflt=%d, cowflt=%d",
+            getResidentKB(), getSharedKB(), getSwappedKB(), minorFaults, majorFaults, cowFaults);
+    }
+}
@@ -0,0 +1,265 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 堆外物理内存管理器
+ *
+ * 用若干块 direct ByteBuffer（每块 1GB）模拟物理内存，使模拟内存可以超过
+ * Java 数组 2GB 的上限，并且不占用 Java 堆、不参与 GC 扫描。
+ * 内存大小在启动时通过 {@code mem=} 参数指定（见 {@link jinux.boot.BootParams}）。
+ *
+ * 页面分配仍使用空闲链表 + 引用计数（与 {@link PhysicalMemory} 相同）；
+ * 字节读写不加锁：调用者只访问自己持有的页面，批量读写在同一块内是一次内存拷贝。
+ *
+ * @author Jinux Project
+ */
+public class OffHeapPhysicalMemory implements IPhysicalMemory {
+
+    /** 每块 direct buffer 的大小位移（1GB） */
+    private static final int CHUNK_SHIFT = 30;
+
+    /** 每块 direct buffer 的大小 */
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+
+    /** 块内偏移掩码 */
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** 用于清零页面的全零页 */
+    private static final byte[] ZERO_PAGE = new byte[MemoryConstants.PAGE_SIZE];
+
+    /** 物理内存数据块 */
+    private final ByteBuffer[] chunks;
+
+    /** 物理内存总大小（字节） */
+    private final long memorySize;
+
+    /** 页面引用计数：0 表示空闲 */
+    private final int[] pageRefCount;
+
+    /** 总页面数 */
+    private final int totalPages;
+
+    /** 空闲页面数 */
+    private int freePages;
+
+    /** 空闲页面链表头（-1 表示无空闲页）*/
+    private int freeListHead;
+
+    /** 空闲页面链表的 next 指针数组 */
+    private final int[] freeListNext;
+
+    /**
+     * 使用默认大小（{@link MemoryConstants#MEMORY_SIZE}）构造堆外物理内存
+     */
+    public OffHeapPhysicalMemory() {
+        this(MemoryConstants.MEMORY_SIZE);
+    }
+
+    /**
+     * 构造堆外物理内存
+     *
+     * @param memorySize 物理内存大小（字节），向下对齐到页边界
+     */
+    public OffHeapPhysicalMemory(long memorySize) {
+        long alignedSize = memorySize & ~((long) MemoryConstants.PAGE_SIZE - 1);
+        long pages = alignedSize >> MemoryConstants.PAGE_SHIFT;
+        if (alignedSize <= MemoryConstants.KERNEL_MEMORY || pages > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid physical memory size: " + memorySize);
+        }
+
+        this.memorySize = alignedSize;
+        this.totalPages = (int) pages;
+        this.pageRefCount = new int[totalPages];
+        this.freeListNext = new int[totalPages];
+
+        int chunkCount = (int) ((alignedSize + CHUNK_SIZE - 1) >> CHUNK_SHIFT);
+        this.chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long size = Math.min(CHUNK_SIZE, alignedSize - ((long) i << CHUNK_SHIFT));
+            chunks[i] = ByteBuffer.allocateDirect((int) size);
+        }
+
+        // 初始化：低端 1MB（内核占用）标记为已使用
+        int kernelPages = MemoryConstants.KERNEL_MEMORY / MemoryConstants.PAGE_SIZE;
+        for (int i = 0; i < kernelPages; i++) {
+            pageRefCount[i] = 1;
+            freeListNext[i] = -1;
+        }
+
+        // 构建空闲页面链表（从 kernelPages 开始）
+        this.freeListHead = kernelPages;
+        for (int i = kernelPages; i < totalPages; i++) {
+            freeListNext[i] = (i + 1 < totalPages) ? i + 1 : -1;
+        }
+
+        this.freePages = totalPages - kernelPages;
+
+        System.out.println("[MM] Off-heap physical memory initialized: " +
+            (alignedSize / 1024 / 1024) + "MB, " + freePages + " pages free");
+    }
+
+    /**
+     * 分配一个物理页面（O(1) 复杂度，使用空闲链表）
+     *
+     * @return 页面号，如果失败返回 -1
+     */
+    @Override
+    public int allocPage() {
+        int pageNo;
+        synchronized (this) {
+            if (freeListHead < 0) {
+                System.err.println("[MM] ERROR: Out of memory! No free pages.");
+                return -1;
+            }
+
+            pageNo = freeListHead;
+            freeListHead = freeListNext[pageNo];
+            freeListNext[pageNo] = -1;
+            pageRefCount[pageNo] = 1;
+            freePages--;
+        }
+
+        // 清零页面内容（页面已归调用者所有，在锁外进行）
+        writeBytes(((long) pageNo) << MemoryConstants.PAGE_SHIFT, ZERO_PAGE, 0, ZERO_PAGE.length);
+        return pageNo;
+    }
+
+    /**
+     * 释放一个物理页面
+     *
+     * @param pageNo 页面号
+     */
+    @Override
+    public synchronized void freePage(int pageNo) {
+        if (pageNo < 0 || pageNo >= totalPages) {
+            System.err.println("[MM] ERROR: Invalid page number: " + pageNo);
+            return;
+        }
+
+        if (pageRefCount[pageNo] <= 0) {
+            System.err.println("[MM] WARNING: Freeing already free page: " + pageNo);
+            return;
+        }
+
+        // 只有当引用计数为 0 时才真正释放，归还到空闲链表
+        if (--pageRefCount[pageNo] == 0) {
+            freeListNext[pageNo] = freeListHead;
+            freeListHead = pageNo;
+            freePages++;
+        }
+    }
+
+    @Override
+    public synchronized void incrementPageRef(int pageNo) {
+        if (pageNo >= 0 && pageNo < totalPages && pageRefCount[pageNo] > 0) {
+            pageRefCount[pageNo]++;
+        }
+    }
+
+    @Override
+    public synchronized int getPageRefCount(int pageNo) {
+        if (pageNo >= 0 && pageNo < totalPages) {
+            return pageRefCount[pageNo];
+        }
+        return 0;
+    }
+
+    @Override
+    public byte readByte(long paddr) {
+        if (paddr < 0 || paddr >= memorySize) {
+            throw new IndexOutOfBoundsException("Physical address out of range: 0x" +
+                Long.toHexString(paddr));
+        }
+        return chunks[(int) (paddr >>> CHUNK_SHIFT)].get((int) (paddr & CHUNK_MASK));
+    }
+
+    @Override
+    public void writeByte(long paddr, byte value) {
+        if (paddr < 0 || paddr >= memorySize) {
+            throw new IndexOutOfBoundsException("Physical address out of range: 0x" +
+                Long.toHexString(paddr));
+        }
+        chunks[(int) (paddr >>> CHUNK_SHIFT)].put((int) (paddr & CHUNK_MASK), value);
+    }
+
+    /**
+     * 读取多个字节，范围跨越数据块边界时拆分为多次拷贝
+     */
+    @Override
+    public void readBytes(long paddr, byte[] buf, int offset, int len) {
+        if (paddr < 0 || paddr + len > memorySize) {
+            throw new IndexOutOfBoundsException("Physical address range out of bounds");
+        }
+        while (len > 0) {
+            int chunkOffset = (int) (paddr & CHUNK_MASK);
+            int n = (int) Math.min(len, CHUNK_SIZE - chunkOffset);
+            chunks[(int) (paddr >>> CHUNK_SHIFT)].get(chunkOffset, buf, offset, n);
+            paddr += n;
+            offset += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 写入多个字节，范围跨越数据块边界时拆分为多次拷贝
+     */
+    @Override
+    public void writeBytes(long paddr, byte[] buf, int offset, int len) {
+        if (paddr < 0 || paddr + len > memorySize) {
+            throw new IndexOutOfBoundsException("Physical address range out of bounds");
+        }
+        while (len > 0) {
+            int chunkOffset = (int) (paddr & CHUNK_MASK);
+            int n = (int) Math.min(len, CHUNK_SIZE - chunkOffset);
+            chunks[(int) (paddr >>> CHUNK_SHIFT)].put(chunkOffset, buf, offset, n);
+            paddr += n;
+            offset += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 整页复制：页面不会跨越 chunk，直接在两个 ByteBuffer 之间做一次绝对位置拷贝
+     */
+    @Override
+    public void copyPage(int srcPageNo, int dstPageNo) {
+        if (srcPageNo < 0 || srcPageNo >= totalPages || dstPageNo < 0 || dstPageNo >= totalPages) {
+            throw new IndexOutOfBoundsException("Invalid page number: " + srcPageNo + " -> " + dstPageNo);
+        }
+        long src = ((long) srcPageNo) << MemoryConstants.PAGE_SHIFT;
+        long dst = ((long) dstPageNo) << MemoryConstants.PAGE_SHIFT;
+        chunks[(int) (dst >>> CHUNK_SHIFT)].put((int) (dst & CHUNK_MASK),
+            chunks[(int) (src >>> CHUNK_SHIFT)], (int) (src & CHUNK_MASK), MemoryConstants.PAGE_SIZE);
+    }
+
+    @Override
+    public synchronized int getFreePages() {
+        return freePages;
+    }
+
+    @Override
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * 获取物理内存总大小（字节）
+     */
+    public long getMemorySize() {
+        return memorySize;
+    }
+
+    @Override
+    public void printStats() {
+        int free = getFreePages();
+        int usedPages = totalPages - free;
+        long usedMB = ((long) usedPages * MemoryConstants.PAGE_SIZE) / 1024 / 1024;
+        long freeMB = ((long) free * MemoryConstants.PAGE_SIZE) / 1024 / 1024;
+
+        System.out.println("[MM] Memory (off-heap): " + usedPages + "/" + totalPages + " pages used, " +
+            usedMB + "MB/" + freeMB + "MB free");
+    }
+}
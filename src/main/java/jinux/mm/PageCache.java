@@ -0,0 +1,184 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 页缓存
+ * 对应 Linux 中的 page cache（address_space 的页树）
+ *
+ * 以（文件标识，文件内页号）为键缓存文件内容所在的物理页。缓存自身持有每页的一个引用，
+ * 文件映射缺页时直接映射缓存页并增加引用，不再经过内核缓冲区和用户空间拷贝。
+ * 每个缓存页记录填充时的文件数据版本，文件被写入后版本变化，旧页在下次访问时被替换。
+ *
+ * @author Jinux Project
+ */
+public class PageCache {
+
+    /**
+     * 页面填充回调：把文件第 pageIndex 页的内容写入已清零的物理页
+     */
+    @FunctionalInterface
+    public interface PageFiller {
+        /**
+         * @param physicalAddress 物理页起始地址
+         * @return 是否成功
+         */
+        boolean fill(long physicalAddress);
+    }
+
+    /** 内存管理器（分配和释放缓存页） */
+    private final IMemoryManager memoryManager;
+
+    /** 缓存页 */
+    private final Map<Key, Entry> pages = new HashMap<>();
+
+    /** 命中次数 */
+    private final LongAdder hits = new LongAdder();
+
+    /** 未命中次数（需要填充） */
+    private final LongAdder misses = new LongAdder();
+
+    public PageCache(IMemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+    }
+
+    /**
+     * 获取文件页对应的物理页，不存在或版本过期时分配并填充
+     *
+     * @param fileId 文件标识
+     * @param version 文件当前数据版本
+     * @param pageIndex 文件内页号
+     * @param filler 填充回调
+     * @return 物理页号（已为调用者增加一次引用），失败返回 -1
+     */
+    public synchronized int getPage(long fileId, long version, int pageIndex, PageFiller filler) {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        Key key = new Key(fileId, pageIndex);
+        Entry entry = pages.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            pm.incrementPageRef(entry.physicalPage);
+            return entry.physicalPage;
+        }
+        if (entry != null) {
+            // 文件已被修改，丢弃旧页（已映射它的进程继续持有旧内容）
+            pages.remove(key);
+            memoryManager.freePage(entry.physicalPage);
+        }
+
+        misses.increment();
+        int ppage = memoryManager.allocatePage();
+        if (ppage < 0) {
+            return -1;
+        }
+        if (!filler.fill((long) ppage << MemoryConstants.PAGE_SHIFT)) {
+            memoryManager.freePage(ppage);
+            return -1;
+        }
+        pages.put(key, new Entry(ppage, version));
+        pm.incrementPageRef(ppage);
+        return ppage;
+    }
+
+    /**
+     * 回收只被缓存引用的页面（内存不足时调用）
+     *
+     * @return 回收的页数
+     */
+    public synchronized int shrink() {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        int freed = 0;
+        Iterator<Entry> it = pages.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (pm.getPageRefCount(entry.physicalPage) == 1) {
+                it.remove();
+                memoryManager.freePage(entry.physicalPage);
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * 丢弃某个文件的全部缓存页
+     *
+     * @param fileId 文件标识
+     */
+    public synchronized void invalidate(long fileId) {
+        Iterator<Map.Entry<Key, Entry>> it = pages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().fileId == fileId) {
+                it.remove();
+                memoryManager.freePage(e.getValue().physicalPage);
+            }
+        }
+    }
+
+    /**
+     * 获取缓存页数
+     */
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCache[pages=%d, hits=%d, misses=%d]", size(), getHits(), getMisses());
+    }
+
+    /**
+     * 缓存键：文件标识 + 文件内页号
+     */
+    private static final class Key {
+        final long fileId;
+        final int pageIndex;
+
+        Key(long fileId, int pageIndex) {
+            this.fileId = fileId;
+            this.pageIndex = pageIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return fileId == other.fileId && pageIndex == other.pageIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileId, pageIndex);
+        }
+    }
+
+    /**
+     * 缓存项：物理页 + 填充时的文件数据版本
+     */
+    private static final class Entry {
+        final int physicalPage;
+        final long version;
+
+        Entry(int physicalPage, long version) {
+            this.physicalPage = physicalPage;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+/**
+ * 一次缺页的上下文
+ * 对应 Linux 中的 struct vm_fault
+ *
+ * 在 {@link PageFaultPipeline} 的各阶段之间传递：前面的阶段查到的区域记录在这里供后续阶段使用，
+ * 处理成功的阶段通过 {@link #resolve} 记录缺页类型，用于统计。
+ *
+ * @author Jinux Project
+ */
+public class PageFault {
+
+    /** 发生缺页的虚拟地址 */
+    private final long address;
+
+    /** 是否为写访问 */
+    private final boolean write;
+
+    /** 所在的虚拟内存区域（由查找区域的阶段填写） */
+    private VmArea vma;
+
+    /** 缺页类型（处理成功的阶段填写，null 表示无需处理） */
+    private FaultType type;
+
+    public PageFault(long address, boolean write) {
+        this.address = address;
+        this.write = write;
+    }
+
+    public long getAddress() {
+        return address;
+    }
+
+    /**
+     * 虚拟页号
+     */
+    public int getVirtualPage() {
+        return (int) (address >> MemoryConstants.PAGE_SHIFT);
+    }
+
+    public boolean isWrite() {
+        return write;
+    }
+
+    public VmArea getVma() {
+        return vma;
+    }
+
+    public void setVma(VmArea vma) {
+        this.vma = vma;
+    }
+
+    public FaultType getType() {
+        return type;
+    }
+
+    /**
+     * 记录缺页类型（阶段处理成功时调用）
+     *
+     * @param type 缺页类型
+     */
+    public void resolve(FaultType type) {
+        this.type = type;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageFault[0x%x, %s%s]", address, write ? "write" : "read",
+            type != null ? ", " + type : "");
+    }
+}
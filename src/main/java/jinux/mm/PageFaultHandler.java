@@ -0,0 +1,23 @@
+package jinux.mm;
+
+/**
+ * 缺页处理接口
+ * 对应 Linux 中的 do_page_fault()
+ *
+ * {@link MemoryAccessor} 翻译虚拟地址失败时回调此接口，
+ * 处理成功后重新翻译，而不是直接抛出 {@link AddressSpace.PageFaultException}。
+ *
+ * @author Jinux Project
+ */
+@FunctionalInterface
+public interface PageFaultHandler {
+
+    /**
+     * 处理缺页
+     *
+     * @param virtualAddress 发生缺页的虚拟地址
+     * @param write 是否为写访问
+     * @return 是否已建立映射（false 表示非法访问）
+     */
+    boolean handlePageFault(long virtualAddress, boolean write);
+}
@@ -0,0 +1,118 @@
+package jinux.mm;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 缺页处理流水线
+ * 对应 Linux 中的 handle_mm_fault → handle_pte_fault
+ *
+ * 缺页依次经过各个阶段（如换入、写时复制、查找区域、文件页、大页、零页、匿名页），
+ * 每个阶段要么处理完成，要么判定为非法访问，要么交给下一个阶段。
+ * 处理完成的缺页按阶段记录的 {@link FaultType} 把耗时计入 {@link FaultStatistics}。
+ * 新的缺页类型可以通过 {@link #addStage(int, Stage)} 插入到合适的位置，不需要修改已有阶段。
+ *
+ * 流水线本身不加锁，由调用者（{@link AddressSpace#handlePageFault}）保证同一地址空间的缺页串行处理。
+ *
+ * @author Jinux Project
+ */
+public class PageFaultPipeline implements PageFaultHandler {
+
+    /**
+     * 阶段处理结果
+     */
+    public enum Outcome {
+        /** 不属于本阶段，交给下一个阶段 */
+        CONTINUE,
+        /** 已建立映射（或映射已存在） */
+        HANDLED,
+        /** 非法访问或无法处理（如内存不足），停止处理 */
+        FAILED
+    }
+
+    /**
+     * 流水线阶段
+     */
+    @FunctionalInterface
+    public interface Stage {
+
+        /**
+         * 处理缺页
+         *
+         * @param fault 缺页上下文，处理成功时应调用 {@link PageFault#resolve}
+         * @return 处理结果
+         */
+        Outcome handle(PageFault fault);
+    }
+
+    /** 按顺序执行的阶段 */
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    /** 缺页统计 */
+    private final FaultStatistics statistics;
+
+    /**
+     * 构造空流水线
+     *
+     * @param statistics 缺页统计
+     */
+    public PageFaultPipeline(FaultStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * 在末尾添加阶段
+     *
+     * @param stage 阶段
+     * @return this，便于链式构造
+     */
+    public PageFaultPipeline addStage(Stage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * 在指定位置插入阶段
+     *
+     * @param index 位置（0 表示最先执行）
+     * @param stage 阶段
+     */
+    public void addStage(int index, Stage stage) {
+        stages.add(index, stage);
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    public FaultStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 依次执行各阶段处理缺页
+     *
+     * @param virtualAddress 发生缺页的虚拟地址
+     * @param write 是否为写访问
+     * @return 是否已建立映射
+     */
+    @Override
+    public boolean handlePageFault(long virtualAddress, boolean write) {
+        long start = System.nanoTime();
+        PageFault fault = new PageFault(virtualAddress, write);
+        for (Stage stage : stages) {
+            Outcome outcome = stage.handle(fault);
+            if (outcome == Outcome.HANDLED) {
+                if (fault.getType() != null) {
+                    statistics.record(fault.getType(), System.nanoTime() - start);
+                }
+                return true;
+            }
+            if (outcome == Outcome.FAILED) {
+                break;
+            }
+        }
+        statistics.recordFailure();
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package jinux.mm;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 页面回收器
+ * 对应 Linux 中的 kswapd 与 mm/vmscan.c
+ *
+ * 登记所有地址空间，按时钟（二次机会）算法把冷页换出到 {@link SwapDevice}：
+ * 依次轮询各地址空间，每个地址空间从上次停下的位置继续扫描已映射页，
+ * 带 ACCESSED 标志的页清除标志后跳过，没有 ACCESSED 的独占页被换出。
+ * 换出页在下次访问时由 {@link AddressSpace#handlePageFault} 透明地换入。
+ *
+ * 后台线程在空闲页低于低水位时回收到高水位；分配失败时先回收调用者已持有锁的地址空间
+ * （不获取其他地址空间的锁，避免锁顺序死锁），再唤醒后台线程并短暂等待。
+ *
+ * @author Jinux Project
+ */
+public class PageReclaimer extends AbstractMmDaemon {
+
+    /** 每次直接回收的页数（对应 SWAP_CLUSTER_MAX） */
+    public static final int SWAP_CLUSTER = 32;
+
+    /** 分配失败时等待后台回收的最长时间（毫秒） */
+    private static final long ALLOC_WAIT_MS = 50;
+
+    /** 后台线程的轮询间隔（毫秒） */
+    private static final long POLL_INTERVAL_MS = 100;
+
+    /** 交换设备 */
+    private final SwapDevice swapDevice;
+
+    /** 低水位：空闲页低于此值时后台线程开始回收 */
+    private final int lowWatermark;
+
+    /** 高水位：后台回收的目标空闲页数 */
+    private final int highWatermark;
+
+    /** 时钟指针：下次从第几个地址空间开始扫描 */
+    private int hand;
+
+    /** 累计回收页数 */
+    private final LongAdder reclaimed = new LongAdder();
+
+    /**
+     * 构造页面回收器，水位按物理内存大小的 1/32 和 1/16 设置
+     *
+     * @param memoryManager 内存管理器
+     * @param swapDevice 交换设备
+     */
+    public PageReclaimer(IMemoryManager memoryManager, SwapDevice swapDevice) {
+        this(memoryManager, swapDevice,
+            memoryManager.getPhysicalMemory().getTotalPages() / 32,
+            memoryManager.getPhysicalMemory().getTotalPages() / 16);
+    }
+
+    /**
+     * 构造页面回收器
+     *
+     * @param memoryManager 内存管理器
+     * @param swapDevice 交换设备
+     * @param lowWatermark 低水位（页）
+     * @param highWatermark 高水位（页）
+     */
+    public PageReclaimer(IMemoryManager memoryManager, SwapDevice swapDevice, int lowWatermark, int highWatermark) {
+        super(memoryManager, "kswapd", POLL_INTERVAL_MS);
+        this.swapDevice = swapDevice;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = Math.max(lowWatermark, highWatermark);
+    }
+
+    /**
+     * 回收页面：从时钟指针处轮询所有地址空间，直到换出 target 页或扫描两圈
+     * （第一圈清除的 ACCESSED 标志在第二圈生效）
+     *
+     * @param target 目标页数
+     * @return 实际换出的页数
+     */
+    public int reclaim(int target) {
+        return reclaim(target, false);
+    }
+
+    /**
+     * 为分配失败的调用者回收页面
+     *
+     * @return 是否已有空闲页可供重试
+     */
+    public boolean reclaimForAllocation() {
+        if (reclaim(SWAP_CLUSTER, true) > 0) {
+            return true;
+        }
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        synchronized (this) {
+            wakeUp();
+            long deadline = System.currentTimeMillis() + ALLOC_WAIT_MS;
+            long remaining;
+            while (isRunning() && pm.getFreePages() == 0
+                    && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return pm.getFreePages() > 0;
+    }
+
+    /**
+     * 回收页面
+     *
+     * @param target 目标页数
+     * @param heldOnly 是否只回收当前线程已持有锁的地址空间
+     * @return 实际换出的页数
+     */
+    private int reclaim(int target, boolean heldOnly) {
+        List<AddressSpace> spaces;
+        int start;
+        synchronized (this) {
+            spaces = snapshotAddressSpaces();
+            start = spaces.isEmpty() ? 0 : hand % spaces.size();
+        }
+        if (heldOnly) {
+            spaces.removeIf(space -> !Thread.holdsLock(space));
+        }
+
+        int count = 0;
+        int size = spaces.size();
+        for (int i = 0; i < 2 * size && count < target; i++) {
+            // 不能在持有本对象锁时获取地址空间锁（地址空间在持有自身锁时会调用 register）
+            AddressSpace space = spaces.get((start + i) % size);
+            count += space.reclaimPages(target - count, swapDevice);
+            if (!heldOnly) {
+                synchronized (this) {
+                    hand = start + i + 1;
+                }
+            }
+        }
+        reclaimed.add(count);
+        return count;
+    }
+
+    @Override
+    protected void runOnce() {
+        int free = memoryManager.getPhysicalMemory().getFreePages();
+        if (free < lowWatermark) {
+            reclaim(highWatermark - free);
+            // 唤醒等待后台回收的分配者
+            wakeUp();
+        }
+    }
+
+    public SwapDevice getSwapDevice() {
+        return swapDevice;
+    }
+
+    public long getReclaimedPages() {
+        return reclaimed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Reclaim[watermarks=%d/%d, reclaimed=%d, %s]",
+            lowWatermark, highWatermark, getReclaimedPages(), swapDevice);
+    }
+}
@@ -21,11 +21,17 @@ public class PageTable implements IPageTable {
     /** 页面权限标志（简化：每个虚拟页一个标志） */
     private final Map<Integer, Integer> flags;
     
+    /** 带 COW 标志的页数（随标志修改增量维护） */
+    private int cowCount;
+    
     // 页面标志位
     public static final int PAGE_PRESENT = 0x001;  // 页面存在
     public static final int PAGE_RW = 0x002;        // 可读写
     public static final int PAGE_USER = 0x004;      // 用户态可访问
     public static final int PAGE_COW = 0x008;        // 写时复制标记
+    public static final int PAGE_ACCESSED = 0x020;   // 已被访问（由 MemoryAccessor 设置，页面回收时清除）
+    public static final int PAGE_DIRTY = 0x040;      // 已被写入（由 MemoryAccessor 设置）
+    public static final int PAGE_HUGE = 0x080;       // 大页（页目录项直接映射 4MB，i386 PDE 的 PS 位）
     
     /**
      * 构造空页表
@@ -44,7 +50,7 @@ public class PageTable implements IPageTable {
      */
     public synchronized void map(int vpage, int ppage, int pageFlags) {
         mappings.put(vpage, ppage);
-        flags.put(vpage, pageFlags | PAGE_PRESENT);
+        updateFlags(vpage, pageFlags | PAGE_PRESENT);
     }
     
     /**
@@ -54,7 +60,7 @@ public class PageTable implements IPageTable {
      */
     public synchronized void unmap(int vpage) {
         mappings.remove(vpage);
-        flags.remove(vpage);
+        cowCount -= cow(flags.remove(vpage));
     }
     
     /**
@@ -121,6 +127,7 @@ public class PageTable implements IPageTable {
         PageTable newTable = new PageTable();
         newTable.mappings.putAll(this.mappings);
         newTable.flags.putAll(this.flags);
+        newTable.cowCount = cowCount;
         return newTable;
     }
     
@@ -130,6 +137,7 @@ public class PageTable implements IPageTable {
     public synchronized void clear() {
         mappings.clear();
         flags.clear();
+        cowCount = 0;
     }
     
     /**
@@ -139,6 +147,14 @@ public class PageTable implements IPageTable {
         return mappings.size();
     }
     
+    /**
+     * 获取带 COW 标志的页数
+     */
+    @Override
+    public synchronized int getCowPageCount() {
+        return cowCount;
+    }
+    
     /**
      * 获取页面标志
      * 
@@ -150,12 +166,103 @@ public class PageTable implements IPageTable {
     }
     
     /**
-     * 设置页面标志
+     * 设置页面标志（保留已设置的 ACCESSED / DIRTY）
      * 
      * @param vpage 虚拟页号
      * @param pageFlags 页面标志
      */
     public synchronized void setFlags(int vpage, int pageFlags) {
-        flags.put(vpage, pageFlags);
+        Integer old = flags.get(vpage);
+        int accessed = old != null ? old & (PAGE_ACCESSED | PAGE_DIRTY) : 0;
+        updateFlags(vpage, pageFlags | accessed);
+    }
+    
+    /**
+     * 记录一次访问
+     * 
+     * @param vpage 虚拟页号
+     * @param write 是否为写访问
+     */
+    @Override
+    public synchronized void markAccessed(int vpage, boolean write) {
+        int bits = write ? PAGE_ACCESSED | PAGE_DIRTY : PAGE_ACCESSED;
+        flags.computeIfPresent(vpage, (k, pageFlags) -> pageFlags | bits);
+    }
+    
+    /**
+     * 测试并清除单个页的标志
+     * 
+     * @param vpage 虚拟页号
+     * @param clearFlags 要清除的标志
+     * @return 清除前被设置的位
+     */
+    @Override
+    public synchronized int testAndClearFlags(int vpage, int clearFlags) {
+        Integer pageFlags = flags.get(vpage);
+        if (pageFlags == null) {
+            return 0;
+        }
+        updateFlags(vpage, pageFlags & ~clearFlags);
+        return pageFlags & clearFlags;
+    }
+    
+    /**
+     * 扫描并清除含有 clearFlags 中任一标志的已映射页
+     * 
+     * @param clearFlags 要清除的标志
+     * @param visitor 访问回调（传入清除前的标志）
+     */
+    @Override
+    public synchronized void scanAndClearFlags(int clearFlags, MappingVisitor visitor) {
+        for (Map.Entry<Integer, Integer> entry : flags.entrySet()) {
+            int pageFlags = entry.getValue();
+            if ((pageFlags & clearFlags) != 0) {
+                visitor.visit(entry.getKey(), mappings.get(entry.getKey()), pageFlags);
+                entry.setValue(pageFlags & ~clearFlags);
+                cowCount -= cow(pageFlags) - cow(pageFlags & ~clearFlags);
+            }
+        }
+    }
+    
+    /**
+     * 遍历所有已映射的虚拟页
+     * 
+     * @param visitor 访问回调
+     */
+    @Override
+    public synchronized void forEachMapping(MappingVisitor visitor) {
+        for (Map.Entry<Integer, Integer> entry : mappings.entrySet()) {
+            int vpage = entry.getKey();
+            visitor.visit(vpage, entry.getValue(), flags.get(vpage));
+        }
+    }
+    
+    /**
+     * 批量修改含有 clearFlags 中任一标志的已映射页的标志
+     * 
+     * @param clearFlags 要清除的标志
+     * @param setFlags 要设置的标志
+     */
+    @Override
+    public synchronized void updateAllFlags(int clearFlags, int setFlags) {
+        for (Map.Entry<Integer, Integer> entry : flags.entrySet()) {
+            int pageFlags = entry.getValue();
+            if ((pageFlags & clearFlags) != 0) {
+                int newFlags = (pageFlags & ~clearFlags) | setFlags;
+                entry.setValue(newFlags);
+                cowCount += cow(newFlags) - cow(pageFlags);
+            }
+        }
+    }
+    
+    /**
+     * 写入页面标志并维护 COW 页计数
+     */
+    private void updateFlags(int vpage, int pageFlags) {
+        cowCount += cow(pageFlags) - cow(flags.put(vpage, pageFlags));
+    }
+    
+    private static int cow(Integer pageFlags) {
+        return pageFlags != null && (pageFlags & PAGE_COW) != 0 ? 1 : 0;
     }
 }
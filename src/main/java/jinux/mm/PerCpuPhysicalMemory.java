@@ -0,0 +1,342 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分条（striped）物理内存管理器
+ * 对应 Linux 中的 per-CPU 页面缓存（per_cpu_pages / pcp 列表）
+ *
+ * 与 {@link PhysicalMemory} 的全局 synchronized 不同，这里：
+ * - 每个"CPU"（按线程 ID 映射到的分条）持有一个小的空闲页缓存（magazine），
+ *   分配和释放优先在本地缓存完成，只有缓存空/满时才成批访问全局空闲链表
+ * - 页面引用计数使用 AtomicIntegerArray，COW 的引用增减无需加锁
+ * - 字节读写不加锁，调用者只访问自己持有的页面
+ *
+ * @author Jinux Project
+ */
+public class PerCpuPhysicalMemory implements IPhysicalMemory {
+
+    /** 每个 CPU 缓存的容量（页数） */
+    private static final int MAGAZINE_SIZE = 64;
+
+    /** 与全局空闲链表之间一次批量搬运的页数 */
+    private static final int BATCH_SIZE = MAGAZINE_SIZE / 2;
+
+    /** 物理内存数据（模拟） */
+    private final byte[] memory;
+
+    /** 页面引用计数：0 表示空闲 */
+    private final AtomicIntegerArray pageRefCount;
+
+    /** 总页面数 */
+    private final int totalPages;
+
+    /** 空闲页面数（全局链表 + 各 CPU 缓存） */
+    private final LongAdder freePages;
+
+    /** 全局空闲链表的锁 */
+    private final Object globalLock;
+
+    /** 全局空闲链表头（-1 表示无空闲页），受 globalLock 保护 */
+    private int freeListHead;
+
+    /** 全局空闲链表的 next 指针数组，受 globalLock 保护 */
+    private final int[] freeListNext;
+
+    /** 各 CPU 的空闲页缓存 */
+    private final Magazine[] caches;
+
+    /** 分条掩码（分条数为 2 的幂） */
+    private final int cacheMask;
+
+    /**
+     * 按 CPU 数构造分条物理内存管理器
+     */
+    public PerCpuPhysicalMemory() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造分条物理内存管理器
+     *
+     * @param cpus 模拟的 CPU 数（向上取整到 2 的幂）
+     */
+    public PerCpuPhysicalMemory(int cpus) {
+        this.memory = new byte[MemoryConstants.MEMORY_SIZE];
+        this.totalPages = MemoryConstants.NR_PAGES;
+        this.pageRefCount = new AtomicIntegerArray(totalPages);
+        this.freeListNext = new int[totalPages];
+        this.globalLock = new Object();
+        this.freePages = new LongAdder();
+
+        // 初始化：低端 1MB（内核占用）标记为已使用
+        int kernelPages = MemoryConstants.KERNEL_MEMORY / MemoryConstants.PAGE_SIZE;
+        for (int i = 0; i < kernelPages; i++) {
+            pageRefCount.set(i, 1);
+            freeListNext[i] = -1;
+        }
+
+        // 构建全局空闲链表（从 kernelPages 开始）
+        this.freeListHead = kernelPages < totalPages ? kernelPages : -1;
+        for (int i = kernelPages; i < totalPages; i++) {
+            freeListNext[i] = (i + 1 < totalPages) ? i + 1 : -1;
+        }
+        freePages.add(totalPages - kernelPages);
+
+        int stripes = Integer.highestOneBit(Math.max(1, cpus) * 2 - 1);
+        this.caches = new Magazine[stripes];
+        for (int i = 0; i < stripes; i++) {
+            caches[i] = new Magazine();
+        }
+        this.cacheMask = stripes - 1;
+
+        System.out.println("[MM] Per-CPU physical memory initialized: " +
+            (MemoryConstants.MEMORY_SIZE / 1024 / 1024) + "MB, " +
+            getFreePages() + " pages free, " + stripes + " page caches");
+    }
+
+    /**
+     * 分配一个物理页面
+     * 优先从当前 CPU 的缓存取页，缓存为空时从全局链表批量补充
+     *
+     * @return 页面号，如果失败返回 -1
+     */
+    @Override
+    public int allocPage() {
+        Magazine cache = localCache();
+        int pageNo = -1;
+        synchronized (cache) {
+            if (cache.count == 0) {
+                refill(cache);
+            }
+            if (cache.count > 0) {
+                pageNo = cache.pages[--cache.count];
+            }
+        }
+        if (pageNo < 0) {
+            // 不持有本地缓存锁，避免两个 CPU 互相窃取时死锁
+            pageNo = stealFromOtherCaches(cache);
+        }
+        if (pageNo < 0) {
+            System.err.println("[MM] ERROR: Out of memory! No free pages.");
+            return -1;
+        }
+
+        pageRefCount.set(pageNo, 1);
+        freePages.decrement();
+
+        // 清零页面内容（页面已归调用者所有，无需加锁）
+        int offset = pageNo * MemoryConstants.PAGE_SIZE;
+        java.util.Arrays.fill(memory, offset, offset + MemoryConstants.PAGE_SIZE, (byte) 0);
+
+        return pageNo;
+    }
+
+    /**
+     * 释放一个物理页面（引用计数减一，归零时放回当前 CPU 的缓存）
+     *
+     * @param pageNo 页面号
+     */
+    @Override
+    public void freePage(int pageNo) {
+        if (pageNo < 0 || pageNo >= totalPages) {
+            System.err.println("[MM] ERROR: Invalid page number: " + pageNo);
+            return;
+        }
+
+        int refs;
+        do {
+            refs = pageRefCount.get(pageNo);
+            if (refs <= 0) {
+                System.err.println("[MM] WARNING: Freeing already free page: " + pageNo);
+                return;
+            }
+        } while (!pageRefCount.compareAndSet(pageNo, refs, refs - 1));
+
+        if (refs - 1 > 0) {
+            return;
+        }
+
+        Magazine cache = localCache();
+        synchronized (cache) {
+            if (cache.count == MAGAZINE_SIZE) {
+                drain(cache);
+            }
+            cache.pages[cache.count++] = pageNo;
+        }
+        freePages.increment();
+    }
+
+    /**
+     * 增加页面引用计数（用于COW），空闲页面忽略
+     *
+     * @param pageNo 页面号
+     */
+    @Override
+    public void incrementPageRef(int pageNo) {
+        if (pageNo < 0 || pageNo >= totalPages) {
+            return;
+        }
+        int refs;
+        do {
+            refs = pageRefCount.get(pageNo);
+            if (refs <= 0) {
+                return;
+            }
+        } while (!pageRefCount.compareAndSet(pageNo, refs, refs + 1));
+    }
+
+    /**
+     * 获取页面引用计数
+     *
+     * @param pageNo 页面号
+     * @return 引用计数
+     */
+    @Override
+    public int getPageRefCount(int pageNo) {
+        if (pageNo >= 0 && pageNo < totalPages) {
+            return pageRefCount.get(pageNo);
+        }
+        return 0;
+    }
+
+    @Override
+    public byte readByte(long paddr) {
+        if (paddr < 0 || paddr >= memory.length) {
+            throw new IndexOutOfBoundsException("Physical address out of range: 0x" +
+                Long.toHexString(paddr));
+        }
+        return memory[(int) paddr];
+    }
+
+    @Override
+    public void writeByte(long paddr, byte value) {
+        if (paddr < 0 || paddr >= memory.length) {
+            throw new IndexOutOfBoundsException("Physical address out of range: 0x" +
+                Long.toHexString(paddr));
+        }
+        memory[(int) paddr] = value;
+    }
+
+    @Override
+    public void readBytes(long paddr, byte[] buf, int offset, int len) {
+        if (paddr < 0 || paddr + len > memory.length) {
+            throw new IndexOutOfBoundsException("Physical address range out of bounds");
+        }
+        System.arraycopy(memory, (int) paddr, buf, offset, len);
+    }
+
+    @Override
+    public void writeBytes(long paddr, byte[] buf, int offset, int len) {
+        if (paddr < 0 || paddr + len > memory.length) {
+            throw new IndexOutOfBoundsException("Physical address range out of bounds");
+        }
+        System.arraycopy(buf, offset, memory, (int) paddr, len);
+    }
+
+    @Override
+    public void copyPage(int srcPageNo, int dstPageNo) {
+        if (srcPageNo < 0 || srcPageNo >= totalPages || dstPageNo < 0 || dstPageNo >= totalPages) {
+            throw new IndexOutOfBoundsException("Invalid page number: " + srcPageNo + " -> " + dstPageNo);
+        }
+        System.arraycopy(memory, srcPageNo * MemoryConstants.PAGE_SIZE,
+            memory, dstPageNo * MemoryConstants.PAGE_SIZE, MemoryConstants.PAGE_SIZE);
+    }
+
+    @Override
+    public int getFreePages() {
+        return freePages.intValue();
+    }
+
+    @Override
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * 打印内存使用统计（含各 CPU 缓存中的页数）
+     */
+    @Override
+    public void printStats() {
+        int free = getFreePages();
+        int usedPages = totalPages - free;
+        int usedMB = (usedPages * MemoryConstants.PAGE_SIZE) / 1024 / 1024;
+        int freeMB = (free * MemoryConstants.PAGE_SIZE) / 1024 / 1024;
+
+        int cached = 0;
+        for (Magazine cache : caches) {
+            synchronized (cache) {
+                cached += cache.count;
+            }
+        }
+
+        System.out.println("[MM] Memory: " + usedPages + "/" + totalPages + " pages used, " +
+            usedMB + "MB/" + freeMB + "MB free, " + cached + " pages in per-CPU caches");
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 当前线程所在"CPU"的缓存
+     */
+    private Magazine localCache() {
+        return caches[(int) Thread.currentThread().getId() & cacheMask];
+    }
+
+    /**
+     * 从全局空闲链表批量补充缓存（调用者持有 cache 锁）
+     */
+    private void refill(Magazine cache) {
+        synchronized (globalLock) {
+            while (cache.count < BATCH_SIZE && freeListHead >= 0) {
+                int pageNo = freeListHead;
+                freeListHead = freeListNext[pageNo];
+                freeListNext[pageNo] = -1;
+                cache.pages[cache.count++] = pageNo;
+            }
+        }
+    }
+
+    /**
+     * 将缓存的一半批量归还全局空闲链表（调用者持有 cache 锁）
+     */
+    private void drain(Magazine cache) {
+        synchronized (globalLock) {
+            while (cache.count > MAGAZINE_SIZE - BATCH_SIZE) {
+                int pageNo = cache.pages[--cache.count];
+                freeListNext[pageNo] = freeListHead;
+                freeListHead = pageNo;
+            }
+        }
+    }
+
+    /**
+     * 全局链表耗尽时从其他 CPU 的缓存中取一页（调用者不得持有任何缓存锁）
+     *
+     * @return 页面号，全部耗尽时返回 -1
+     */
+    private int stealFromOtherCaches(Magazine self) {
+        for (Magazine other : caches) {
+            if (other == self) {
+                continue;
+            }
+            synchronized (other) {
+                if (other.count > 0) {
+                    return other.pages[--other.count];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 单个 CPU 的空闲页缓存（magazine，与页缓存 {@link PageCache} 无关），受自身监视器保护
+     */
+    private static final class Magazine {
+        final int[] pages = new int[MAGAZINE_SIZE];
+        int count;
+    }
+}
@@ -200,6 +200,21 @@ public class PhysicalMemory implements IPhysicalMemory {
         System.arraycopy(buf, offset, memory, (int) paddr, len);
     }
     
+    /**
+     * 整页复制，一次 arraycopy 完成
+     * 
+     * @param srcPageNo 源页面号
+     * @param dstPageNo 目标页面号
+     */
+    @Override
+    public synchronized void copyPage(int srcPageNo, int dstPageNo) {
+        if (srcPageNo < 0 || srcPageNo >= totalPages || dstPageNo < 0 || dstPageNo >= totalPages) {
+            throw new IndexOutOfBoundsException("Invalid page number: " + srcPageNo + " -> " + dstPageNo);
+        }
+        System.arraycopy(memory, srcPageNo * MemoryConstants.PAGE_SIZE,
+            memory, dstPageNo * MemoryConstants.PAGE_SIZE, MemoryConstants.PAGE_SIZE);
+    }
+    
     /**
      * 获取空闲页面数
      */
@@ -0,0 +1,249 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 相同页合并器
+ * 对应 Linux 中的 KSM（Kernel Samepage Merging，mm/ksm.c 与 ksmd）
+ *
+ * 多个任务 fork 后各自写过、或多次加载同一程序后，常有大量内容完全相同的私有页。
+ * 合并器周期性扫描已登记地址空间中的独占页（引用计数为 1 的普通页），把内容相同的页合并为
+ * 一个只读的 COW 共享页，写入时由缺页处理照常复制：
+ * <ul>
+ *   <li>稳定性：页面内容的校验和与上一轮相同才参与合并，频繁写入的页不会被反复合并、拆分</li>
+ *   <li>不稳定树：本轮扫描中遇到的稳定页按校验和登记，再遇到内容相同的页时，
+ *       把先登记的页写保护后提升为 KSM 页</li>
+ *   <li>稳定树：已有的 KSM 页按校验和索引，内容相同的页直接重映射到 KSM 页并释放原页</li>
+ * </ul>
+ * 合并器为每个 KSM 页持有一个引用，保证 KSM 页只读（写入方引用计数总大于 1，必然复制）且不会被回收后另作他用；
+ * 所有映射都解除后（只剩合并器的引用）在下一轮扫描时释放；停止后台线程时已合并的页保持共享。
+ *
+ * 扫描时一次只持有一个地址空间的锁，且不在持有本对象锁时获取地址空间锁，
+ * 地址空间在持有自身锁时调用 {@link #unregister} 不会死锁。
+ *
+ * @author Jinux Project
+ */
+public class SamePageMerger extends AbstractMmDaemon {
+
+    /** 后台线程的默认扫描间隔（毫秒，对应 sleep_millisecs） */
+    public static final long DEFAULT_INTERVAL_MS = 200;
+
+    /** 扫描锁：串行化扫描，保护下面的扫描状态 */
+    private final Object scanLock = new Object();
+
+    /** 稳定树：校验和 -> KSM 页 */
+    private final Map<Long, Integer> stableTree = new HashMap<>();
+
+    /** 上一轮各页的校验和：地址空间 -> (虚拟页 -> 校验和) */
+    private final Map<AddressSpace, Map<Integer, Long>> checksums = new WeakHashMap<>();
+
+    /** 读取页面内容的缓冲区 */
+    private final byte[] pageBuffer = new byte[MemoryConstants.PAGE_SIZE];
+
+    /** 校验和计算器 */
+    private final CRC32 crc = new CRC32();
+
+    /** 完整扫描轮数 */
+    private volatile long fullScans;
+
+    /** 累计合并的页数 */
+    private volatile long pagesMerged;
+
+    /** KSM 页数（pages_shared） */
+    private volatile int pagesShared;
+
+    /** 合并节省的页数（pages_sharing：映射 KSM 页的次数减去 KSM 页数） */
+    private volatile int pagesSaved;
+
+    /**
+     * 构造相同页合并器，使用默认扫描间隔
+     *
+     * @param memoryManager 内存管理器
+     */
+    public SamePageMerger(IMemoryManager memoryManager) {
+        this(memoryManager, DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * 构造相同页合并器
+     *
+     * @param memoryManager 内存管理器
+     * @param intervalMs 后台扫描间隔（毫秒）
+     */
+    public SamePageMerger(IMemoryManager memoryManager, long intervalMs) {
+        super(memoryManager, "ksmd", intervalMs);
+    }
+
+    /**
+     * 扫描一轮所有已登记的地址空间并合并相同页
+     *
+     * @return 本轮合并的页数
+     */
+    public int scan() {
+        List<AddressSpace> spaces = snapshotAddressSpaces();
+
+        synchronized (scanLock) {
+            IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+            pruneStableTree(pm);
+            checksums.keySet().retainAll(spaces);
+
+            // 不稳定树每轮重建：校验和 -> 本轮第一个遇到的稳定页
+            Map<Long, Candidate> unstableTree = new HashMap<>();
+            int merged = 0;
+            for (AddressSpace space : spaces) {
+                List<int[]> pages = new ArrayList<>();
+                space.forEachMovablePage((vpage, ppage, flags) -> pages.add(new int[] {vpage, ppage}));
+
+                Map<Integer, Long> previous = checksums.getOrDefault(space, Collections.emptyMap());
+                Map<Integer, Long> current = new HashMap<>();
+                for (int[] page : pages) {
+                    int vpage = page[0];
+                    int ppage = page[1];
+                    long sum = checksum(pm, ppage);
+                    current.put(vpage, sum);
+                    Long last = previous.get(vpage);
+                    if (last == null || last != sum) {
+                        continue; // 内容仍在变化
+                    }
+
+                    Integer ksmPage = stableTree.get(sum);
+                    if (ksmPage != null) {
+                        if (space.mergePage(vpage, ppage, ksmPage)) {
+                            merged++;
+                        }
+                        continue;
+                    }
+
+                    Candidate candidate = unstableTree.get(sum);
+                    if (candidate == null || candidate.ppage == ppage) {
+                        unstableTree.putIfAbsent(sum, new Candidate(space, vpage, ppage));
+                        continue;
+                    }
+                    if (!samePageContent(pm, candidate.ppage, ppage)) {
+                        continue; // 校验和冲突
+                    }
+                    if (!candidate.space.pinKsmPage(candidate.vpage, candidate.ppage)) {
+                        unstableTree.put(sum, new Candidate(space, vpage, ppage));
+                        continue;
+                    }
+                    unstableTree.remove(sum);
+                    stableTree.put(sum, candidate.ppage);
+                    if (space.mergePage(vpage, ppage, candidate.ppage)) {
+                        merged++;
+                    }
+                }
+                checksums.put(space, current);
+            }
+
+            fullScans++;
+            pagesMerged += merged;
+            updateSharing(pm);
+            return merged;
+        }
+    }
+
+    /**
+     * 释放只剩合并器引用的 KSM 页
+     */
+    private void pruneStableTree(IPhysicalMemory pm) {
+        Iterator<Integer> it = stableTree.values().iterator();
+        while (it.hasNext()) {
+            int ksmPage = it.next();
+            if (pm.getPageRefCount(ksmPage) <= 1) {
+                // 没有映射时只有合并器能看到这个页，不会有新的引用
+                memoryManager.freePage(ksmPage);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 统计 KSM 页数与节省的页数
+     */
+    private void updateSharing(IPhysicalMemory pm) {
+        int saved = 0;
+        for (int ksmPage : stableTree.values()) {
+            // 引用 = 合并器 1 个 + 各映射；第一个映射不算节省
+            saved += Math.max(0, pm.getPageRefCount(ksmPage) - 2);
+        }
+        pagesShared = stableTree.size();
+        pagesSaved = saved;
+    }
+
+    /**
+     * 计算页面内容的校验和
+     */
+    private long checksum(IPhysicalMemory pm, int ppage) {
+        pm.readBytes((long) ppage << MemoryConstants.PAGE_SHIFT, pageBuffer, 0, MemoryConstants.PAGE_SIZE);
+        crc.reset();
+        crc.update(pageBuffer, 0, MemoryConstants.PAGE_SIZE);
+        return crc.getValue();
+    }
+
+    /**
+     * 逐字节比较两个物理页的内容
+     */
+    static boolean samePageContent(IPhysicalMemory pm, int page1, int page2) {
+        if (page1 == page2) {
+            return true;
+        }
+        byte[] a = new byte[MemoryConstants.PAGE_SIZE];
+        byte[] b = new byte[MemoryConstants.PAGE_SIZE];
+        pm.readBytes((long) page1 << MemoryConstants.PAGE_SHIFT, a, 0, a.length);
+        pm.readBytes((long) page2 << MemoryConstants.PAGE_SHIFT, b, 0, b.length);
+        return Arrays.equals(a, b);
+    }
+
+    @Override
+    protected void runOnce() {
+        scan();
+    }
+
+    public long getFullScans() {
+        return fullScans;
+    }
+
+    public long getPagesMerged() {
+        return pagesMerged;
+    }
+
+    public int getPagesShared() {
+        return pagesShared;
+    }
+
+    public int getPagesSaved() {
+        return pagesSaved;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KSM[scans=%d, shared=%d, saved=%d pages (%dKB), merged=%d]",
+            fullScans, pagesShared, pagesSaved,
+            (long) pagesSaved * MemoryConstants.PAGE_SIZE / 1024, pagesMerged);
+    }
+
+    /**
+     * 不稳定树中的候选页
+     */
+    private static final class Candidate {
+        final AddressSpace space;
+        final int vpage;
+        final int ppage;
+
+        Candidate(AddressSpace space, int vpage, int ppage) {
+            this.space = space;
+            this.vpage = vpage;
+            this.ppage = ppage;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 软件 TLB（快表）
+ * 对应 i386 的 TLB 及 Linux 中的 flush_tlb / invlpg
+ *
+ * 直接映射结构：虚拟页号的低位选择表项，每个表项把 {@code vpage} 和 {@code ppage}
+ * 打包在一个 long 中，因此读写不会撕裂。页表修改时由 {@link TlbPageTable} 使对应表项失效。
+ *
+ * 大页另有一组表项（对应 i386 的 4MB 页 TLB），一个表项覆盖整个大页，
+ * 因此映射大页的区域用很少的表项就能覆盖。
+ *
+ * A/D 标志：未命中填充时通过 {@link IPageTable#markAccessed} 在页表中置位 ACCESSED（写访问同时置位 DIRTY），
+ * 表项记录是否已置位 DIRTY，命中的读访问不再触碰页表，只有经过表项的首次写访问才回写页表。
+ * 页表中的标志被清除时 {@link TlbPageTable} 会使表项失效，之后的访问重新置位。
+ *
+ * 写权限：填充时把页表项的 RW 位记录在表项中，命中的写访问直接检查，不再查页表；
+ * 页面不可写（只读或 COW）时写访问返回 -1，由调用者按缺页处理。修改标志（如 fork 写保护、COW 解除）
+ * 都经过 {@link TlbPageTable}，会使表项失效。
+ *
+ * 并发：填充表项前记录失效代数，写入后若代数已变化则撤销，
+ * 避免"查页表 - 并发 unmap - 写入旧映射"的竞态留下过期表项。
+ *
+ * @author Jinux Project
+ */
+public class SoftwareTlb {
+
+    /** 默认表项数 */
+    public static final int DEFAULT_ENTRIES = 64;
+
+    /** 大页表项数 */
+    public static final int HUGE_ENTRIES = 8;
+
+    /** 无效表项 */
+    private static final long INVALID = -1L;
+
+    /** 表项中的已写标记（位于 ppage 部分的最高位，物理页号最多 20 位） */
+    private static final long ENTRY_DIRTY = 1L << 31;
+
+    /** 表项中的可写标记（填充时页表项带 RW） */
+    private static final long ENTRY_WRITABLE = 1L << 30;
+
+    /** 表项中物理页号部分的掩码 */
+    private static final long PPAGE_MASK = ENTRY_WRITABLE - 1;
+
+    /**
+     * 表项：{@code vpage << 32 | ppage}（页面可写时带 {@link #ENTRY_WRITABLE}，
+     * 写访问填充或已写时带 {@link #ENTRY_DIRTY}），无效为 -1
+     */
+    private final AtomicLongArray entries;
+
+    /** 索引掩码 */
+    private final int mask;
+
+    /** 大页表项：{@code 大页号 << 32 | 大页首个物理页号}，无效为 -1 */
+    private final AtomicLongArray hugeEntries;
+
+    /** 失效代数，每次 invalidate/flush 递增 */
+    private final AtomicInteger generation;
+
+    /** 命中次数 */
+    private final LongAdder hits;
+
+    /** 未命中次数 */
+    private final LongAdder misses;
+
+    /** 失效次数（单页失效 + 全部刷新） */
+    private final LongAdder invalidations;
+
+    /**
+     * 构造软件 TLB
+     *
+     * @param size 表项数（向上取整到 2 的幂，至少 1）
+     */
+    public SoftwareTlb(int size) {
+        int entryCount = Integer.highestOneBit(Math.max(1, size) * 2 - 1);
+        this.entries = new AtomicLongArray(entryCount);
+        this.mask = entryCount - 1;
+        this.generation = new AtomicInteger();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.invalidations = new LongAdder();
+        this.hugeEntries = new AtomicLongArray(HUGE_ENTRIES);
+        for (int i = 0; i < entryCount; i++) {
+            entries.setPlain(i, INVALID);
+        }
+        for (int i = 0; i < HUGE_ENTRIES; i++) {
+            hugeEntries.setPlain(i, INVALID);
+        }
+    }
+
+    /**
+     * 通过 TLB 翻译虚拟地址（按读访问记录 A 标志），未命中时查页表并填充
+     *
+     * @param vaddr 虚拟地址
+     * @param pageTable 页表（未命中时查询）
+     * @return 物理地址，未映射返回 -1
+     */
+    public long translate(long vaddr, IPageTable pageTable) {
+        return translate(vaddr, pageTable, false);
+    }
+
+    /**
+     * 通过 TLB 翻译虚拟地址，未命中时查页表、置位 A/D 并填充；命中的首次写访问置位 D
+     *
+     * @param vaddr 虚拟地址
+     * @param pageTable 页表（未命中时查询）
+     * @param write 是否为写访问
+     * @return 物理地址，未映射或写访问不可写的页返回 -1
+     */
+    public long translate(long vaddr, IPageTable pageTable, boolean write) {
+        long vpage = vaddr >> MemoryConstants.PAGE_SHIFT;
+        long pageOffset = vaddr & (MemoryConstants.PAGE_SIZE - 1);
+        int index = (int) vpage & mask;
+
+        long entry = entries.getOpaque(index);
+        if (entry != INVALID && (entry >>> 32) == vpage) {
+            hits.increment();
+            if (write && (entry & ENTRY_WRITABLE) == 0) {
+                return -1;
+            }
+            if (write && (entry & ENTRY_DIRTY) == 0) {
+                markDirty(entries, index, entry, pageTable, (int) vpage);
+            }
+            return ((entry & PPAGE_MASK) << MemoryConstants.PAGE_SHIFT) | pageOffset;
+        }
+
+        long hugePage = vpage >> MemoryConstants.HUGE_PAGE_ORDER;
+        int hugeIndex = (int) hugePage & (HUGE_ENTRIES - 1);
+        long hugeEntry = hugeEntries.getOpaque(hugeIndex);
+        if (hugeEntry != INVALID && (hugeEntry >>> 32) == hugePage) {
+            hits.increment();
+            if (write && (hugeEntry & ENTRY_WRITABLE) == 0) {
+                return -1;
+            }
+            if (write && (hugeEntry & ENTRY_DIRTY) == 0) {
+                markDirty(hugeEntries, hugeIndex, hugeEntry, pageTable, (int) vpage);
+            }
+            long ppage = (hugeEntry & PPAGE_MASK) + (vpage & (MemoryConstants.HUGE_PAGE_PAGES - 1));
+            return (ppage << MemoryConstants.PAGE_SHIFT) | pageOffset;
+        }
+
+        misses.increment();
+        int gen = generation.get();
+        long paddr = pageTable.translate(vaddr);
+        if (paddr >= 0 && vpage >= 0 && vpage <= Integer.MAX_VALUE) {
+            long ppage = paddr >>> MemoryConstants.PAGE_SHIFT;
+            boolean writable = pageTable.checkPermission((int) vpage, PageTable.PAGE_RW);
+            // 写不可写的页不置位 D，按读访问填充后返回缺页
+            boolean dirtied = write && writable;
+            long bits = (writable ? ENTRY_WRITABLE : 0) | (dirtied ? ENTRY_DIRTY : 0);
+            pageTable.markAccessed((int) vpage, dirtied);
+            if (pageTable.isHugeMapped((int) vpage)) {
+                long basePpage = ppage - (vpage & (MemoryConstants.HUGE_PAGE_PAGES - 1));
+                fill(hugeEntries, hugeIndex, (hugePage << 32) | basePpage | bits, gen);
+            } else {
+                fill(entries, index, (vpage << 32) | ppage | bits, gen);
+            }
+            if (write && !writable) {
+                return -1;
+            }
+        }
+        return paddr;
+    }
+
+    /**
+     * 经过未标记已写的表项首次写入：置位页表的 D 标志，再给表项打上已写标记
+     * （表项在此期间失效则 CAS 失败，下次访问重新填充）
+     */
+    private static void markDirty(AtomicLongArray table, int index, long entry, IPageTable pageTable, int vpage) {
+        pageTable.markAccessed(vpage, true);
+        table.compareAndSet(index, entry, entry | ENTRY_DIRTY);
+    }
+
+    /**
+     * 写入表项，填充期间发生了失效则撤销可能过期的表项
+     * 写入必须是 volatile 的：与随后读代数之间不能重排（StoreLoad），
+     * 否则填充者读到旧代数、失效者读到旧表项，过期表项会留下
+     */
+    private void fill(AtomicLongArray table, int index, long newEntry, int gen) {
+        table.set(index, newEntry);
+        if (generation.get() != gen) {
+            table.compareAndSet(index, newEntry, INVALID);
+        }
+    }
+
+    /**
+     * 使单个虚拟页的表项及覆盖它的大页表项失效（invlpg）
+     *
+     * @param vpage 虚拟页号
+     */
+    public void invalidate(int vpage) {
+        generation.incrementAndGet();
+        int index = vpage & mask;
+        long entry = entries.get(index);
+        if (entry != INVALID && (entry >>> 32) == vpage) {
+            entries.compareAndSet(index, entry, INVALID);
+        }
+        int hugePage = vpage >> MemoryConstants.HUGE_PAGE_ORDER;
+        int hugeIndex = hugePage & (HUGE_ENTRIES - 1);
+        long hugeEntry = hugeEntries.get(hugeIndex);
+        if (hugeEntry != INVALID && (hugeEntry >>> 32) == hugePage) {
+            hugeEntries.compareAndSet(hugeIndex, hugeEntry, INVALID);
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * 刷新整个 TLB（切换/清空页表时）
+     */
+    public void flush() {
+        generation.incrementAndGet();
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, INVALID);
+        }
+        for (int i = 0; i < HUGE_ENTRIES; i++) {
+            hugeEntries.set(i, INVALID);
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * 获取表项数
+     */
+    public int size() {
+        return entries.length();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * 命中率（0.0 ~ 1.0），尚无访问时返回 0
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TLB[entries=%d, hits=%d, misses=%d, hitRate=%.1f%%, invalidations=%d]",
+            size(), getHits(), getMisses(), getHitRate() * 100, getInvalidations());
+    }
+}
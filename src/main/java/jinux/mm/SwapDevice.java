@@ -0,0 +1,217 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * 交换设备
+ * 对应 Linux 0.01 中的 mm/swap.c（swap_out / swap_in）和 swap_info_struct
+ *
+ * 用宿主机上的一个文件作为交换区，按页划分为槽位，通过 {@link FileChannel} 定位读写。
+ * 每个槽位有引用计数（对应 swap_map）：fork 后父子进程共享同一个换出页，
+ * 最后一个引用释放时槽位才归还。
+ *
+ * @author Jinux Project
+ */
+public class SwapDevice {
+
+    /** 交换文件路径 */
+    private final Path path;
+
+    /** 交换文件通道 */
+    private final FileChannel channel;
+
+    /** 槽位总数 */
+    private final int totalSlots;
+
+    /** 槽位引用计数，0 表示空闲 */
+    private final int[] slotRefCount;
+
+    /** 已使用槽位 */
+    private final BitSet usedSlots;
+
+    /** 下次分配的起始搜索位置 */
+    private int nextSlot;
+
+    /** 已使用槽位数 */
+    private int usedCount;
+
+    /** 换出页数 */
+    private long swapOuts;
+
+    /** 换入页数 */
+    private long swapIns;
+
+    /**
+     * 打开（不存在时创建）交换文件
+     *
+     * @param path 交换文件路径
+     * @param totalSlots 槽位数（交换区大小 = totalSlots * PAGE_SIZE）
+     * @throws IOException 打开文件失败
+     */
+    public SwapDevice(Path path, int totalSlots) throws IOException {
+        if (totalSlots <= 0) {
+            throw new IllegalArgumentException("Invalid swap size: " + totalSlots + " slots");
+        }
+        this.path = path;
+        this.totalSlots = totalSlots;
+        this.slotRefCount = new int[totalSlots];
+        this.usedSlots = new BitSet(totalSlots);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+
+        System.out.println("[SWAP] Swap device initialized: " + path + ", " +
+            ((long) totalSlots * MemoryConstants.PAGE_SIZE / 1024) + "KB");
+    }
+
+    /**
+     * 把一个物理页写入新分配的槽位
+     *
+     * @param pm 物理内存
+     * @param pageNo 物理页面号
+     * @return 槽位号（引用计数为 1），交换区已满或写入失败返回 -1
+     */
+    public synchronized int swapOut(IPhysicalMemory pm, int pageNo) {
+        int slot = usedSlots.nextClearBit(nextSlot);
+        if (slot >= totalSlots) {
+            slot = usedSlots.nextClearBit(0);
+            if (slot >= totalSlots) {
+                return -1;
+            }
+        }
+
+        byte[] data = new byte[MemoryConstants.PAGE_SIZE];
+        pm.readBytes((long) pageNo << MemoryConstants.PAGE_SHIFT, data, 0, data.length);
+        try {
+            writeFully(ByteBuffer.wrap(data), (long) slot * MemoryConstants.PAGE_SIZE);
+        } catch (IOException e) {
+            System.err.println("[SWAP] ERROR: Failed to write slot " + slot + ": " + e.getMessage());
+            return -1;
+        }
+
+        usedSlots.set(slot);
+        slotRefCount[slot] = 1;
+        usedCount++;
+        nextSlot = slot + 1;
+        swapOuts++;
+        return slot;
+    }
+
+    /**
+     * 把槽位内容读入物理页（不释放槽位）
+     *
+     * @param slot 槽位号
+     * @param pm 物理内存
+     * @param pageNo 目标物理页面号
+     * @return 是否成功
+     */
+    public synchronized boolean swapIn(int slot, IPhysicalMemory pm, int pageNo) {
+        if (slot < 0 || slot >= totalSlots || slotRefCount[slot] == 0) {
+            System.err.println("[SWAP] ERROR: Invalid swap slot: " + slot);
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(MemoryConstants.PAGE_SIZE);
+        try {
+            long position = (long) slot * MemoryConstants.PAGE_SIZE;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[SWAP] ERROR: Failed to read slot " + slot + ": " + e.getMessage());
+            return false;
+        }
+
+        pm.writeBytes((long) pageNo << MemoryConstants.PAGE_SHIFT, buffer.array(), 0, MemoryConstants.PAGE_SIZE);
+        swapIns++;
+        return true;
+    }
+
+    /**
+     * 增加槽位引用（fork 时子进程继承换出页）
+     *
+     * @param slot 槽位号
+     */
+    public synchronized void incrementRef(int slot) {
+        if (slot >= 0 && slot < totalSlots && slotRefCount[slot] > 0) {
+            slotRefCount[slot]++;
+        }
+    }
+
+    /**
+     * 释放槽位的一个引用，引用归零时槽位变为空闲
+     *
+     * @param slot 槽位号
+     */
+    public synchronized void freeSlot(int slot) {
+        if (slot < 0 || slot >= totalSlots || slotRefCount[slot] == 0) {
+            System.err.println("[SWAP] WARNING: Freeing free swap slot: " + slot);
+            return;
+        }
+        if (--slotRefCount[slot] == 0) {
+            usedSlots.clear(slot);
+            usedCount--;
+            if (slot < nextSlot) {
+                nextSlot = slot;
+            }
+        }
+    }
+
+    /**
+     * 获取槽位引用计数
+     */
+    public synchronized int getSlotRefCount(int slot) {
+        return slot >= 0 && slot < totalSlots ? slotRefCount[slot] : 0;
+    }
+
+    public synchronized int getUsedSlots() {
+        return usedCount;
+    }
+
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+
+    public synchronized long getSwapOuts() {
+        return swapOuts;
+    }
+
+    public synchronized long getSwapIns() {
+        return swapIns;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 关闭交换文件
+     */
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[SWAP] ERROR: Failed to close swap file: " + e.getMessage());
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Swap[%s, used=%d/%d slots, swapOuts=%d, swapIns=%d]",
+            path.getFileName(), usedCount, totalSlots, swapOuts, swapIns);
+    }
+}
@@ -0,0 +1,148 @@
+package jinux.mm;
+
+/**
+ * 带 TLB 失效的页表包装
+ *
+ * 地址空间把它交给所有会修改页表的组件（COW 处理器、外部 getPageTable() 调用者），
+ * 保证每次 map/unmap/setFlags/clear 都会使 {@link SoftwareTlb} 中对应表项失效，
+ * 相当于内核修改页表后执行 invlpg / flush_tlb。
+ *
+ * @author Jinux Project
+ */
+class TlbPageTable implements IPageTable {
+
+    /** 实际页表 */
+    private final IPageTable delegate;
+
+    /** 所属地址空间的 TLB */
+    private final SoftwareTlb tlb;
+
+    TlbPageTable(IPageTable delegate, SoftwareTlb tlb) {
+        this.delegate = delegate;
+        this.tlb = tlb;
+    }
+
+    /**
+     * 获取被包装的页表
+     */
+    IPageTable getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void map(int virtualPage, int physicalPage, int pageFlags) {
+        delegate.map(virtualPage, physicalPage, pageFlags);
+        tlb.invalidate(virtualPage);
+    }
+
+    @Override
+    public void mapHuge(int virtualPage, int physicalPage, int pageFlags) {
+        delegate.mapHuge(virtualPage, physicalPage, pageFlags);
+        tlb.flush();
+    }
+
+    @Override
+    public boolean isHugeMapped(int virtualPage) {
+        return delegate.isHugeMapped(virtualPage);
+    }
+
+    @Override
+    public int getHugeMappingCount() {
+        return delegate.getHugeMappingCount();
+    }
+
+    @Override
+    public void unmap(int virtualPage) {
+        delegate.unmap(virtualPage);
+        tlb.invalidate(virtualPage);
+    }
+
+    @Override
+    public int getPhysicalPage(int virtualPage) {
+        return delegate.getPhysicalPage(virtualPage);
+    }
+
+    @Override
+    public boolean isMapped(int virtualPage) {
+        return delegate.isMapped(virtualPage);
+    }
+
+    @Override
+    public long translate(long virtualAddress) {
+        return delegate.translate(virtualAddress);
+    }
+
+    @Override
+    public boolean checkPermission(int virtualPage, int requiredFlags) {
+        return delegate.checkPermission(virtualPage, requiredFlags);
+    }
+
+    /**
+     * 复制底层页表（副本不带 TLB，由新地址空间重新包装）
+     */
+    @Override
+    public IPageTable copy() {
+        return delegate.copy();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        tlb.flush();
+    }
+
+    @Override
+    public int getMappedPageCount() {
+        return delegate.getMappedPageCount();
+    }
+
+    @Override
+    public int getCowPageCount() {
+        return delegate.getCowPageCount();
+    }
+
+    @Override
+    public Integer getFlags(int virtualPage) {
+        return delegate.getFlags(virtualPage);
+    }
+
+    @Override
+    public void setFlags(int virtualPage, int pageFlags) {
+        delegate.setFlags(virtualPage, pageFlags);
+        tlb.invalidate(virtualPage);
+    }
+
+    @Override
+    public void forEachMapping(MappingVisitor visitor) {
+        delegate.forEachMapping(visitor);
+    }
+
+    @Override
+    public void markAccessed(int virtualPage, boolean write) {
+        delegate.markAccessed(virtualPage, write);
+    }
+
+    /**
+     * 清除后使 TLB 表项失效，之后的访问重新查页表并再次设置标志
+     */
+    @Override
+    public int testAndClearFlags(int virtualPage, int clearFlags) {
+        int old = delegate.testAndClearFlags(virtualPage, clearFlags);
+        if (old != 0) {
+            tlb.invalidate(virtualPage);
+        }
+        return old;
+    }
+
+    @Override
+    public void scanAndClearFlags(int clearFlags, MappingVisitor visitor) {
+        delegate.scanAndClearFlags(clearFlags, visitor);
+        tlb.flush();
+    }
+
+    @Override
+    public void updateAllFlags(int clearFlags, int setFlags) {
+        delegate.updateAllFlags(clearFlags, setFlags);
+        tlb.flush();
+    }
+}
@@ -0,0 +1,585 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 两级页表
+ * 对应 i386 / Linux 0.01 中的页目录 + 页表结构
+ *
+ * 虚拟页号的高 10 位索引页目录，低 10 位索引页表；页表按需分配。
+ * 每个页表项（PTE）是一个打包的 int：{@code ppage << 12 | flags}，
+ * 因此物理页号最多 20 位（4GB 物理内存）。
+ *
+ * 与 {@link PageTable} 相比：
+ * - 没有装箱和 HashMap 查找，translate() 不分配对象、不加锁
+ * - 修改操作（map/unmap/setFlags/copy/clear）仍在对象锁内进行；
+ *   查找与硬件 MMU 类似，不加锁读取页表项（int 读写是原子的），
+ *   跨线程可见性依赖调用者已有的同步（如调度器锁）
+ * - copy()/forEachMapping() 只处理已分配的页表，代价与已映射区域成正比
+ *
+ * 大页（{@link #mapHuge}）与 i386 的 PSE 相同：页目录项直接映射 4MB 连续物理内存，
+ * 不分配页表。查找时由目录项合成普通页的 PTE；修改大页内的某一页时先拆分为普通页表。
+ *
+ * ACCESSED / DIRTY 由 {@link #markAccessed} 在访问路径上不加锁地设置（与 MMU 置位 A/D 相同）：
+ * 标志已设置时只读不写，否则对已映射的表项做 CAS，表项在此期间被修改或取消映射则放弃。
+ * 锁内的 {@link #setFlags} 同样以 CAS 写入并保留表项中已有的 A/D，不会覆盖访问路径刚置位的标志。
+ * 大页只有一个目录项，A/D 按整个大页记录。
+ *
+ * @author Jinux Project
+ */
+public class TwoLevelPageTable implements IPageTable {
+
+    /** 每级索引的位数 */
+    private static final int LEVEL_BITS = 10;
+
+    /** 每个页表（及页目录）的表项数 */
+    private static final int ENTRIES = 1 << LEVEL_BITS;
+
+    /** 页表内索引掩码 */
+    private static final int INDEX_MASK = ENTRIES - 1;
+
+    /** 可寻址的虚拟页数（2^20，即 4GB 虚拟地址空间） */
+    public static final int MAX_VPAGES = ENTRIES * ENTRIES;
+
+    /** PTE 中标志位占用的位（低 12 位） */
+    private static final int FLAGS_MASK = MemoryConstants.PAGE_SIZE - 1;
+
+    /** 内部标记：表项已映射（与用户标志分开，保证已映射的 PTE 非 0） */
+    private static final int PTE_MAPPED = 0x800;
+
+    /** 最大物理页号（20 位） */
+    private static final int MAX_PPAGE = (1 << (32 - MemoryConstants.PAGE_SHIFT)) - 1;
+
+    /** 可映射的最大物理内存（字节，4GB），启动参数 mem= 不得超过此值 */
+    public static final long MAX_PHYSICAL_MEMORY = (long) (MAX_PPAGE + 1) << MemoryConstants.PAGE_SHIFT;
+
+    /** 页表项的原子访问（用于不加锁地设置 A/D 标志） */
+    private static final VarHandle PTE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** 空页目录 */
+    private static final int[][] EMPTY_DIRECTORY = new int[0][];
+
+    /**
+     * 页目录：每项指向一个页表，未分配为 null。
+     * 按需增长到最高使用的目录项，使小进程的 fork/exit 不必扫描 1024 项；
+     * 增长时整体替换数组，无锁读者最多看到旧目录（即页面尚未映射）
+     */
+    private int[][] directory;
+
+    /** 大页目录项（与 directory 等长）：非 0 时该目录项直接映射一个大页，对应页表为 null */
+    private int[] hugeDirectory;
+
+    /** 每个页表中已映射的表项数，归零时回收该页表 */
+    private int[] tableCounts;
+
+    /** 已映射的虚拟页总数（大页按其包含的普通页计） */
+    private int mappedCount;
+
+    /** 大页目录项数 */
+    private int hugeCount;
+
+    /** 带 COW 标志的页数（大页按其包含的普通页计） */
+    private int cowCount;
+
+    /**
+     * 构造空页表
+     */
+    public TwoLevelPageTable() {
+        this.directory = EMPTY_DIRECTORY;
+        this.hugeDirectory = new int[0];
+        this.tableCounts = new int[0];
+        this.mappedCount = 0;
+    }
+
+    /**
+     * 映射一个虚拟页到物理页
+     *
+     * @param vpage 虚拟页号
+     * @param ppage 物理页号
+     * @param pageFlags 页面标志
+     */
+    @Override
+    public synchronized void map(int vpage, int ppage, int pageFlags) {
+        if (vpage < 0 || vpage >= MAX_VPAGES) {
+            throw new IllegalArgumentException("Virtual page out of range: " + vpage);
+        }
+        if (ppage < 0 || ppage > MAX_PPAGE) {
+            throw new IllegalArgumentException("Physical page out of range: " + ppage);
+        }
+
+        int dirIndex = vpage >>> LEVEL_BITS;
+        ensureDirectory(dirIndex);
+        splitHuge(dirIndex);
+        int[] table = directory[dirIndex];
+        if (table == null) {
+            table = new int[ENTRIES];
+            directory[dirIndex] = table;
+        }
+
+        int index = vpage & INDEX_MASK;
+        int old = table[index];
+        if (old == 0) {
+            tableCounts[dirIndex]++;
+            mappedCount++;
+        }
+        table[index] = pack(ppage, (pageFlags | PageTable.PAGE_PRESENT) & ~PageTable.PAGE_HUGE);
+        cowCount += cow(table[index]) - cow(old);
+    }
+
+    /**
+     * 用一个目录项映射大页，覆盖该目录项下原有的普通映射
+     *
+     * @param vpage 虚拟页号（按大页对齐）
+     * @param ppage 物理页号（按大页对齐）
+     * @param pageFlags 页面标志
+     */
+    @Override
+    public synchronized void mapHuge(int vpage, int ppage, int pageFlags) {
+        if (vpage < 0 || vpage >= MAX_VPAGES || (vpage & INDEX_MASK) != 0) {
+            throw new IllegalArgumentException("Invalid huge virtual page: " + vpage);
+        }
+        if (ppage < 0 || ppage > MAX_PPAGE || (ppage & INDEX_MASK) != 0) {
+            throw new IllegalArgumentException("Invalid huge physical page: " + ppage);
+        }
+
+        int dirIndex = vpage >>> LEVEL_BITS;
+        ensureDirectory(dirIndex);
+        if (hugeDirectory[dirIndex] == 0) {
+            mappedCount += ENTRIES - tableCounts[dirIndex];
+            tableCounts[dirIndex] = ENTRIES;
+            hugeCount++;
+            int[] table = directory[dirIndex];
+            if (table != null) {
+                for (int pte : table) {
+                    cowCount -= cow(pte);
+                }
+            }
+        } else {
+            cowCount -= cow(hugeDirectory[dirIndex]) * ENTRIES;
+        }
+        hugeDirectory[dirIndex] = pack(ppage, pageFlags | PageTable.PAGE_PRESENT | PageTable.PAGE_HUGE);
+        cowCount += cow(hugeDirectory[dirIndex]) * ENTRIES;
+        directory[dirIndex] = null;
+    }
+
+    @Override
+    public boolean isHugeMapped(int vpage) {
+        return hugeEntry(vpage) != 0;
+    }
+
+    @Override
+    public synchronized int getHugeMappingCount() {
+        return hugeCount;
+    }
+
+    @Override
+    public synchronized int getCowPageCount() {
+        return cowCount;
+    }
+
+    /**
+     * 取消映射
+     *
+     * @param vpage 虚拟页号
+     */
+    @Override
+    public synchronized void unmap(int vpage) {
+        if (hugeEntry(vpage) != 0) {
+            splitHuge(vpage >>> LEVEL_BITS);
+        }
+        int[] table = tableOf(vpage);
+        if (table == null) {
+            return;
+        }
+        int index = vpage & INDEX_MASK;
+        if (table[index] != 0) {
+            cowCount -= cow(table[index]);
+            table[index] = 0;
+            mappedCount--;
+            int dirIndex = vpage >>> LEVEL_BITS;
+            if (--tableCounts[dirIndex] == 0) {
+                directory[dirIndex] = null;
+            }
+        }
+    }
+
+    @Override
+    public int getPhysicalPage(int vpage) {
+        int pte = entry(vpage);
+        return pte != 0 ? pte >>> MemoryConstants.PAGE_SHIFT : -1;
+    }
+
+    @Override
+    public boolean isMapped(int vpage) {
+        return entry(vpage) != 0;
+    }
+
+    /**
+     * 虚拟地址转物理地址（不加锁、不分配对象）
+     *
+     * @param vaddr 虚拟地址
+     * @return 物理地址，如果未映射返回 -1
+     */
+    @Override
+    public long translate(long vaddr) {
+        if (vaddr < 0) {
+            return -1;
+        }
+        long vpage = vaddr >> MemoryConstants.PAGE_SHIFT;
+        if (vpage >= MAX_VPAGES) {
+            return -1;
+        }
+        int pte = entry((int) vpage);
+        if (pte == 0) {
+            return -1; // 页面未映射
+        }
+        return (((long) (pte >>> MemoryConstants.PAGE_SHIFT)) << MemoryConstants.PAGE_SHIFT)
+            | (vaddr & FLAGS_MASK);
+    }
+
+    @Override
+    public boolean checkPermission(int vpage, int requiredFlags) {
+        int pte = entry(vpage);
+        if (pte == 0) {
+            return false;
+        }
+        return (pte & requiredFlags) == requiredFlags;
+    }
+
+    /**
+     * 复制页表（用于 fork），只复制已分配的页表
+     *
+     * @return 新的页表副本
+     */
+    @Override
+    public synchronized IPageTable copy() {
+        TwoLevelPageTable newTable = new TwoLevelPageTable();
+        newTable.directory = new int[directory.length][];
+        newTable.hugeDirectory = hugeDirectory.clone();
+        newTable.hugeCount = hugeCount;
+        newTable.tableCounts = tableCounts.clone();
+        for (int i = 0; i < directory.length; i++) {
+            if (directory[i] != null) {
+                newTable.directory[i] = directory[i].clone();
+            }
+        }
+        newTable.mappedCount = mappedCount;
+        newTable.cowCount = cowCount;
+        return newTable;
+    }
+
+    @Override
+    public synchronized void clear() {
+        directory = EMPTY_DIRECTORY;
+        hugeDirectory = new int[0];
+        tableCounts = new int[0];
+        mappedCount = 0;
+        hugeCount = 0;
+        cowCount = 0;
+    }
+
+    @Override
+    public synchronized int getMappedPageCount() {
+        return mappedCount;
+    }
+
+    @Override
+    public Integer getFlags(int vpage) {
+        int pte = entry(vpage);
+        return pte != 0 ? Integer.valueOf(pte & FLAGS_MASK & ~PTE_MAPPED) : null;
+    }
+
+    /**
+     * 设置页面标志（页面必须已映射，否则忽略）
+     * 以 CAS 写入并保留表项中的 ACCESSED / DIRTY：调用者 getFlags 之后 {@link #markAccessed} 置位的标志不会丢失
+     *
+     * @param vpage 虚拟页号
+     * @param pageFlags 页面标志
+     */
+    @Override
+    public synchronized void setFlags(int vpage, int pageFlags) {
+        if (hugeEntry(vpage) != 0) {
+            splitHuge(vpage >>> LEVEL_BITS);
+        }
+        int[] table = tableOf(vpage);
+        if (table == null) {
+            return;
+        }
+        int index = vpage & INDEX_MASK;
+        int pte = (int) PTE.getVolatile(table, index);
+        while (pte != 0) {
+            int updated = pack(pte >>> MemoryConstants.PAGE_SHIFT, pageFlags & ~PageTable.PAGE_HUGE)
+                | (pte & (PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY));
+            int witness = (int) PTE.compareAndExchange(table, index, pte, updated);
+            if (witness == pte) {
+                cowCount += cow(updated) - cow(pte);
+                return;
+            }
+            pte = witness;
+        }
+    }
+
+    /**
+     * 记录一次访问（不加锁）
+     *
+     * @param vpage 虚拟页号
+     * @param write 是否为写访问
+     */
+    @Override
+    public void markAccessed(int vpage, boolean write) {
+        int bits = write ? PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY : PageTable.PAGE_ACCESSED;
+        int[] table = tableOf(vpage);
+        if (table != null) {
+            setBits(table, vpage & INDEX_MASK, bits);
+            return;
+        }
+        int[] huge = hugeDirectory;
+        int dirIndex = vpage >>> LEVEL_BITS;
+        if (vpage >= 0 && dirIndex < huge.length) {
+            setBits(huge, dirIndex, bits);
+        }
+    }
+
+    /**
+     * 测试并清除单个页的标志（大页内的页清除的是整个大页的标志）
+     *
+     * @param vpage 虚拟页号
+     * @param clearFlags 要清除的标志
+     * @return 清除前被设置的位
+     */
+    @Override
+    public synchronized int testAndClearFlags(int vpage, int clearFlags) {
+        int[] table = tableOf(vpage);
+        if (table != null) {
+            int old = clearBits(table, vpage & INDEX_MASK, clearFlags);
+            cowCount -= cow(old);
+            return old;
+        }
+        if (hugeEntry(vpage) != 0) {
+            int old = clearBits(hugeDirectory, vpage >>> LEVEL_BITS, clearFlags);
+            cowCount -= cow(old) * ENTRIES;
+            return old;
+        }
+        return 0;
+    }
+
+    /**
+     * 扫描并清除含有 clearFlags 中任一标志的已映射页，跳过未分配的页表
+     *
+     * @param clearFlags 要清除的标志
+     * @param visitor 访问回调（传入清除前的标志）
+     */
+    @Override
+    public synchronized void scanAndClearFlags(int clearFlags, MappingVisitor visitor) {
+        for (int i = 0; i < directory.length; i++) {
+            int base = i << LEVEL_BITS;
+            if (hugeDirectory[i] != 0) {
+                int huge = hugeDirectory[i];
+                if ((huge & clearFlags) != 0) {
+                    cowCount -= cow(clearBits(hugeDirectory, i, clearFlags)) * ENTRIES;
+                    int hugePpage = huge >>> MemoryConstants.PAGE_SHIFT;
+                    int hugeFlags = huge & FLAGS_MASK & ~PTE_MAPPED;
+                    for (int j = 0; j < ENTRIES; j++) {
+                        visitor.visit(base | j, hugePpage + j, hugeFlags);
+                    }
+                }
+                continue;
+            }
+            int[] table = directory[i];
+            if (table == null) {
+                continue;
+            }
+            for (int j = 0; j < ENTRIES; j++) {
+                int pte = table[j];
+                if (pte != 0 && (pte & clearFlags) != 0) {
+                    int old = clearBits(table, j, clearFlags);
+                    cowCount -= cow(old);
+                    visitor.visit(base | j, pte >>> MemoryConstants.PAGE_SHIFT, (pte & FLAGS_MASK & ~PTE_MAPPED) | old);
+                }
+            }
+        }
+    }
+
+    /**
+     * 遍历所有已映射的虚拟页，跳过未分配的页表
+     *
+     * @param visitor 访问回调
+     */
+    @Override
+    public synchronized void forEachMapping(MappingVisitor visitor) {
+        for (int i = 0; i < directory.length; i++) {
+            int[] table = directory[i];
+            int base = i << LEVEL_BITS;
+            int huge = hugeDirectory[i];
+            if (huge != 0) {
+                int hugePpage = huge >>> MemoryConstants.PAGE_SHIFT;
+                int hugeFlags = huge & FLAGS_MASK & ~PTE_MAPPED;
+                for (int j = 0; j < ENTRIES; j++) {
+                    visitor.visit(base | j, hugePpage + j, hugeFlags);
+                }
+                continue;
+            }
+            if (table == null) {
+                continue;
+            }
+            for (int j = 0; j < ENTRIES; j++) {
+                int pte = table[j];
+                if (pte != 0) {
+                    visitor.visit(base | j, pte >>> MemoryConstants.PAGE_SHIFT, pte & FLAGS_MASK & ~PTE_MAPPED);
+                }
+            }
+        }
+    }
+
+    /**
+     * 批量修改含有 clearFlags 中任一标志的已映射页的标志
+     *
+     * @param clearFlags 要清除的标志
+     * @param setFlags 要设置的标志
+     */
+    @Override
+    public synchronized void updateAllFlags(int clearFlags, int setFlags) {
+        for (int i = 0; i < hugeDirectory.length; i++) {
+            int huge = hugeDirectory[i];
+            if (huge != 0 && (huge & clearFlags) != 0) {
+                int pageFlags = ((huge & FLAGS_MASK) & ~clearFlags) | setFlags;
+                hugeDirectory[i] = pack(huge >>> MemoryConstants.PAGE_SHIFT, pageFlags);
+                cowCount += (cow(hugeDirectory[i]) - cow(huge)) * ENTRIES;
+            }
+        }
+        for (int[] table : directory) {
+            if (table == null) {
+                continue;
+            }
+            for (int j = 0; j < ENTRIES; j++) {
+                int pte = table[j];
+                if (pte != 0 && (pte & clearFlags) != 0) {
+                    int pageFlags = ((pte & FLAGS_MASK) & ~clearFlags) | setFlags;
+                    table[j] = pack(pte >>> MemoryConstants.PAGE_SHIFT, pageFlags);
+                    cowCount += cow(table[j]) - cow(pte);
+                }
+            }
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 打包页表项，始终带上内部的已映射标记
+     */
+    private static int pack(int ppage, int pageFlags) {
+        return (ppage << MemoryConstants.PAGE_SHIFT) | (pageFlags & FLAGS_MASK & ~PTE_MAPPED) | PTE_MAPPED;
+    }
+
+    /**
+     * 表项（或清除前的标志位）是否带 COW 标志，返回 1 或 0 便于计数
+     */
+    private static int cow(int pte) {
+        return (pte & PageTable.PAGE_COW) != 0 ? 1 : 0;
+    }
+
+    /**
+     * 不加锁地给已映射的表项设置标志：已全部设置时不写，表项为 0（未映射）时放弃
+     */
+    private static void setBits(int[] entries, int index, int bits) {
+        int pte = (int) PTE.getOpaque(entries, index);
+        while (pte != 0 && (pte & bits) != bits) {
+            int witness = (int) PTE.compareAndExchange(entries, index, pte, pte | bits);
+            if (witness == pte) {
+                return;
+            }
+            pte = witness;
+        }
+    }
+
+    /**
+     * 原子地清除表项的标志（与不加锁的 {@link #setBits} 并发安全）
+     *
+     * @return 清除前 bits 中被设置的位
+     */
+    private static int clearBits(int[] entries, int index, int bits) {
+        int pte = (int) PTE.getVolatile(entries, index);
+        while (pte != 0 && (pte & bits) != 0) {
+            int witness = (int) PTE.compareAndExchange(entries, index, pte, pte & ~bits);
+            if (witness == pte) {
+                return pte & bits;
+            }
+            pte = witness;
+        }
+        return 0;
+    }
+
+    /**
+     * 确保页目录至少有 dirIndex + 1 项
+     */
+    private void ensureDirectory(int dirIndex) {
+        if (dirIndex >= directory.length) {
+            int newLength = Math.min(ENTRIES, Math.max(dirIndex + 1, directory.length * 2));
+            tableCounts = java.util.Arrays.copyOf(tableCounts, newLength);
+            hugeDirectory = java.util.Arrays.copyOf(hugeDirectory, newLength);
+            directory = java.util.Arrays.copyOf(directory, newLength);
+        }
+    }
+
+    /**
+     * 把大页目录项拆分为一个填满的普通页表（不是大页时不做任何事）
+     * 先发布页表再清除大页项，无锁读者在任一时刻都能查到映射
+     */
+    private void splitHuge(int dirIndex) {
+        int huge = hugeDirectory[dirIndex];
+        if (huge == 0) {
+            return;
+        }
+        int ppage = huge >>> MemoryConstants.PAGE_SHIFT;
+        int pageFlags = huge & FLAGS_MASK & ~PageTable.PAGE_HUGE;
+        int[] table = new int[ENTRIES];
+        for (int j = 0; j < ENTRIES; j++) {
+            table[j] = pack(ppage + j, pageFlags);
+        }
+        directory[dirIndex] = table;
+        hugeDirectory[dirIndex] = 0;
+        hugeCount--;
+    }
+
+    /**
+     * 读取虚拟页所在的大页目录项，不是大页返回 0
+     */
+    private int hugeEntry(int vpage) {
+        int[] huge = hugeDirectory;
+        int dirIndex = vpage >>> LEVEL_BITS;
+        if (vpage < 0 || dirIndex >= huge.length) {
+            return 0;
+        }
+        return huge[dirIndex];
+    }
+
+    /**
+     * 获取虚拟页所在的页表，未分配或越界返回 null
+     */
+    private int[] tableOf(int vpage) {
+        int[][] dir = directory;
+        int dirIndex = vpage >>> LEVEL_BITS;
+        if (vpage < 0 || dirIndex >= dir.length) {
+            return null;
+        }
+        return dir[dirIndex];
+    }
+
+    /**
+     * 读取页表项，未映射返回 0；大页内的页由大页目录项合成
+     */
+    private int entry(int vpage) {
+        int[] table = tableOf(vpage);
+        if (table != null) {
+            return table[vpage & INDEX_MASK];
+        }
+        int huge = hugeEntry(vpage);
+        if (huge == 0) {
+            return 0;
+        }
+        return huge + ((vpage & INDEX_MASK) << MemoryConstants.PAGE_SHIFT);
+    }
+}
@@ -0,0 +1,160 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+/**
+ * 虚拟内存区域（VMA）
+ * 对应 Linux 中的 struct vm_area_struct
+ *
+ * 描述地址空间中一段 [start, end) 的页对齐区域及其页面标志。
+ * 区域内尚未映射的页在首次访问时由缺页处理按需分配：匿名区域零填充，
+ * 文件映射区域（{@link #getFile()} 非 null）映射文件页缓存中的共享页。
+ *
+ * @author Jinux Project
+ */
+public class VmArea {
+
+    /** 起始地址（包含，页对齐） */
+    private final long start;
+
+    /** 结束地址（不包含，页对齐） */
+    private long end;
+
+    /** 按需分配页面时使用的页面标志 */
+    private final int pageFlags;
+
+    /** 区域名称（用于调试，如 [heap]、[stack]） */
+    private final String name;
+
+    /** 映射的文件（null 表示匿名区域） */
+    private final MappedFile file;
+
+    /** 区域起始处对应的文件内页号 */
+    private final long filePageOffset;
+
+    /** 缺页时是否尝试映射大页（见 {@link HugePagePolicy}） */
+    private boolean hugePages;
+
+    /**
+     * 构造匿名虚拟内存区域
+     *
+     * @param start 起始地址（页对齐）
+     * @param end 结束地址（页对齐，不包含）
+     * @param pageFlags 页面标志
+     * @param name 区域名称
+     */
+    public VmArea(long start, long end, int pageFlags, String name) {
+        this(start, end, pageFlags, name, null, 0);
+    }
+
+    /**
+     * 构造虚拟内存区域
+     *
+     * @param start 起始地址（页对齐）
+     * @param end 结束地址（页对齐，不包含）
+     * @param pageFlags 页面标志
+     * @param name 区域名称
+     * @param file 映射的文件，null 表示匿名区域
+     * @param filePageOffset 区域起始处对应的文件内页号
+     */
+    public VmArea(long start, long end, int pageFlags, String name, MappedFile file, long filePageOffset) {
+        if ((start & (MemoryConstants.PAGE_SIZE - 1)) != 0 || (end & (MemoryConstants.PAGE_SIZE - 1)) != 0
+                || start > end) {
+            throw new IllegalArgumentException("Invalid VMA range: 0x" + Long.toHexString(start) +
+                "-0x" + Long.toHexString(end));
+        }
+        this.start = start;
+        this.end = end;
+        this.pageFlags = pageFlags;
+        this.name = name;
+        this.file = file;
+        this.filePageOffset = filePageOffset;
+    }
+
+    /**
+     * 检查地址是否落在区域内
+     */
+    public boolean contains(long vaddr) {
+        return vaddr >= start && vaddr < end;
+    }
+
+    /**
+     * 复制区域描述（用于 fork）
+     */
+    public VmArea copy() {
+        return slice(start, end);
+    }
+
+    /**
+     * 截取区域的一部分（用于 munmap 拆分），文件偏移随之调整
+     *
+     * @param sliceStart 起始地址（页对齐，不小于 start）
+     * @param sliceEnd 结束地址（页对齐，不大于 end）
+     * @return 新区域
+     */
+    public VmArea slice(long sliceStart, long sliceEnd) {
+        long pageOffset = filePageOffset + ((sliceStart - start) >> MemoryConstants.PAGE_SHIFT);
+        VmArea vma = new VmArea(sliceStart, sliceEnd, pageFlags, name, file, pageOffset);
+        vma.hugePages = hugePages;
+        return vma;
+    }
+
+    /**
+     * 计算地址对应的文件内页号（仅文件映射区域有意义）
+     *
+     * @param vaddr 区域内的虚拟地址
+     * @return 文件内页号
+     */
+    public long filePageIndex(long vaddr) {
+        return filePageOffset + ((vaddr - start) >> MemoryConstants.PAGE_SHIFT);
+    }
+
+    /**
+     * 获取区域包含的页数
+     */
+    public long getPageCount() {
+        return (end - start) >> MemoryConstants.PAGE_SHIFT;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    void setEnd(long end) {
+        this.end = end;
+    }
+
+    public int getPageFlags() {
+        return pageFlags;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MappedFile getFile() {
+        return file;
+    }
+
+    public long getFilePageOffset() {
+        return filePageOffset;
+    }
+
+    public boolean isHugePages() {
+        return hugePages;
+    }
+
+    void setHugePages(boolean hugePages) {
+        this.hugePages = hugePages;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VMA[0x%08x-0x%08x, flags=0x%x, %s%s]", start, end, pageFlags, name,
+            hugePages ? ", huge" : "");
+    }
+}
@@ -0,0 +1,163 @@
+package jinux.mm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 虚拟内存区域树
+ * 对应 Linux 中 mm_struct 的 mm_rb（VMA 红黑树）
+ *
+ * 以区域起始地址为键的 {@link TreeMap}，区域之间互不重叠，
+ * 因此包含某地址的区域就是起始地址不大于它的最后一个区域，查找为 O(log n)。
+ * 非线程安全，由所属 {@link AddressSpace} 加锁保护。
+ *
+ * @author Jinux Project
+ */
+public class VmAreaTree {
+
+    /** 起始地址 -> 区域 */
+    private final TreeMap<Long, VmArea> areas = new TreeMap<>();
+
+    /**
+     * 查找包含指定地址的区域
+     *
+     * @param vaddr 虚拟地址
+     * @return 区域，不存在返回 null
+     */
+    public VmArea find(long vaddr) {
+        Map.Entry<Long, VmArea> entry = areas.floorEntry(vaddr);
+        if (entry == null || !entry.getValue().contains(vaddr)) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * 检查 [start, end) 是否与已有区域重叠
+     *
+     * @param start 起始地址
+     * @param end 结束地址（不包含）
+     * @param ignore 忽略的区域（如正在扩展的堆），可为 null
+     * @return 是否重叠
+     */
+    public boolean overlaps(long start, long end, VmArea ignore) {
+        if (start >= end) {
+            return false;
+        }
+        Map.Entry<Long, VmArea> entry = areas.floorEntry(start);
+        if (entry != null && entry.getValue() != ignore && entry.getValue().getEnd() > start) {
+            return true;
+        }
+        for (VmArea vma : areas.subMap(start, false, end, false).values()) {
+            if (vma != ignore) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 插入区域
+     *
+     * @param vma 区域
+     * @return 是否成功（与已有区域重叠时失败）
+     */
+    public boolean insert(VmArea vma) {
+        if (overlaps(vma.getStart(), vma.getEnd(), null) || areas.containsKey(vma.getStart())) {
+            return false;
+        }
+        areas.put(vma.getStart(), vma);
+        return true;
+    }
+
+    /**
+     * 移除区域
+     *
+     * @param vma 区域
+     * @return 是否存在并已移除
+     */
+    public boolean remove(VmArea vma) {
+        return areas.remove(vma.getStart(), vma);
+    }
+
+    /**
+     * 移除 [start, end) 内的所有区域，部分覆盖的区域被拆分，保留范围外的部分
+     *
+     * @param start 起始地址（页对齐）
+     * @param end 结束地址（页对齐，不包含）
+     * @return 被移除的区域片段（按地址升序）
+     */
+    public List<VmArea> removeRange(long start, long end) {
+        List<VmArea> removed = new ArrayList<>();
+        if (start >= end) {
+            return removed;
+        }
+
+        Map.Entry<Long, VmArea> first = areas.floorEntry(start);
+        long fromKey = first != null && first.getValue().getEnd() > start ? first.getKey() : start;
+        List<VmArea> affected = new ArrayList<>(areas.subMap(fromKey, true, end, false).values());
+
+        for (VmArea vma : affected) {
+            areas.remove(vma.getStart());
+            if (vma.getStart() < start) {
+                VmArea left = vma.slice(vma.getStart(), start);
+                areas.put(left.getStart(), left);
+            }
+            if (vma.getEnd() > end) {
+                VmArea right = vma.slice(end, vma.getEnd());
+                areas.put(right.getStart(), right);
+            }
+            removed.add(vma.slice(Math.max(start, vma.getStart()), Math.min(end, vma.getEnd())));
+        }
+        return removed;
+    }
+
+    /**
+     * 在 [low, high) 内自顶向下查找足够大的空闲区间（对应 Linux 的 get_unmapped_area）
+     *
+     * @param length 长度（页对齐）
+     * @param low 下界
+     * @param high 上界（不包含）
+     * @return 空闲区间起始地址，找不到返回 -1
+     */
+    public long findFreeArea(long length, long low, long high) {
+        long gapEnd = high;
+        for (VmArea vma : areas.headMap(high, false).descendingMap().values()) {
+            if (gapEnd - length < low) {
+                return -1;
+            }
+            long gapStart = Math.max(vma.getEnd(), low);
+            if (gapEnd - gapStart >= length) {
+                return gapEnd - length;
+            }
+            gapEnd = Math.min(gapEnd, vma.getStart());
+        }
+        return gapEnd - low >= length ? gapEnd - length : -1;
+    }
+
+    /**
+     * 按地址升序遍历所有区域
+     *
+     * @param action 访问函数
+     */
+    public void forEach(Consumer<VmArea> action) {
+        areas.values().forEach(action);
+    }
+
+    /**
+     * 获取区域数量
+     */
+    public int size() {
+        return areas.size();
+    }
+
+    /**
+     * 移除所有区域
+     */
+    public void clear() {
+        areas.clear();
+    }
+}
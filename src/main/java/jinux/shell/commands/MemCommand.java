@@ -1,10 +1,20 @@
 package jinux.shell.commands;
 
+import jinux.kernel.Task;
+import jinux.mm.AddressSpace;
+import jinux.mm.MemoryUsage;
 import jinux.shell.Command;
 import jinux.shell.ShellContext;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
 /**
  * mem 命令 - 显示内存统计
+ * 
+ * 除全局统计外，按 RSS 从大到小列出各进程的内存使用，便于找出造成内存压力的进程
  */
 public class MemCommand implements Command {
     
@@ -27,6 +37,46 @@ public class MemCommand implements Command {
     public void execute(String[] args, ShellContext context) {
         context.println("");
         context.getKernel().getMemoryManager().printStats();
+        printTaskUsage(context);
+        
+        Task task = context.getCurrentTask();
+        if (task != null && task.getAddressSpace() instanceof AddressSpace) {
+            AddressSpace addressSpace = (AddressSpace) task.getAddressSpace();
+            if (addressSpace.getTlb() != null) {
+                context.println("[MM] pid " + task.getPid() + " " + addressSpace.getTlb());
+            }
+        }
+        context.println("");
+    }
+    
+    /**
+     * 按 RSS 降序打印各进程的内存使用
+     */
+    private void printTaskUsage(ShellContext context) {
+        List<Map.Entry<Task, MemoryUsage>> usages = new ArrayList<>();
+        for (Task task : context.getScheduler().getTaskTable()) {
+            if (task != null) {
+                usages.add(Map.entry(task, task.getMemoryUsage()));
+            }
+        }
+        if (usages.isEmpty()) {
+            return;
+        }
+        usages.sort(Comparator.comparingInt(
+            (Map.Entry<Task, MemoryUsage> entry) -> entry.getValue().getResidentPages()).reversed());
+        
         context.println("");
+        context.println("PID\tRSS(KB)\tSHR(KB)\tSWAP(KB)\tMINFLT\tMAJFLT\tCOWFLT");
+        for (Map.Entry<Task, MemoryUsage> entry : usages) {
+            MemoryUsage usage = entry.getValue();
+            context.println(String.format("%d\t%d\t%d\t%d\t\t%d\t%d\t%d",
+                entry.getKey().getPid(),
+                usage.getResidentKB(),
+                usage.getSharedKB(),
+                usage.getSwappedKB(),
+                usage.getMinorFaults(),
+                usage.getMajorFaults(),
+                usage.getCowFaults()));
+        }
     }
 }
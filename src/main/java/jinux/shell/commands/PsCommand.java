@@ -2,6 +2,7 @@ package jinux.shell.commands;
 
 import jinux.include.ProcessConstants;
 import jinux.kernel.Task;
+import jinux.mm.MemoryUsage;
 import jinux.shell.Command;
 import jinux.shell.ShellContext;
 
@@ -34,8 +35,8 @@ public class PsCommand implements Command {
     @Override
     public void execute(String[] args, ShellContext context) {
         context.println("");
-        context.println(ANSI_BOLD + "PID\tPPID\tSTATE\t\tPRIORITY\tCOUNTER" + ANSI_RESET);
-        context.println("------------------------------------------------------------");
+        context.println(ANSI_BOLD + "PID\tPPID\tSTATE\t\tPRIORITY\tCOUNTER\tRSS(KB)\tSHR(KB)\tMINFLT\tMAJFLT" + ANSI_RESET);
+        context.println("--------------------------------------------------------------------------------------------");
         
         boolean found = false;
         for (Task task : context.getScheduler().getTaskTable()) {
@@ -48,14 +49,19 @@ public class PsCommand implements Command {
                         || task.getState() == ProcessConstants.TASK_UNINTERRUPTIBLE) {
                     stateColor = ANSI_YELLOW;
                 }
-                context.println(String.format("%d\t%d\t%s%-12s%s\t%d\t\t%d",
+                MemoryUsage usage = task.getMemoryUsage();
+                context.println(String.format("%d\t%d\t%s%-12s%s\t%d\t\t%d\t%d\t%d\t%d\t%d",
                     task.getPid(),
                     task.getPpid(),
                     stateColor,
                     task.getStateName(),
                     ANSI_RESET,
                     task.getPriority(),
-                    task.getCounter()
+                    task.getCounter(),
+                    usage.getResidentKB(),
+                    usage.getSharedKB(),
+                    usage.getMinorFaults(),
+                    usage.getMajorFaults()
                 ));
             }
         }
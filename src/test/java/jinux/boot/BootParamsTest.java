@@ -0,0 +1,48 @@
+package jinux.boot;
+
+import jinux.include.MemoryConstants;
+import jinux.mm.PageTable;
+import jinux.mm.TwoLevelPageTable;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BootParams类的单元测试
+ */
+public class BootParamsTest {
+
+    @Test
+    void testMemorySize() {
+        BootParams params = BootParams.parse(new String[] {"mm=offheap", "mem=64M"});
+        assertEquals(BootParams.MM_OFFHEAP, params.getPhysicalMemoryType());
+        assertEquals(64L * 1024 * 1024, params.getMemorySize());
+    }
+
+    @Test
+    void testMemorySizeBeyondPageTableRejected() {
+        // 4G 恰好是页表可映射的上限
+        BootParams params = BootParams.parse(new String[] {"mm=offheap", "mem=4G"});
+        assertEquals(TwoLevelPageTable.MAX_PHYSICAL_MEMORY, params.getMemorySize());
+
+        // 超过 4G 的物理页号无法放入页表项，忽略并使用默认大小
+        params = BootParams.parse(new String[] {"mm=offheap", "mem=8G"});
+        assertEquals(MemoryConstants.MEMORY_SIZE, params.getMemorySize());
+
+        // 最高物理页可以映射
+        TwoLevelPageTable pageTable = new TwoLevelPageTable();
+        int maxPpage = (int) (TwoLevelPageTable.MAX_PHYSICAL_MEMORY >> MemoryConstants.PAGE_SHIFT) - 1;
+        pageTable.map(0, maxPpage, PageTable.PAGE_PRESENT);
+        assertEquals(maxPpage, pageTable.getPhysicalPage(0));
+        assertThrows(IllegalArgumentException.class,
+            () -> pageTable.map(1, maxPpage + 1, PageTable.PAGE_PRESENT));
+    }
+
+    @Test
+    void testCompactionRequiresBuddy() {
+        // 默认开启，但只有 buddy 支持分配指定页面
+        assertFalse(BootParams.parse(new String[0]).isCompactionEnabled());
+        assertTrue(BootParams.parse(new String[] {"mm=buddy"}).isCompactionEnabled());
+        assertFalse(BootParams.parse(new String[] {"mm=buddy", "compaction=off"}).isCompactionEnabled());
+        assertTrue(BootParams.parse(new String[] {"mm=buddy", "compaction=bogus"}).isCompactionEnabled());
+    }
+}
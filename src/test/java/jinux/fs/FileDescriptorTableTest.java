@@ -137,5 +137,23 @@ public class FileDescriptorTableTest {
         assertEquals(fd1, fd2);
         assertSame(file2, fdTable.get(fd2));
     }
+    
+    @Test
+    void testReleaseClosesFilesAndRecycles() {
+        FileDescriptorTable table = FileDescriptorTable.create();
+        File file = new File(testInode, File.O_RDONLY);
+        table.allocate(file);
+        FileDescriptorTable child = table.copy();
+        assertEquals(2, file.getRefCount());
+        
+        // 归还时关闭所有描述符；再次分配得到的表是空的
+        child.release();
+        assertEquals(1, file.getRefCount());
+        FileDescriptorTable reused = FileDescriptorTable.create();
+        for (int fd = 0; fd < FileSystemConstants.NR_OPEN; fd++) {
+            assertNull(reused.get(fd));
+        }
+        reused.release();
+        table.release();
+    }
 }
-
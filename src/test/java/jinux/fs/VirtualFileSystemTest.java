@@ -3,6 +3,10 @@ package jinux.fs;
 import jinux.include.FileSystemConstants;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -159,5 +163,32 @@ public class VirtualFileSystemTest {
         assertNotNull(fileTable);
         assertEquals(FileSystemConstants.NR_FILE, fileTable.length);
     }
+    
+    @Test
+    void testBufferCacheEvictsUnreferencedCleanBuffers() {
+        Map<String, BufferCache> buffers = new HashMap<>();
+        BlockBufferManagerImpl manager = new BlockBufferManagerImpl(buffers, 2);
+        
+        BufferCache held = manager.getBuffer(FileSystemConstants.ROOT_DEV, 1);
+        BufferCache dirty = manager.getBuffer(FileSystemConstants.ROOT_DEV, 2);
+        dirty.getData()[0] = 9;
+        dirty.markDirty();
+        manager.releaseBuffer(dirty);   // 没有磁盘，写回失败，仍是脏的
+        
+        // 被引用的和脏的缓冲区都不能淘汰，只能暂时超出上限
+        manager.getBuffer(FileSystemConstants.ROOT_DEV, 3);
+        assertEquals(3, buffers.size());
+        assertEquals(9, manager.getBuffer(FileSystemConstants.ROOT_DEV, 2).getData()[0]);
+        manager.releaseBuffer(dirty);
+        
+        // 释放后的干净缓冲区被淘汰，复用的缓冲区头已清零并绑定到新块
+        manager.releaseBuffer(held);
+        BufferCache reused = manager.getBuffer(FileSystemConstants.ROOT_DEV, 4);
+        assertEquals(3, buffers.size());
+        assertFalse(buffers.containsKey(FileSystemConstants.ROOT_DEV + ":1"));
+        assertEquals(4, reused.getBlockNo());
+        assertEquals(1, reused.getRefCount());
+        assertFalse(reused.isDirty());
+        assertEquals(0, reused.getData()[0]);
+    }
 }
-
@@ -1,6 +1,8 @@
 package jinux.ipc;
 
 import jinux.include.ErrorCode;
+import jinux.mm.KernelAllocator;
+import jinux.mm.MemoryManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -216,5 +218,31 @@ public class PipeTest {
             assertArrayEquals(writeBuf, readBuf);
         }
     }
+    
+    @Test
+    void testPipeBufferInPhysicalMemory() {
+        MemoryManager memoryManager = new MemoryManager();
+        KernelAllocator kmem = memoryManager.getKernelAllocator();
+        int freeBefore = memoryManager.getPhysicalMemory().getFreePages();
+        
+        Pipe kpipe = Pipe.create(kmem);
+        assertNotNull(kpipe);
+        assertEquals(freeBefore - 1, memoryManager.getPhysicalMemory().getFreePages());
+        
+        // 跨越缓冲区末尾的环形读写
+        byte[] fill = new byte[Pipe.PIPE_BUF - 10];
+        assertEquals(fill.length, kpipe.write(fill, fill.length));
+        assertEquals(fill.length, kpipe.read(new byte[fill.length], fill.length));
+        byte[] data = "wrap around the end".getBytes();
+        assertEquals(data.length, kpipe.write(data, data.length));
+        byte[] readBuf = new byte[data.length];
+        assertEquals(data.length, kpipe.read(readBuf, readBuf.length));
+        assertArrayEquals(data, readBuf);
+        
+        // 两端关闭后缓冲区归还物理内存
+        kpipe.closeRead();
+        kpipe.closeWrite();
+        assertEquals(freeBefore, memoryManager.getPhysicalMemory().getFreePages());
+        assertEquals(0, kmem.getAllocatedBytes());
+    }
 }
-
@@ -0,0 +1,188 @@
+package jinux.kernel;
+
+import jinux.include.ProcessConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CfsSchedulingAlgorithm 的单元测试（使用模拟时钟，每次时钟中断前进一个 tick）
+ */
+public class CfsSchedulingAlgorithmTest {
+
+    private static final long TICK_NS = ProcessConstants.TICK_MS * 1_000_000L;
+
+    private AtomicLong clock;
+    private CfsSchedulingAlgorithm cfs;
+    private Scheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        // 目标延迟 40ms、最小粒度 10ms，与 10ms 的 tick 对齐
+        cfs = new CfsSchedulingAlgorithm(4 * TICK_NS, TICK_NS, clock::get);
+        scheduler = new Scheduler(cfs);
+    }
+
+    private Task newTask(int priority) {
+        Task task = new Task(scheduler.allocatePid(), 0, null);
+        task.setPriority(priority);
+        assertTrue(scheduler.addTask(task));
+        return task;
+    }
+
+    private void tick(int n) {
+        for (int i = 0; i < n; i++) {
+            clock.addAndGet(TICK_NS);
+            scheduler.timerInterrupt();
+        }
+    }
+
+    @Test
+    void testNiceToWeight() {
+        assertEquals(0, CfsSchedulingAlgorithm.niceOf(ProcessConstants.DEF_PRIORITY));
+        assertEquals(CfsSchedulingAlgorithm.NICE_0_WEIGHT, CfsSchedulingAlgorithm.weightOf(ProcessConstants.DEF_PRIORITY));
+        assertEquals(3121, CfsSchedulingAlgorithm.weightOf(ProcessConstants.DEF_PRIORITY + 5));
+        assertEquals(88761, CfsSchedulingAlgorithm.weightOf(100));
+        assertEquals(15, CfsSchedulingAlgorithm.weightOf(-100));
+        assertThrows(IllegalArgumentException.class, () -> new CfsSchedulingAlgorithm(TICK_NS, 2 * TICK_NS, clock::get));
+    }
+
+    @Test
+    void testEqualWeightsShareFairly() {
+        Task a = newTask(ProcessConstants.DEF_PRIORITY);
+        Task b = newTask(ProcessConstants.DEF_PRIORITY);
+        Task c = newTask(ProcessConstants.DEF_PRIORITY);
+        scheduler.schedule();
+        tick(300);
+
+        long ra = cfs.getEntity(a).getSumExecRuntime();
+        long rb = cfs.getEntity(b).getSumExecRuntime();
+        long rc = cfs.getEntity(c).getSumExecRuntime();
+        assertEquals(300 * TICK_NS, ra + rb + rc);
+        assertTrue(Math.abs(ra - rb) <= 2 * TICK_NS && Math.abs(rb - rc) <= 2 * TICK_NS,
+            "runtimes " + ra + ", " + rb + ", " + rc);
+        // 每个进程的最长等待不超过一个调度周期
+        assertTrue(cfs.getEntity(a).getWaitMax() <= cfs.getTargetLatency());
+        assertTrue(cfs.getEntity(a).getWaitCount() > 0);
+    }
+
+    @Test
+    void testCpuShareFollowsWeight() {
+        Task normal = newTask(ProcessConstants.DEF_PRIORITY);
+        Task boosted = newTask(ProcessConstants.DEF_PRIORITY + 5);   // nice -5
+        scheduler.schedule();
+        tick(400);
+
+        double ratio = (double) cfs.getEntity(boosted).getSumExecRuntime() / cfs.getEntity(normal).getSumExecRuntime();
+        double expected = 3121.0 / 1024;
+        assertEquals(expected, ratio, expected * 0.15);
+        // 两者的 vruntime 保持接近
+        long gap = Math.abs(cfs.getEntity(boosted).getVruntime() - cfs.getEntity(normal).getVruntime());
+        assertTrue(gap <= 2 * cfs.getTargetLatency(), "vruntime gap " + gap);
+    }
+
+    @Test
+    void testInteractiveTaskPreemptsCpuHogs() {
+        for (int i = 0; i < 3; i++) {
+            newTask(ProcessConstants.DEF_PRIORITY);
+        }
+        Task interactive = newTask(ProcessConstants.DEF_PRIORITY);
+        CfsSchedulingAlgorithm.SchedEntity se = cfs.getEntity(interactive);
+        scheduler.schedule();
+        while (scheduler.getCurrentTask() != interactive) {
+            tick(1);
+        }
+        long waitSum = se.getWaitSum();
+        long waitCount = se.getWaitCount();
+
+        for (int round = 0; round < 20; round++) {
+            // 等交互进程运行一个 tick 后让它睡眠一段时间
+            while (scheduler.getCurrentTask() != interactive) {
+                tick(1);
+            }
+            tick(1);
+            interactive.sleep(true);
+            scheduler.schedule();
+            assertNotSame(interactive, scheduler.getCurrentTask());
+            tick(10);
+
+            // 唤醒后在下一次时钟中断抢占 CPU 密集进程
+            interactive.wakeUp();
+            tick(1);
+            assertSame(interactive, scheduler.getCurrentTask(), "round " + round);
+        }
+
+        // 每次唤醒后的等待不超过一个 tick
+        long avgWait = (se.getWaitSum() - waitSum) / (se.getWaitCount() - waitCount);
+        assertTrue(avgWait <= TICK_NS, "average wait " + avgWait);
+        // 睡眠补偿有上限：vruntime 不低于 min_vruntime 之前半个目标延迟
+        assertTrue(se.getVruntime() >= cfs.getMinVruntime() - cfs.getTargetLatency() / 2);
+
+        scheduler.removeTask(interactive.getPid());
+        assertNull(cfs.getEntity(interactive));
+        assertEquals(3, cfs.getNrRunning());
+    }
+
+    @Test
+    void testMigrationKeepsEntityAndShiftsVruntime() {
+        Scheduler smp = new Scheduler(2, () -> new CfsSchedulingAlgorithm(4 * TICK_NS, TICK_NS, clock::get));
+        CfsSchedulingAlgorithm cfs0 = (CfsSchedulingAlgorithm) smp.getSchedulingAlgorithm(0);
+        CfsSchedulingAlgorithm cfs1 = (CfsSchedulingAlgorithm) smp.getSchedulingAlgorithm(1);
+        Task[] tasks = new Task[6];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(smp.allocatePid(), 0, null);
+            smp.addTask(tasks[i]);
+        }
+        smp.schedule(0);
+        smp.schedule(1);
+        // CPU1 只剩一个可运行进程；只有 CPU0 处理时钟中断，两个队列的 min_vruntime 不同
+        for (Task task : tasks) {
+            if (task.getCpu() == 1 && task != smp.getCurrentTask(1)) {
+                task.sleep(true);
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            clock.addAndGet(TICK_NS);
+            smp.timerInterrupt(0);
+        }
+
+        // CPU0 上等待中的进程迁移到 CPU1
+        CfsSchedulingAlgorithm.SchedEntity[] before = new CfsSchedulingAlgorithm.SchedEntity[tasks.length];
+        long[] vruntime = new long[tasks.length];
+        long[] exec = new long[tasks.length];
+        long[] waits = new long[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            before[i] = cfs0.getEntity(tasks[i]);
+            if (before[i] != null) {
+                vruntime[i] = before[i].getVruntime();
+                exec[i] = before[i].getSumExecRuntime();
+                waits[i] = before[i].getWaitCount();
+            }
+        }
+        long srcMin = cfs0.getMinVruntime();
+        assertEquals(1, smp.loadBalance(1));
+        long dstMin = cfs1.getMinVruntime();
+        assertNotEquals(srcMin, dstMin);
+
+        for (int i = 0; i < tasks.length; i++) {
+            if (before[i] == null || tasks[i].getCpu() != 1) {
+                continue;
+            }
+            // 调度实体和统计随进程迁移，vruntime 相对 min_vruntime 的位置不变
+            CfsSchedulingAlgorithm.SchedEntity se = cfs1.getEntity(tasks[i]);
+            assertSame(before[i], se);
+            assertNull(cfs0.getEntity(tasks[i]));
+            assertEquals(exec[i], se.getSumExecRuntime());
+            assertEquals(waits[i], se.getWaitCount());
+            assertEquals(vruntime[i] - srcMin + dstMin, se.getVruntime());
+            assertEquals(2, cfs1.getNrRunning());
+            assertEquals(2, cfs0.getNrRunning());
+            return;
+        }
+        fail("no task migrated to CPU1");
+    }
+}
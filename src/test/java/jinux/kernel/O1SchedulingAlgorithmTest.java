@@ -0,0 +1,96 @@
+package jinux.kernel;
+
+import jinux.include.ProcessConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * O1SchedulingAlgorithm 的单元测试
+ */
+public class O1SchedulingAlgorithmTest {
+
+    private O1SchedulingAlgorithm algorithm;
+    private Scheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        algorithm = new O1SchedulingAlgorithm();
+        scheduler = new Scheduler(algorithm);
+    }
+
+    private Task newTask(int priority) {
+        Task task = new Task(scheduler.allocatePid(), 0, null);
+        task.setPriority(priority);
+        assertTrue(scheduler.addTask(task));
+        return task;
+    }
+
+    @Test
+    void testHighestPriorityFirst() {
+        Task low = newTask(5);
+        Task high = newTask(20);
+        Task mid = newTask(10);
+        assertEquals(3, algorithm.getRunnableCount());
+
+        scheduler.schedule();
+        assertSame(high, scheduler.getCurrentTask());
+
+        // 高优先级进程睡眠后出队，唤醒后重新入队
+        high.sleep(true);
+        assertEquals(2, algorithm.getRunnableCount());
+        scheduler.schedule();
+        assertSame(mid, scheduler.getCurrentTask());
+
+        scheduler.wakeUp("io");
+        assertEquals(3, algorithm.getRunnableCount());
+        scheduler.schedule();
+        assertSame(high, scheduler.getCurrentTask());
+
+        // 退出与移出进程表都会出队
+        high.exit(0);
+        mid.setState(ProcessConstants.TASK_STOPPED);
+        scheduler.schedule();
+        assertSame(low, scheduler.getCurrentTask());
+        scheduler.removeTask(low.getPid());
+        assertEquals(0, algorithm.getRunnableCount());
+        assertNull(algorithm.selectNextTask(scheduler.getTaskTable(), null));
+
+        mid.sendSignal(Signal.SIGCONT);
+        assertEquals(1, algorithm.getRunnableCount());
+    }
+
+    @Test
+    void testExpiredArraySwitch() {
+        Task a = newTask(15);
+        Task b = newTask(15);
+
+        scheduler.schedule();
+        assertSame(a, scheduler.getCurrentTask());
+
+        // a 的时间片耗尽：重新分配后移入过期数组，同优先级的 b 接着运行
+        for (int i = 0; i < ProcessConstants.DEF_COUNTER; i++) {
+            scheduler.timerInterrupt();
+        }
+        assertSame(b, scheduler.getCurrentTask());
+        assertEquals(1, algorithm.getExpiredCount());
+        assertEquals(15, a.getCounter());
+
+        // b 也耗尽后交换数组，a 再次运行
+        for (int i = 0; i < ProcessConstants.DEF_COUNTER; i++) {
+            scheduler.timerInterrupt();
+        }
+        assertSame(a, scheduler.getCurrentTask());
+        assertEquals(1, algorithm.getArraySwitches());
+        assertEquals(2, algorithm.getActiveCount());
+    }
+
+    @Test
+    void testSleepingTasksNotSelected() {
+        // 与原算法一致：没有可运行进程时返回 null
+        Task task = newTask(ProcessConstants.DEF_PRIORITY);
+        task.sleep(false);
+        assertNull(algorithm.selectNextTask(scheduler.getTaskTable(), null));
+        assertNull(new LinuxSchedulingAlgorithm().selectNextTask(scheduler.getTaskTable(), null));
+    }
+}
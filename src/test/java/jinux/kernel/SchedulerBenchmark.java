@@ -0,0 +1,87 @@
+package jinux.kernel;
+
+import java.util.ArrayDeque;
+
+/**
+ * 调度算法性能对比：{@link LinuxSchedulingAlgorithm}（扫描进程表）与 {@link O1SchedulingAlgorithm}（位图运行队列）
+ *
+ * 不是单元测试（surefire 不会运行），手动执行：
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes jinux.kernel.SchedulerBenchmark
+ * </pre>
+ */
+public class SchedulerBenchmark {
+
+    /** 进程数 */
+    private static final int[] TASK_COUNTS = {64, 1024, 4096, 16384};
+
+    /** 每轮调度次数（每次调度前消耗当前进程一个时钟滴答） */
+    private static final int SCHEDULES = 200_000;
+
+    /** 每隔多少次调度让当前进程睡眠一次，并唤醒最早睡眠的进程 */
+    private static final int SLEEP_EVERY = 8;
+
+    /** 预热轮数 */
+    private static final int WARMUP_ROUNDS = 2;
+
+    /** 计时轮数 */
+    private static final int MEASURE_ROUNDS = 3;
+
+    public static void main(String[] args) {
+        System.out.println("Scheduler benchmark: " + SCHEDULES + " schedules per round, sleep/wake every " +
+            SLEEP_EVERY + " schedules\n");
+
+        for (int n : TASK_COUNTS) {
+            run("LinuxSchedulingAlgorithm", new LinuxSchedulingAlgorithm(), n);
+            run("O1SchedulingAlgorithm", new O1SchedulingAlgorithm(), n);
+        }
+    }
+
+    private static void run(String name, SchedulingAlgorithm algorithm, int taskCount) {
+        Task[] taskTable = new Task[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task(i, 0, null);
+            task.setPriority(5 + i % 20);
+            task.setStateListener(algorithm::taskStateChanged);
+            taskTable[i] = task;
+            algorithm.taskAdded(task);
+        }
+
+        ArrayDeque<Task> sleeping = new ArrayDeque<>();
+        long checksum = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            checksum += scheduleLoop(algorithm, taskTable, sleeping);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < MEASURE_ROUNDS; r++) {
+            long start = System.nanoTime();
+            checksum += scheduleLoop(algorithm, taskTable, sleeping);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-26s tasks=%-6d schedule: %9.1f ns/op  (checksum %d)%n",
+            name, taskCount, (double) best / SCHEDULES, checksum);
+    }
+
+    private static long scheduleLoop(SchedulingAlgorithm algorithm, Task[] taskTable, ArrayDeque<Task> sleeping) {
+        long sum = 0;
+        Task current = null;
+        for (int i = 0; i < SCHEDULES; i++) {
+            if (current != null) {
+                current.decrementCounter();
+                if (i % SLEEP_EVERY == 0) {
+                    current.sleep(true);
+                    sleeping.addLast(current);
+                    if (sleeping.size() > 1) {
+                        sleeping.pollFirst().wakeUp();
+                    }
+                }
+            }
+            current = algorithm.selectNextTask(taskTable, current);
+            sum += current.getPid();
+        }
+        return sum;
+    }
+}
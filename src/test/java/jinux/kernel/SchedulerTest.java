@@ -188,10 +188,227 @@ public class SchedulerTest {
             assertTrue(scheduler.addTask(task));
         }
         
-        // 再添加一个应该失败
+        // 进程表满后自动扩容，再添加一个仍然成功
         AddressSpace addressSpace = (AddressSpace) memoryManager.createAddressSpace();
         Task task = new Task(scheduler.allocatePid(), 0, addressSpace);
-        assertTrue(scheduler.addTask(task)); // 注意：当前实现可能不会检查上限
+        assertTrue(scheduler.addTask(task));
+        assertEquals(ProcessConstants.NR_TASKS + 1, scheduler.getTaskCount());
+        assertTrue(scheduler.getTaskTable().length > ProcessConstants.NR_TASKS);
+    }
+    
+    @Test
+    void testSmpTasksSpreadAcrossCpus() {
+        Scheduler smp = new Scheduler(4, LinuxSchedulingAlgorithm::new);
+        assertEquals(4, smp.getNrCpus());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(smp.addTask(new Task(smp.allocatePid(), 0, null)));
+        }
+        for (int cpu = 0; cpu < 4; cpu++) {
+            assertEquals(2, smp.getNrRunning(cpu));
+        }
+        
+        // 空闲 CPU 在时钟滴答时开始运行本队列中的进程，各 CPU 的当前进程互不相同
+        smp.timerInterrupt();
+        assertEquals(1, smp.getJiffies());
+        for (int cpu = 0; cpu < 4; cpu++) {
+            Task current = smp.getCurrentTask(cpu);
+            assertNotNull(current);
+            assertEquals(cpu, current.getCpu());
+        }
+        assertSame(smp.getCurrentTask(), smp.getCurrentTask(0));
+    }
+    
+    @Test
+    void testSmpIdleBalanceStealsWork() {
+        Scheduler smp = new Scheduler(2, O1SchedulingAlgorithm::new);
+        Task[] tasks = new Task[4];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(smp.allocatePid(), 0, null);
+            smp.addTask(tasks[i]);
+        }
+        smp.schedule(0);
+        smp.schedule(1);
+        
+        // CPU1 上的进程都睡眠后，CPU1 调度时从 CPU0 拉取一个等待中的进程
+        for (Task task : tasks) {
+            if (task.getCpu() == 1) {
+                task.sleep(true);
+            }
+        }
+        assertEquals(0, smp.getNrRunning(1));
+        smp.schedule(1);
+        
+        Task stolen = smp.getCurrentTask(1);
+        assertNotNull(stolen);
+        assertEquals(1, stolen.getCpu());
+        assertNotSame(smp.getCurrentTask(0), stolen);
+        assertEquals(1, smp.getMigrations());
+        assertEquals(1, ((O1SchedulingAlgorithm) smp.getSchedulingAlgorithm(0)).getRunnableCount());
+        assertEquals(1, ((O1SchedulingAlgorithm) smp.getSchedulingAlgorithm(1)).getRunnableCount());
+    }
+    
+    @Test
+    void testSmpPeriodicLoadBalance() {
+        Scheduler smp = new Scheduler(2, LinuxSchedulingAlgorithm::new);
+        Task[] tasks = new Task[6];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(smp.allocatePid(), 0, null);
+            smp.addTask(tasks[i]);
+        }
+        for (Task task : tasks) {
+            if (task.getCpu() == 1) {
+                task.sleep(true);
+            }
+        }
+        assertEquals(3, smp.getNrRunning(0));
+        
+        // 周期性均衡把 CPU0 多出的进程迁移到 CPU1，CPU1 在下一个滴答开始运行它
+        for (int i = 0; i <= Scheduler.BALANCE_INTERVAL_TICKS; i++) {
+            smp.timerInterrupt();
+        }
+        assertTrue(smp.getMigrations() >= 1);
+        assertEquals(2, smp.getNrRunning(0));
+        assertEquals(1, smp.getNrRunning(1));
+        assertNotNull(smp.getCurrentTask(1));
+        
+        // 迁移后的进程状态变化通知到新 CPU
+        Task migrated = smp.getCurrentTask(1);
+        migrated.sleep(true);
+        assertEquals(0, smp.getNrRunning(1));
+    }
+    
+    @Test
+    void testSmpCallingTaskResolvedFromThread() throws InterruptedException {
+        Scheduler smp = new Scheduler(2, LinuxSchedulingAlgorithm::new);
+        Task onCpu0 = new Task(smp.allocatePid(), 0, null);
+        Task onCpu1 = new Task(smp.allocatePid(), 0, null);
+        smp.addTask(onCpu0);
+        smp.addTask(onCpu1);
+        smp.schedule(0);
+        smp.schedule(1);
+        assertEquals(1, onCpu1.getCpu());
+        
+        // 不在进程执行线程上时退回 0 号 CPU 的当前进程
+        assertSame(onCpu0, smp.getCallingTask());
+        
+        // CPU1 上的进程发起的调用和睡眠作用于它自己，而不是 CPU0 的当前进程
+        Task[] caller = new Task[1];
+        onCpu1.setExecutable(() -> {
+            caller[0] = smp.getCallingTask();
+            smp.sleep(false);
+        });
+        Thread thread = smp.getTaskExecutor().start(onCpu1, "task-" + onCpu1.getPid());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (onCpu1.getState() != ProcessConstants.TASK_UNINTERRUPTIBLE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertSame(onCpu1, caller[0]);
+        assertEquals(ProcessConstants.TASK_UNINTERRUPTIBLE, onCpu1.getState());
+        assertEquals(ProcessConstants.TASK_RUNNING, onCpu0.getState());
+        
+        onCpu1.wakeUp();
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertNull(Task.current());
+    }
+    
+    @Test
+    void testTensOfThousandsOfTasks() {
+        int n = 20_000;
+        Task[] tasks = new Task[n];
+        for (int i = 0; i < n; i++) {
+            tasks[i] = new Task(scheduler.allocatePid(), 0, null);
+            assertTrue(scheduler.addTask(tasks[i]));
+        }
+        assertEquals(n, scheduler.getTaskCount());
+        assertSame(tasks[n - 1], scheduler.findTask(tasks[n - 1].getPid()));
+        
+        // 移除一半后槽位被复用，进程表不再增长
+        int length = scheduler.getTaskTable().length;
+        for (int i = 0; i < n; i += 2) {
+            scheduler.removeTask(tasks[i].getPid());
+        }
+        assertNull(scheduler.findTask(tasks[0].getPid()));
+        for (int i = 0; i < n / 2; i++) {
+            assertTrue(scheduler.addTask(new Task(scheduler.allocatePid(), 0, null)));
+        }
+        assertEquals(n, scheduler.getTaskCount());
+        assertEquals(length, scheduler.getTaskTable().length);
+    }
+    
+    @Test
+    void testPidRecycling() {
+        int pidMax = ProcessConstants.RESERVED_PIDS + 100;
+        Scheduler small = new Scheduler(1, LinuxSchedulingAlgorithm::new, pidMax);
+        for (int pid = 0; pid < pidMax; pid++) {
+            assertEquals(pid, small.allocatePid());
+        }
+        // PID 耗尽
+        assertEquals(-1, small.allocatePid());
+        
+        // 回收的 PID 在回绕后重新分配，低于 RESERVED_PIDS 的 PID 不参与回绕
+        small.freePid(5);
+        small.freePid(ProcessConstants.RESERVED_PIDS + 10);
+        assertEquals(ProcessConstants.RESERVED_PIDS + 10, small.allocatePid());
+        assertEquals(-1, small.allocatePid());
+        
+        Task task = new Task(ProcessConstants.RESERVED_PIDS + 20, 0, null);
+        small.freePid(task.getPid());
+        assertEquals(ProcessConstants.RESERVED_PIDS + 20, small.allocatePid());
+        assertTrue(small.addTask(task));
+        small.freePid(task.getPid());   // 仍在进程表中，不释放
+        assertEquals(-1, small.allocatePid());
+        small.removeTask(task.getPid());
+        assertEquals(ProcessConstants.RESERVED_PIDS + 20, small.allocatePid());
+    }
+    
+    @Test
+    void testOrphansReparentedToInit() {
+        int pidMax = ProcessConstants.RESERVED_PIDS + 10;
+        Scheduler small = new Scheduler(1, LinuxSchedulingAlgorithm::new, pidMax);
+        Task init = new Task(small.allocatePid(), 0, null);
+        assertEquals(ProcessConstants.INIT_PID, init.getPid());
+        small.addTask(init);
+        while (small.allocatePid() < ProcessConstants.RESERVED_PIDS) {
+            // 跳过保留 PID，使后续 PID 会回绕复用
+        }
+        
+        Task parent = new Task(small.allocatePid(), init.getPid(), null);
+        small.addTask(parent);
+        Task child = new Task(small.allocatePid(), parent.getPid(), null);
+        Task zombie = new Task(small.allocatePid(), parent.getPid(), null);
+        small.addTask(child);
+        small.addTask(zombie);
+        zombie.exit(0);
+        init.setWaitingForPid(-2);
+        init.sleep(true);
+        
+        // 父进程退出后子进程托付给 init，有僵尸子进程时唤醒 init 回收
+        parent.exit(0);
+        small.reparentChildren(parent);
+        assertEquals(ProcessConstants.INIT_PID, child.getPpid());
+        assertEquals(ProcessConstants.INIT_PID, zombie.getPpid());
+        assertEquals(ProcessConstants.TASK_RUNNING, init.getState());
+        
+        // 父进程的 PID 回收后，复用该 PID 的新进程没有子进程
+        int parentPid = parent.getPid();
+        small.removeTask(parentPid);
+        int pid;
+        while ((pid = small.allocatePid()) != parentPid) {
+            assertTrue(pid >= 0, "pid " + parentPid + " was not recycled");
+        }
+        Task reused = new Task(pid, init.getPid(), null);
+        small.addTask(reused);
+        for (Task task : small.getTaskTable()) {
+            if (task != null) {
+                assertNotEquals(reused.getPid(), task.getPpid());
+            }
+        }
+        
+        // 未退出就离开进程表的进程同样托孤
+        Task grandchild = new Task(small.allocatePid(), reused.getPid(), null);
+        small.addTask(grandchild);
+        small.removeTask(reused.getPid());
+        assertEquals(ProcessConstants.INIT_PID, grandchild.getPpid());
     }
 }
-
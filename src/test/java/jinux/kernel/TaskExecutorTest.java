@@ -0,0 +1,223 @@
+package jinux.kernel;
+
+import jinux.include.ErrorCode;
+import jinux.include.ProcessConstants;
+import jinux.include.Syscalls;
+import jinux.kernel.syscall.ProcessSyscalls;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * TaskExecutor 各后端与 Task 睡眠停放的单元测试
+ */
+public class TaskExecutorTest {
+
+    /**
+     * 创建一个睡眠后停放、被唤醒后计数的进程
+     */
+    private Task sleeper(int pid, CountDownLatch parked, AtomicInteger woken) {
+        Task task = new Task(pid, 0, null);
+        task.setExecutable(() -> {
+            task.sleep(true);
+            parked.countDown();
+            if (task.parkWhileSleeping()) {
+                woken.incrementAndGet();
+            }
+        });
+        return task;
+    }
+
+    private void assertSleepAndWake(TaskExecutor executor, int count) throws InterruptedException {
+        CountDownLatch parked = new CountDownLatch(count);
+        AtomicInteger woken = new AtomicInteger();
+        Task[] tasks = new Task[count];
+        Thread[] threads = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = sleeper(i, parked, woken);
+            threads[i] = executor.start(tasks[i], "task-" + i);
+            assertSame(threads[i], tasks[i].getExecutionThread());
+        }
+        assertTrue(parked.await(10, TimeUnit.SECONDS));
+
+        // 没有被唤醒前保持停放
+        Thread.sleep(20);
+        assertEquals(0, woken.get());
+        for (Task task : tasks) {
+            assertEquals(ProcessConstants.TASK_INTERRUPTIBLE, task.getState());
+            task.wakeUp();
+        }
+        for (Thread thread : threads) {
+            thread.join(10_000);
+            assertFalse(thread.isAlive());
+        }
+        assertEquals(count, woken.get());
+    }
+
+    @Test
+    void testPlatformExecutorParksSleepingTask() throws InterruptedException {
+        assertSleepAndWake(new PlatformThreadExecutor(), 8);
+    }
+
+    @Test
+    void testVirtualExecutorParksSleepingTask() throws InterruptedException {
+        // 不支持虚拟线程的 JVM 上退回平台线程，行为相同
+        assertSleepAndWake(new VirtualThreadExecutor(), 8);
+    }
+
+    @Test
+    void testVirtualExecutorScalesToThousandsOfTasks() throws InterruptedException {
+        assumeTrue(VirtualThreadExecutor.isSupported(), "virtual threads require JDK 21+");
+        assertSleepAndWake(new VirtualThreadExecutor(), 10_000);
+    }
+
+    @Test
+    void testParkOnlyOnOwnExecutionThread() throws InterruptedException {
+        Task task = new Task(1, 0, null);
+        task.sleep(true);
+        // 调用线程不是进程的执行线程：不阻塞
+        assertFalse(task.parkWhileSleeping());
+
+        // 中断执行线程会打断可中断睡眠
+        CountDownLatch started = new CountDownLatch(1);
+        task.setExecutable(() -> {
+            started.countDown();
+            task.parkWhileSleeping();
+        });
+        Thread thread = new PlatformThreadExecutor().start(task, "task-1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        thread.interrupt();
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertEquals(ProcessConstants.TASK_RUNNING, task.getState());
+    }
+
+    @Test
+    void testInterruptDoesNotEndStoppedState() throws InterruptedException {
+        Task task = new Task(1, 0, null);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger reinterrupted = new AtomicInteger();
+        task.setExecutable(() -> {
+            task.setState(ProcessConstants.TASK_STOPPED);
+            started.countDown();
+            task.parkWhileSleeping();
+            if (Thread.currentThread().isInterrupted()) {
+                reinterrupted.incrementAndGet();
+            }
+        });
+        Thread thread = new PlatformThreadExecutor().start(task, "task-1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        thread.interrupt();
+
+        // 停止状态不被中断打断，且线程保持停放而不是空转
+        Thread.sleep(100);
+        assertTrue(thread.isAlive());
+        assertEquals(Thread.State.WAITING, thread.getState());
+        assertEquals(ProcessConstants.TASK_STOPPED, task.getState());
+
+        // SIGCONT 恢复后返回，中断标志留给调用者
+        task.setState(ProcessConstants.TASK_RUNNING);
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, reinterrupted.get());
+    }
+
+    @Test
+    void testSchedulerWakeUpUnparksTask() throws InterruptedException {
+        Scheduler scheduler = new Scheduler();
+        scheduler.setTaskExecutor(new VirtualThreadExecutor());
+        CountDownLatch parked = new CountDownLatch(1);
+        AtomicInteger woken = new AtomicInteger();
+        Task task = sleeper(scheduler.allocatePid(), parked, woken);
+        scheduler.addTask(task);
+
+        Thread thread = scheduler.getTaskExecutor().start(task, "task-" + task.getPid());
+        assertTrue(parked.await(5, TimeUnit.SECONDS));
+        scheduler.wakeUp("test");
+        thread.join(5_000);
+        assertEquals(1, woken.get());
+    }
+
+    @Test
+    void testSchedulerSleepParksOwnThread() throws InterruptedException {
+        Scheduler scheduler = new Scheduler();
+        Task task = new Task(scheduler.allocatePid(), 0, null);
+        AtomicInteger parked = new AtomicInteger();
+        task.setExecutable(() -> {
+            if (scheduler.sleep(task, true)) {
+                parked.incrementAndGet();
+            }
+        });
+        scheduler.addTask(task);
+        scheduler.schedule();
+
+        Thread thread = scheduler.getTaskExecutor().start(task, "task-" + task.getPid());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // 睡眠的进程执行线程停放
+        assertEquals(Thread.State.WAITING, thread.getState());
+        assertEquals(ProcessConstants.TASK_INTERRUPTIBLE, task.getState());
+
+        scheduler.wakeUp("test");
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, parked.get());
+    }
+
+    @Test
+    void testNonFatalSignalEndsPause() throws InterruptedException {
+        Scheduler scheduler = new Scheduler();
+        Map<Integer, SystemCallDispatcher.SystemCallHandler> handlers = new HashMap<>();
+        new ProcessSyscalls(scheduler, null).registerHandlers(handlers);
+        Task task = new Task(scheduler.allocatePid(), 0, null);
+        AtomicLong result = new AtomicLong();
+        task.setExecutable(() -> result.set(handlers.get(Syscalls.SYS_PAUSE).handle(task, 0, 0, 0)));
+        scheduler.addTask(task);
+
+        Thread thread = scheduler.getTaskExecutor().start(task, "task-" + task.getPid());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(ProcessConstants.TASK_INTERRUPTIBLE, task.getState());
+
+        // 被阻塞的信号不打断睡眠
+        task.setSignalBlocked(1L << Signal.SIGPIPE);
+        task.sendSignal(Signal.SIGPIPE);
+        Thread.sleep(50);
+        assertTrue(thread.isAlive());
+        assertEquals(ProcessConstants.TASK_INTERRUPTIBLE, task.getState());
+
+        // 未阻塞的普通信号唤醒 pause()，返回 EINTR
+        task.sendSignal(Signal.SIGTERM);
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertEquals(-ErrorCode.EINTR, result.get());
+        assertTrue(task.hasPendingSignals());
+    }
+
+    @Test
+    void testSignalBeforeSleepIsNotLost() throws InterruptedException {
+        Scheduler scheduler = new Scheduler();
+        Task task = new Task(scheduler.allocatePid(), 0, null);
+        task.sendSignal(Signal.SIGALRM);
+        task.setExecutable(() -> scheduler.sleep(task, true));
+        scheduler.addTask(task);
+
+        // 设置睡眠状态前已有待处理信号：不停放
+        Thread thread = scheduler.getTaskExecutor().start(task, "task-" + task.getPid());
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertEquals(ProcessConstants.TASK_RUNNING, task.getState());
+    }
+}
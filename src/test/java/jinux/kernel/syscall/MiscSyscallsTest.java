@@ -0,0 +1,190 @@
+package jinux.kernel.syscall;
+
+import jinux.fs.File;
+import jinux.fs.Inode;
+import jinux.fs.VirtualFileSystem;
+import jinux.include.ErrorCode;
+import jinux.include.MemoryConstants;
+import jinux.include.Syscalls;
+import jinux.kernel.SystemCallDispatcher;
+import jinux.kernel.Task;
+import jinux.mm.IAddressSpace;
+import jinux.mm.IPhysicalMemory;
+import jinux.mm.MemoryManager;
+import jinux.mm.PageTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MiscSyscalls类的单元测试（mmap / munmap）
+ */
+public class MiscSyscallsTest {
+
+    private static final int PROT_RW = MemoryConstants.PROT_READ | MemoryConstants.PROT_WRITE;
+
+    private MemoryManager memoryManager;
+    private Task task;
+    private Map<Integer, SystemCallDispatcher.SystemCallHandler> handlers;
+    private VirtualFileSystem vfs;
+
+    @BeforeEach
+    void setUp() {
+        memoryManager = new MemoryManager();
+        task = new Task(1, 0, memoryManager.createAddressSpace());
+        handlers = new HashMap<>();
+        vfs = new VirtualFileSystem();
+        vfs.init();
+        MiscSyscalls miscSyscalls = new MiscSyscalls(memoryManager);
+        miscSyscalls.setVfs(vfs);
+        miscSyscalls.registerHandlers(handlers);
+    }
+
+    /**
+     * 创建内容为 data 的文件并以 mode 打开
+     */
+    private int openFileWith(byte[] data, int mode) {
+        Inode inode = vfs.createFile("/mapped", vfs.getRootInode(), 0644);
+        assertNotNull(inode);
+        assertEquals(data.length, vfs.writeFileData(inode, 0, data, 0, data.length));
+        return task.getFdTable().allocate(new File(inode, mode));
+    }
+
+    private static byte[] pattern(int len) {
+        byte[] data = new byte[len];
+        for (int i = 0; i < len; i++) {
+            data[i] = (byte) (i * 7 + 3);
+        }
+        return data;
+    }
+
+    private long syscall(int nr, long arg1, long arg2, long arg3) {
+        return handlers.get(nr).handle(task, arg1, arg2, arg3);
+    }
+
+    @Test
+    void testMmapPopulatesLazilyAndMunmapReleases() {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        IAddressSpace as = task.getAddressSpace();
+        int freeBefore = pm.getFreePages();
+
+        long length = 1024 * 1024;
+        long addr = syscall(Syscalls.SYS_MMAP, 0, length, PROT_RW);
+        assertTrue(addr > 0);
+        assertEquals(freeBefore, pm.getFreePages());
+
+        as.writeByte(addr, (byte) 1);
+        as.writeByte(addr + length - 1, (byte) 2);
+        assertEquals(freeBefore - 2, pm.getFreePages());
+
+        assertEquals(0, syscall(Syscalls.SYS_MUNMAP, addr, length, 0));
+        assertEquals(freeBefore, pm.getFreePages());
+    }
+
+    @Test
+    void testReadOnlyMapping() {
+        long addr = syscall(Syscalls.SYS_MMAP, 0, MemoryConstants.PAGE_SIZE, MemoryConstants.PROT_READ);
+        assertTrue(addr > 0);
+        assertEquals(0, task.getAddressSpace().readByte(addr));
+        assertThrows(RuntimeException.class, () -> task.getAddressSpace().writeByte(addr, (byte) 1));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertEquals(-ErrorCode.EINVAL, syscall(Syscalls.SYS_MMAP, 0, 0, PROT_RW));
+        assertEquals(-ErrorCode.EINVAL, syscall(Syscalls.SYS_MMAP, 0x1001, 4096, PROT_RW));
+        assertEquals(-ErrorCode.ENOMEM, syscall(Syscalls.SYS_MMAP, 0, MemoryConstants.TASK_SIZE, PROT_RW));
+        assertEquals(-ErrorCode.EINVAL, syscall(Syscalls.SYS_MUNMAP, 0x1001, 4096, 0));
+    }
+
+    @Test
+    void testFileMappingSharesPageCachePages() {
+        byte[] data = pattern(MemoryConstants.PAGE_SIZE + 1500);
+        int fd = openFileWith(data, File.O_RDONLY);
+        long arg = MemoryConstants.mmapArg(MemoryConstants.PROT_READ, MemoryConstants.MAP_SHARED, fd, 0);
+
+        long addr = syscall(Syscalls.SYS_MMAP, 0, data.length, arg);
+        assertTrue(addr > 0);
+        IAddressSpace as = task.getAddressSpace();
+        byte[] read = new byte[data.length];
+        as.readBytes(addr, read, 0, read.length);
+        assertArrayEquals(data, read);
+        // 文件末尾之后的页内字节为零
+        assertEquals(0, as.readByte(addr + data.length));
+
+        // 只读共享映射不能写
+        assertThrows(RuntimeException.class, () -> as.writeByte(addr, (byte) 0));
+
+        // 第二个进程映射同一文件，直接共享页缓存中的物理页
+        Task other = new Task(2, 0, memoryManager.createAddressSpace());
+        long addr2 = handlers.get(Syscalls.SYS_MMAP).handle(other, 0, data.length,
+            MemoryConstants.mmapArg(MemoryConstants.PROT_READ, MemoryConstants.MAP_SHARED,
+                other.getFdTable().allocate(task.getFdTable().get(fd)), 0));
+        assertEquals(data[5], other.getAddressSpace().readByte(addr2 + 5));
+        int vpage = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+        int vpage2 = (int) (addr2 >> MemoryConstants.PAGE_SHIFT);
+        assertEquals(as.getPageTable().getPhysicalPage(vpage), other.getAddressSpace().getPageTable().getPhysicalPage(vpage2));
+        assertEquals(2, memoryManager.getPageCache().size());
+        assertEquals(2, memoryManager.getPageCache().getMisses());
+    }
+
+    @Test
+    void testPrivateFileMappingIsCopyOnWrite() {
+        byte[] data = pattern(MemoryConstants.PAGE_SIZE * 2);
+        int fd = openFileWith(data, File.O_RDWR);
+        long arg = MemoryConstants.mmapArg(PROT_RW, MemoryConstants.MAP_PRIVATE, fd, 1);
+
+        long addr = syscall(Syscalls.SYS_MMAP, 0, MemoryConstants.PAGE_SIZE, arg);
+        assertTrue(addr > 0);
+        IAddressSpace as = task.getAddressSpace();
+        assertEquals(data[MemoryConstants.PAGE_SIZE], as.readByte(addr));
+        int vpage = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+        assertTrue(as.getPageTable().checkPermission(vpage, PageTable.PAGE_COW));
+
+        as.writeByte(addr, (byte) 0x7F);
+        assertEquals((byte) 0x7F, as.readByte(addr));
+
+        // 文件内容和页缓存不受影响
+        byte[] fileData = new byte[1];
+        vfs.readFileData(task.getFdTable().get(fd).getInode(), MemoryConstants.PAGE_SIZE, fileData, 0, 1);
+        assertEquals(data[MemoryConstants.PAGE_SIZE], fileData[0]);
+
+        // 超出文件末尾的页访问失败
+        long beyond = syscall(Syscalls.SYS_MMAP, 0, MemoryConstants.PAGE_SIZE,
+            MemoryConstants.mmapArg(MemoryConstants.PROT_READ, MemoryConstants.MAP_PRIVATE, fd, 5));
+        assertThrows(RuntimeException.class, () -> as.readByte(beyond));
+    }
+
+    @Test
+    void testFileWriteInvalidatesCachedPage() {
+        byte[] data = pattern(100);
+        int fd = openFileWith(data, File.O_RDWR);
+        long arg = MemoryConstants.mmapArg(MemoryConstants.PROT_READ, MemoryConstants.MAP_SHARED, fd, 0);
+        long addr = syscall(Syscalls.SYS_MMAP, 0, 100, arg);
+        assertEquals(data[0], task.getAddressSpace().readByte(addr));
+
+        Inode inode = task.getFdTable().get(fd).getInode();
+        vfs.writeFileData(inode, 0, new byte[] {42}, 0, 1);
+
+        // 新的映射看到新内容
+        long addr2 = syscall(Syscalls.SYS_MMAP, 0, 100, arg);
+        assertEquals(42, task.getAddressSpace().readByte(addr2));
+    }
+
+    @Test
+    void testFileMappingErrors() {
+        int fd = openFileWith(pattern(10), File.O_WRONLY);
+        assertEquals(-ErrorCode.EBADF, syscall(Syscalls.SYS_MMAP, 0, 10,
+            MemoryConstants.mmapArg(MemoryConstants.PROT_READ, MemoryConstants.MAP_SHARED, fd, 0)));
+        assertEquals(-ErrorCode.EBADF, syscall(Syscalls.SYS_MMAP, 0, 10,
+            MemoryConstants.mmapArg(MemoryConstants.PROT_READ, MemoryConstants.MAP_SHARED, 99, 0)));
+
+        int rw = task.getFdTable().allocate(new File(task.getFdTable().get(fd).getInode(), File.O_RDWR));
+        assertEquals(-ErrorCode.EACCES, syscall(Syscalls.SYS_MMAP, 0, 10,
+            MemoryConstants.mmapArg(PROT_RW, MemoryConstants.MAP_SHARED, rw, 0)));
+    }
+}
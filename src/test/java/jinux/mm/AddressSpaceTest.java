@@ -174,5 +174,345 @@ public class AddressSpaceTest {
         // setDataEnd应该同时设置brk
         assertEquals(0x4000, addressSpace.getBrk());
     }
-}
+    
+    @Test
+    void testCopySharesPagesAndFreeReleasesThem() {
+        int flags = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        
+        assertTrue(addressSpace.allocateAndMap(0x1000, flags));
+        assertTrue(addressSpace.allocateAndMap(0x03F00000L, flags));
+        int freeBefore = pm.getFreePages();
+        int ppage = addressSpace.getPageTable().getPhysicalPage(1);
+        
+        IAddressSpace child = addressSpace.copy();
+        assertEquals(freeBefore, pm.getFreePages());
+        assertEquals(2, pm.getPageRefCount(ppage));
+        assertEquals(2, child.getPageTable().getMappedPageCount());
+        assertTrue(child.getPageTable().checkPermission(1, PageTable.PAGE_COW));
+        assertTrue(addressSpace.getPageTable().checkPermission(1, PageTable.PAGE_COW));
+        
+        child.free();
+        assertEquals(1, pm.getPageRefCount(ppage));
+        addressSpace.free();
+        assertEquals(freeBefore + 2, pm.getFreePages());
+    }
+    
+    @Test
+    void testBrkQueryDoesNotShrink() {
+        addressSpace.setDataEnd(0x2000);
+        long brk = addressSpace.expandBrk(0x5000);
+        assertEquals(brk, addressSpace.expandBrk(0));
+        assertEquals(brk, addressSpace.getBrk());
+    }
+    
+    @Test
+    void testLazyBrkAllocatesOnFirstTouch() {
+        memoryManager.setDemandPaging(true);
+        IAddressSpace lazy = memoryManager.createAddressSpace();
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        lazy.setDataEnd(0x10000);
+        memoryManager.getZeroPage();
+        int freeBefore = pm.getFreePages();
+        
+        // 扩展 1MB 堆不分配任何页面
+        long newBrk = lazy.expandBrk(0x10000 + 1024 * 1024);
+        assertEquals(0x10000 + 1024 * 1024, newBrk);
+        assertEquals(freeBefore, pm.getFreePages());
+        assertEquals(0, lazy.getPageTable().getMappedPageCount());
+        
+        // 首次读取映射共享零页，首次写入分配私有页
+        assertEquals(0, lazy.readByte(0x10000));
+        lazy.writeByte(0x20010, (byte) 0x5A);
+        assertEquals((byte) 0x5A, lazy.readByte(0x20010));
+        assertEquals(2, lazy.getPageTable().getMappedPageCount());
+        assertEquals(freeBefore - 1, pm.getFreePages());
+        
+        // brk 以上的访问仍然是缺页错误
+        assertThrows(AddressSpace.PageFaultException.class, () -> lazy.readByte(newBrk));
+        
+        // 缩小堆释放已调入的页面
+        lazy.expandBrk(0x20000);
+        assertEquals(freeBefore, pm.getFreePages());
+        assertThrows(AddressSpace.PageFaultException.class, () -> lazy.writeByte(0x20010, (byte) 1));
+        
+        lazy.free();
+        assertEquals(freeBefore, pm.getFreePages());
+    }
+    
+    @Test
+    void testZeroPageSharedUntilWritten() {
+        memoryManager.setDemandPaging(true);
+        IAddressSpace lazy = memoryManager.createAddressSpace();
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        int zeroPage = memoryManager.getZeroPage();
+        lazy.setDataEnd(0x10000);
+        lazy.expandBrk(0x20000);
+        int freeBefore = pm.getFreePages();
+        
+        // 读取 16 页只映射同一个零页
+        for (long addr = 0x10000; addr < 0x20000; addr += MemoryConstants.PAGE_SIZE) {
+            assertEquals(0, lazy.readByte(addr + 5));
+            assertEquals(zeroPage, lazy.getPageTable().getPhysicalPage((int) (addr >> MemoryConstants.PAGE_SHIFT)));
+        }
+        assertEquals(freeBefore, pm.getFreePages());
+        assertEquals(17, pm.getPageRefCount(zeroPage));
+        
+        // 写入后换成私有页，零页内容不变
+        lazy.writeByte(0x11000, (byte) 9);
+        assertEquals((byte) 9, lazy.readByte(0x11000));
+        assertNotEquals(zeroPage, lazy.getPageTable().getPhysicalPage(0x11));
+        assertEquals(0, lazy.readByte(0x12000));
+        assertEquals(0, pm.readByte((long) zeroPage << MemoryConstants.PAGE_SHIFT));
+        assertEquals(freeBefore - 1, pm.getFreePages());
+        
+        lazy.free();
+        assertEquals(1, pm.getPageRefCount(zeroPage));
+    }
+    
+    @Test
+    void testLazyStackAndBulkAccess() {
+        memoryManager.setDemandPaging(true);
+        IAddressSpace lazy = memoryManager.createAddressSpace();
+        long sp = lazy.getStackTop() + MemoryConstants.PAGE_SIZE - 100;
+        
+        byte[] data = new byte[MemoryConstants.PAGE_SIZE + 200];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        long start = sp - MemoryConstants.PAGE_SIZE - 100;
+        lazy.writeBytes(start, data, 0, data.length);
+        
+        byte[] read = new byte[data.length];
+        lazy.readBytes(start, read, 0, read.length);
+        assertArrayEquals(data, read);
+        
+        // 栈区域之外不会自动分配
+        long below = lazy.getStackTop() + MemoryConstants.PAGE_SIZE - MemoryConstants.USER_STACK_SIZE - 1;
+        assertThrows(AddressSpace.PageFaultException.class, () -> lazy.readByte(below));
+        lazy.free();
+    }
+    
+    @Test
+    void testLazyPagesInChildAfterFork() {
+        memoryManager.setDemandPaging(true);
+        IAddressSpace lazy = memoryManager.createAddressSpace();
+        lazy.setDataEnd(0x8000);
+        lazy.expandBrk(0x10000);
+        lazy.writeByte(0x8000, (byte) 9);
+        
+        IAddressSpace child = lazy.copy();
+        assertEquals((byte) 9, child.readByte(0x8000));
+        child.writeByte(0xC000, (byte) 3);
+        assertEquals((byte) 3, child.readByte(0xC000));
+        assertFalse(lazy.getPageTable().isMapped(0xC));
+        
+        child.free();
+        lazy.free();
+    }
+    
+    @Test
+    void testMmapAnonymousIsLazyAndMunmapFrees() {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        int freeBefore = pm.getFreePages();
+        
+        long addr = addressSpace.mmapAnonymous(0, 4 * MemoryConstants.PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        assertTrue(addr > 0);
+        assertEquals(0, addr % MemoryConstants.PAGE_SIZE);
+        assertEquals(freeBefore, pm.getFreePages());
+        
+        addressSpace.writeByte(addr + 10, (byte) 1);
+        addressSpace.writeByte(addr + 3 * MemoryConstants.PAGE_SIZE, (byte) 2);
+        assertEquals(freeBefore - 2, pm.getFreePages());
+        
+        // 第二个映射不与第一个重叠
+        long addr2 = addressSpace.mmapAnonymous(addr, MemoryConstants.PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        assertTrue(addr2 + MemoryConstants.PAGE_SIZE <= addr || addr2 >= addr + 4 * MemoryConstants.PAGE_SIZE);
+        
+        // 解除中间两页，首尾两页仍然可用
+        assertTrue(addressSpace.munmap(addr + MemoryConstants.PAGE_SIZE, 2 * MemoryConstants.PAGE_SIZE));
+        assertEquals((byte) 1, addressSpace.readByte(addr + 10));
+        assertThrows(AddressSpace.PageFaultException.class,
+            () -> addressSpace.readByte(addr + MemoryConstants.PAGE_SIZE));
+        
+        assertTrue(addressSpace.munmap(addr, 4 * MemoryConstants.PAGE_SIZE));
+        assertEquals(freeBefore, pm.getFreePages());
+        assertThrows(AddressSpace.PageFaultException.class,
+            () -> addressSpace.readByte(addr + 3 * MemoryConstants.PAGE_SIZE));
+    }
+    
+    @Test
+    void testBrkDoesNotGrowIntoMapping() {
+        addressSpace.setDataEnd(0x10000);
+        long addr = addressSpace.mmapAnonymous(0x20000, MemoryConstants.PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        assertEquals(0x20000, addr);
+        
+        assertEquals(0x20000, addressSpace.expandBrk(0x20000));
+        assertEquals(0x20000, addressSpace.expandBrk(0x30000));
+        assertFalse(addressSpace.munmap(0x20001, MemoryConstants.PAGE_SIZE));
+    }
+    
+    @Test
+    void testForkKeepsReadOnlyPagesReadOnly() {
+        int roFlags = PageTable.PAGE_PRESENT | PageTable.PAGE_USER;
+        assertTrue(addressSpace.allocateAndMap(0x1000, roFlags));
+        
+        IAddressSpace child = addressSpace.copy();
+        assertEquals(roFlags, child.getPageTable().getFlags(1));
+        assertThrows(AddressSpace.PageFaultException.class, () -> child.writeByte(0x1000, (byte) 1));
+        child.free();
+    }
 
+    @Test
+    void testHugePagesForLargeAnonymousMapping() {
+        MemoryManager buddyManager = new MemoryManager(new BuddyPhysicalMemory());
+        buddyManager.setHugePagePolicy(HugePagePolicy.ALWAYS);
+        AddressSpace space = (AddressSpace) buddyManager.createAddressSpace();
+        IPhysicalMemory pm = buddyManager.getPhysicalMemory();
+        buddyManager.getZeroPage(); // 零页常驻，先分配以免影响计数
+        int freeBefore = pm.getFreePages();
+        
+        long addr = space.mmapAnonymous(0, 2L * MemoryConstants.HUGE_PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        long hugeAddr = (addr + MemoryConstants.HUGE_PAGE_SIZE - 1) & ~((long) MemoryConstants.HUGE_PAGE_SIZE - 1);
+        
+        space.writeByte(hugeAddr + 12345, (byte) 7);
+        
+        // 对齐的 4MB 范围由一个大页映射，物理页连续
+        assertEquals(1, space.getHugePageCount());
+        assertEquals(freeBefore - MemoryConstants.HUGE_PAGE_PAGES, pm.getFreePages());
+        IPageTable pt = space.getPageTable();
+        int vpage = (int) (hugeAddr >> MemoryConstants.PAGE_SHIFT);
+        assertTrue(pt.isHugeMapped(vpage));
+        assertEquals(pt.getPhysicalPage(vpage) + 99, pt.getPhysicalPage(vpage + 99));
+        assertEquals(7, space.readByte(hugeAddr + 12345));
+        
+        // 区域内不满 4MB 的部分仍使用普通页
+        if (hugeAddr > addr) {
+            space.writeByte(addr, (byte) 1);
+            assertFalse(pt.isHugeMapped((int) (addr >> MemoryConstants.PAGE_SHIFT)));
+        }
+        
+        // fork 后写入：大页被拆分，只复制被写的那一页
+        IAddressSpace child = space.copy();
+        child.writeByte(hugeAddr + 12345, (byte) 9);
+        assertEquals(7, space.readByte(hugeAddr + 12345));
+        assertEquals(9, child.readByte(hugeAddr + 12345));
+        assertEquals(0, child.getPageTable().getHugeMappingCount());
+        assertEquals(1, space.getHugePageCount());
+        
+        child.free();
+        space.free();
+        assertEquals(freeBefore, pm.getFreePages());
+    }
+    
+    @Test
+    void testHugePagesFallBackWithoutContiguousMemory() {
+        memoryManager.setHugePagePolicy(HugePagePolicy.ALWAYS);
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        
+        long addr = space.mmapAnonymous(0, 2L * MemoryConstants.HUGE_PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        long hugeAddr = (addr + MemoryConstants.HUGE_PAGE_SIZE - 1) & ~((long) MemoryConstants.HUGE_PAGE_SIZE - 1);
+        space.writeByte(hugeAddr, (byte) 3);
+        
+        assertEquals(0, space.getHugePageCount());
+        assertEquals(1, space.getPageTable().getMappedPageCount());
+        assertEquals(3, space.readByte(hugeAddr));
+        space.free();
+    }
+    
+    @Test
+    void testAdviseHugePages() {
+        MemoryManager buddyManager = new MemoryManager(new BuddyPhysicalMemory());
+        buddyManager.setHugePagePolicy(HugePagePolicy.MADVISE);
+        AddressSpace space = (AddressSpace) buddyManager.createAddressSpace();
+        
+        long addr = space.mmapAnonymous(0, 2L * MemoryConstants.HUGE_PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        long hugeAddr = (addr + MemoryConstants.HUGE_PAGE_SIZE - 1) & ~((long) MemoryConstants.HUGE_PAGE_SIZE - 1);
+        assertFalse(space.findVma(addr).isHugePages());
+        
+        assertTrue(space.adviseHugePages(addr, true));
+        space.writeByte(hugeAddr, (byte) 1);
+        assertEquals(1, space.getHugePageCount());
+        assertFalse(space.adviseHugePages(0x10, true));
+        space.free();
+    }
+    
+    @Test
+    void testMemoryUsageAccounting() {
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        long addr = space.mmapAnonymous(0, 4L * MemoryConstants.PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        assertEquals(0, space.getMemoryUsage().getResidentPages());
+        
+        // 读缺页映射零页（COW 共享），写缺页分配私有页
+        space.readByte(addr);
+        space.writeByte(addr + MemoryConstants.PAGE_SIZE, (byte) 1);
+        MemoryUsage usage = space.getMemoryUsage();
+        assertEquals(2, usage.getResidentPages());
+        assertEquals(1, usage.getSharedPages());
+        assertEquals(2, usage.getMinorFaults());
+        assertEquals(0, usage.getCowFaults());
+        
+        // 写零页触发 COW，共享页变为私有
+        space.writeByte(addr, (byte) 2);
+        usage = space.getMemoryUsage();
+        assertEquals(0, usage.getSharedPages());
+        assertEquals(1, usage.getCowFaults());
+        assertEquals(3, usage.getMinorFaults());
+        
+        // fork 后父子进程的页都是 COW 共享页，子进程的缺页计数从 0 开始
+        AddressSpace child = (AddressSpace) space.copy();
+        assertEquals(2, space.getMemoryUsage().getSharedPages());
+        assertEquals(2, child.getMemoryUsage().getSharedPages());
+        assertEquals(0, child.getMemoryUsage().getMinorFaults());
+        
+        child.writeByte(addr, (byte) 3);
+        assertEquals(1, child.getMemoryUsage().getSharedPages());
+        assertEquals(1, child.getMemoryUsage().getPrivatePages());
+        
+        assertTrue(space.munmap(addr, 4L * MemoryConstants.PAGE_SIZE));
+        assertEquals(0, space.getMemoryUsage().getResidentPages());
+        assertEquals(0, space.getMemoryUsage().getSharedPages());
+        child.free();
+        assertEquals(0, child.getMemoryUsage().getResidentPages());
+    }
+    
+    @Test
+    void testReadsNeverSeeMigratedAwayPage() throws InterruptedException {
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        long addr = space.mmapAnonymous(0, MemoryConstants.PAGE_SIZE, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        byte[] pattern = new byte[MemoryConstants.PAGE_SIZE];
+        java.util.Arrays.fill(pattern, (byte) 0x5A);
+        space.writeBytes(addr, pattern, 0, pattern.length);
+        int vpage = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+        
+        // 另一个线程像 kcompactd 一样反复迁移页面，旧页释放后立即被清零重用
+        java.util.concurrent.atomic.AtomicBoolean done = new java.util.concurrent.atomic.AtomicBoolean();
+        Thread migrator = new Thread(() -> {
+            byte[] zeros = new byte[MemoryConstants.PAGE_SIZE];
+            while (!done.get()) {
+                int oldPage = space.getPageTable().getPhysicalPage(vpage);
+                int newPage = pm.allocPage();
+                if (!space.migratePage(vpage, oldPage, newPage)) {
+                    pm.freePage(newPage);
+                    continue;
+                }
+                pm.writeBytes(MemoryConstants.page2vaddr(oldPage), zeros, 0, zeros.length);
+                pm.freePage(oldPage);
+            }
+        });
+        migrator.start();
+        
+        byte[] buf = new byte[MemoryConstants.PAGE_SIZE];
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                space.readBytes(addr, buf, 0, buf.length);
+                assertArrayEquals(pattern, buf, "iteration " + i);
+                assertEquals((byte) 0x5A, space.readByte(addr + (i & (MemoryConstants.PAGE_SIZE - 1))));
+            }
+        } finally {
+            done.set(true);
+            migrator.join();
+        }
+    }
+}
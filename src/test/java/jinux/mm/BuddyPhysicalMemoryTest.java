@@ -0,0 +1,147 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BuddyPhysicalMemory 测试
+ *
+ * @author Jinux Project
+ */
+class BuddyPhysicalMemoryTest {
+
+    private BuddyPhysicalMemory physicalMemory;
+
+    @BeforeEach
+    void setUp() {
+        physicalMemory = new BuddyPhysicalMemory();
+    }
+
+    @Test
+    void testInitialState() {
+        int kernelPages = MemoryConstants.KERNEL_MEMORY / MemoryConstants.PAGE_SIZE;
+        assertEquals(MemoryConstants.NR_PAGES - kernelPages, physicalMemory.getFreePages());
+        assertEquals(BuddyPhysicalMemory.MAX_ORDER, physicalMemory.getLargestFreeOrder());
+        // 内核占用的 1MB 之后到 4MB 边界之间是 1MB、2MB 两个较小的块
+        assertEquals(0.0, physicalMemory.getFragmentation(8), 1e-9);
+        assertTrue(physicalMemory.getFragmentation(BuddyPhysicalMemory.MAX_ORDER) > 0.0);
+    }
+
+    @Test
+    void testAllocPagesIsAlignedAndContiguous() {
+        int order = 3;
+        int pageNo = physicalMemory.allocPages(order);
+
+        assertTrue(pageNo > 0);
+        assertEquals(0, pageNo & ((1 << order) - 1));
+        for (int i = 0; i < (1 << order); i++) {
+            assertEquals(1, physicalMemory.getPageRefCount(pageNo + i));
+        }
+
+        // 整块可以作为一段连续物理内存读写
+        long paddr = (long) pageNo << MemoryConstants.PAGE_SHIFT;
+        byte[] data = new byte[(1 << order) * MemoryConstants.PAGE_SIZE];
+        data[0] = 1;
+        data[data.length - 1] = 2;
+        physicalMemory.writeBytes(paddr, data, 0, data.length);
+        assertEquals(2, physicalMemory.readByte(paddr + data.length - 1));
+    }
+
+    @Test
+    void testFreeCoalescesBuddies() {
+        int initialFree = physicalMemory.getFreePages();
+        int[] initialBlocks = freeBlocks();
+
+        // 单页分配会把最小的空闲块逐级拆开，每个更低的阶各留下一个空闲块
+        int page = physicalMemory.allocPage();
+        for (int order = 0; order < 8; order++) {
+            assertEquals(1, physicalMemory.getFreeBlocks(order), "order " + order);
+        }
+
+        physicalMemory.freePage(page);
+
+        // 释放后逐级合并回原来的块
+        assertEquals(initialFree, physicalMemory.getFreePages());
+        assertArrayEquals(initialBlocks, freeBlocks());
+    }
+
+    @Test
+    void testFreePagesOfBlock() {
+        int initialFree = physicalMemory.getFreePages();
+        int pageNo = physicalMemory.allocPages(5);
+        assertEquals(initialFree - 32, physicalMemory.getFreePages());
+
+        physicalMemory.freePages(pageNo, 5);
+
+        assertEquals(initialFree, physicalMemory.getFreePages());
+        assertEquals(0.0, physicalMemory.getFragmentation(8), 1e-9);
+    }
+
+    @Test
+    void testSharedPageNotCoalescedUntilLastReference() {
+        int page = physicalMemory.allocPage();
+        physicalMemory.incrementPageRef(page);
+
+        physicalMemory.freePage(page);
+        assertEquals(1, physicalMemory.getPageRefCount(page));
+        assertEquals(1, physicalMemory.getFreeBlocks(0));
+
+        physicalMemory.freePage(page);
+        assertEquals(0, physicalMemory.getPageRefCount(page));
+        assertEquals(0, physicalMemory.getFreeBlocks(0));
+    }
+
+    @Test
+    void testFragmentation() {
+        // 分配全部单页，再隔页释放：空闲页都无法合并
+        List<Integer> pages = new ArrayList<>();
+        int page;
+        while ((page = physicalMemory.allocPage()) >= 0) {
+            pages.add(page);
+        }
+        assertEquals(0, physicalMemory.getFreePages());
+        assertEquals(-1, physicalMemory.allocPages(1));
+
+        for (int p : pages) {
+            if ((p & 1) == 0) {
+                physicalMemory.freePage(p);
+            }
+        }
+
+        assertTrue(physicalMemory.getFreePages() > 0);
+        assertEquals(0, physicalMemory.getLargestFreeOrder());
+        assertEquals(1.0, physicalMemory.getFragmentation(1), 1e-9);
+        assertEquals(-1, physicalMemory.allocPages(1));
+        assertTrue(physicalMemory.allocPage() >= 0);
+    }
+
+    @Test
+    void testInvalidOrder() {
+        assertThrows(IllegalArgumentException.class, () -> physicalMemory.allocPages(-1));
+        assertThrows(IllegalArgumentException.class,
+            () -> physicalMemory.allocPages(BuddyPhysicalMemory.MAX_ORDER + 1));
+    }
+
+    @Test
+    void testFlatMemoryOnlySupportsOrderZero() {
+        PhysicalMemory flat = new PhysicalMemory();
+        assertEquals(-1, flat.allocPages(1));
+        int page = flat.allocPages(0);
+        assertTrue(page >= 0);
+        flat.freePages(page, 0);
+        assertEquals(0, flat.getPageRefCount(page));
+    }
+
+    private int[] freeBlocks() {
+        int[] blocks = new int[BuddyPhysicalMemory.MAX_ORDER + 1];
+        for (int order = 0; order <= BuddyPhysicalMemory.MAX_ORDER; order++) {
+            blocks[order] = physicalMemory.getFreeBlocks(order);
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,58 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+/**
+ * fork 风暴基准：反复 copy() + free() 地址空间，测量每秒 fork 次数
+ *
+ * fork/exit 的代价应与已映射页数成正比，而与 TASK_SIZE 无关。
+ * 不是单元测试（surefire 不会运行），手动执行：
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes jinux.mm.ForkBenchmark
+ * </pre>
+ */
+public class ForkBenchmark {
+
+    /** 每个地址空间映射的页数 */
+    private static final int[] RESIDENT_PAGES = {4, 64, 1024};
+
+    /** 每轮测量时长（毫秒） */
+    private static final long ROUND_MILLIS = 1000;
+
+    public static void main(String[] args) {
+        System.out.println("Fork storm benchmark: copy() + free() of one address space\n");
+
+        for (int pages : RESIDENT_PAGES) {
+            run("PageTable", pages, new PageTable());
+            run("TwoLevelPageTable", pages, new TwoLevelPageTable());
+        }
+    }
+
+    private static void run(String name, int pages, IPageTable table) {
+        MemoryManager memoryManager = new MemoryManager();
+        AddressSpace parent = new AddressSpace(memoryManager, table);
+        for (int i = 0; i < pages; i++) {
+            parent.allocateAndMap((long) i << MemoryConstants.PAGE_SHIFT, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        }
+
+        // 预热
+        forkLoop(parent, ROUND_MILLIS / 2);
+        long forks = forkLoop(parent, ROUND_MILLIS);
+
+        System.out.printf("%-18s %5d pages: %10.0f forks/sec%n",
+            name, pages, forks * 1000.0 / ROUND_MILLIS);
+        parent.free();
+    }
+
+    private static long forkLoop(AddressSpace parent, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        long forks = 0;
+        while (System.nanoTime() < deadline) {
+            IAddressSpace child = parent.copy();
+            child.free();
+            forks++;
+        }
+        return forks;
+    }
+}
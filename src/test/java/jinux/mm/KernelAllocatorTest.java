@@ -0,0 +1,125 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * KernelAllocator 的单元测试
+ */
+public class KernelAllocatorTest {
+
+    private MemoryManager memoryManager;
+    private KernelAllocator kmem;
+    private IPhysicalMemory pm;
+
+    @BeforeEach
+    void setUp() {
+        memoryManager = new MemoryManager();
+        kmem = memoryManager.getKernelAllocator();
+        pm = memoryManager.getPhysicalMemory();
+    }
+
+    @Test
+    void testSizeClasses() {
+        long a = kmem.kmalloc(1);
+        long b = kmem.kmalloc(33);
+        long c = kmem.kmalloc(2048);
+        long d = kmem.kmalloc(3000);
+
+        assertEquals(32, kmem.ksize(a));
+        assertEquals(64, kmem.ksize(b));
+        assertEquals(2048, kmem.ksize(c));
+        assertEquals(MemoryConstants.PAGE_SIZE, kmem.ksize(d));
+        assertEquals(0, d & (MemoryConstants.PAGE_SIZE - 1));
+        // 对象从物理内存中切分，地址在内核保留区之上
+        assertTrue(a >= MemoryConstants.KERNEL_MEMORY);
+
+        kmem.kfree(a);
+        kmem.kfree(b);
+        kmem.kfree(c);
+        kmem.kfree(d);
+        assertEquals(0, kmem.getAllocatedBytes());
+    }
+
+    @Test
+    void testMultiPageAllocation() {
+        // 超过一页的请求需要物理连续页，由伙伴系统提供
+        MemoryManager buddy = new MemoryManager(new BuddyPhysicalMemory());
+        KernelAllocator allocator = buddy.getKernelAllocator();
+        int freeBefore = buddy.getPhysicalMemory().getFreePages();
+
+        long addr = allocator.kmalloc(5000);
+        assertTrue(addr >= 0);
+        assertEquals(2 * MemoryConstants.PAGE_SIZE, allocator.ksize(addr));
+        assertEquals(2, allocator.getPageCount());
+        assertEquals(freeBefore - 2, buddy.getPhysicalMemory().getFreePages());
+
+        allocator.kfree(addr);
+        assertEquals(freeBefore, buddy.getPhysicalMemory().getFreePages());
+    }
+
+    @Test
+    void testObjectsShareSlabPages() {
+        int freeBefore = pm.getFreePages();
+        List<Long> objects = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            long addr = kmem.kmalloc(64);
+            assertTrue(addr >= 0);
+            pm.writeByte(addr, (byte) i);
+            objects.add(addr);
+        }
+
+        // 每页 64 个对象：256 个对象占 4 页，计入物理内存占用
+        assertEquals(4, kmem.getPageCount());
+        assertEquals(freeBefore - 4, pm.getFreePages());
+        assertEquals(256L * 64, kmem.getAllocatedBytes());
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals((byte) i, pm.readByte(objects.get(i)));
+        }
+
+        // 全部释放后只保留一个空 slab
+        for (long addr : objects) {
+            kmem.kfree(addr);
+        }
+        assertEquals(1, kmem.getPageCount());
+        assertEquals(freeBefore - 1, pm.getFreePages());
+    }
+
+    @Test
+    void testFreedObjectIsReused() {
+        long a = kmem.kmalloc(100);
+        kmem.kfree(a);
+        assertEquals(a, kmem.kmalloc(100));
+
+        long z = kmem.kzalloc(3000);
+        for (int i = 0; i < 3000; i += 500) {
+            assertEquals(0, pm.readByte(z + i));
+        }
+    }
+
+    @Test
+    void testInvalidFree() {
+        long a = kmem.kmalloc(128);
+        assertThrows(IllegalArgumentException.class, () -> kmem.kfree(a + 1));
+        kmem.kfree(a);
+        // 重复释放
+        assertThrows(IllegalArgumentException.class, () -> kmem.kfree(a));
+        assertThrows(IllegalArgumentException.class, () -> kmem.kfree(-1));
+        assertThrows(IllegalArgumentException.class, () -> kmem.kmalloc(0));
+    }
+
+    @Test
+    void testOutOfMemory() {
+        while (memoryManager.allocatePage() >= 0) {
+            // 耗尽物理内存
+        }
+        assertEquals(-1, kmem.kmalloc(64));
+        assertEquals(-1, kmem.kmalloc(2 * MemoryConstants.PAGE_SIZE));
+        assertEquals(2, kmem.getFailureCount());
+    }
+}
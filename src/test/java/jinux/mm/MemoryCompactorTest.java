@@ -0,0 +1,92 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MemoryCompactor 的单元测试
+ */
+public class MemoryCompactorTest {
+
+    private static final int FLAGS = MemoryConstants.DEFAULT_PAGE_FLAGS;
+    private static final int ORDER = MemoryConstants.HUGE_PAGE_ORDER;
+
+    private MemoryManager memoryManager;
+    private IPhysicalMemory pm;
+    private MemoryCompactor compactor;
+    private AddressSpace space;
+    private int pages;
+
+    @BeforeEach
+    void setUp() {
+        memoryManager = new MemoryManager(new BuddyPhysicalMemory());
+        pm = memoryManager.getPhysicalMemory();
+        compactor = memoryManager.enableCompaction();
+        space = (AddressSpace) memoryManager.createAddressSpace();
+
+        // 两个地址空间交替分配物理页，释放其中一个后空闲页全是孤立的单页
+        AddressSpace other = (AddressSpace) memoryManager.createAddressSpace();
+        long vaddr = 0x100000;
+        while (pm.getFreePages() > 1) {
+            assertTrue(space.allocateAndMap(vaddr, FLAGS));
+            space.writeByte(vaddr, (byte) pages);
+            assertTrue(other.allocateAndMap(vaddr, FLAGS));
+            vaddr += MemoryConstants.PAGE_SIZE;
+            pages++;
+        }
+        other.free();
+    }
+
+    @Test
+    void testCompactCreatesContiguousBlock() {
+        assertTrue(pm.getFreePages() >= 1 << ORDER);
+        assertTrue(compactor.needsCompaction(ORDER));
+        assertEquals(-1, pm.allocPages(ORDER));
+
+        assertTrue(compactor.compact(ORDER));
+        assertEquals(1, compactor.getSuccesses());
+        assertTrue(compactor.getMigratedPages() > 0);
+        assertTrue(pm.getFragmentation(ORDER) < 1.0);
+
+        // 迁移后内容不变，页表指向新页
+        for (int i = 0; i < pages; i++) {
+            assertEquals((byte) i, space.readByte(0x100000L + (long) i * MemoryConstants.PAGE_SIZE));
+        }
+        int block = pm.allocPages(ORDER);
+        assertTrue(block >= 0);
+        pm.freePages(block, ORDER);
+        space.free();
+    }
+
+    @Test
+    void testDirectCompactionOnAllocationFailure() {
+        // 不持有地址空间锁时，直接规整不迁移其他地址空间的页（避免锁顺序死锁）
+        assertEquals(-1, memoryManager.allocatePages(ORDER));
+        assertEquals(0, compactor.getSuccesses());
+
+        // 调用者持有地址空间锁时（如大页缺页），迁移该地址空间的页后重试成功
+        int block;
+        synchronized (space) {
+            block = memoryManager.allocatePages(ORDER);
+        }
+        assertTrue(block >= 0);
+        assertEquals(1, compactor.getSuccesses());
+        memoryManager.freePages(block, ORDER);
+        space.free();
+    }
+
+    @Test
+    void testSharedPagesAreNotMigrated() {
+        // fork 后页面被父子进程共享，不可迁移
+        IAddressSpace child = space.copy();
+        assertFalse(compactor.compact(ORDER));
+        assertEquals(0, compactor.getMigratedPages());
+        assertEquals(-1, pm.allocPages(ORDER));
+
+        child.free();
+        assertTrue(compactor.compact(ORDER));
+        space.free();
+    }
+}
@@ -0,0 +1,49 @@
+package jinux.mm;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ObjectCache 的单元测试
+ */
+public class ObjectCacheTest {
+
+    @Test
+    void testAllocReusesFreedObjects() {
+        ObjectCache<int[]> cache = new ObjectCache<>("test_reuse", () -> new int[4], a -> a[0] = 0, 2);
+
+        int[] first = cache.alloc();
+        first[0] = 42;
+        cache.free(first);
+        assertEquals(1, cache.getFreeCount());
+
+        // 命中空闲链表，拿到的是同一个对象且已重置
+        int[] second = cache.alloc();
+        assertSame(first, second);
+        assertEquals(0, second[0]);
+        assertEquals(2, cache.getAllocCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void testFreeBeyondCapacityDrops() {
+        ObjectCache<Object> cache = new ObjectCache<>("test_drop", Object::new, null, 2);
+        Object a = cache.alloc();
+        Object b = cache.alloc();
+        Object c = cache.alloc();
+        cache.free(a);
+        cache.free(b);
+        cache.free(c);
+        cache.free(null);
+
+        assertEquals(2, cache.getFreeCount());
+        assertEquals(3, cache.getFreeCallCount());
+        assertEquals(1, cache.getDropCount());
+
+        assertEquals(2, cache.shrink());
+        assertEquals(0, cache.getFreeCount());
+        assertTrue(ObjectCache.getCaches().contains(cache));
+    }
+}
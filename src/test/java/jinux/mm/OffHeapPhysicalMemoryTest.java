@@ -0,0 +1,104 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapPhysicalMemory类的单元测试
+ */
+public class OffHeapPhysicalMemoryTest {
+
+    private static final long MEMORY_SIZE = 64L * 1024 * 1024;
+
+    private OffHeapPhysicalMemory physicalMemory;
+
+    @BeforeEach
+    void setUp() {
+        physicalMemory = new OffHeapPhysicalMemory(MEMORY_SIZE);
+    }
+
+    @Test
+    void testConfigurableSize() {
+        assertEquals(MEMORY_SIZE, physicalMemory.getMemorySize());
+        assertEquals((int) (MEMORY_SIZE / MemoryConstants.PAGE_SIZE), physicalMemory.getTotalPages());
+        int kernelPages = MemoryConstants.KERNEL_MEMORY / MemoryConstants.PAGE_SIZE;
+        assertEquals(physicalMemory.getTotalPages() - kernelPages, physicalMemory.getFreePages());
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new OffHeapPhysicalMemory(MemoryConstants.KERNEL_MEMORY));
+    }
+
+    @Test
+    void testAllocAndFreePage() {
+        int initialFree = physicalMemory.getFreePages();
+        int pageNo = physicalMemory.allocPage();
+        assertTrue(pageNo >= 0);
+        assertEquals(initialFree - 1, physicalMemory.getFreePages());
+
+        physicalMemory.incrementPageRef(pageNo);
+        physicalMemory.freePage(pageNo);
+        assertEquals(initialFree - 1, physicalMemory.getFreePages());
+        physicalMemory.freePage(pageNo);
+        assertEquals(initialFree, physicalMemory.getFreePages());
+    }
+
+    @Test
+    void testReadWriteAcrossPages() {
+        int first = physicalMemory.allocPage();
+        int second = physicalMemory.allocPage();
+        // 空闲链表按页号升序分配，两页物理连续
+        assertEquals(first + 1, second);
+
+        long paddr = (((long) first) << MemoryConstants.PAGE_SHIFT) + MemoryConstants.PAGE_SIZE - 3;
+        byte[] writeBuf = {1, 2, 3, 4, 5, 6};
+        physicalMemory.writeBytes(paddr, writeBuf, 0, writeBuf.length);
+
+        byte[] readBuf = new byte[writeBuf.length];
+        physicalMemory.readBytes(paddr, readBuf, 0, readBuf.length);
+        assertArrayEquals(writeBuf, readBuf);
+        assertEquals(4, physicalMemory.readByte(paddr + 3));
+    }
+
+    @Test
+    void testAllocatedPageIsZeroed() {
+        int pageNo = physicalMemory.allocPage();
+        long paddr = ((long) pageNo) << MemoryConstants.PAGE_SHIFT;
+        physicalMemory.writeByte(paddr + 100, (byte) 0x7F);
+        physicalMemory.freePage(pageNo);
+
+        assertEquals(pageNo, physicalMemory.allocPage());
+        assertEquals(0, physicalMemory.readByte(paddr + 100));
+    }
+
+    @Test
+    void testOutOfBounds() {
+        assertThrows(IndexOutOfBoundsException.class, () -> physicalMemory.readByte(MEMORY_SIZE));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> physicalMemory.writeBytes(MEMORY_SIZE - 2, new byte[4], 0, 4));
+    }
+
+    @Test
+    void testCopyPage() {
+        int src = physicalMemory.allocPage();
+        int dst = physicalMemory.allocPage();
+        long srcAddr = (long) src << MemoryConstants.PAGE_SHIFT;
+        long dstAddr = (long) dst << MemoryConstants.PAGE_SHIFT;
+        byte[] data = new byte[MemoryConstants.PAGE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        physicalMemory.writeBytes(srcAddr, data, 0, data.length);
+
+        physicalMemory.copyPage(src, dst);
+
+        byte[] copied = new byte[MemoryConstants.PAGE_SIZE];
+        physicalMemory.readBytes(dstAddr, copied, 0, copied.length);
+        assertArrayEquals(data, copied);
+        assertThrows(IndexOutOfBoundsException.class, () -> physicalMemory.copyPage(src, -1));
+    }
+}
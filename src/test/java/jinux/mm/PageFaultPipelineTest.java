@@ -0,0 +1,103 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageFaultPipeline、FaultStatistics 与 LatencyHistogram 的单元测试
+ */
+public class PageFaultPipelineTest {
+
+    private static final int FLAGS = MemoryConstants.DEFAULT_PAGE_FLAGS;
+
+    private MemoryManager memoryManager;
+    private AddressSpace space;
+
+    @BeforeEach
+    void setUp() {
+        memoryManager = new MemoryManager();
+        space = (AddressSpace) memoryManager.createAddressSpace();
+    }
+
+    @Test
+    void testFaultsAreClassifiedByType() {
+        long addr = space.mmapAnonymous(0, 4L * MemoryConstants.PAGE_SIZE, FLAGS);
+        space.readByte(addr);                                           // 零页
+        space.writeByte(addr + MemoryConstants.PAGE_SIZE, (byte) 1);   // 清零的私有页
+        space.writeByte(addr, (byte) 2);                                // 写零页触发 COW
+        space.readByte(addr);                                           // 已映射，不是缺页
+
+        FaultStatistics stats = space.getFaultStatistics();
+        assertEquals(1, stats.getCount(FaultType.ZERO_PAGE));
+        assertEquals(1, stats.getCount(FaultType.ZERO_FILL));
+        assertEquals(1, stats.getCount(FaultType.COPY_ON_WRITE));
+        assertEquals(3, stats.getMinorFaults());
+        assertEquals(0, stats.getMajorFaults());
+        assertEquals(1, stats.getHistogram(FaultType.ZERO_FILL).getCount());
+
+        // 各地址空间的缺页同时计入全局统计
+        assertEquals(1, memoryManager.getFaultStatistics().getCount(FaultType.COPY_ON_WRITE));
+        space.free();
+    }
+
+    @Test
+    void testIllegalAccessCountsAsFailure() {
+        assertThrows(AddressSpace.PageFaultException.class, () -> space.readByte(0x30000));
+
+        // fork 后只读页仍只读，写入经流水线判定为非法
+        assertTrue(space.allocateAndMap(0x1000, PageTable.PAGE_PRESENT | PageTable.PAGE_USER));
+        AddressSpace child = (AddressSpace) space.copy();
+        AddressSpace.PageFaultException e = assertThrows(AddressSpace.PageFaultException.class,
+            () -> child.writeByte(0x1000, (byte) 1));
+        assertTrue(e.getMessage().contains("read-only"));
+
+        assertEquals(1, space.getFaultStatistics().getFailures());
+        assertEquals(1, child.getFaultStatistics().getFailures());
+        assertEquals(2, memoryManager.getFaultStatistics().getFailures());
+        child.free();
+        space.free();
+    }
+
+    @Test
+    void testCustomStage() {
+        // 在最前面插入一个阶段：把一段固定地址映射到新分配的页（类似 userfaultfd）
+        long special = 0x40000;
+        space.getFaultPipeline().addStage(0, fault -> {
+            if (fault.getAddress() >> MemoryConstants.PAGE_SHIFT != special >> MemoryConstants.PAGE_SHIFT) {
+                return PageFaultPipeline.Outcome.CONTINUE;
+            }
+            int ppage = memoryManager.allocatePage();
+            space.getPageTable().map(fault.getVirtualPage(), ppage, FLAGS);
+            fault.resolve(FaultType.ZERO_FILL);
+            return PageFaultPipeline.Outcome.HANDLED;
+        });
+
+        space.writeByte(special + 3, (byte) 7);
+        assertEquals(7, space.readByte(special + 3));
+        assertEquals(1, space.getFaultStatistics().getCount(FaultType.ZERO_FILL));
+        assertThrows(AddressSpace.PageFaultException.class, () -> space.readByte(special + MemoryConstants.PAGE_SIZE));
+        space.free();
+    }
+
+    @Test
+    void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals((99 * 100 + 1_000_000) / 100, histogram.getMeanNanos());
+        // 100ns 落在 [64, 128) 桶，百分位返回桶上界
+        assertEquals(99, histogram.getBucketCount(7));
+        assertEquals(127, histogram.getPercentileNanos(50));
+        assertEquals(127, histogram.getPercentileNanos(99));
+        assertEquals(1_000_000, histogram.getPercentileNanos(100));
+    }
+}
@@ -0,0 +1,175 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * PageReclaimer 与 SwapDevice 的单元测试
+ */
+public class PageReclaimerTest {
+
+    private static final int FLAGS = MemoryConstants.DEFAULT_PAGE_FLAGS;
+
+    @TempDir
+    Path tempDir;
+
+    private MemoryManager memoryManager;
+    private SwapDevice swapDevice;
+    private PageReclaimer reclaimer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        memoryManager = new MemoryManager();
+        swapDevice = new SwapDevice(tempDir.resolve("swap.img"), 1024);
+        reclaimer = memoryManager.enableSwap(swapDevice);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reclaimer.stop();
+        swapDevice.close();
+    }
+
+    @Test
+    void testSwapDeviceSlots() {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        int page = pm.allocPage();
+        pm.writeByte(((long) page << MemoryConstants.PAGE_SHIFT) + 5, (byte) 42);
+
+        int slot = swapDevice.swapOut(pm, page);
+        assertTrue(slot >= 0);
+        assertEquals(1, swapDevice.getUsedSlots());
+
+        int other = pm.allocPage();
+        assertTrue(swapDevice.swapIn(slot, pm, other));
+        assertEquals(42, pm.readByte(((long) other << MemoryConstants.PAGE_SHIFT) + 5));
+
+        swapDevice.incrementRef(slot);
+        swapDevice.freeSlot(slot);
+        assertEquals(1, swapDevice.getUsedSlots());
+        swapDevice.freeSlot(slot);
+        assertEquals(0, swapDevice.getUsedSlots());
+        assertFalse(swapDevice.swapIn(slot, pm, other));
+    }
+
+    @Test
+    void testSwapOutAndFaultBackIn() {
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        for (int i = 0; i < 4; i++) {
+            long vaddr = 0x10000L + (long) i * MemoryConstants.PAGE_SIZE;
+            assertTrue(space.allocateAndMap(vaddr, FLAGS));
+            space.writeByte(vaddr + 100, (byte) (i + 1));
+        }
+        int freeBefore = memoryManager.getPhysicalMemory().getFreePages();
+
+        // 写入过的页带 ACCESSED：第一圈清除标志，第二圈换出
+        assertEquals(4, reclaimer.reclaim(4));
+        assertEquals(4, space.getSwappedPageCount());
+        assertEquals(0, space.getPageTable().getMappedPageCount());
+        assertEquals(freeBefore + 4, memoryManager.getPhysicalMemory().getFreePages());
+        assertEquals(4, swapDevice.getUsedSlots());
+
+        // 访问时透明换入
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 1, space.readByte(0x10000L + (long) i * MemoryConstants.PAGE_SIZE + 100));
+        }
+        assertEquals(0, space.getSwappedPageCount());
+        assertEquals(0, swapDevice.getUsedSlots());
+        assertEquals(4, swapDevice.getSwapIns());
+        space.free();
+    }
+
+    @Test
+    void testAccessedPagesGetSecondChance() {
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        long addr = space.mmapAnonymous(0, 4L * MemoryConstants.PAGE_SIZE, FLAGS);
+        for (int i = 0; i < 4; i++) {
+            space.writeByte(addr + (long) i * MemoryConstants.PAGE_SIZE, (byte) 1);
+        }
+
+        // 访问过的页带 ACCESSED：第一圈只清除标志
+        assertEquals(0, space.reclaimPages(4, swapDevice));
+        assertEquals(4, space.getPageTable().getMappedPageCount());
+        int vpage = (int) (addr >> MemoryConstants.PAGE_SHIFT);
+        assertEquals(0, space.getPageTable().getFlags(vpage) & PageTable.PAGE_ACCESSED);
+
+        // 第二圈换出
+        assertEquals(4, space.reclaimPages(4, swapDevice));
+        assertEquals(1, space.readByte(addr + 3L * MemoryConstants.PAGE_SIZE));
+        space.free();
+        assertEquals(0, swapDevice.getUsedSlots());
+    }
+
+    @Test
+    void testForkSharesSwappedPages() {
+        AddressSpace parent = (AddressSpace) memoryManager.createAddressSpace();
+        assertTrue(parent.allocateAndMap(0x20000, FLAGS));
+        parent.writeByte(0x20000, (byte) 5);
+        assertEquals(1, reclaimer.reclaim(1));
+
+        IAddressSpace child = parent.copy();
+        assertEquals(1, swapDevice.getUsedSlots());
+
+        child.writeByte(0x20000, (byte) 6);
+        assertEquals(5, parent.readByte(0x20000));
+        assertEquals(6, child.readByte(0x20000));
+        assertEquals(0, swapDevice.getUsedSlots());
+
+        child.free();
+        parent.free();
+    }
+
+    @Test
+    void testOvercommitWithSwap() {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        memoryManager.getZeroPage();
+        int freeBefore = pm.getFreePages();
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+
+        // 写入比空闲物理内存多的页面：分配失败时直接回收本进程的冷页
+        int pages = freeBefore + 200;
+        long addr = space.mmapAnonymous(0, (long) pages * MemoryConstants.PAGE_SIZE, FLAGS);
+        assertTrue(addr > 0);
+        for (int i = 0; i < pages; i++) {
+            space.writeByte(addr + (long) i * MemoryConstants.PAGE_SIZE, (byte) i);
+        }
+        assertTrue(space.getSwappedPageCount() >= 200);
+
+        for (int i = 0; i < pages; i += 97) {
+            assertEquals((byte) i, space.readByte(addr + (long) i * MemoryConstants.PAGE_SIZE));
+        }
+
+        space.free();
+        assertEquals(freeBefore, pm.getFreePages());
+        assertEquals(0, swapDevice.getUsedSlots());
+    }
+
+    @Test
+    void testBackgroundReclaimBelowLowWatermark() throws InterruptedException {
+        IPhysicalMemory pm = memoryManager.getPhysicalMemory();
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        long vaddr = 0x100000;
+        while (pm.getFreePages() > 16) {
+            assertTrue(space.allocateAndMap(vaddr, FLAGS));
+            vaddr += MemoryConstants.PAGE_SIZE;
+        }
+
+        reclaimer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pm.getFreePages() < pm.getTotalPages() / 16 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        reclaimer.stop();
+
+        assertTrue(pm.getFreePages() >= pm.getTotalPages() / 16);
+        assertTrue(space.getSwappedPageCount() > 0);
+        space.free();
+    }
+}
@@ -0,0 +1,75 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+
+/**
+ * 页表性能对比：{@link PageTable}（HashMap）与 {@link TwoLevelPageTable}（两级 int 数组）
+ *
+ * 不是单元测试（surefire 不会运行），手动执行：
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes jinux.mm.PageTableBenchmark
+ * </pre>
+ */
+public class PageTableBenchmark {
+
+    /** 映射的页数（与一个中等进程的常驻页数相当） */
+    private static final int MAPPED_PAGES = 4096;
+
+    /** 每轮 translate 次数 */
+    private static final int LOOKUPS = 10_000_000;
+
+    /** 预热轮数 */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /** 计时轮数 */
+    private static final int MEASURE_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        System.out.println("Page table benchmark: " + MAPPED_PAGES + " mapped pages, " +
+            LOOKUPS + " translations per round\n");
+
+        run("PageTable (HashMap)", new PageTable());
+        run("TwoLevelPageTable", new TwoLevelPageTable());
+    }
+
+    private static void run(String name, IPageTable table) {
+        long mapStart = System.nanoTime();
+        for (int i = 0; i < MAPPED_PAGES; i++) {
+            table.map(i, i + 256, MemoryConstants.DEFAULT_PAGE_FLAGS);
+        }
+        long mapNanos = System.nanoTime() - mapStart;
+
+        long checksum = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            checksum += translateLoop(table);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < MEASURE_ROUNDS; r++) {
+            long start = System.nanoTime();
+            checksum += translateLoop(table);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        long copyStart = System.nanoTime();
+        IPageTable copy = table.copy();
+        long copyNanos = System.nanoTime() - copyStart;
+
+        System.out.printf("%-22s map: %6.2f ms  translate: %6.2f ns/op  copy: %6.2f ms  (checksum %d, %d pages)%n",
+            name, mapNanos / 1e6, (double) best / LOOKUPS, copyNanos / 1e6,
+            checksum, copy.getMappedPageCount());
+    }
+
+    private static long translateLoop(IPageTable table) {
+        long sum = 0;
+        long mask = ((long) MAPPED_PAGES << MemoryConstants.PAGE_SHIFT) - 1;
+        long vaddr = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            // 步长略大于一页，覆盖所有已映射页
+            vaddr = (vaddr + MemoryConstants.PAGE_SIZE + 12) & mask;
+            sum += table.translate(vaddr);
+        }
+        return sum;
+    }
+}
@@ -139,5 +139,53 @@ public class PageTableTest {
             assertEquals(i * 10, pageTable.getPhysicalPage(i));
         }
     }
+    
+    @Test
+    void testForEachMappingAndUpdateAllFlags() {
+        pageTable.map(1, 10, PageTable.PAGE_RW);
+        pageTable.map(9000, 20, PageTable.PAGE_RW | PageTable.PAGE_USER);
+        
+        pageTable.updateAllFlags(PageTable.PAGE_RW, PageTable.PAGE_COW);
+        
+        java.util.Map<Integer, Integer> seen = new java.util.HashMap<>();
+        pageTable.forEachMapping((vpage, ppage, flags) -> {
+            seen.put(vpage, ppage);
+            assertEquals(0, flags & PageTable.PAGE_RW);
+            assertNotEquals(0, flags & PageTable.PAGE_COW);
+        });
+        
+        assertEquals(java.util.Map.of(1, 10, 9000, 20), seen);
+    }
+    
+    @Test
+    void testAccessedAndDirtyFlags() {
+        pageTable.map(1, 10, PageTable.PAGE_RW);
+        pageTable.map(2, 20, PageTable.PAGE_RW);
+        pageTable.markAccessed(1, false);
+        pageTable.markAccessed(2, true);
+        pageTable.markAccessed(3, true); // 未映射，忽略
+        
+        assertFalse(pageTable.isMapped(3));
+        assertEquals(PageTable.PAGE_ACCESSED, pageTable.testAndClearFlags(1, PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY));
+        assertEquals(0, pageTable.testAndClearFlags(1, PageTable.PAGE_ACCESSED));
+        
+        java.util.Map<Integer, Integer> seen = new java.util.HashMap<>();
+        pageTable.scanAndClearFlags(PageTable.PAGE_DIRTY, (vpage, ppage, flags) -> seen.put(vpage, flags));
+        assertEquals(java.util.Map.of(2, PageTable.PAGE_PRESENT | PageTable.PAGE_RW
+            | PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY), seen);
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_ACCESSED, pageTable.getFlags(2));
+    }
+    
+    @Test
+    void testCowPageCount() {
+        pageTable.map(1, 10, PageTable.PAGE_RW);
+        pageTable.map(2, 20, PageTable.PAGE_RW);
+        pageTable.updateAllFlags(PageTable.PAGE_RW, PageTable.PAGE_COW);
+        assertEquals(2, pageTable.getCowPageCount());
+        
+        pageTable.setFlags(1, PageTable.PAGE_PRESENT | PageTable.PAGE_RW);
+        assertEquals(1, pageTable.getCowPageCount());
+        pageTable.unmap(2);
+        assertEquals(0, pageTable.getCowPageCount());
+    }
 }
-
@@ -0,0 +1,166 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PerCpuPhysicalMemory类的单元测试
+ */
+public class PerCpuPhysicalMemoryTest {
+
+    private PerCpuPhysicalMemory physicalMemory;
+
+    @BeforeEach
+    void setUp() {
+        physicalMemory = new PerCpuPhysicalMemory(4);
+    }
+
+    @Test
+    void testAllocAndFreePage() {
+        int initialFree = physicalMemory.getFreePages();
+        int pageNo = physicalMemory.allocPage();
+
+        assertTrue(pageNo >= MemoryConstants.KERNEL_MEMORY / MemoryConstants.PAGE_SIZE);
+        assertEquals(1, physicalMemory.getPageRefCount(pageNo));
+        assertEquals(initialFree - 1, physicalMemory.getFreePages());
+
+        physicalMemory.freePage(pageNo);
+        assertEquals(0, physicalMemory.getPageRefCount(pageNo));
+        assertEquals(initialFree, physicalMemory.getFreePages());
+    }
+
+    @Test
+    void testPageRefCount() {
+        int pageNo = physicalMemory.allocPage();
+        int freeBefore = physicalMemory.getFreePages();
+
+        physicalMemory.incrementPageRef(pageNo);
+        assertEquals(2, physicalMemory.getPageRefCount(pageNo));
+
+        // 第一次释放只减少引用计数
+        physicalMemory.freePage(pageNo);
+        assertEquals(freeBefore, physicalMemory.getFreePages());
+
+        physicalMemory.freePage(pageNo);
+        assertEquals(freeBefore + 1, physicalMemory.getFreePages());
+
+        // 空闲页面不能增加引用
+        physicalMemory.incrementPageRef(pageNo);
+        assertEquals(0, physicalMemory.getPageRefCount(pageNo));
+    }
+
+    @Test
+    void testAllocatedPageIsZeroed() {
+        int pageNo = physicalMemory.allocPage();
+        long paddr = ((long) pageNo) << MemoryConstants.PAGE_SHIFT;
+        physicalMemory.writeByte(paddr, (byte) 0xFF);
+        physicalMemory.freePage(pageNo);
+
+        int newPageNo = physicalMemory.allocPage();
+        assertEquals(pageNo, newPageNo); // 本地缓存是 LIFO
+        assertEquals(0, physicalMemory.readByte(paddr));
+    }
+
+    @Test
+    void testExhaustAllPages() {
+        int free = physicalMemory.getFreePages();
+        Set<Integer> pages = new HashSet<>();
+        for (int i = 0; i < free; i++) {
+            int pageNo = physicalMemory.allocPage();
+            assertTrue(pageNo >= 0);
+            assertTrue(pages.add(pageNo), "page allocated twice: " + pageNo);
+        }
+
+        assertEquals(0, physicalMemory.getFreePages());
+        assertEquals(-1, physicalMemory.allocPage());
+
+        for (int pageNo : pages) {
+            physicalMemory.freePage(pageNo);
+        }
+        assertEquals(free, physicalMemory.getFreePages());
+    }
+
+    @Test
+    void testConcurrentAllocFree() throws InterruptedException {
+        int initialFree = physicalMemory.getFreePages();
+        int threads = 8;
+        int perThread = 200;
+        List<Set<Integer>> results = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Set<Integer> owned = new HashSet<>();
+            results.add(owned);
+            workers.add(new Thread(() -> {
+                for (int round = 0; round < 20; round++) {
+                    List<Integer> batch = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        batch.add(physicalMemory.allocPage());
+                    }
+                    // 最后一轮保留页面，用于检查没有重复分配
+                    if (round == 19) {
+                        owned.addAll(batch);
+                    } else {
+                        for (int pageNo : batch) {
+                            physicalMemory.freePage(pageNo);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Set<Integer> all = new HashSet<>();
+        for (Set<Integer> owned : results) {
+            assertEquals(perThread, owned.size());
+            for (int pageNo : owned) {
+                assertTrue(pageNo >= 0);
+                assertTrue(all.add(pageNo), "page owned by two threads: " + pageNo);
+            }
+        }
+        assertEquals(initialFree - threads * perThread, physicalMemory.getFreePages());
+    }
+
+    @Test
+    void testMemoryManagerWithPerCpuBackend() {
+        MemoryManager memoryManager = new MemoryManager(physicalMemory);
+        assertSame(physicalMemory, memoryManager.getPhysicalMemory());
+
+        IAddressSpace addressSpace = memoryManager.createAddressSpace();
+        assertTrue(addressSpace.allocateAndMap(0x1000, MemoryConstants.DEFAULT_PAGE_FLAGS));
+        addressSpace.writeByte(0x1000, (byte) 0x5A);
+        assertEquals((byte) 0x5A, addressSpace.readByte(0x1000));
+    }
+
+    @Test
+    void testCopyPage() {
+        int src = physicalMemory.allocPage();
+        int dst = physicalMemory.allocPage();
+        long srcAddr = (long) src << MemoryConstants.PAGE_SHIFT;
+        long dstAddr = (long) dst << MemoryConstants.PAGE_SHIFT;
+        byte[] data = new byte[MemoryConstants.PAGE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        physicalMemory.writeBytes(srcAddr, data, 0, data.length);
+
+        physicalMemory.copyPage(src, dst);
+
+        byte[] copied = new byte[MemoryConstants.PAGE_SIZE];
+        physicalMemory.readBytes(dstAddr, copied, 0, copied.length);
+        assertArrayEquals(data, copied);
+        assertThrows(IndexOutOfBoundsException.class, () -> physicalMemory.copyPage(src, -1));
+    }
+}
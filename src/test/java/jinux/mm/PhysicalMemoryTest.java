@@ -128,5 +128,24 @@ public class PhysicalMemoryTest {
         
         assertEquals(initialFree, physicalMemory.getFreePages());
     }
-}
 
+    @Test
+    void testCopyPage() {
+        int src = physicalMemory.allocPage();
+        int dst = physicalMemory.allocPage();
+        long srcAddr = (long) src << MemoryConstants.PAGE_SHIFT;
+        long dstAddr = (long) dst << MemoryConstants.PAGE_SHIFT;
+        byte[] data = new byte[MemoryConstants.PAGE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        physicalMemory.writeBytes(srcAddr, data, 0, data.length);
+
+        physicalMemory.copyPage(src, dst);
+
+        byte[] copied = new byte[MemoryConstants.PAGE_SIZE];
+        physicalMemory.readBytes(dstAddr, copied, 0, copied.length);
+        assertArrayEquals(data, copied);
+        assertThrows(IndexOutOfBoundsException.class, () -> physicalMemory.copyPage(src, -1));
+    }
+}
@@ -0,0 +1,108 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SamePageMerger（KSM）的单元测试
+ */
+public class SamePageMergerTest {
+
+    private static final int FLAGS = MemoryConstants.DEFAULT_PAGE_FLAGS;
+    private static final long BASE = 0x100000;
+    private static final int PAGES = 8;
+
+    private MemoryManager memoryManager;
+    private IPhysicalMemory pm;
+    private SamePageMerger merger;
+
+    @BeforeEach
+    void setUp() {
+        memoryManager = new MemoryManager();
+        pm = memoryManager.getPhysicalMemory();
+        merger = memoryManager.enableKsm();
+    }
+
+    /**
+     * 创建地址空间，第 i 页写入 value + i
+     */
+    private AddressSpace createSpace(int value) {
+        AddressSpace space = (AddressSpace) memoryManager.createAddressSpace();
+        for (int i = 0; i < PAGES; i++) {
+            long vaddr = BASE + (long) i * MemoryConstants.PAGE_SIZE;
+            assertTrue(space.allocateAndMap(vaddr, FLAGS));
+            space.writeByte(vaddr + 10, (byte) (value + i));
+        }
+        return space;
+    }
+
+    @Test
+    void testIdenticalPagesAreMerged() {
+        AddressSpace a = createSpace(1);
+        AddressSpace b = createSpace(1);
+        AddressSpace c = createSpace(100);
+        int freeBefore = pm.getFreePages();
+
+        // 第一轮只记录校验和，内容稳定后第二轮才合并
+        assertEquals(0, merger.scan());
+        assertEquals(PAGES, merger.scan());
+        assertEquals(PAGES, merger.getPagesShared());
+        assertEquals(PAGES, merger.getPagesSaved());
+        assertEquals(freeBefore + PAGES, pm.getFreePages());
+
+        int vpage = (int) (BASE >> MemoryConstants.PAGE_SHIFT);
+        assertEquals(a.getPageTable().getPhysicalPage(vpage), b.getPageTable().getPhysicalPage(vpage));
+        assertNotEquals(a.getPageTable().getPhysicalPage(vpage), c.getPageTable().getPhysicalPage(vpage));
+        int flags = a.getPageTable().getFlags(vpage);
+        assertEquals(0, flags & PageTable.PAGE_RW);
+        assertNotEquals(0, flags & PageTable.PAGE_COW);
+
+        // 写入触发写时复制，另一方内容不变
+        b.writeByte(BASE + 10, (byte) 42);
+        assertEquals(42, b.readByte(BASE + 10));
+        assertEquals(1, a.readByte(BASE + 10));
+        assertNotEquals(a.getPageTable().getPhysicalPage(vpage), b.getPageTable().getPhysicalPage(vpage));
+
+        a.free();
+        b.free();
+        c.free();
+    }
+
+    @Test
+    void testChangingPagesAreNotMerged() {
+        AddressSpace a = createSpace(1);
+        AddressSpace b = createSpace(1);
+
+        merger.scan();
+        // 两轮之间内容变化的页不稳定，跳过
+        for (int i = 0; i < PAGES; i++) {
+            long vaddr = BASE + (long) i * MemoryConstants.PAGE_SIZE;
+            a.writeByte(vaddr + 20, (byte) 7);
+            b.writeByte(vaddr + 20, (byte) 7);
+        }
+        assertEquals(0, merger.scan());
+        assertEquals(PAGES, merger.scan());
+
+        a.free();
+        b.free();
+    }
+
+    @Test
+    void testKsmPagesReleasedWhenUnmapped() {
+        int freeBefore = pm.getFreePages();
+        AddressSpace a = createSpace(1);
+        AddressSpace b = createSpace(1);
+        merger.scan();
+        merger.scan();
+        assertEquals(PAGES, merger.getPagesShared());
+
+        a.free();
+        b.free();
+        merger.scan();
+        assertEquals(0, merger.getPagesShared());
+        assertEquals(0, merger.getPagesSaved());
+        assertEquals(freeBefore, pm.getFreePages());
+    }
+}
@@ -0,0 +1,185 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SoftwareTlb类的单元测试
+ */
+public class SoftwareTlbTest {
+
+    private static final int FLAGS = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
+
+    private MemoryManager memoryManager;
+    private AddressSpace addressSpace;
+
+    @BeforeEach
+    void setUp() {
+        memoryManager = new MemoryManager();
+        addressSpace = (AddressSpace) memoryManager.createAddressSpace();
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        SoftwareTlb tlb = new SoftwareTlb(16);
+        TwoLevelPageTable pageTable = new TwoLevelPageTable();
+        pageTable.map(3, 42, FLAGS);
+
+        long vaddr = (3L << MemoryConstants.PAGE_SHIFT) + 17;
+        long expected = (42L << MemoryConstants.PAGE_SHIFT) + 17;
+
+        assertEquals(expected, tlb.translate(vaddr, pageTable));
+        assertEquals(expected, tlb.translate(vaddr, pageTable));
+        assertEquals(expected + 1, tlb.translate(vaddr + 1, pageTable));
+        assertEquals(1, tlb.getMisses());
+        assertEquals(2, tlb.getHits());
+
+        // 未映射的地址不进入 TLB
+        assertEquals(-1, tlb.translate(0x9000, pageTable));
+        assertEquals(-1, tlb.translate(0x9000, pageTable));
+        assertEquals(3, tlb.getMisses());
+    }
+
+    @Test
+    void testWritePermissionCachedInEntry() {
+        SoftwareTlb tlb = new SoftwareTlb(16);
+        int[] permissionChecks = new int[1];
+        TwoLevelPageTable pageTable = new TwoLevelPageTable() {
+            @Override
+            public boolean checkPermission(int virtualPage, int requiredFlags) {
+                permissionChecks[0]++;
+                return super.checkPermission(virtualPage, requiredFlags);
+            }
+        };
+        pageTable.map(3, 42, FLAGS);
+        pageTable.map(4, 43, PageTable.PAGE_PRESENT | PageTable.PAGE_USER);
+        long writable = 3L << MemoryConstants.PAGE_SHIFT;
+        long readOnly = 4L << MemoryConstants.PAGE_SHIFT;
+
+        // 只有未命中时查页表的写权限，命中的写访问使用表项中的 RW 位
+        assertEquals(42L << MemoryConstants.PAGE_SHIFT, tlb.translate(writable, pageTable, true));
+        for (int i = 0; i < 10; i++) {
+            assertEquals((42L << MemoryConstants.PAGE_SHIFT) + i, tlb.translate(writable + i, pageTable, true));
+        }
+        assertEquals(1, permissionChecks[0]);
+
+        // 只读页：读访问正常命中，写访问返回 -1（缺页），且不置位 DIRTY
+        assertEquals(-1, tlb.translate(readOnly, pageTable, true));
+        assertEquals(43L << MemoryConstants.PAGE_SHIFT, tlb.translate(readOnly, pageTable, false));
+        assertEquals(-1, tlb.translate(readOnly, pageTable, true));
+        assertEquals(2, permissionChecks[0]);
+        assertEquals(0, pageTable.getFlags(4) & PageTable.PAGE_DIRTY);
+    }
+
+    @Test
+    void testSizeRoundsUpToPowerOfTwo() {
+        assertEquals(16, new SoftwareTlb(10).size());
+        assertEquals(1, new SoftwareTlb(0).size());
+    }
+
+    @Test
+    void testInvalidateOnRemap() {
+        long vaddr = 0x1000;
+        assertTrue(addressSpace.allocateAndMap(vaddr, FLAGS));
+        addressSpace.writeByte(vaddr, (byte) 0x11);
+        assertEquals((byte) 0x11, addressSpace.readByte(vaddr));
+
+        // 直接通过页表把该虚拟页改映射到另一个物理页
+        int newPpage = memoryManager.allocatePage();
+        addressSpace.getPageTable().map(1, newPpage, FLAGS);
+        assertEquals(0, addressSpace.readByte(vaddr));
+
+        addressSpace.getPageTable().unmap(1);
+        assertThrows(AddressSpace.PageFaultException.class, () -> addressSpace.readByte(vaddr));
+    }
+
+    @Test
+    void testInvalidateOnCowBreak() {
+        long vaddr = 0x4000;
+        assertTrue(addressSpace.allocateAndMap(vaddr, FLAGS));
+        addressSpace.writeByte(vaddr, (byte) 0x42);
+
+        IAddressSpace child = addressSpace.copy();
+        // 先读，使两个 TLB 都缓存共享物理页
+        assertEquals((byte) 0x42, child.readByte(vaddr));
+        assertEquals((byte) 0x42, addressSpace.readByte(vaddr));
+
+        // 子进程写入触发 COW，子进程 TLB 必须指向新页，父进程不受影响
+        child.writeByte(vaddr, (byte) 0x24);
+        assertEquals((byte) 0x24, child.readByte(vaddr));
+        assertEquals((byte) 0x42, addressSpace.readByte(vaddr));
+    }
+
+    @Test
+    void testFlushOnFree() {
+        long vaddr = 0x5000;
+        assertTrue(addressSpace.allocateAndMap(vaddr, FLAGS));
+        addressSpace.readByte(vaddr);
+
+        addressSpace.free();
+        assertThrows(AddressSpace.PageFaultException.class, () -> addressSpace.readByte(vaddr));
+    }
+
+    @Test
+    void testDisabledTlb() {
+        AddressSpace noTlb = new AddressSpace(memoryManager, new TwoLevelPageTable(), 0);
+        assertNull(noTlb.getTlb());
+        assertTrue(noTlb.allocateAndMap(0x1000, FLAGS));
+        noTlb.writeByte(0x1000, (byte) 7);
+        assertEquals((byte) 7, noTlb.readByte(0x1000));
+    }
+
+    @Test
+    void testHugeEntryCoversWholeHugePage() {
+        SoftwareTlb tlb = new SoftwareTlb(16);
+        TwoLevelPageTable pageTable = new TwoLevelPageTable();
+        int vpage = MemoryConstants.HUGE_PAGE_PAGES;
+        pageTable.mapHuge(vpage, 0, FLAGS);
+
+        // 一次未命中之后，大页内任意页都由同一个大页表项命中
+        for (int i = 0; i < MemoryConstants.HUGE_PAGE_PAGES; i += 64) {
+            long vaddr = (long) (vpage + i) << MemoryConstants.PAGE_SHIFT;
+            assertEquals((long) i << MemoryConstants.PAGE_SHIFT, tlb.translate(vaddr, pageTable));
+        }
+        assertEquals(1, tlb.getMisses());
+        assertEquals(MemoryConstants.HUGE_PAGE_PAGES / 64 - 1, tlb.getHits());
+
+        // 使大页内任意一页失效都会丢弃大页表项
+        pageTable.map(vpage + 1, 42, FLAGS);
+        tlb.invalidate(vpage + 1);
+        assertEquals(42L << MemoryConstants.PAGE_SHIFT,
+            tlb.translate((long) (vpage + 1) << MemoryConstants.PAGE_SHIFT, pageTable));
+        assertEquals(2, tlb.getMisses());
+    }
+
+    @Test
+    void testAccessesSetAccessedAndDirtyFlags() {
+        long vaddr = 0x7000;
+        int vpage = (int) (vaddr >> MemoryConstants.PAGE_SHIFT);
+        assertTrue(addressSpace.allocateAndMap(vaddr, FLAGS));
+        IPageTable pageTable = addressSpace.getPageTable();
+        assertEquals(FLAGS, pageTable.getFlags(vpage));
+
+        // 读访问填充 TLB 时置位 ACCESSED
+        addressSpace.readByte(vaddr);
+        assertEquals(FLAGS | PageTable.PAGE_ACCESSED, pageTable.getFlags(vpage));
+
+        // 命中读表项的首次写访问置位 DIRTY
+        long misses = addressSpace.getTlb().getMisses();
+        addressSpace.writeByte(vaddr + 1, (byte) 1);
+        assertEquals(misses, addressSpace.getTlb().getMisses());
+        assertEquals(FLAGS | PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY, pageTable.getFlags(vpage));
+
+        // 清除后 TLB 表项失效，下一次访问重新置位
+        int old = pageTable.testAndClearFlags(vpage, PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY);
+        assertEquals(PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY, old);
+        addressSpace.readByte(vaddr);
+        assertEquals(FLAGS | PageTable.PAGE_ACCESSED, pageTable.getFlags(vpage));
+
+        pageTable.scanAndClearFlags(PageTable.PAGE_ACCESSED, (v, p, f) -> { });
+        addressSpace.writeByte(vaddr, (byte) 2);
+        assertEquals(FLAGS | PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY, pageTable.getFlags(vpage));
+    }
+}
@@ -0,0 +1,308 @@
+package jinux.mm;
+
+import jinux.include.MemoryConstants;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TwoLevelPageTable类的单元测试
+ */
+public class TwoLevelPageTableTest {
+
+    private TwoLevelPageTable pageTable;
+
+    @BeforeEach
+    void setUp() {
+        pageTable = new TwoLevelPageTable();
+    }
+
+    @Test
+    void testMapAndTranslate() {
+        int vpage = 5;
+        int ppage = 50;
+        int offset = 0x123;
+
+        pageTable.map(vpage, ppage, PageTable.PAGE_RW);
+
+        assertTrue(pageTable.isMapped(vpage));
+        assertEquals(ppage, pageTable.getPhysicalPage(vpage));
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_RW, pageTable.getFlags(vpage));
+
+        long vaddr = ((long) vpage << MemoryConstants.PAGE_SHIFT) | offset;
+        long expected = ((long) ppage << MemoryConstants.PAGE_SHIFT) | offset;
+        assertEquals(expected, pageTable.translate(vaddr));
+        assertEquals(-1, pageTable.translate(0x1000));
+        assertEquals(-1, pageTable.translate(-1));
+    }
+
+    @Test
+    void testMapPageZero() {
+        // 物理页 0 + 无标志的映射也必须能与"未映射"区分
+        pageTable.map(7, 0, 0);
+        pageTable.setFlags(7, 0);
+        assertTrue(pageTable.isMapped(7));
+        assertEquals(0, pageTable.getPhysicalPage(7));
+        assertEquals(0, pageTable.getFlags(7));
+    }
+
+    @Test
+    void testUnmap() {
+        pageTable.map(20, 200, PageTable.PAGE_PRESENT);
+        pageTable.map(21, 201, PageTable.PAGE_PRESENT);
+        assertEquals(2, pageTable.getMappedPageCount());
+
+        pageTable.unmap(20);
+        pageTable.unmap(20);
+        assertFalse(pageTable.isMapped(20));
+        assertEquals(-1, pageTable.getPhysicalPage(20));
+        assertNull(pageTable.getFlags(20));
+        assertEquals(1, pageTable.getMappedPageCount());
+        assertEquals(201, pageTable.getPhysicalPage(21));
+    }
+
+    @Test
+    void testRemapDoesNotChangeCount() {
+        pageTable.map(3, 30, PageTable.PAGE_PRESENT);
+        pageTable.map(3, 31, PageTable.PAGE_RW);
+        assertEquals(1, pageTable.getMappedPageCount());
+        assertEquals(31, pageTable.getPhysicalPage(3));
+    }
+
+    @Test
+    void testSetFlagsKeepsMapping() {
+        int flags = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
+        pageTable.map(30, 300, flags);
+
+        int cowFlags = (flags & ~PageTable.PAGE_RW) | PageTable.PAGE_COW;
+        pageTable.setFlags(30, cowFlags);
+
+        assertEquals(300, pageTable.getPhysicalPage(30));
+        assertEquals(cowFlags, pageTable.getFlags(30));
+        assertFalse(pageTable.checkPermission(30, PageTable.PAGE_RW));
+        assertTrue(pageTable.checkPermission(30, PageTable.PAGE_COW | PageTable.PAGE_USER));
+
+        // 未映射的页设置标志应被忽略
+        pageTable.setFlags(31, flags);
+        assertFalse(pageTable.isMapped(31));
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        pageTable.map(1, 10, PageTable.PAGE_PRESENT);
+        pageTable.map(5000, 20, PageTable.PAGE_PRESENT);
+
+        IPageTable copied = pageTable.copy();
+        assertEquals(2, copied.getMappedPageCount());
+        assertEquals(10, copied.getPhysicalPage(1));
+        assertEquals(20, copied.getPhysicalPage(5000));
+
+        copied.unmap(1);
+        assertTrue(pageTable.isMapped(1));
+    }
+
+    @Test
+    void testClear() {
+        for (int i = 0; i < 3000; i += 7) {
+            pageTable.map(i, i, PageTable.PAGE_PRESENT);
+        }
+        pageTable.clear();
+        assertEquals(0, pageTable.getMappedPageCount());
+        assertFalse(pageTable.isMapped(7));
+    }
+
+    @Test
+    void testOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+            () -> pageTable.map(TwoLevelPageTable.MAX_VPAGES, 1, PageTable.PAGE_PRESENT));
+        assertFalse(pageTable.isMapped(-1));
+        assertFalse(pageTable.isMapped(TwoLevelPageTable.MAX_VPAGES));
+    }
+
+    @Test
+    void testForEachMappingVisitsOnlyMappedPages() {
+        pageTable.map(2, 20, PageTable.PAGE_RW);
+        pageTable.map(1500, 30, PageTable.PAGE_RW | PageTable.PAGE_USER);
+        pageTable.map(70000, 40, PageTable.PAGE_RW);
+        pageTable.unmap(1500);
+
+        List<int[]> visited = new ArrayList<>();
+        pageTable.forEachMapping((vpage, ppage, flags) -> visited.add(new int[] {vpage, ppage, flags}));
+
+        assertEquals(2, visited.size());
+        assertArrayEquals(new int[] {2, 20, PageTable.PAGE_PRESENT | PageTable.PAGE_RW}, visited.get(0));
+        assertArrayEquals(new int[] {70000, 40, PageTable.PAGE_PRESENT | PageTable.PAGE_RW}, visited.get(1));
+    }
+
+    @Test
+    void testUpdateAllFlags() {
+        int flags = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
+        pageTable.map(4, 44, flags);
+        pageTable.map(4096, 45, flags);
+
+        pageTable.updateAllFlags(PageTable.PAGE_RW, PageTable.PAGE_COW);
+
+        int cowFlags = PageTable.PAGE_PRESENT | PageTable.PAGE_USER | PageTable.PAGE_COW;
+        assertEquals(cowFlags, pageTable.getFlags(4));
+        assertEquals(cowFlags, pageTable.getFlags(4096));
+        assertEquals(45, pageTable.getPhysicalPage(4096));
+    }
+
+    @Test
+    void testMapHugeTranslatesWholeRange() {
+        int vpage = 3 * MemoryConstants.HUGE_PAGE_PAGES;
+        int ppage = 2 * MemoryConstants.HUGE_PAGE_PAGES;
+
+        pageTable.mapHuge(vpage, ppage, PageTable.PAGE_RW);
+
+        assertEquals(1, pageTable.getHugeMappingCount());
+        assertEquals(MemoryConstants.HUGE_PAGE_PAGES, pageTable.getMappedPageCount());
+        assertTrue(pageTable.isHugeMapped(vpage + 100));
+        assertEquals(ppage + 100, pageTable.getPhysicalPage(vpage + 100));
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_HUGE,
+            pageTable.getFlags(vpage + MemoryConstants.HUGE_PAGE_PAGES - 1));
+
+        long vaddr = ((long) (vpage + 7) << MemoryConstants.PAGE_SHIFT) | 0x55;
+        assertEquals(((long) (ppage + 7) << MemoryConstants.PAGE_SHIFT) | 0x55, pageTable.translate(vaddr));
+        assertFalse(pageTable.isMapped(vpage + MemoryConstants.HUGE_PAGE_PAGES));
+
+        List<Integer> visited = new ArrayList<>();
+        pageTable.forEachMapping((v, p, f) -> visited.add(p - v));
+        assertEquals(MemoryConstants.HUGE_PAGE_PAGES, visited.size());
+        assertTrue(visited.stream().allMatch(d -> d == ppage - vpage));
+    }
+
+    @Test
+    void testMapHugeRequiresAlignment() {
+        assertThrows(IllegalArgumentException.class, () -> pageTable.mapHuge(1, 0, PageTable.PAGE_RW));
+        assertThrows(IllegalArgumentException.class,
+            () -> pageTable.mapHuge(MemoryConstants.HUGE_PAGE_PAGES, 1, PageTable.PAGE_RW));
+    }
+
+    @Test
+    void testModifyingHugePageSplitsIt() {
+        int vpage = MemoryConstants.HUGE_PAGE_PAGES;
+        int ppage = MemoryConstants.HUGE_PAGE_PAGES;
+        pageTable.mapHuge(vpage, ppage, PageTable.PAGE_RW);
+
+        pageTable.setFlags(vpage + 1, PageTable.PAGE_PRESENT);
+        pageTable.unmap(vpage + 2);
+        pageTable.map(vpage + 3, 9, PageTable.PAGE_RW);
+
+        assertEquals(0, pageTable.getHugeMappingCount());
+        assertFalse(pageTable.isHugeMapped(vpage));
+        assertEquals(MemoryConstants.HUGE_PAGE_PAGES - 1, pageTable.getMappedPageCount());
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_RW, pageTable.getFlags(vpage));
+        assertEquals(ppage, pageTable.getPhysicalPage(vpage));
+        assertEquals(PageTable.PAGE_PRESENT, pageTable.getFlags(vpage + 1));
+        assertFalse(pageTable.isMapped(vpage + 2));
+        assertEquals(9, pageTable.getPhysicalPage(vpage + 3));
+        assertEquals(ppage + 4, pageTable.getPhysicalPage(vpage + 4));
+    }
+
+    @Test
+    void testHugeMappingCopyAndUpdateFlags() {
+        int vpage = MemoryConstants.HUGE_PAGE_PAGES;
+        pageTable.mapHuge(vpage, 0, PageTable.PAGE_RW);
+
+        pageTable.updateAllFlags(PageTable.PAGE_RW, PageTable.PAGE_COW);
+        IPageTable copy = pageTable.copy();
+        pageTable.clear();
+
+        assertEquals(1, copy.getHugeMappingCount());
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_COW | PageTable.PAGE_HUGE, copy.getFlags(vpage + 5));
+        assertEquals(0, pageTable.getMappedPageCount());
+        assertFalse(pageTable.isMapped(vpage));
+    }
+
+    @Test
+    void testAccessedAndDirtyFlags() {
+        int flags = PageTable.PAGE_PRESENT | PageTable.PAGE_RW;
+        pageTable.map(4, 44, flags);
+        pageTable.map(5, 45, flags);
+        pageTable.markAccessed(4, false);
+        pageTable.markAccessed(5, true);
+        pageTable.markAccessed(6, true); // 未映射，不会凭空建立表项
+
+        assertFalse(pageTable.isMapped(6));
+        assertEquals(2, pageTable.getMappedPageCount());
+        assertEquals(flags | PageTable.PAGE_ACCESSED, pageTable.getFlags(4));
+        assertEquals(flags | PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY, pageTable.getFlags(5));
+
+        assertEquals(PageTable.PAGE_ACCESSED, pageTable.testAndClearFlags(4, PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY));
+        assertEquals(flags, pageTable.getFlags(4));
+        assertEquals(44, pageTable.getPhysicalPage(4));
+        assertEquals(0, pageTable.testAndClearFlags(6, PageTable.PAGE_ACCESSED));
+
+        List<Integer> dirty = new ArrayList<>();
+        pageTable.scanAndClearFlags(PageTable.PAGE_DIRTY, (v, p, f) -> {
+            assertNotEquals(0, f & PageTable.PAGE_DIRTY);
+            dirty.add(v);
+        });
+        assertEquals(List.of(5), dirty);
+        assertEquals(flags | PageTable.PAGE_ACCESSED, pageTable.getFlags(5));
+    }
+
+    @Test
+    void testSetFlagsKeepsConcurrentAccessedAndDirty() {
+        int flags = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
+        pageTable.map(4, 44, flags);
+        int read = pageTable.getFlags(4);
+
+        // getFlags 与 setFlags 之间访问路径置位 A/D（如 fork 写保护时另一个线程正在写入）
+        pageTable.markAccessed(4, true);
+        pageTable.setFlags(4, (read & ~PageTable.PAGE_RW) | PageTable.PAGE_COW);
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_USER | PageTable.PAGE_COW
+            | PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY, pageTable.getFlags(4));
+        assertEquals(44, pageTable.getPhysicalPage(4));
+        assertEquals(1, pageTable.getCowPageCount());
+
+        // HashMap 页表的语义相同
+        PageTable hashed = new PageTable();
+        hashed.map(4, 44, flags);
+        hashed.markAccessed(4, true);
+        hashed.setFlags(4, flags & ~PageTable.PAGE_RW);
+        assertEquals(PageTable.PAGE_PRESENT | PageTable.PAGE_USER | PageTable.PAGE_ACCESSED | PageTable.PAGE_DIRTY,
+            hashed.getFlags(4));
+    }
+
+    @Test
+    void testAccessedAndDirtyFlagsOnHugePage() {
+        int vpage = MemoryConstants.HUGE_PAGE_PAGES;
+        pageTable.mapHuge(vpage, 0, PageTable.PAGE_RW);
+
+        // 大页的 A/D 按整个大页记录，不拆分
+        pageTable.markAccessed(vpage + 9, true);
+        assertEquals(1, pageTable.getHugeMappingCount());
+        assertNotEquals(0, pageTable.getFlags(vpage) & PageTable.PAGE_DIRTY);
+
+        List<Integer> visited = new ArrayList<>();
+        pageTable.scanAndClearFlags(PageTable.PAGE_ACCESSED, (v, p, f) -> visited.add(v));
+        assertEquals(MemoryConstants.HUGE_PAGE_PAGES, visited.size());
+        assertEquals(0, pageTable.testAndClearFlags(vpage + 9, PageTable.PAGE_ACCESSED));
+        assertEquals(PageTable.PAGE_DIRTY, pageTable.testAndClearFlags(vpage + 9, PageTable.PAGE_DIRTY));
+        assertEquals(1, pageTable.getHugeMappingCount());
+    }
+
+    @Test
+    void testCowPageCount() {
+        int flags = PageTable.PAGE_PRESENT | PageTable.PAGE_RW;
+        pageTable.map(4, 44, flags);
+        pageTable.map(5, 45, flags);
+        pageTable.mapHuge(MemoryConstants.HUGE_PAGE_PAGES, 0, flags);
+
+        pageTable.updateAllFlags(PageTable.PAGE_RW, PageTable.PAGE_COW);
+        assertEquals(2 + MemoryConstants.HUGE_PAGE_PAGES, pageTable.getCowPageCount());
+        assertEquals(2 + MemoryConstants.HUGE_PAGE_PAGES, pageTable.copy().getCowPageCount());
+
+        pageTable.setFlags(4, flags);
+        pageTable.unmap(5);
+        pageTable.unmap(MemoryConstants.HUGE_PAGE_PAGES + 1); // 拆分大页后取消一页
+        assertEquals(MemoryConstants.HUGE_PAGE_PAGES - 1, pageTable.getCowPageCount());
+
+        pageTable.mapHuge(MemoryConstants.HUGE_PAGE_PAGES, 0, flags);
+        assertEquals(0, pageTable.getCowPageCount());
+    }
+}
@@ -0,0 +1,103 @@
+package jinux.mm;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VmAreaTree类的单元测试
+ */
+public class VmAreaTreeTest {
+
+    private static final int FLAGS = PageTable.PAGE_PRESENT | PageTable.PAGE_RW | PageTable.PAGE_USER;
+
+    private VmAreaTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new VmAreaTree();
+    }
+
+    @Test
+    void testInsertAndFind() {
+        VmArea a = new VmArea(0x1000, 0x3000, FLAGS, "a");
+        VmArea b = new VmArea(0x8000, 0x9000, FLAGS, "b");
+        assertTrue(tree.insert(a));
+        assertTrue(tree.insert(b));
+
+        assertSame(a, tree.find(0x1000));
+        assertSame(a, tree.find(0x2FFF));
+        assertNull(tree.find(0x3000));
+        assertNull(tree.find(0x0FFF));
+        assertSame(b, tree.find(0x8800));
+        assertNull(tree.find(0x9000));
+        assertEquals(2, tree.size());
+    }
+
+    @Test
+    void testRejectOverlap() {
+        assertTrue(tree.insert(new VmArea(0x2000, 0x4000, FLAGS, "a")));
+        assertFalse(tree.insert(new VmArea(0x3000, 0x5000, FLAGS, "b")));
+        assertFalse(tree.insert(new VmArea(0x1000, 0x3000, FLAGS, "c")));
+        assertFalse(tree.insert(new VmArea(0x1000, 0x6000, FLAGS, "d")));
+        assertTrue(tree.insert(new VmArea(0x4000, 0x5000, FLAGS, "e")));
+        assertEquals(2, tree.size());
+    }
+
+    @Test
+    void testOverlapsIgnoresGivenArea() {
+        VmArea heap = new VmArea(0x1000, 0x2000, FLAGS, "[heap]");
+        tree.insert(heap);
+        tree.insert(new VmArea(0x5000, 0x6000, FLAGS, "anon"));
+
+        assertFalse(tree.overlaps(0x1000, 0x5000, heap));
+        assertTrue(tree.overlaps(0x1000, 0x5001, heap));
+        assertTrue(tree.overlaps(0x1800, 0x1900, null));
+    }
+
+    @Test
+    void testRemoveRangeSplits() {
+        tree.insert(new VmArea(0x1000, 0x5000, FLAGS, "a"));
+        tree.insert(new VmArea(0x6000, 0x8000, FLAGS, "b"));
+
+        List<VmArea> removed = tree.removeRange(0x3000, 0x7000);
+        assertEquals(2, removed.size());
+        assertEquals(0x3000, removed.get(0).getStart());
+        assertEquals(0x5000, removed.get(0).getEnd());
+        assertEquals(0x6000, removed.get(1).getStart());
+        assertEquals(0x7000, removed.get(1).getEnd());
+
+        assertEquals(0x3000, tree.find(0x1000).getEnd());
+        assertNull(tree.find(0x3000));
+        assertNull(tree.find(0x6000));
+        assertEquals(0x7000, tree.find(0x7000).getStart());
+        assertEquals("b", tree.find(0x7000).getName());
+    }
+
+    @Test
+    void testFindFreeAreaTopDown() {
+        long high = 0x100000;
+        assertEquals(high - 0x2000, tree.findFreeArea(0x2000, 0x1000, high));
+
+        tree.insert(new VmArea(high - 0x2000, high, FLAGS, "a"));
+        tree.insert(new VmArea(high - 0x5000, high - 0x3000, FLAGS, "b"));
+        // 0x1000 的空洞放得下一页
+        assertEquals(high - 0x3000, tree.findFreeArea(0x1000, 0x1000, high));
+        // 两页需要跳过空洞
+        assertEquals(high - 0x7000, tree.findFreeArea(0x2000, 0x1000, high));
+        assertEquals(-1, tree.findFreeArea(high, 0x1000, high));
+    }
+
+    @Test
+    void testSparseAddressSpace() {
+        // 大量互不相邻的区域，查找仍然正确
+        for (int i = 0; i < 10000; i++) {
+            long start = (long) i * 0x10000;
+            assertTrue(tree.insert(new VmArea(start, start + 0x1000, FLAGS, "r" + i)));
+        }
+        assertEquals(10000, tree.size());
+        assertEquals(5000L * 0x10000, tree.find(5000L * 0x10000 + 0x800).getStart());
+        assertNull(tree.find(5000L * 0x10000 + 0x1000));
+    }
+}